@@ -18,6 +18,16 @@ android {
         versionName = "1.0"
 
         testInstrumentationRunner = "androidx.test.runner.AndroidJUnitRunner"
+
+        // Backend for REST and the socket, without a trailing slash. Override to run against
+        // :fakeserver on the host: ./gradlew installDebug -PserverUrl=http://10.0.2.2:8080
+        val serverUrl = project.findProperty("serverUrl")?.toString()
+            ?: "https://e1e5-2a0d-b201-5000-ed50-798f-23b3-80ea-24f5.ngrok-free.app"
+        buildConfigField("String", "SERVER_URL", "\"$serverUrl\"")
+    }
+
+    buildFeatures {
+        buildConfig = true
     }
 
     buildTypes {
@@ -38,6 +48,13 @@ android {
 dependencies {
     implementation("de.hdodenhof:circleimageview:3.1.0")
     implementation("com.github.bumptech.glide:glide:4.16.0")
+    // Glide через общий OkHttp из ApiClient
+    implementation("com.github.bumptech.glide:okhttp3-integration:4.16.0")
+    // RecyclerViewPreloader; без транзитивных, чтобы не тянуть старый recyclerview
+    implementation("com.github.bumptech.glide:recyclerview-integration:4.16.0") {
+        isTransitive = false
+    }
+    annotationProcessor("com.github.bumptech.glide:compiler:4.16.0")
     // Retrofit для REST API
     implementation("com.squareup.retrofit2:retrofit:2.9.0")
     implementation("com.squareup.retrofit2:converter-gson:2.9.0")
@@ -1,5 +1,9 @@
 package com.roxy.messengerapp.activities;
 
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
 import android.os.Bundle;
 
 import androidx.annotation.NonNull;
@@ -8,10 +12,15 @@ import androidx.navigation.NavController;
 import androidx.navigation.NavGraph;
 import androidx.navigation.fragment.NavHostFragment;
 
+import com.roxy.messengerapp.BuildConfig;
 import com.roxy.messengerapp.R;
+import com.roxy.messengerapp.database.LocalStore;
 import com.roxy.messengerapp.network.ApiClient;
+import com.roxy.messengerapp.network.ConnectionManager;
 import com.roxy.messengerapp.network.SocketManager;
+import com.roxy.messengerapp.network.SocketTraceReplayer;
 import com.roxy.messengerapp.network.ApiService;
+import com.roxy.messengerapp.utils.TimeFormatter;
 import android.content.pm.PackageManager;
 import android.os.Build;
 import android.Manifest;
@@ -21,12 +30,30 @@ import com.google.android.gms.tasks.OnCompleteListener;
 import com.google.android.gms.tasks.Task;
 import com.google.firebase.messaging.FirebaseMessaging;
 
+import java.io.File;
+import java.io.IOException;
+
 import retrofit2.Call;
 import retrofit2.Callback;
 import retrofit2.Response;
 
 public class MainActivity extends AppCompatActivity {
 
+    // Debug builds, see startSocketTrace()
+    public static final String EXTRA_CAPTURE_TRACE = "capture_trace";
+    public static final String EXTRA_REPLAY_TRACE = "replay_trace";
+    public static final String EXTRA_REPLAY_SPEED = "replay_speed";
+    // Chat list loaded and subscribed before the replayed events arrive
+    private static final long REPLAY_DELAY_MS = 2000;
+
+    // Кэшированные строки времени сообщений зависят от локали и часового пояса
+    private final BroadcastReceiver timeFormatReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            TimeFormatter.invalidate();
+        }
+    };
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -34,6 +61,8 @@ public class MainActivity extends AppCompatActivity {
 
         // Инициализируем API клиент (загружает токен)
         ApiClient.init(this);
+        LocalStore.init(this);
+        ConnectionManager.getInstance().init(this);
 
         NavHostFragment navHostFragment = (NavHostFragment) getSupportFragmentManager()
                 .findFragmentById(R.id.nav_host_fragment);
@@ -52,8 +81,39 @@ public class MainActivity extends AppCompatActivity {
             navController.setGraph(navGraph);
         }
 
+        IntentFilter timeFilter = new IntentFilter();
+        timeFilter.addAction(Intent.ACTION_TIMEZONE_CHANGED);
+        timeFilter.addAction(Intent.ACTION_LOCALE_CHANGED);
+        ContextCompat.registerReceiver(this, timeFormatReceiver, timeFilter, ContextCompat.RECEIVER_NOT_EXPORTED);
+
         askNotificationPermission();
         logFcmToken();
+
+        if (BuildConfig.DEBUG && savedInstanceState == null) {
+            startSocketTrace(getIntent());
+        }
+    }
+
+    // Запись и повтор трафика сокета, файлы в getExternalFilesDir(null):
+    //   adb shell am start -n com.roxy.messengerapp/.activities.StartActivity --es capture_trace storm.trace
+    //   adb shell am start -n com.roxy.messengerapp/.activities.StartActivity --es replay_trace storm.trace --ef replay_speed 4
+    // replay_speed 0 — без пауз; отчёт повтора в logcat с тегом SocketTraceReplayer
+    private void startSocketTrace(Intent intent) {
+        String capture = intent.getStringExtra(EXTRA_CAPTURE_TRACE);
+        if (capture != null) {
+            try {
+                SocketManager.getInstance().startCapture(new File(getExternalFilesDir(null), capture));
+            } catch (IOException e) {
+                Log.e("MainActivity", "Socket capture error", e);
+            }
+        }
+        String replay = intent.getStringExtra(EXTRA_REPLAY_TRACE);
+        if (replay != null) {
+            float speed = intent.getFloatExtra(EXTRA_REPLAY_SPEED, 1f);
+            File trace = new File(getExternalFilesDir(null), replay);
+            findViewById(android.R.id.content).postDelayed(
+                    () -> SocketTraceReplayer.start(trace, speed, null), REPLAY_DELAY_MS);
+        }
     }
 
     private void askNotificationPermission() {
@@ -94,27 +154,26 @@ public class MainActivity extends AppCompatActivity {
         });
     }
 
-    // Обновляем онлайн статус через сокет
+    // Онлайн статус через сокет: на экране подключены, в фоне отключаемся после простоя
     @Override
-    protected void onResume() {
-        super.onResume();
-
-        // Переподключаем сокет если отключился
-        if (ApiClient.isLoggedIn() && !SocketManager.getInstance().isConnected()) {
-            SocketManager.getInstance().connect(ApiClient.getToken());
-        }
+    protected void onStart() {
+        super.onStart();
+        ConnectionManager.getInstance().onForeground();
     }
 
     @Override
-    protected void onPause() {
-        super.onPause();
-        // Сокет сам отправит disconnect и сервер пометит offline
+    protected void onStop() {
+        super.onStop();
+        ConnectionManager.getInstance().onBackground();
     }
 
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        // При закрытии приложения отключаем сокет
-        SocketManager.getInstance().disconnect();
+        unregisterReceiver(timeFormatReceiver);
+        // При закрытии приложения отключаем сокет; поворот экрана соединение не трогает
+        if (isFinishing()) {
+            SocketManager.getInstance().disconnect();
+        }
     }
 }
\ No newline at end of file
@@ -6,16 +6,15 @@ import android.os.Bundle;
 import androidx.activity.EdgeToEdge;
 import androidx.appcompat.app.AppCompatActivity;
 
+import com.roxy.messengerapp.BuildConfig;
 import com.roxy.messengerapp.R;
+import com.roxy.messengerapp.database.LocalStore;
+import com.roxy.messengerapp.entities.User;
 import com.roxy.messengerapp.network.ApiClient;
 
-import com.roxy.messengerapp.network.ApiService;
+import com.roxy.messengerapp.network.ApiRepository;
 import com.roxy.messengerapp.network.SocketManager;
 
-import retrofit2.Call;
-import retrofit2.Callback;
-import retrofit2.Response;
-
 public class StartActivity extends AppCompatActivity {
 
     @Override
@@ -25,6 +24,7 @@ public class StartActivity extends AppCompatActivity {
 
         // Инициализируем ApiClient (загружает токен из SharedPreferences)
         ApiClient.init(this);
+        LocalStore.init(this);
 
         // Проверяем есть ли сохранённый токен
         if (ApiClient.isLoggedIn()) {
@@ -37,25 +37,28 @@ public class StartActivity extends AppCompatActivity {
     }
 
     private void checkToken() {
-        ApiClient.getApi().getMe().enqueue(new Callback<ApiService.UserResponse>() {
+        // Ответ заодно кладётся в кэш, и экраны после входа не просят getMe заново
+        ApiRepository.getInstance().getMe(true, new ApiRepository.ResultCallback<User>() {
             @Override
-            public void onResponse(Call<ApiService.UserResponse> call, Response<ApiService.UserResponse> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    // Токен валидный — подключаем сокет и идём в MainActivity
-                    SocketManager.getInstance().connect(ApiClient.getToken());
+            public void onSuccess(User user) {
+                // Токен валидный — подключаем сокет и идём в MainActivity
+                SocketManager.getInstance().connect(ApiClient.getToken());
 
-                    Intent intent = new Intent(StartActivity.this, MainActivity.class);
-                    startActivity(intent);
-                    finish();
-                } else {
-                    // Токен протух — чистим и показываем логин
-                    ApiClient.clearToken(StartActivity.this);
-                    setContentView(R.layout.activity_start);
+                Intent intent = new Intent(StartActivity.this, MainActivity.class);
+                // Extras for MainActivity.startSocketTrace()
+                if (BuildConfig.DEBUG && getIntent().getExtras() != null) {
+                    intent.putExtras(getIntent().getExtras());
                 }
+                startActivity(intent);
+                finish();
             }
 
             @Override
-            public void onFailure(Call<ApiService.UserResponse> call, Throwable t) {
+            public void onError(int httpCode, String message) {
+                if (httpCode != 0) {
+                    // Токен протух — чистим и показываем логин
+                    ApiClient.clearToken(StartActivity.this);
+                }
                 // Ошибка сети — всё равно показываем логин
                 // (можно добавить офлайн режим потом)
                 setContentView(R.layout.activity_start);
@@ -1 +1,182 @@
-package com.roxy.messengerapp.adapters;import android.view.LayoutInflater;import android.view.View;import android.view.ViewGroup;import android.widget.TextView;import androidx.annotation.NonNull;import androidx.recyclerview.widget.RecyclerView;import com.bumptech.glide.Glide;import com.roxy.messengerapp.R;import com.roxy.messengerapp.entities.Chat;import com.roxy.messengerapp.entities.Message;import com.roxy.messengerapp.entities.User;import java.util.List;import de.hdodenhof.circleimageview.CircleImageView;public class ChatAdapter extends RecyclerView.Adapter<ChatAdapter.ViewHolder> {    private List<Chat> chatList;    private String currentUserId;    private OnChatClickListener listener;    public interface OnChatClickListener {        void onChatClick(Chat chat);    }    public ChatAdapter(List<Chat> chatList, String currentUserId, OnChatClickListener listener) {        this.chatList = chatList;        this.currentUserId = currentUserId;        this.listener = listener;    }    @NonNull    @Override    public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {        View view = LayoutInflater.from(parent.getContext())                .inflate(R.layout.user_item, parent, false);        return new ViewHolder(view);    }    @Override    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {        Chat chat = chatList.get(position);        if (chat.getType().equals("private")) {            User otherUser = chat.getOtherUser(currentUserId);            if (otherUser != null) {                holder.username.setText(otherUser.getUsername());                // Аватар                if (otherUser.getImageURL() == null || otherUser.getImageURL().isEmpty()) {                    holder.profileImage.setImageResource(R.drawable.ic_profile_pic);                } else {                    Glide.with(holder.itemView.getContext())                            .load(otherUser.getImageURL())                            .into(holder.profileImage);                }                // Онлайн/офлайн                if (otherUser.isOnline()) {                    holder.imgOn.setVisibility(View.VISIBLE);                    holder.imgOff.setVisibility(View.GONE);                } else {                    holder.imgOn.setVisibility(View.GONE);                    holder.imgOff.setVisibility(View.VISIBLE);                }            }        } else {            // Групповой чат            holder.username.setText(chat.getName());            holder.imgOn.setVisibility(View.GONE);            holder.imgOff.setVisibility(View.GONE);            if (chat.getAvatar() != null && !chat.getAvatar().isEmpty()) {                Glide.with(holder.itemView.getContext())                        .load(chat.getAvatar())                        .into(holder.profileImage);            } else {                holder.profileImage.setImageResource(R.drawable.ic_profile_pic);            }        }        // Последнее сообщение        Message lastMessage = chat.getLastMessage();        if (lastMessage != null) {            String preview = lastMessage.getContent();            if (preview.length() > 35) {                preview = preview.substring(0, 35) + "...";            }            holder.lastMsg.setText(preview);            holder.lastMsg.setVisibility(View.VISIBLE);        } else {            holder.lastMsg.setText("Нет сообщений");            holder.lastMsg.setVisibility(View.VISIBLE);        }        // Клик        holder.itemView.setOnClickListener(v -> {            if (listener != null) {                listener.onChatClick(chat);            }        });    }    @Override    public int getItemCount() {        return chatList.size();    }    public Chat getChatAt(int position) {        return chatList.get(position);    }    public void removeChat(int position) {        chatList.remove(position);        notifyItemRemoved(position);    }    public static class ViewHolder extends RecyclerView.ViewHolder {        CircleImageView profileImage;        TextView username;        TextView lastMsg;        View imgOn;        View imgOff;        public ViewHolder(@NonNull View itemView) {            super(itemView);            profileImage = itemView.findViewById(R.id.ivUserAvatar);            username = itemView.findViewById(R.id.tvUserName);            lastMsg = itemView.findViewById(R.id.last_msg);            imgOn = itemView.findViewById(R.id.img_on);            imgOff = itemView.findViewById(R.id.img_off);        }    }}
\ No newline at end of file
+package com.roxy.messengerapp.adapters;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.bumptech.glide.Glide;
+import com.roxy.messengerapp.R;
+import com.roxy.messengerapp.entities.Chat;
+import com.roxy.messengerapp.entities.Message;
+import com.roxy.messengerapp.entities.User;
+
+import java.util.List;
+import java.util.Objects;
+
+import de.hdodenhof.circleimageview.CircleImageView;
+
+// Один адаптер на весь жизненный цикл экрана: изменения приходят через submitList
+public class ChatAdapter extends ListAdapter<Chat, ChatAdapter.ViewHolder> {
+
+    private String currentUserId;
+    private OnChatClickListener listener;
+
+    public interface OnChatClickListener {
+        void onChatClick(Chat chat);
+    }
+
+    public ChatAdapter(String currentUserId, OnChatClickListener listener) {
+        super(new ChatDiffCallback());
+        this.currentUserId = currentUserId;
+        this.listener = listener;
+    }
+
+    public void setCurrentUserId(String currentUserId) {
+        this.currentUserId = currentUserId;
+    }
+
+    @NonNull
+    @Override
+    public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext())
+                .inflate(R.layout.user_item, parent, false);
+        return new ViewHolder(view);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+        Chat chat = getItem(position);
+
+        if (chat.getType().equals("private")) {
+            User otherUser = chat.getOtherUser(currentUserId);
+
+            if (otherUser != null) {
+                holder.username.setText(otherUser.getUsername());
+
+                // Аватар
+                if (otherUser.getImageURL() == null || otherUser.getImageURL().isEmpty()) {
+                    holder.profileImage.setImageResource(R.drawable.ic_profile_pic);
+                } else {
+                    Glide.with(holder.itemView.getContext())
+                            .load(otherUser.getImageURL())
+                            .into(holder.profileImage);
+                }
+
+                // Онлайн/офлайн
+                if (otherUser.isOnline()) {
+                    holder.imgOn.setVisibility(View.VISIBLE);
+                    holder.imgOff.setVisibility(View.GONE);
+                } else {
+                    holder.imgOn.setVisibility(View.GONE);
+                    holder.imgOff.setVisibility(View.VISIBLE);
+                }
+            }
+        } else {
+            // Групповой чат
+            holder.username.setText(chat.getName());
+            holder.imgOn.setVisibility(View.GONE);
+            holder.imgOff.setVisibility(View.GONE);
+
+            if (chat.getAvatar() != null && !chat.getAvatar().isEmpty()) {
+                Glide.with(holder.itemView.getContext())
+                        .load(chat.getAvatar())
+                        .into(holder.profileImage);
+            } else {
+                holder.profileImage.setImageResource(R.drawable.ic_profile_pic);
+            }
+        }
+
+        // Последнее сообщение
+        Message lastMessage = chat.getLastMessage();
+        if (lastMessage != null) {
+            String preview = lastMessage.getContent();
+            if (preview.length() > 35) {
+                preview = preview.substring(0, 35) + "...";
+            }
+            holder.lastMsg.setText(preview);
+            holder.lastMsg.setVisibility(View.VISIBLE);
+        } else {
+            holder.lastMsg.setText("Нет сообщений");
+            holder.lastMsg.setVisibility(View.VISIBLE);
+        }
+
+        // Непрочитанные
+        if (chat.getUnreadCount() > 0) {
+            holder.unreadCount.setText(chat.getUnreadCount() > 99 ? "99+" : String.valueOf(chat.getUnreadCount()));
+            holder.unreadCount.setVisibility(View.VISIBLE);
+        } else {
+            holder.unreadCount.setVisibility(View.GONE);
+        }
+
+        // Клик
+        holder.itemView.setOnClickListener(v -> {
+            if (listener != null) {
+                listener.onChatClick(chat);
+            }
+        });
+    }
+
+    public Chat getChatAt(int position) {
+        return getItem(position);
+    }
+
+    static class ChatDiffCallback extends DiffUtil.ItemCallback<Chat> {
+        @Override
+        public boolean areItemsTheSame(@NonNull Chat oldItem, @NonNull Chat newItem) {
+            return oldItem.getId() != null && oldItem.getId().equals(newItem.getId());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Chat oldItem, @NonNull Chat newItem) {
+            Message oldLast = oldItem.getLastMessage();
+            Message newLast = newItem.getLastMessage();
+            return oldItem.getUnreadCount() == newItem.getUnreadCount() &&
+                   Objects.equals(oldItem.getName(), newItem.getName()) &&
+                   Objects.equals(oldItem.getAvatar(), newItem.getAvatar()) &&
+                   Objects.equals(oldLast == null ? null : oldLast.getId(), newLast == null ? null : newLast.getId()) &&
+                   Objects.equals(oldLast == null ? null : oldLast.getContent(), newLast == null ? null : newLast.getContent()) &&
+                   sameUsers(oldItem.getUsers(), newItem.getUsers());
+        }
+
+        private boolean sameUsers(List<User> oldUsers, List<User> newUsers) {
+            if (oldUsers == newUsers) return true;
+            if (oldUsers == null || newUsers == null || oldUsers.size() != newUsers.size()) return false;
+            for (int i = 0; i < oldUsers.size(); i++) {
+                User a = oldUsers.get(i);
+                User b = newUsers.get(i);
+                if (!Objects.equals(a.getId(), b.getId()) ||
+                    !Objects.equals(a.getUsername(), b.getUsername()) ||
+                    !Objects.equals(a.getImageURL(), b.getImageURL()) ||
+                    a.isOnline() != b.isOnline()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    public static class ViewHolder extends RecyclerView.ViewHolder {
+        CircleImageView profileImage;
+        TextView username;
+        TextView lastMsg;
+        View imgOn;
+        View imgOff;
+        TextView unreadCount;
+
+        public ViewHolder(@NonNull View itemView) {
+            super(itemView);
+            profileImage = itemView.findViewById(R.id.ivUserAvatar);
+            username = itemView.findViewById(R.id.tvUserName);
+            lastMsg = itemView.findViewById(R.id.last_msg);
+            imgOn = itemView.findViewById(R.id.img_on);
+            imgOff = itemView.findViewById(R.id.img_off);
+            unreadCount = itemView.findViewById(R.id.unread_count);
+        }
+    }
+}
\ No newline at end of file
@@ -1,6 +1,15 @@
 package com.roxy.messengerapp.adapters;
 
+import android.content.ActivityNotFoundException;
 import android.content.Context;
+import android.content.Intent;
+import android.graphics.Bitmap;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.graphics.drawable.LayerDrawable;
+import android.net.Uri;
+import android.util.LruCache;
+import android.view.Choreographer;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -8,32 +17,51 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
+import com.bumptech.glide.ListPreloader;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.util.FixedPreloadSizeProvider;
 import com.roxy.messengerapp.R;
 import com.roxy.messengerapp.entities.Message;
+import com.roxy.messengerapp.utils.BlurHash;
+import com.roxy.messengerapp.utils.TimeFormatter;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Date;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Locale;
+import java.util.Set;
 
 import de.hdodenhof.circleimageview.CircleImageView;
 
-public class MessageAdapter extends ListAdapter<Message, MessageAdapter.ViewHolder> {
+public class MessageAdapter extends ListAdapter<Message, MessageAdapter.ViewHolder>
+        implements ListPreloader.PreloadModelProvider<Message> {
 
     private static final int MSG_TYPE_LEFT = 0;
     private static final int MSG_TYPE_RIGHT = 1;
+    // BlurHash is decoded this small and stretched by the ImageView, a blur loses nothing
+    private static final int PLACEHOLDER_EDGE = 24;
 
     private Context context;
     private String currentUserId;
     private String otherUserImageURL;
+    private final RequestManager glide;
+    // Bubble bounds in px: photos are decoded to this, not to their 1600px original
+    private final int imageWidth;
+    private final int imageHeight;
+    // blurHash -> decoded placeholder; a few KB each, decoded once per chat screen
+    private final LruCache<String, Bitmap> placeholders = new LruCache<>(64);
 
+    private final MessageList messages = new MessageList();
+    // LinkedHashSet: the same callback posted many times in a burst runs once
+    private final Set<Runnable> pendingCommitCallbacks = new LinkedHashSet<>();
+    private boolean submitScheduled;
 
     public interface OnMessageLongClickListener {
         void onMessageLongClick(Message message, int position);
@@ -50,6 +78,16 @@ public class MessageAdapter extends ListAdapter<Message, MessageAdapter.ViewHold
         this.context = context;
         this.currentUserId = currentUserId;
         this.otherUserImageURL = otherUserImageURL;
+        this.glide = Glide.with(context);
+        this.imageWidth = context.getResources().getDimensionPixelSize(R.dimen.image_bubble_max_width);
+        this.imageHeight = context.getResources().getDimensionPixelSize(R.dimen.image_bubble_max_height);
+        // The pending bubble and its confirmed copy keep one id, RecyclerView keeps the holder
+        setHasStableIds(true);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return MessageDiff.stableId(getItem(position));
     }
 
     @NonNull
@@ -61,23 +99,74 @@ public class MessageAdapter extends ListAdapter<Message, MessageAdapter.ViewHold
         } else {
             view = LayoutInflater.from(context).inflate(R.layout.chat_item_left, parent, false);
         }
-        return new ViewHolder(view);
+        ViewHolder holder = new ViewHolder(view);
+        // Set once and read the current item on click: a partial bind doesn't replace them,
+        // and the row's Message may have been swapped (pending -> confirmed) since
+        holder.imageMessage.setOnClickListener(v -> {
+            int position = holder.getAdapterPosition();
+            if (position != RecyclerView.NO_POSITION) {
+                openFullImage(getItem(position).getContent());
+            }
+        });
+        holder.itemView.setOnLongClickListener(v -> {
+            int position = holder.getAdapterPosition();
+            if (longClickListener != null && position != RecyclerView.NO_POSITION) {
+                longClickListener.onMessageLongClick(getItem(position), position);
+            }
+            return true;
+        });
+        return holder;
     }
 
+    // Payloads from MessageDiff.changePayload: only the views that changed are touched,
+    // no text layout, time formatting or Glide requests for the rest of the row
     @Override
-    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+        int changes = 0;
+        for (Object payload : payloads) {
+            changes |= (Integer) payload;
+        }
         Message message = getItem(position);
+        if ((changes & MessageDiff.CHANGE_TEXT) != 0) {
+            holder.showMessage.setText(message.getContent());
+        }
+        if ((changes & MessageDiff.CHANGE_TIME) != 0) {
+            holder.timeTv.setText(TimeFormatter.formatTime(message));
+        }
+        if ((changes & MessageDiff.CHANGE_STATUS) != 0) {
+            bindStatus(holder, message);
+        }
+    }
 
-        // Check if this is an image message
-        boolean isImage = "image".equals(message.getType());
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+        Message message = getItem(position);
 
-        if (isImage) {
+        if (isImage(message)) {
             // Image message
             holder.showMessage.setVisibility(View.GONE);
             holder.imageMessage.setVisibility(View.VISIBLE);
-            Glide.with(context)
-                    .load(message.getContent())
-                    .into(holder.imageMessage);
+            // Пузырь сразу нужного размера (если он пришёл в сообщении), в нём BlurHash,
+            // потом маленькое превью с загрузки, потом картинка под размер пузыря.
+            // Всё растягивается в те же границы, так что пузырь не прыгает при замене.
+            RequestBuilder<Drawable> request = imageRequest(message);
+            int[] size = bubbleSize(message);
+            reserveSize(holder.imageMessage, size);
+            Drawable placeholder = placeholder(message, size);
+            if (placeholder != null) {
+                request = request.placeholder(placeholder);
+            }
+            String thumbnailUrl = message.getThumbnailUrl();
+            if (thumbnailUrl != null) {
+                request = request.thumbnail(glide.load(thumbnailUrl)
+                        .override(imageWidth, imageHeight)
+                        .fitCenter());
+            }
+            request.into(holder.imageMessage);
         } else {
             // Text message
             holder.showMessage.setVisibility(View.VISIBLE);
@@ -85,30 +174,29 @@ public class MessageAdapter extends ListAdapter<Message, MessageAdapter.ViewHold
             holder.showMessage.setText(message.getContent());
         }
 
-        holder.timeTv.setText(formatTime(message.getCreatedAt()));
+        holder.timeTv.setText(TimeFormatter.formatTime(message));
 
         // Avatar (only for left messages)
         if (holder.profileImage != null) {
             if (otherUserImageURL == null || otherUserImageURL.isEmpty()) {
                 holder.profileImage.setImageResource(R.drawable.ic_profile_pic);
             } else {
-                Glide.with(context)
-                        .load(otherUserImageURL)
-                        .into(holder.profileImage);
+                glide.load(otherUserImageURL).into(holder.profileImage);
             }
         }
 
-        holder.itemView.setOnLongClickListener(v -> {
-            if (longClickListener != null) {
-                longClickListener.onMessageLongClick(message, position);
-            }
-            return true;
-        });
+        bindStatus(holder, message);
+    }
 
-        // Seen indicator (only for right messages)
+    // Seen indicator (only for right messages)
+    private static void bindStatus(ViewHolder holder, Message message) {
         if (holder.seenIndicator != null) {
             holder.seenIndicator.setVisibility(View.VISIBLE);
-            if (message.isSeen()) {
+            if (message.isFailed()) {
+                holder.seenIndicator.setImageResource(R.drawable.ic_send_failed);
+            } else if (message.isPending()) {
+                holder.seenIndicator.setImageResource(R.drawable.ic_pending);
+            } else if (message.isSeen()) {
                 holder.seenIndicator.setImageResource(R.drawable.ic_seen);
             } else {
                 holder.seenIndicator.setImageResource(R.drawable.ic_sent);
@@ -116,6 +204,91 @@ public class MessageAdapter extends ListAdapter<Message, MessageAdapter.ViewHold
         }
     }
 
+    private static boolean isImage(Message message) {
+        return "image".equals(message.getType());
+    }
+
+    // Where fitCenter into the bubble bounds puts the image, null for messages without a size
+    @Nullable
+    private int[] bubbleSize(Message message) {
+        if (!message.hasImageSize()) return null;
+        float scale = Math.min((float) imageWidth / message.getWidth(), (float) imageHeight / message.getHeight());
+        return new int[]{
+                Math.max(1, Math.round(message.getWidth() * scale)),
+                Math.max(1, Math.round(message.getHeight() * scale))
+        };
+    }
+
+    // Exact size up front; old messages without one keep wrap_content and grow on load
+    private static void reserveSize(ImageView view, @Nullable int[] size) {
+        ViewGroup.LayoutParams params = view.getLayoutParams();
+        int width = size != null ? size[0] : ViewGroup.LayoutParams.WRAP_CONTENT;
+        int height = size != null ? size[1] : ViewGroup.LayoutParams.WRAP_CONTENT;
+        if (params.width != width || params.height != height) {
+            params.width = width;
+            params.height = height;
+            view.setLayoutParams(params);
+        }
+    }
+
+    // The blurred bitmap reports the bubble's size as its own, so swapping it for the
+    // loaded image doesn't make ImageView request a layout
+    @Nullable
+    private Drawable placeholder(Message message, @Nullable int[] size) {
+        String hash = message.getBlurHash();
+        if (size == null || !BlurHash.isValid(hash)) return null;
+        Bitmap bitmap = placeholders.get(hash);
+        if (bitmap == null) {
+            float scale = (float) PLACEHOLDER_EDGE / Math.max(size[0], size[1]);
+            int width = Math.max(1, Math.round(size[0] * scale));
+            int height = Math.max(1, Math.round(size[1] * scale));
+            bitmap = Bitmap.createBitmap(BlurHash.decode(hash, width, height, 1), width, height,
+                    Bitmap.Config.ARGB_8888);
+            placeholders.put(hash, bitmap);
+        }
+        LayerDrawable drawable = new LayerDrawable(new Drawable[]{
+                new BitmapDrawable(context.getResources(), bitmap)
+        });
+        drawable.setLayerSize(0, size[0], size[1]);
+        return drawable;
+    }
+
+    // Shared by onBind and the preloader: same model, size and transformation, so a
+    // preloaded photo is a memory-cache hit when its row is bound
+    private RequestBuilder<Drawable> imageRequest(Message message) {
+        return glide.load(message.getContent())
+                .override(imageWidth, imageHeight)
+                .fitCenter();
+    }
+
+    // ===== RecyclerViewPreloader =====
+
+    @NonNull
+    @Override
+    public List<Message> getPreloadItems(int position) {
+        if (position < 0 || position >= getItemCount()) return Collections.emptyList();
+        Message message = getItem(position);
+        return isImage(message) ? Collections.singletonList(message) : Collections.emptyList();
+    }
+
+    @Nullable
+    @Override
+    public RequestBuilder<?> getPreloadRequestBuilder(@NonNull Message message) {
+        return imageRequest(message);
+    }
+
+    public ListPreloader.PreloadSizeProvider<Message> getPreloadSizeProvider() {
+        return new FixedPreloadSizeProvider<>(imageWidth, imageHeight);
+    }
+
+    private void openFullImage(String url) {
+        try {
+            context.startActivity(new Intent(Intent.ACTION_VIEW, Uri.parse(url)));
+        } catch (ActivityNotFoundException ignored) {
+            // Nothing on the device can show an image URL
+        }
+    }
+
     @Override
     public int getItemViewType(int position) {
         Message message = getItem(position);
@@ -126,71 +299,121 @@ public class MessageAdapter extends ListAdapter<Message, MessageAdapter.ViewHold
         }
     }
 
+    // ===== Backing list =====
+    // messages is the source of truth; ListAdapter only receives snapshots of it.
+
     public void addMessage(Message message) {
-        if (message == null || message.getId() == null) return;
-        for (Message m : getCurrentList()) {
-            if (m.getId().equals(message.getId())) {
-                return; // Duplicate! Skip.
-            }
+        addMessage(message, null);
+    }
+
+    public void addMessage(Message message, Runnable commitCallback) {
+        if (messages.add(message)) {
+            scheduleSubmit(commitCallback);
         }
-        List<Message> currentList = new ArrayList<>(getCurrentList());
-        currentList.add(message);
-        submitList(currentList);
     }
 
     public void setMessages(List<Message> messages) {
-        submitList(new ArrayList<>(messages));
+        setMessages(messages, null);
+    }
+
+    public void setMessages(List<Message> messages, Runnable commitCallback) {
+        this.messages.setAll(messages);
+        scheduleSubmit(commitCallback);
+    }
+
+    // Older history page loaded while scrolling up
+    public void prependMessages(List<Message> older, Runnable commitCallback) {
+        messages.prepend(older);
+        scheduleSubmit(commitCallback);
+    }
+
+    // Newer page loaded after the window was trimmed from the bottom
+    public void appendMessages(List<Message> newer, Runnable commitCallback) {
+        messages.append(newer);
+        scheduleSubmit(commitCallback);
+    }
+
+    // Drop pages that are far off-screen so memory stays bounded in long chats
+    public void trimOldest(int count) {
+        if (messages.trimOldest(count)) {
+            scheduleSubmit(null);
+        }
+    }
+
+    public void trimNewest(int count) {
+        if (messages.trimNewest(count)) {
+            scheduleSubmit(null);
+        }
+    }
+
+    public Message getFirstMessage() {
+        return messages.first();
+    }
+
+    public Message getLastMessage() {
+        return messages.last();
+    }
+
+    // Includes mutations that are not on screen yet (getItemCount() lags by up to a frame)
+    public int getMessageCount() {
+        return messages.size();
     }
 
     public void markAllAsRead() {
-        List<Message> newList = new ArrayList<>();
-        for (Message message : getCurrentList()) {
-            message.setSeen(true);
-            newList.add(message);
+        if (messages.markAllAsRead()) {
+            scheduleSubmit(null);
+        }
+    }
+
+    public void markFailed(Message failed) {
+        if (messages.markFailed(failed)) {
+            scheduleSubmit(null);
         }
-        submitList(newList);
     }
 
     public void removeMessage(String messageId) {
-        List<Message> newList = new ArrayList<>();
-        for (Message m : getCurrentList()) {
-            if (!m.getId().equals(messageId)) {
-                newList.add(m);
-            }
+        if (messages.remove(messageId)) {
+            scheduleSubmit(null);
         }
-        submitList(newList);
     }
 
-    private String formatTime(String isoTime) {
-        if (isoTime == null) return "";
-        try {
-            SimpleDateFormat isoFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.getDefault());
-            SimpleDateFormat displayFormat = new SimpleDateFormat("HH:mm", Locale.getDefault());
-            Date date = isoFormat.parse(isoTime);
-            return displayFormat.format(date);
-        } catch (ParseException e) {
-            try {
-                SimpleDateFormat isoFormat2 = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss", Locale.getDefault());
-                SimpleDateFormat displayFormat = new SimpleDateFormat("HH:mm", Locale.getDefault());
-                Date date = isoFormat2.parse(isoTime);
-                return displayFormat.format(date);
-            } catch (ParseException e2) {
-                return isoTime;
-            }
+    // All mutations within one frame end up in a single submitList (one diff per burst)
+    private void scheduleSubmit(Runnable commitCallback) {
+        if (commitCallback != null) {
+            pendingCommitCallbacks.add(commitCallback);
+        }
+        if (!submitScheduled) {
+            submitScheduled = true;
+            Choreographer.getInstance().postFrameCallback(submitFrameCallback);
         }
     }
 
+    private final Choreographer.FrameCallback submitFrameCallback = frameTimeNanos -> {
+        submitScheduled = false;
+        List<Runnable> callbacks = new ArrayList<>(pendingCommitCallbacks);
+        pendingCommitCallbacks.clear();
+        submitList(messages.snapshot(), () -> {
+            for (Runnable callback : callbacks) {
+                callback.run();
+            }
+        });
+    };
+
     static class MessageDiffCallback extends DiffUtil.ItemCallback<Message> {
         @Override
         public boolean areItemsTheSame(@NonNull Message oldItem, @NonNull Message newItem) {
-            return oldItem.getId() != null && oldItem.getId().equals(newItem.getId());
+            return MessageDiff.sameItem(oldItem, newItem);
         }
 
         @Override
         public boolean areContentsTheSame(@NonNull Message oldItem, @NonNull Message newItem) {
-            return oldItem.getContent().equals(newItem.getContent()) &&
-                   oldItem.isSeen() == newItem.isSeen() &&
-                   (oldItem.getType() == null ? newItem.getType() == null : oldItem.getType().equals(newItem.getType()));
+            return MessageDiff.sameContents(oldItem, newItem);
+        }
+
+        @Nullable
+        @Override
+        public Object getChangePayload(@NonNull Message oldItem, @NonNull Message newItem) {
+            return MessageDiff.changePayload(oldItem, newItem);
         }
     }
 
@@ -0,0 +1,81 @@
+package com.roxy.messengerapp.adapters;
+
+import com.roxy.messengerapp.entities.Message;
+
+// Правила сравнения для MessageAdapter.MessageDiffCallback. DiffUtil зовёт их на каждую пару
+// строк при каждом submitList, поэтому они вынесены отдельно от Android и меряются в benchmark.
+public final class MessageDiff {
+
+    // Payload bits: which part of a row changed. Combined into one Integer; the small
+    // values are cached by Integer.valueOf, so a read-receipt storm allocates nothing
+    public static final int CHANGE_STATUS = 1; // sent / seen / pending / failed tick
+    public static final int CHANGE_TEXT = 1 << 1;
+    public static final int CHANGE_TIME = 1 << 2;
+
+    private MessageDiff() {}
+
+    public static boolean sameItem(Message oldItem, Message newItem) {
+        if (oldItem.getId() != null && oldItem.getId().equals(newItem.getId())) return true;
+        // Pending bubble and its confirmed copy are the same row, no remove/insert animation
+        return oldItem.getClientId() != null && oldItem.getClientId().equals(newItem.getClientId());
+    }
+
+    public static boolean sameContents(Message oldItem, Message newItem) {
+        return oldItem.getContent().equals(newItem.getContent()) &&
+               oldItem.isSeen() == newItem.isSeen() &&
+               oldItem.isPending() == newItem.isPending() &&
+               oldItem.isFailed() == newItem.isFailed() &&
+               oldItem.isEdited() == newItem.isEdited() &&
+               oldItem.getCreatedAtMillis() == newItem.getCreatedAtMillis() &&
+               (oldItem.getType() == null ? newItem.getType() == null : oldItem.getType().equals(newItem.getType()));
+    }
+
+    // Only for rows where sameItem && !sameContents. null when the row needs a full bind:
+    // another type, or a different image (new Glide request, new size)
+    public static Integer changePayload(Message oldItem, Message newItem) {
+        if (!equal(oldItem.getType(), newItem.getType())) return null;
+        int changes = 0;
+        if (!oldItem.getContent().equals(newItem.getContent()) || oldItem.isEdited() != newItem.isEdited()) {
+            if ("image".equals(newItem.getType())) return null;
+            changes |= CHANGE_TEXT;
+        }
+        if (oldItem.isSeen() != newItem.isSeen() || oldItem.isPending() != newItem.isPending()
+                || oldItem.isFailed() != newItem.isFailed()) {
+            changes |= CHANGE_STATUS;
+        }
+        if (oldItem.getCreatedAtMillis() != newItem.getCreatedAtMillis()) {
+            changes |= CHANGE_TIME;
+        }
+        return changes;
+    }
+
+    // RecyclerView stable id. clientId first: the pending bubble has no server id yet, and
+    // its confirmed copy must keep the row. UUIDs fold to 64 bits, other ids hash
+    public static long stableId(Message message) {
+        String key = message.getClientId() != null ? message.getClientId() : message.getId();
+        if (key == null) return 0;
+        if (key.length() != 36) return key.hashCode();
+        long high = 0;
+        long low = 0;
+        int digits = 0;
+        for (int i = 0; i < 36; i++) {
+            char c = key.charAt(i);
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                if (c != '-') return key.hashCode();
+                continue;
+            }
+            int digit = Character.digit(c, 16);
+            if (digit < 0) return key.hashCode();
+            if (digits++ < 16) {
+                high = high << 4 | digit;
+            } else {
+                low = low << 4 | digit;
+            }
+        }
+        return high ^ low;
+    }
+
+    private static boolean equal(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
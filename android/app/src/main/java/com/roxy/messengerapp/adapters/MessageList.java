@@ -0,0 +1,156 @@
+package com.roxy.messengerapp.adapters;
+
+import com.roxy.messengerapp.entities.Message;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Список сообщений чата за MessageAdapter: items — источник истины, ListAdapter получает
+// только его снимки. positions — id -> индекс, чтобы дубликаты и поиск были O(1).
+// Без Android: тот же код гоняется в benchmark. Методы возвращают, изменилось ли что-то.
+public class MessageList {
+
+    private final List<Message> items = new ArrayList<>();
+    private final Map<String, Integer> positions = new HashMap<>();
+
+    public boolean add(Message message) {
+        if (message == null || message.getId() == null) return false;
+        if (positions.containsKey(message.getId())) return false; // Duplicate! Skip.
+        if (!confirmPending(message)) {
+            positions.put(message.getId(), items.size());
+            items.add(message);
+        }
+        return true;
+    }
+
+    // Own messages still in the Outbox stay at the bottom until the server has them
+    public void setAll(List<Message> messages) {
+        Set<String> confirmed = new HashSet<>();
+        for (Message message : messages) {
+            if (message.getClientId() != null) confirmed.add(message.getClientId());
+        }
+        List<Message> stillPending = new ArrayList<>();
+        for (Message message : items) {
+            if ((message.isPending() || message.isFailed()) && !confirmed.contains(message.getClientId())) {
+                stillPending.add(message);
+            }
+        }
+        items.clear();
+        items.addAll(messages);
+        items.addAll(stillPending);
+        reindexFrom(0);
+    }
+
+    // A page that overlaps what is loaded (a socket insert or sync replay raced the
+    // request) only adds the rows we don't have
+    public void prepend(List<Message> older) {
+        List<Message> fresh = new ArrayList<>(older.size());
+        Set<String> seen = new HashSet<>();
+        for (Message message : older) {
+            if (message.getId() == null || positions.containsKey(message.getId())) continue;
+            if (seen.add(message.getId())) fresh.add(message);
+        }
+        if (fresh.isEmpty()) return;
+        items.addAll(0, fresh);
+        reindexFrom(0);
+    }
+
+    public void append(List<Message> newer) {
+        for (Message message : newer) {
+            if (message.getId() == null || positions.containsKey(message.getId())) continue;
+            if (confirmPending(message)) continue;
+            positions.put(message.getId(), items.size());
+            items.add(message);
+        }
+    }
+
+    public boolean trimOldest(int count) {
+        if (count <= 0 || count > items.size()) return false;
+        for (int i = 0; i < count; i++) {
+            positions.remove(items.get(i).getId());
+        }
+        items.subList(0, count).clear();
+        reindexFrom(0);
+        return true;
+    }
+
+    public boolean trimNewest(int count) {
+        if (count <= 0 || count > items.size()) return false;
+        for (int i = items.size() - count; i < items.size(); i++) {
+            positions.remove(items.get(i).getId());
+        }
+        items.subList(items.size() - count, items.size()).clear();
+        return true;
+    }
+
+    public boolean markAllAsRead() {
+        boolean changed = false;
+        for (int i = 0; i < items.size(); i++) {
+            Message message = items.get(i);
+            if (!message.isSeen()) {
+                // Copy instead of mutating: the old snapshot must keep the old state for DiffUtil
+                Message seen = new Message(message);
+                seen.setSeen(true);
+                items.set(i, seen);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    // The server refused a pending message for good: the row stays, marked as not sent
+    public boolean markFailed(Message failed) {
+        Integer position = positions.get(failed.getId());
+        if (position == null) return false;
+        items.set(position, failed);
+        return true;
+    }
+
+    public boolean remove(String messageId) {
+        Integer position = positions.remove(messageId);
+        if (position == null) return false;
+        items.remove((int) position);
+        reindexFrom(position);
+        return true;
+    }
+
+    public Message first() {
+        return items.isEmpty() ? null : items.get(0);
+    }
+
+    public Message last() {
+        return items.isEmpty() ? null : items.get(items.size() - 1);
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    // What submitList gets; later mutations don't touch it
+    public List<Message> snapshot() {
+        return new ArrayList<>(items);
+    }
+
+    // Server copy of a message we rendered as pending: swap it in place, keyed by clientId
+    private boolean confirmPending(Message message) {
+        if (message.isPending() || message.getClientId() == null) return false;
+        Integer position = positions.remove(message.getClientId());
+        if (position == null) return false;
+        items.set(position, message);
+        positions.put(message.getId(), position);
+        return true;
+    }
+
+    private void reindexFrom(int start) {
+        if (start == 0) {
+            positions.clear();
+        }
+        for (int i = start; i < items.size(); i++) {
+            positions.put(items.get(i).getId(), i);
+        }
+    }
+}
@@ -1 +1,140 @@
-package com.roxy.messengerapp.adapters;import android.view.LayoutInflater;import android.view.View;import android.view.ViewGroup;import android.widget.TextView;import androidx.annotation.NonNull;import androidx.recyclerview.widget.RecyclerView;import com.bumptech.glide.Glide;import com.roxy.messengerapp.R;import com.roxy.messengerapp.entities.User;import java.util.List;import de.hdodenhof.circleimageview.CircleImageView;public class UserAdapter extends RecyclerView.Adapter<UserAdapter.ViewHolder> {    private List<User> userList;    private OnUserClickListener listener;    private boolean showLastMessage; // true для чатов, false для списка пользователей    public interface OnUserClickListener {        void onUserClick(User user);    }    public UserAdapter(List<User> userList, OnUserClickListener listener, boolean showLastMessage) {        this.userList = userList;        this.listener = listener;        this.showLastMessage = showLastMessage;    }    @NonNull    @Override    public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {        View view = LayoutInflater.from(parent.getContext())                .inflate(R.layout.user_item, parent, false);        return new ViewHolder(view);    }    @Override    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {        User user = userList.get(position);        // Имя пользователя        holder.username.setText(user.getUsername());        // Аватар        if (user.getImageURL() == null || user.getImageURL().isEmpty()) {            holder.profileImage.setImageResource(R.drawable.ic_profile_pic);        } else {            Glide.with(holder.itemView.getContext())                    .load(user.getImageURL())                    .into(holder.profileImage);        }        // Онлайн/офлайн статус        if (user.isOnline()) {            holder.imgOn.setVisibility(View.VISIBLE);            holder.imgOff.setVisibility(View.GONE);        } else {            holder.imgOn.setVisibility(View.GONE);            holder.imgOff.setVisibility(View.VISIBLE);        }        // Последнее сообщение (скрываем в списке пользователей)        if (showLastMessage) {            holder.lastMsg.setVisibility(View.VISIBLE);            // Тут можно показать что-то, если нужно        } else {            holder.lastMsg.setVisibility(View.GONE);        }        // Клик        holder.itemView.setOnClickListener(v -> {            if (listener != null) {                listener.onUserClick(user);            }        });    }    @Override    public int getItemCount() {        return userList.size();    }    public static class ViewHolder extends RecyclerView.ViewHolder {        CircleImageView profileImage;        TextView username;        TextView lastMsg;        View imgOn;        View imgOff;        public ViewHolder(@NonNull View itemView) {            super(itemView);            profileImage = itemView.findViewById(R.id.ivUserAvatar);            username = itemView.findViewById(R.id.tvUserName);            lastMsg = itemView.findViewById(R.id.last_msg);            imgOn = itemView.findViewById(R.id.img_on);            imgOff = itemView.findViewById(R.id.img_off);        }    }}
\ No newline at end of file
+package com.roxy.messengerapp.adapters;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.bumptech.glide.Glide;
+import com.roxy.messengerapp.R;
+import com.roxy.messengerapp.entities.User;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import de.hdodenhof.circleimageview.CircleImageView;
+
+public class UserAdapter extends RecyclerView.Adapter<UserAdapter.ViewHolder> {
+
+    private List<User> userList;
+    private OnUserClickListener listener;
+    private boolean showLastMessage; // true для чатов, false для списка пользователей
+
+    public interface OnUserClickListener {
+        void onUserClick(User user);
+    }
+
+    public UserAdapter(List<User> userList, OnUserClickListener listener, boolean showLastMessage) {
+        this.userList = userList;
+        this.listener = listener;
+        this.showLastMessage = showLastMessage;
+    }
+
+    @NonNull
+    @Override
+    public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext())
+                .inflate(R.layout.user_item, parent, false);
+        return new ViewHolder(view);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+        User user = userList.get(position);
+
+        // Имя пользователя
+        holder.username.setText(user.getUsername());
+
+        // Аватар
+        if (user.getImageURL() == null || user.getImageURL().isEmpty()) {
+            holder.profileImage.setImageResource(R.drawable.ic_profile_pic);
+        } else {
+            Glide.with(holder.itemView.getContext())
+                    .load(user.getImageURL())
+                    .into(holder.profileImage);
+        }
+
+        // Онлайн/офлайн статус
+        if (user.isOnline()) {
+            holder.imgOn.setVisibility(View.VISIBLE);
+            holder.imgOff.setVisibility(View.GONE);
+        } else {
+            holder.imgOn.setVisibility(View.GONE);
+            holder.imgOff.setVisibility(View.VISIBLE);
+        }
+
+        // Последнее сообщение (скрываем в списке пользователей)
+        if (showLastMessage) {
+            holder.lastMsg.setVisibility(View.VISIBLE);
+            // Тут можно показать что-то, если нужно
+        } else {
+            holder.lastMsg.setVisibility(View.GONE);
+        }
+
+        // Клик
+        holder.itemView.setOnClickListener(v -> {
+            if (listener != null) {
+                listener.onUserClick(user);
+            }
+        });
+    }
+
+    @Override
+    public int getItemCount() {
+        return userList.size();
+    }
+
+    // Поиск меняет список на каждый ввод — обновляем только изменившиеся строки
+    public void updateUsers(List<User> newUsers) {
+        List<User> oldUsers = userList;
+        DiffUtil.DiffResult diff = DiffUtil.calculateDiff(new DiffUtil.Callback() {
+            @Override
+            public int getOldListSize() {
+                return oldUsers.size();
+            }
+
+            @Override
+            public int getNewListSize() {
+                return newUsers.size();
+            }
+
+            @Override
+            public boolean areItemsTheSame(int oldPosition, int newPosition) {
+                return Objects.equals(oldUsers.get(oldPosition).getId(), newUsers.get(newPosition).getId());
+            }
+
+            @Override
+            public boolean areContentsTheSame(int oldPosition, int newPosition) {
+                User oldUser = oldUsers.get(oldPosition);
+                User newUser = newUsers.get(newPosition);
+                return Objects.equals(oldUser.getUsername(), newUser.getUsername())
+                        && Objects.equals(oldUser.getImageURL(), newUser.getImageURL())
+                        && oldUser.isOnline() == newUser.isOnline();
+            }
+        });
+        userList = new ArrayList<>(newUsers);
+        diff.dispatchUpdatesTo(this);
+    }
+
+    public static class ViewHolder extends RecyclerView.ViewHolder {
+        CircleImageView profileImage;
+        TextView username;
+        TextView lastMsg;
+        View imgOn;
+        View imgOff;
+
+        public ViewHolder(@NonNull View itemView) {
+            super(itemView);
+            profileImage = itemView.findViewById(R.id.ivUserAvatar);
+            username = itemView.findViewById(R.id.tvUserName);
+            lastMsg = itemView.findViewById(R.id.last_msg);
+            imgOn = itemView.findViewById(R.id.img_on);
+            imgOff = itemView.findViewById(R.id.img_off);
+        }
+    }
+}
\ No newline at end of file
@@ -1 +1,37 @@
-package com.roxy.messengerapp.adapters;import androidx.annotation.NonNull;import androidx.fragment.app.Fragment;import androidx.viewpager2.adapter.FragmentStateAdapter;import java.util.ArrayList;public class ViewPagerAdapter extends FragmentStateAdapter {    private final ArrayList<Fragment> fragments = new ArrayList<>();    private final ArrayList<String> titles = new ArrayList<>();    public ViewPagerAdapter(@NonNull Fragment fragment) {        super(fragment);    }    @NonNull    @Override    public Fragment createFragment(int position) {        return fragments.get(position);    }    @Override    public int getItemCount() {        return fragments.size();    }    public void addFragment(Fragment fragment, String title){        fragments.add(fragment);        titles.add(title);    }    public String getTitle(int position){        return titles.get(position);    }}
\ No newline at end of file
+package com.roxy.messengerapp.adapters;
+
+import androidx.annotation.NonNull;
+import androidx.fragment.app.Fragment;
+import androidx.viewpager2.adapter.FragmentStateAdapter;
+
+import java.util.ArrayList;
+
+public class ViewPagerAdapter extends FragmentStateAdapter {
+
+    private final ArrayList<Fragment> fragments = new ArrayList<>();
+    private final ArrayList<String> titles = new ArrayList<>();
+
+    public ViewPagerAdapter(@NonNull Fragment fragment) {
+        super(fragment);
+    }
+
+    @NonNull
+    @Override
+    public Fragment createFragment(int position) {
+        return fragments.get(position);
+    }
+
+    @Override
+    public int getItemCount() {
+        return fragments.size();
+    }
+
+    public void addFragment(Fragment fragment, String title){
+        fragments.add(fragment);
+        titles.add(title);
+    }
+
+    public String getTitle(int position){
+        return titles.get(position);
+    }
+}
\ No newline at end of file
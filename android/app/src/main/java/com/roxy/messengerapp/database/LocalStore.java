@@ -0,0 +1,452 @@
+package com.roxy.messengerapp.database;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.google.gson.Gson;
+import com.roxy.messengerapp.entities.Chat;
+import com.roxy.messengerapp.entities.Message;
+import com.roxy.messengerapp.entities.User;
+import com.roxy.messengerapp.network.ApiClient;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// On-device copy of chats, messages and users so screens can render before the network answers.
+// Writes go through a single thread, reads through another; results are delivered on the main thread.
+public class LocalStore extends SQLiteOpenHelper {
+    private static final String TAG = "LocalStore";
+    private static final String DB_NAME = "scarlet_cache.db";
+    private static final int DB_VERSION = 3;
+
+    private static final String TABLE_USERS = "users";
+    private static final String TABLE_CHATS = "chats";
+    private static final String TABLE_MESSAGES = "messages";
+    // chatId -> last applied event seq; describes the cache, so it is dropped with it
+    private static final String TABLE_SYNC = "sync_state";
+    // Not a cache: unsent messages, survives schema upgrades
+    private static final String TABLE_OUTBOX = "outbox";
+
+    private static LocalStore instance;
+
+    private final Gson gson = ApiClient.getGson();
+    private final ExecutorService writeExecutor = Executors.newSingleThreadExecutor();
+    private final ExecutorService readExecutor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    public interface OnLoadedListener<T> {
+        void onLoaded(T result);
+    }
+
+    private LocalStore(Context context) {
+        super(context.getApplicationContext(), DB_NAME, null, DB_VERSION);
+        setWriteAheadLoggingEnabled(true);
+    }
+
+    public static synchronized void init(Context context) {
+        if (instance == null) {
+            instance = new LocalStore(context);
+        }
+    }
+
+    // null until init() was called from an Activity
+    public static LocalStore getInstance() {
+        return instance;
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_USERS + " ("
+                + "id TEXT PRIMARY KEY, "
+                + "is_me INTEGER NOT NULL DEFAULT 0, "
+                + "json TEXT NOT NULL)");
+        db.execSQL("CREATE TABLE " + TABLE_CHATS + " ("
+                + "id TEXT PRIMARY KEY, "
+                + "updated_at TEXT, "
+                + "json TEXT NOT NULL)");
+        db.execSQL("CREATE TABLE " + TABLE_MESSAGES + " ("
+                + "id TEXT PRIMARY KEY, "
+                + "chat_id TEXT NOT NULL, "
+                + "created_at TEXT, "
+                + "json TEXT NOT NULL)");
+        db.execSQL("CREATE INDEX idx_messages_chat ON " + TABLE_MESSAGES + " (chat_id, created_at)");
+        db.execSQL("CREATE TABLE " + TABLE_SYNC + " ("
+                + "chat_id TEXT PRIMARY KEY, "
+                + "last_seq INTEGER NOT NULL)");
+        createOutbox(db);
+    }
+
+    private void createOutbox(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_OUTBOX + " ("
+                + "client_id TEXT PRIMARY KEY, "
+                + "chat_id TEXT NOT NULL, "
+                + "created_at TEXT, "
+                + "json TEXT NOT NULL)");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // It is only a cache: drop and let the server refill it. The outbox is kept
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_USERS);
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_CHATS);
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_MESSAGES);
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_SYNC);
+        onCreate(db);
+    }
+
+    // ===== USERS =====
+
+    public void saveCurrentUser(User user) {
+        if (user == null || user.getId() == null) return;
+        writeExecutor.execute(() -> {
+            SQLiteDatabase db = getWritableDatabase();
+            db.beginTransaction();
+            try {
+                ContentValues reset = new ContentValues();
+                reset.put("is_me", 0);
+                db.update(TABLE_USERS, reset, "is_me = 1", null);
+                db.insertWithOnConflict(TABLE_USERS, null, userValues(user, true), SQLiteDatabase.CONFLICT_REPLACE);
+                db.setTransactionSuccessful();
+            } catch (Exception e) {
+                Log.e(TAG, "Save current user error: " + e.getMessage());
+            } finally {
+                db.endTransaction();
+            }
+        });
+    }
+
+    public void loadCurrentUser(OnLoadedListener<User> listener) {
+        readExecutor.execute(() -> {
+            User user = null;
+            try (Cursor cursor = getReadableDatabase().query(TABLE_USERS, new String[]{"json"},
+                    "is_me = 1", null, null, null, null, "1")) {
+                if (cursor.moveToFirst()) {
+                    user = gson.fromJson(cursor.getString(0), User.class);
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "Load current user error: " + e.getMessage());
+            }
+            deliver(listener, user);
+        });
+    }
+
+    // ===== CHATS =====
+
+    // The server list is authoritative: chats missing from it were deleted elsewhere
+    public void saveChats(List<Chat> chats) {
+        if (chats == null) return;
+        List<Chat> snapshot = new ArrayList<>(chats);
+        writeExecutor.execute(() -> {
+            SQLiteDatabase db = getWritableDatabase();
+            db.beginTransaction();
+            try {
+                db.delete(TABLE_CHATS, null, null);
+                for (Chat chat : snapshot) {
+                    if (chat.getId() == null) continue;
+                    db.insertWithOnConflict(TABLE_CHATS, null, chatValues(chat), SQLiteDatabase.CONFLICT_REPLACE);
+                    if (chat.getUsers() != null) {
+                        for (User user : chat.getUsers()) {
+                            upsertUser(db, user);
+                        }
+                    }
+                }
+                db.setTransactionSuccessful();
+            } catch (Exception e) {
+                Log.e(TAG, "Save chats error: " + e.getMessage());
+            } finally {
+                db.endTransaction();
+            }
+        });
+    }
+
+    public void loadChats(OnLoadedListener<List<Chat>> listener) {
+        readExecutor.execute(() -> {
+            List<Chat> chats = new ArrayList<>();
+            try (Cursor cursor = getReadableDatabase().query(TABLE_CHATS, new String[]{"json"},
+                    null, null, null, null, "updated_at DESC")) {
+                while (cursor.moveToNext()) {
+                    chats.add(gson.fromJson(cursor.getString(0), Chat.class));
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "Load chats error: " + e.getMessage());
+            }
+            deliver(listener, chats);
+        });
+    }
+
+    public void deleteChat(String chatId) {
+        if (chatId == null) return;
+        writeExecutor.execute(() -> {
+            SQLiteDatabase db = getWritableDatabase();
+            db.beginTransaction();
+            try {
+                db.delete(TABLE_MESSAGES, "chat_id = ?", new String[]{chatId});
+                db.delete(TABLE_CHATS, "id = ?", new String[]{chatId});
+                db.delete(TABLE_SYNC, "chat_id = ?", new String[]{chatId});
+                db.setTransactionSuccessful();
+            } catch (Exception e) {
+                Log.e(TAG, "Delete chat error: " + e.getMessage());
+            } finally {
+                db.endTransaction();
+            }
+        });
+    }
+
+    // ===== MESSAGES =====
+
+    // Replaces the cached window covered by a fresh server page (oldest..newest) with that page.
+    // Works for any page, so older history fetched while scrolling is kept offline too.
+    // An empty page covers no window and changes nothing: one empty response must not wipe
+    // the offline history. Deletions come through deleteMessage()/deleteChat().
+    public void saveMessages(String chatId, List<Message> messages) {
+        if (chatId == null || messages == null || messages.isEmpty()) return;
+        List<Message> snapshot = new ArrayList<>(messages);
+        writeExecutor.execute(() -> {
+            SQLiteDatabase db = getWritableDatabase();
+            db.beginTransaction();
+            try {
+                String oldest = snapshot.get(0).getCreatedAt();
+                String newest = snapshot.get(snapshot.size() - 1).getCreatedAt();
+                if (oldest != null && newest != null) {
+                    Set<String> keep = new HashSet<>();
+                    for (Message m : snapshot) keep.add(m.getId());
+                    try (Cursor cursor = db.query(TABLE_MESSAGES, new String[]{"id"},
+                            "chat_id = ? AND created_at >= ? AND created_at <= ?",
+                            new String[]{chatId, oldest, newest}, null, null, null)) {
+                        while (cursor.moveToNext()) {
+                            String id = cursor.getString(0);
+                            if (!keep.contains(id)) {
+                                db.delete(TABLE_MESSAGES, "id = ?", new String[]{id});
+                            }
+                        }
+                    }
+                }
+                for (Message message : snapshot) {
+                    if (message.getId() == null) continue;
+                    db.insertWithOnConflict(TABLE_MESSAGES, null, messageValues(message, chatId), SQLiteDatabase.CONFLICT_REPLACE);
+                }
+                db.setTransactionSuccessful();
+            } catch (Exception e) {
+                Log.e(TAG, "Save messages error: " + e.getMessage());
+            } finally {
+                db.endTransaction();
+            }
+        });
+    }
+
+    // Single message from the socket: store it and refresh the chat preview
+    public void saveMessage(Message message) {
+        if (message == null || message.getId() == null || message.getChatId() == null) return;
+        writeExecutor.execute(() -> {
+            SQLiteDatabase db = getWritableDatabase();
+            db.beginTransaction();
+            try {
+                db.insertWithOnConflict(TABLE_MESSAGES, null, messageValues(message, message.getChatId()), SQLiteDatabase.CONFLICT_REPLACE);
+                Chat chat = readChat(db, message.getChatId());
+                if (chat != null) {
+                    List<Message> last = new ArrayList<>();
+                    last.add(message);
+                    chat.setMessages(last);
+                    if (message.getCreatedAt() != null) {
+                        chat.setUpdatedAt(message.getCreatedAt());
+                    }
+                    db.insertWithOnConflict(TABLE_CHATS, null, chatValues(chat), SQLiteDatabase.CONFLICT_REPLACE);
+                }
+                db.setTransactionSuccessful();
+            } catch (Exception e) {
+                Log.e(TAG, "Save message error: " + e.getMessage());
+            } finally {
+                db.endTransaction();
+            }
+        });
+    }
+
+    public void deleteMessage(String messageId) {
+        if (messageId == null) return;
+        writeExecutor.execute(() -> {
+            try {
+                getWritableDatabase().delete(TABLE_MESSAGES, "id = ?", new String[]{messageId});
+            } catch (Exception e) {
+                Log.e(TAG, "Delete message error: " + e.getMessage());
+            }
+        });
+    }
+
+    // Newest `limit` messages of the chat, oldest first (the order the adapter expects)
+    public void loadMessages(String chatId, int limit, OnLoadedListener<List<Message>> listener) {
+        readExecutor.execute(() -> {
+            List<Message> messages = new ArrayList<>();
+            try (Cursor cursor = getReadableDatabase().query(TABLE_MESSAGES, new String[]{"json"},
+                    "chat_id = ?", new String[]{chatId}, null, null,
+                    "created_at DESC", String.valueOf(limit))) {
+                while (cursor.moveToNext()) {
+                    messages.add(gson.fromJson(cursor.getString(0), Message.class));
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "Load messages error: " + e.getMessage());
+            }
+            Collections.reverse(messages);
+            deliver(listener, messages);
+        });
+    }
+
+    // ===== SYNC =====
+
+    public void saveWatermark(String chatId, long seq) {
+        if (chatId == null) return;
+        writeExecutor.execute(() -> {
+            try {
+                ContentValues values = new ContentValues();
+                values.put("chat_id", chatId);
+                values.put("last_seq", seq);
+                getWritableDatabase().insertWithOnConflict(TABLE_SYNC, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+            } catch (Exception e) {
+                Log.e(TAG, "Save watermark error: " + e.getMessage());
+            }
+        });
+    }
+
+    public void loadWatermarks(OnLoadedListener<Map<String, Long>> listener) {
+        readExecutor.execute(() -> {
+            Map<String, Long> watermarks = new HashMap<>();
+            try (Cursor cursor = getReadableDatabase().query(TABLE_SYNC, new String[]{"chat_id", "last_seq"},
+                    null, null, null, null, null)) {
+                while (cursor.moveToNext()) {
+                    watermarks.put(cursor.getString(0), cursor.getLong(1));
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "Load watermarks error: " + e.getMessage());
+            }
+            deliver(listener, watermarks);
+        });
+    }
+
+    // ===== OUTBOX =====
+
+    public void addToOutbox(Message message) {
+        if (message == null || message.getClientId() == null || message.getChatId() == null) return;
+        writeExecutor.execute(() -> {
+            try {
+                ContentValues values = new ContentValues();
+                values.put("client_id", message.getClientId());
+                values.put("chat_id", message.getChatId());
+                values.put("created_at", message.getCreatedAt());
+                values.put("json", gson.toJson(message));
+                getWritableDatabase().insertWithOnConflict(TABLE_OUTBOX, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+            } catch (Exception e) {
+                Log.e(TAG, "Add to outbox error: " + e.getMessage());
+            }
+        });
+    }
+
+    public void removeFromOutbox(String clientId) {
+        if (clientId == null) return;
+        writeExecutor.execute(() -> {
+            try {
+                getWritableDatabase().delete(TABLE_OUTBOX, "client_id = ?", new String[]{clientId});
+            } catch (Exception e) {
+                Log.e(TAG, "Remove from outbox error: " + e.getMessage());
+            }
+        });
+    }
+
+    // Every unsent message, oldest first (the order they have to reach the server)
+    public void loadOutbox(OnLoadedListener<List<Message>> listener) {
+        readExecutor.execute(() -> {
+            List<Message> messages = new ArrayList<>();
+            try (Cursor cursor = getReadableDatabase().query(TABLE_OUTBOX, new String[]{"json"},
+                    null, null, null, null, "created_at ASC")) {
+                while (cursor.moveToNext()) {
+                    messages.add(gson.fromJson(cursor.getString(0), Message.class));
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "Load outbox error: " + e.getMessage());
+            }
+            deliver(listener, messages);
+        });
+    }
+
+    // Called on logout so the next account does not see someone else's chats
+    public void clear() {
+        writeExecutor.execute(() -> {
+            SQLiteDatabase db = getWritableDatabase();
+            db.delete(TABLE_OUTBOX, null, null);
+            db.delete(TABLE_SYNC, null, null);
+            db.delete(TABLE_MESSAGES, null, null);
+            db.delete(TABLE_CHATS, null, null);
+            db.delete(TABLE_USERS, null, null);
+        });
+    }
+
+    // ===== Helpers =====
+
+    private Chat readChat(SQLiteDatabase db, String chatId) {
+        try (Cursor cursor = db.query(TABLE_CHATS, new String[]{"json"}, "id = ?",
+                new String[]{chatId}, null, null, null)) {
+            if (cursor.moveToFirst()) {
+                return gson.fromJson(cursor.getString(0), Chat.class);
+            }
+        }
+        return null;
+    }
+
+    private void upsertUser(SQLiteDatabase db, User user) {
+        if (user == null || user.getId() == null) return;
+        ContentValues values = new ContentValues();
+        values.put("json", gson.toJson(user));
+        // Keep the is_me flag of an existing row
+        if (db.update(TABLE_USERS, values, "id = ?", new String[]{user.getId()}) == 0) {
+            db.insert(TABLE_USERS, null, userValues(user, false));
+        }
+    }
+
+    private ContentValues userValues(User user, boolean isMe) {
+        ContentValues values = new ContentValues();
+        values.put("id", user.getId());
+        values.put("is_me", isMe ? 1 : 0);
+        values.put("json", gson.toJson(user));
+        return values;
+    }
+
+    private ContentValues chatValues(Chat chat) {
+        ContentValues values = new ContentValues();
+        values.put("id", chat.getId());
+        Message last = chat.getLastMessage();
+        String updatedAt = chat.getUpdatedAt();
+        if (last != null && last.getCreatedAt() != null
+                && (updatedAt == null || last.getCreatedAt().compareTo(updatedAt) > 0)) {
+            updatedAt = last.getCreatedAt();
+        }
+        values.put("updated_at", updatedAt);
+        values.put("json", gson.toJson(chat));
+        return values;
+    }
+
+    private ContentValues messageValues(Message message, String chatId) {
+        ContentValues values = new ContentValues();
+        values.put("id", message.getId());
+        values.put("chat_id", chatId);
+        values.put("created_at", message.getCreatedAt());
+        values.put("json", gson.toJson(message));
+        return values;
+    }
+
+    private <T> void deliver(OnLoadedListener<T> listener, T result) {
+        if (listener != null) {
+            mainHandler.post(() -> listener.onLoaded(result));
+        }
+    }
+}
@@ -1 +1,84 @@
-package com.roxy.messengerapp.entities;import com.google.gson.annotations.SerializedName;import java.util.List;public class Chat {    private String id;    private String type; // "private" или "group"    private String name;    private String avatar;    private List<User> Users;    private List<Message> Messages;    private String createdAt;    private String updatedAt;    public Chat() {}    // Геттеры и сеттеры    public String getId() { return id; }    public void setId(String id) { this.id = id; }    public String getType() { return type; }    public void setType(String type) { this.type = type; }    public String getName() { return name; }    public void setName(String name) { this.name = name; }    public String getAvatar() { return avatar; }    public void setAvatar(String avatar) { this.avatar = avatar; }    public List<User> getUsers() { return Users; }    public void setUsers(List<User> users) { this.Users = users; }    public List<Message> getMessages() { return Messages; }    public void setMessages(List<Message> messages) { this.Messages = messages; }    public String getCreatedAt() { return createdAt; }    public void setCreatedAt(String createdAt) { this.createdAt = createdAt; }    public String getUpdatedAt() { return updatedAt; }    public void setUpdatedAt(String updatedAt) { this.updatedAt = updatedAt; }    // Получить собеседника (для приватных чатов)    public User getOtherUser(String myId) {        if (Users == null) return null;        for (User user : Users) {            if (!user.getId().equals(myId)) {                return user;            }        }        return null;    }    // Последнее сообщение    public Message getLastMessage() {        if (Messages == null || Messages.isEmpty()) return null;        return Messages.get(0);    }}
\ No newline at end of file
+package com.roxy.messengerapp.entities;
+
+import com.google.gson.annotations.SerializedName;
+
+import java.util.List;
+
+public class Chat {
+    private String id;
+    private String type; // "private" или "group"
+    private String name;
+    private String avatar;
+    private List<User> Users;
+    private List<Message> Messages;
+    private String createdAt;
+    private String updatedAt;
+    // Номер последнего события в чате на момент ответа сервера
+    private long lastSeq;
+    // Считается на клиенте, сервер его не присылает
+    private int unreadCount;
+
+    public Chat() {}
+
+    // Копия для DiffUtil: списки не копируются глубоко, их заменяют целиком
+    public Chat(Chat other) {
+        this.id = other.id;
+        this.type = other.type;
+        this.name = other.name;
+        this.avatar = other.avatar;
+        this.Users = other.Users;
+        this.Messages = other.Messages;
+        this.createdAt = other.createdAt;
+        this.updatedAt = other.updatedAt;
+        this.lastSeq = other.lastSeq;
+        this.unreadCount = other.unreadCount;
+    }
+
+    // Геттеры и сеттеры
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public String getAvatar() { return avatar; }
+    public void setAvatar(String avatar) { this.avatar = avatar; }
+
+    public List<User> getUsers() { return Users; }
+    public void setUsers(List<User> users) { this.Users = users; }
+
+    public List<Message> getMessages() { return Messages; }
+    public void setMessages(List<Message> messages) { this.Messages = messages; }
+
+    public String getCreatedAt() { return createdAt; }
+    public void setCreatedAt(String createdAt) { this.createdAt = createdAt; }
+
+    public String getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(String updatedAt) { this.updatedAt = updatedAt; }
+
+    public long getLastSeq() { return lastSeq; }
+    public void setLastSeq(long lastSeq) { this.lastSeq = lastSeq; }
+
+    public int getUnreadCount() { return unreadCount; }
+    public void setUnreadCount(int unreadCount) { this.unreadCount = unreadCount; }
+
+    // Получить собеседника (для приватных чатов)
+    public User getOtherUser(String myId) {
+        if (Users == null) return null;
+        for (User user : Users) {
+            if (!user.getId().equals(myId)) {
+                return user;
+            }
+        }
+        return null;
+    }
+
+    // Последнее сообщение
+    public Message getLastMessage() {
+        if (Messages == null || Messages.isEmpty()) return null;
+        return Messages.get(0);
+    }
+}
\ No newline at end of file
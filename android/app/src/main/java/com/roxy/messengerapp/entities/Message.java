@@ -1 +1,140 @@
-package com.roxy.messengerapp.entities;import com.google.gson.annotations.SerializedName;public class Message {    private String id;    private String content;    private String type;    @SerializedName("isRead")    private boolean seen;    @SerializedName("isEdited")    private boolean edited;    private String chatId;    private String senderId;    private User sender;    private String createdAt;    public Message() {}    // Геттеры и сеттеры    public String getId() { return id; }    public void setId(String id) { this.id = id; }    public String getContent() { return content; }    public void setContent(String content) { this.content = content; }    public String getType() { return type; }    public void setType(String type) { this.type = type; }    public boolean isSeen() { return seen; }    public void setSeen(boolean seen) { this.seen = seen; }    public boolean isEdited() { return edited; }    public void setEdited(boolean edited) { this.edited = edited; }    public String getChatId() { return chatId; }    public void setChatId(String chatId) { this.chatId = chatId; }    public String getSenderId() { return senderId; }    public void setSenderId(String senderId) { this.senderId = senderId; }    public User getSender() { return sender; }    public void setSender(User sender) { this.sender = sender; }    public String getCreatedAt() { return createdAt; }    public void setCreatedAt(String createdAt) { this.createdAt = createdAt; }    // Для совместимости с адаптером    public String getMessage() { return content; }}
\ No newline at end of file
+package com.roxy.messengerapp.entities;
+
+import com.google.gson.annotations.SerializedName;
+import com.roxy.messengerapp.utils.TimeFormatter;
+
+public class Message {
+    private String id;
+    private String content;
+    private String type;
+    // Превью картинки; content у image-сообщения — полный размер
+    private String thumbnailUrl;
+    // Размер полной картинки и BlurHash-заглушка, считаются при загрузке; 0 и null у старых
+    private int width;
+    private int height;
+    private String blurHash;
+
+    @SerializedName("isRead")
+    private boolean seen;
+
+    @SerializedName("isEdited")
+    private boolean edited;
+
+    private String chatId;
+    private String senderId;
+    private User sender;
+    private String createdAt;
+    // Генерирует клиент при отправке, сервер возвращает его в new_message и ack
+    private String clientId;
+    // Номер события в чате, 0 от старого сервера; см. SyncManager
+    private long seq;
+
+    // Ещё в Outbox, сервер не подтвердил; id до подтверждения равен clientId
+    private transient boolean pending;
+    // Сервер отказал окончательно (чата нет, данные не прошли проверку); из Outbox убрано
+    private transient boolean failed;
+
+    // Заполняются один раз при разборе JSON, не сериализуются
+    private transient long createdAtMillis = TimeFormatter.INVALID_TIME;
+    private transient String displayTime;
+    private transient int displayTimeGeneration;
+
+    public Message() {}
+
+    // Копия для адаптера: старый снимок списка не должен меняться вместе с новым
+    public Message(Message other) {
+        this.id = other.id;
+        this.content = other.content;
+        this.type = other.type;
+        this.thumbnailUrl = other.thumbnailUrl;
+        this.width = other.width;
+        this.height = other.height;
+        this.blurHash = other.blurHash;
+        this.seen = other.seen;
+        this.edited = other.edited;
+        this.chatId = other.chatId;
+        this.senderId = other.senderId;
+        this.sender = other.sender;
+        this.createdAt = other.createdAt;
+        this.clientId = other.clientId;
+        this.seq = other.seq;
+        this.pending = other.pending;
+        this.failed = other.failed;
+        this.createdAtMillis = other.createdAtMillis;
+        this.displayTime = other.displayTime;
+        this.displayTimeGeneration = other.displayTimeGeneration;
+    }
+
+    // Геттеры и сеттеры
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getContent() { return content; }
+    public void setContent(String content) { this.content = content; }
+
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+
+    public String getThumbnailUrl() { return thumbnailUrl; }
+    public void setThumbnailUrl(String thumbnailUrl) { this.thumbnailUrl = thumbnailUrl; }
+
+    public int getWidth() { return width; }
+    public void setWidth(int width) { this.width = width; }
+
+    public int getHeight() { return height; }
+    public void setHeight(int height) { this.height = height; }
+
+    public String getBlurHash() { return blurHash; }
+    public void setBlurHash(String blurHash) { this.blurHash = blurHash; }
+
+    // Место под картинку можно занять до загрузки
+    public boolean hasImageSize() { return width > 0 && height > 0; }
+
+    public boolean isSeen() { return seen; }
+    public void setSeen(boolean seen) { this.seen = seen; }
+
+    public boolean isEdited() { return edited; }
+    public void setEdited(boolean edited) { this.edited = edited; }
+
+    public String getChatId() { return chatId; }
+    public void setChatId(String chatId) { this.chatId = chatId; }
+
+    public String getSenderId() { return senderId; }
+    public void setSenderId(String senderId) { this.senderId = senderId; }
+
+    public User getSender() { return sender; }
+    public void setSender(User sender) { this.sender = sender; }
+
+    public String getCreatedAt() { return createdAt; }
+    public void setCreatedAt(String createdAt) {
+        this.createdAt = createdAt;
+        this.createdAtMillis = TimeFormatter.parseIsoMillis(createdAt);
+        this.displayTime = null;
+    }
+
+    public String getClientId() { return clientId; }
+    public void setClientId(String clientId) { this.clientId = clientId; }
+
+    public long getSeq() { return seq; }
+    public void setSeq(long seq) { this.seq = seq; }
+
+    public boolean isPending() { return pending; }
+    public void setPending(boolean pending) { this.pending = pending; }
+
+    public boolean isFailed() { return failed; }
+    public void setFailed(boolean failed) { this.failed = failed; }
+
+    public long getCreatedAtMillis() { return createdAtMillis; }
+    public void setCreatedAtMillis(long createdAtMillis) { this.createdAtMillis = createdAtMillis; }
+
+    // Кэш строки "HH:mm" для адаптера, см. TimeFormatter
+    public String getDisplayTime() { return displayTime; }
+    public int getDisplayTimeGeneration() { return displayTimeGeneration; }
+    public void setDisplayTime(String displayTime, int generation) {
+        this.displayTime = displayTime;
+        this.displayTimeGeneration = generation;
+    }
+
+    // Для совместимости с адаптером
+    public String getMessage() { return content; }
+}
\ No newline at end of file
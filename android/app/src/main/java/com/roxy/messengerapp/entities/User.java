@@ -1 +1,51 @@
-package com.roxy.messengerapp.entities;import com.google.gson.annotations.SerializedName;public class User {    private String id;    private String username;    private String email;    @SerializedName("avatar")    private String imageURL;    @SerializedName("isOnline")    private boolean online;    private String lastSeen;    public User() {}    public User(String id, String username, String email, String imageURL, boolean online) {        this.id = id;        this.username = username;        this.email = email;        this.imageURL = imageURL;        this.online = online;    }    // Геттеры и сеттеры    public String getId() { return id; }    public void setId(String id) { this.id = id; }    public String getUsername() { return username; }    public void setUsername(String username) { this.username = username; }    public String getEmail() { return email; }    public void setEmail(String email) { this.email = email; }    public String getImageURL() { return imageURL; }    public void setImageURL(String imageURL) { this.imageURL = imageURL; }    public boolean isOnline() { return online; }    public void setOnline(boolean online) { this.online = online; }    public String getLastSeen() { return lastSeen; }    public void setLastSeen(String lastSeen) { this.lastSeen = lastSeen; }    // Для совместимости со старым кодом    public String getStatus() {        return online ? "online" : "offline";    }}
\ No newline at end of file
+package com.roxy.messengerapp.entities;
+
+import com.google.gson.annotations.SerializedName;
+
+public class User {
+    private String id;
+    private String username;
+    private String email;
+
+    @SerializedName("avatar")
+    private String imageURL;
+
+    @SerializedName("isOnline")
+    private boolean online;
+
+    private String lastSeen;
+
+    public User() {}
+
+    public User(String id, String username, String email, String imageURL, boolean online) {
+        this.id = id;
+        this.username = username;
+        this.email = email;
+        this.imageURL = imageURL;
+        this.online = online;
+    }
+
+    // Геттеры и сеттеры
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+
+    public String getEmail() { return email; }
+    public void setEmail(String email) { this.email = email; }
+
+    public String getImageURL() { return imageURL; }
+    public void setImageURL(String imageURL) { this.imageURL = imageURL; }
+
+    public boolean isOnline() { return online; }
+    public void setOnline(boolean online) { this.online = online; }
+
+    public String getLastSeen() { return lastSeen; }
+    public void setLastSeen(String lastSeen) { this.lastSeen = lastSeen; }
+
+    // Для совместимости со старым кодом
+    public String getStatus() {
+        return online ? "online" : "offline";
+    }
+}
\ No newline at end of file
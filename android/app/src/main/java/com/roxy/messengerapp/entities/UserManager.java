@@ -1 +1,32 @@
-package com.roxy.messengerapp.entities;// UserManager.javapublic class UserManager {    private static UserManager instance;    private User currentUser;    private UserManager() {}    public static UserManager getInstance() {        if (instance == null) {            instance = new UserManager();        }        return instance;    }    public User getCurrentUser() {        return currentUser;    }    public void setCurrentUser(User user) {        this.currentUser = user;    }    public boolean isLoggedIn() {        return currentUser != null;    }    public void clear() {        currentUser = null;    }}
\ No newline at end of file
+package com.roxy.messengerapp.entities;
+
+// UserManager.java
+public class UserManager {
+    private static UserManager instance;
+    private User currentUser;
+
+    private UserManager() {}
+
+    public static UserManager getInstance() {
+        if (instance == null) {
+            instance = new UserManager();
+        }
+        return instance;
+    }
+
+    public User getCurrentUser() {
+        return currentUser;
+    }
+
+    public void setCurrentUser(User user) {
+        this.currentUser = user;
+    }
+
+    public boolean isLoggedIn() {
+        return currentUser != null;
+    }
+
+    public void clear() {
+        currentUser = null;
+    }
+}
@@ -18,15 +18,19 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.roxy.messengerapp.R;
 import com.roxy.messengerapp.adapters.ChatAdapter;
+import com.roxy.messengerapp.database.LocalStore;
 import com.roxy.messengerapp.entities.Chat;
 import com.roxy.messengerapp.entities.Message;
+import com.roxy.messengerapp.entities.User;
 import com.roxy.messengerapp.network.ApiClient;
-import com.roxy.messengerapp.network.ApiService;
+import com.roxy.messengerapp.network.ApiRepository;
 import com.roxy.messengerapp.network.SocketManager;
 import com.roxy.messengerapp.utils.SwipeToDeleteCallback;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import retrofit2.Call;
 import retrofit2.Callback;
@@ -41,6 +45,16 @@ public class ChatsFragment extends Fragment {
     private SocketManager.OnMessageListener messageListener;
     private ProgressBar progressBar;
     private String currentUserId;
+    private boolean chatsLoadedFromServer;
+
+    // Модель и счётчики живут, пока жив фрагмент: пока открыт чат, view уничтожено,
+    // но сообщения в другие чаты всё равно считаются
+    @Override
+    public void onCreate(@Nullable Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        chatList = new ArrayList<>();
+        setupSocketListener();
+    }
 
     @Override
     public View onCreateView(LayoutInflater inflater, ViewGroup container,
@@ -56,58 +70,107 @@ public class ChatsFragment extends Fragment {
         recyclerView.setHasFixedSize(true);
         recyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
         
-        chatList = new ArrayList<>();
+        setupAdapter();
+        // Back from a chat: the list with its counters is still here, show it at once
+        if (!chatList.isEmpty()) {
+            submitChats();
+        }
 
         // Получаем ID текущего пользователя
         getCurrentUserAndLoadChats();
-
-        // Слушаем новые сообщения
-        setupSocketListener();
     }
 
     private void getCurrentUserAndLoadChats() {
-        ApiClient.getApi().getMe().enqueue(new Callback<ApiService.UserResponse>() {
+        // Show the cached list right away, the network answer replaces it
+        LocalStore store = LocalStore.getInstance();
+        if (store != null) {
+            store.loadCurrentUser(user -> {
+                if (user == null) return;
+                store.loadChats(chats -> {
+                    if (chatAdapter == null || chatsLoadedFromServer || chats.isEmpty()) return;
+                    currentUserId = user.getId();
+                    chatAdapter.setCurrentUserId(currentUserId);
+                    chatList.clear();
+                    chatList.addAll(chats);
+                    submitChats();
+                });
+            });
+        }
+
+        ApiRepository.getInstance().getMe(new ApiRepository.ResultCallback<User>() {
             @Override
-            public void onResponse(Call<ApiService.UserResponse> call, Response<ApiService.UserResponse> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    currentUserId = response.body().user.getId();
-                    loadChats();
+            public void onSuccess(User user) {
+                currentUserId = user.getId();
+                if (chatAdapter != null) {
+                    chatAdapter.setCurrentUserId(currentUserId);
                 }
+                loadChats(false);
             }
 
             @Override
-            public void onFailure(Call<ApiService.UserResponse> call, Throwable t) {
-                if (getContext() != null) {
+            public void onError(int httpCode, String message) {
+                if (httpCode == 0 && getContext() != null) {
                     Toast.makeText(getContext(), "Ошибка загрузки", Toast.LENGTH_SHORT).show();
                 }
             }
         });
     }
 
-    private void loadChats() {
-        ApiClient.getApi().getMyChats().enqueue(new Callback<ApiService.ChatsResponse>() {
+    private void loadChats(boolean forceRefresh) {
+        ApiRepository.getInstance().getMyChats(forceRefresh, new ApiRepository.ResultCallback<List<Chat>>() {
             @Override
-            public void onResponse(Call<ApiService.ChatsResponse> call, Response<ApiService.ChatsResponse> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    chatList.clear();
-                    chatList.addAll(response.body().chats);
-                    setupAdapter();
+            public void onSuccess(List<Chat> chats) {
+                LocalStore store = LocalStore.getInstance();
+                if (store == null) {
+                    applyServerChats(chats, new ArrayList<>());
+                    return;
                 }
+                // Counters of chats the screen doesn't hold yet (fresh start) are only in the store
+                store.loadChats(cached -> applyServerChats(chats, cached));
             }
 
             @Override
-            public void onFailure(Call<ApiService.ChatsResponse> call, Throwable t) {
-                if (getContext() != null) {
+            public void onError(int httpCode, String message) {
+                // Cached chats (if any) stay on screen
+                if (httpCode == 0 && getContext() != null && chatList.isEmpty()) {
                     Toast.makeText(getContext(), "Ошибка загрузки чатов", Toast.LENGTH_SHORT).show();
                 }
             }
         });
     }
 
+    // Unread counters are local only, carry them over the reload: the live list wins,
+    // the stored copy fills in what the list doesn't have
+    private void applyServerChats(List<Chat> chats, List<Chat> cached) {
+        if (!isAdded()) return;
+        Map<String, Integer> storedUnread = new HashMap<>();
+        for (Chat chat : cached) {
+            storedUnread.put(chat.getId(), chat.getUnreadCount());
+        }
+        for (int i = 0; i < chats.size(); i++) {
+            String chatId = chats.get(i).getId();
+            int index = indexOfChat(chatId);
+            int unread = index >= 0 ? chatList.get(index).getUnreadCount() : storedUnread.getOrDefault(chatId, 0);
+            if (unread != chats.get(i).getUnreadCount()) {
+                // Copy, the repository keeps serving the same objects from its cache
+                Chat chat = new Chat(chats.get(i));
+                chat.setUnreadCount(unread);
+                chats.set(i, chat);
+            }
+        }
+        chatsLoadedFromServer = true;
+        chatList.clear();
+        chatList.addAll(chats);
+        saveChats();
+        submitChats();
+    }
+
     private void setupAdapter() {
-        chatAdapter = new ChatAdapter(chatList, currentUserId, new ChatAdapter.OnChatClickListener() {
+        chatAdapter = new ChatAdapter(currentUserId, new ChatAdapter.OnChatClickListener() {
             @Override
             public void onChatClick(Chat chat) {
+                clearUnread(chat.getId());
+
                 MessageChatFragment chatFragment = new MessageChatFragment();
                 Bundle bundle = new Bundle();
                 bundle.putString("chatId", chat.getId());
@@ -146,19 +209,90 @@ public class ChatsFragment extends Fragment {
         new ItemTouchHelper(swipeCallback).attachToRecyclerView(recyclerView);
     }
 
+    // chatList — модель экрана, адаптер получает её снимок и сам считает разницу
+    private void submitChats() {
+        // Без view (открыт чат) только модель, список покажем в onViewCreated
+        if (chatAdapter == null) return;
+        chatAdapter.submitList(new ArrayList<>(chatList));
+    }
+
+    // Counters exist only on this device, so every change to them goes to the store
+    private void saveChats() {
+        if (LocalStore.getInstance() != null) {
+            LocalStore.getInstance().saveChats(chatList);
+        }
+    }
+
+    private int indexOfChat(String chatId) {
+        for (int i = 0; i < chatList.size(); i++) {
+            if (chatList.get(i).getId().equals(chatId)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
     private void setupSocketListener() {
         messageListener = new SocketManager.OnMessageListener() {
             @Override
-            public void onNewMessage(Message message) {
-                // Обновляем список чатов при новом сообщении
-                if (getActivity() != null) {
-                    getActivity().runOnUiThread(() -> loadChats());
+            public void onNewMessages(List<Message> messages) {
+                boolean changed = false;
+                boolean unknownChat = false;
+                for (Message message : messages) {
+                    if (applyIncomingMessage(message)) {
+                        changed = true;
+                    } else {
+                        // Чат, которого у нас ещё нет (кто-то нам только что написал) — тут нужен сервер
+                        unknownChat = true;
+                    }
+                }
+                // Known chats are patched right away, the reload only adds the new ones
+                if (changed) {
+                    saveChats();
+                    submitChats();
+                }
+                if (unknownChat) {
+                    loadChats(true);
                 }
             }
         };
         SocketManager.getInstance().addMessageListener(messageListener);
     }
 
+    // Патчим модель без запроса к серверу: превью, счётчик, строка наверх.
+    // false — чата нет в списке, патчить нечего
+    private boolean applyIncomingMessage(Message message) {
+        if (message.getChatId() == null) return true;
+
+        int index = indexOfChat(message.getChatId());
+        if (index < 0) {
+            return false;
+        }
+
+        Chat updated = new Chat(chatList.remove(index));
+        List<Message> last = new ArrayList<>();
+        last.add(message);
+        updated.setMessages(last);
+        if (message.getCreatedAt() != null) {
+            updated.setUpdatedAt(message.getCreatedAt());
+        }
+        if (message.getSenderId() != null && !message.getSenderId().equals(currentUserId)) {
+            updated.setUnreadCount(updated.getUnreadCount() + 1);
+        }
+        chatList.add(0, updated);
+        return true;
+    }
+
+    private void clearUnread(String chatId) {
+        int index = indexOfChat(chatId);
+        if (index < 0 || chatList.get(index).getUnreadCount() == 0) return;
+        Chat updated = new Chat(chatList.get(index));
+        updated.setUnreadCount(0);
+        chatList.set(index, updated);
+        saveChats();
+        submitChats();
+    }
+
     private void showDeleteChatConfirmation(Chat chat, int position) {
         new AlertDialog.Builder(requireContext())
                 .setTitle("Удалить чат?")
@@ -182,9 +316,17 @@ public class ChatsFragment extends Fragment {
             @Override
             public void onResponse(Call<Void> call, Response<Void> response) {
                 if (response.isSuccessful()) {
-                    chatAdapter.removeChat(position);
+                    if (LocalStore.getInstance() != null) {
+                        LocalStore.getInstance().deleteChat(chatId);
+                    }
+                    ApiRepository.getInstance().invalidateChats();
+                    int index = indexOfChat(chatId);
+                    if (index >= 0) {
+                        chatList.remove(index);
+                        submitChats();
+                    }
                     Toast.makeText(getContext(), "Чат удалён", Toast.LENGTH_SHORT).show();
-                } else {
+                } else if (chatAdapter != null) {
                     chatAdapter.notifyItemChanged(position);
                     Toast.makeText(getContext(), "Ошибка удаления", Toast.LENGTH_SHORT).show();
                 }
@@ -192,6 +334,7 @@ public class ChatsFragment extends Fragment {
 
             @Override
             public void onFailure(Call<Void> call, Throwable t) {
+                if (chatAdapter == null) return;
                 chatAdapter.notifyItemChanged(position);
                 Toast.makeText(getContext(), "Ошибка сети", Toast.LENGTH_SHORT).show();
             }
@@ -201,6 +344,13 @@ public class ChatsFragment extends Fragment {
     @Override
     public void onDestroyView() {
         super.onDestroyView();
+        chatAdapter = null;
+        recyclerView = null;
+    }
+
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
         if (messageListener != null) {
             SocketManager.getInstance().removeMessageListener(messageListener);
         }
@@ -30,22 +30,11 @@ import com.roxy.messengerapp.R;
 import com.roxy.messengerapp.activities.StartActivity;
 import com.roxy.messengerapp.adapters.ViewPagerAdapter;
 import com.roxy.messengerapp.entities.User;
-import com.roxy.messengerapp.entities.UserManager;
 import com.roxy.messengerapp.network.ApiClient;
-import com.roxy.messengerapp.network.ApiService;
+import com.roxy.messengerapp.network.ApiRepository;
 import com.roxy.messengerapp.network.SocketManager;
 
-import java.io.IOException;
-import java.io.InputStream;
-
 import de.hdodenhof.circleimageview.CircleImageView;
-import okhttp3.Call;
-import okhttp3.Callback;
-import okhttp3.MediaType;
-import okhttp3.OkHttpClient;
-import okhttp3.Request;
-import okhttp3.RequestBody;
-import okhttp3.Response;
 
 public class HomeFragment extends Fragment {
 
@@ -53,7 +42,6 @@ public class HomeFragment extends Fragment {
     TextView headerTitle;
 
     private User currentUser;
-    private final OkHttpClient okHttpClient = new OkHttpClient();
 
     @Override
     public View onCreateView(LayoutInflater inflater, ViewGroup container,
@@ -120,19 +108,17 @@ public class HomeFragment extends Fragment {
     }
 
     private void loadCurrentUser() {
-        ApiClient.getApi().getMe().enqueue(new retrofit2.Callback<ApiService.UserResponse>() {
+        // Репозиторий сам кладёт пользователя в UserManager
+        ApiRepository.getInstance().getMe(new ApiRepository.ResultCallback<User>() {
             @Override
-            public void onResponse(retrofit2.Call<ApiService.UserResponse> call, retrofit2.Response<ApiService.UserResponse> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    currentUser = response.body().user;
-                    UserManager.getInstance().setCurrentUser(currentUser);
-                    // Обновляем UI
-                }
+            public void onSuccess(User user) {
+                currentUser = user;
+                // Обновляем UI
             }
 
             @Override
-            public void onFailure(retrofit2.Call<ApiService.UserResponse> call, Throwable t) {
-                if (getContext() != null) {
+            public void onError(int httpCode, String message) {
+                if (httpCode == 0 && getContext() != null) {
                     Toast.makeText(getContext(), "Ошибка загрузки профиля", Toast.LENGTH_SHORT).show();
                 }
             }
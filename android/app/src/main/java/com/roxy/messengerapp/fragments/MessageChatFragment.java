@@ -4,8 +4,6 @@ import android.app.Activity;
 import android.content.Intent;
 import android.net.Uri;
 import android.os.Bundle;
-import android.os.Handler;
-import android.os.Looper;
 import android.text.Editable;
 import android.text.TextWatcher;
 import android.view.LayoutInflater;
@@ -14,6 +12,7 @@ import android.view.ViewGroup;
 import android.widget.EditText;
 import android.widget.ImageButton;
 import android.widget.LinearLayout;
+import android.widget.ProgressBar;
 import android.widget.TextView;
 import android.widget.Toast;
 
@@ -29,47 +28,62 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
+import com.bumptech.glide.integration.recyclerview.RecyclerViewPreloader;
 import com.google.android.material.bottomsheet.BottomSheetDialog;
 import com.roxy.messengerapp.R;
 import com.roxy.messengerapp.adapters.MessageAdapter;
+import com.roxy.messengerapp.database.LocalStore;
 import com.roxy.messengerapp.entities.Message;
+import com.roxy.messengerapp.entities.User;
 import com.roxy.messengerapp.network.ApiClient;
+import com.roxy.messengerapp.network.ApiRepository;
 import com.roxy.messengerapp.network.ApiService;
+import com.roxy.messengerapp.network.ImageUploader;
+import com.roxy.messengerapp.network.Outbox;
 import com.roxy.messengerapp.network.SocketManager;
+import com.roxy.messengerapp.utils.ImageTranscoder;
+import com.roxy.messengerapp.utils.PagingScrollListener;
 
-import java.io.IOException;
-import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import de.hdodenhof.circleimageview.CircleImageView;
 import okhttp3.Call;
-import okhttp3.Callback;
-import okhttp3.MediaType;
-import okhttp3.OkHttpClient;
-import okhttp3.Request;
-import okhttp3.RequestBody;
-import okhttp3.Response;
 
 public class MessageChatFragment extends Fragment {
 
+    private static final int PAGE_SIZE = 50;
+    // Start fetching the next page this many rows before the edge of the loaded window
+    private static final int PREFETCH_DISTANCE = 15;
+    // Pages beyond this are dropped from the far end of the window
+    private static final int MAX_LOADED_MESSAGES = PAGE_SIZE * 6;
+    // Photos decoded ahead of the scroll, in rows; the memory cache holds about three screens
+    private static final int IMAGE_PRELOAD_ROWS = 6;
+
     private CircleImageView profileImage;
     private TextView usernameText;
     private ImageButton btnSend;
     private ImageButton btnAttach;
     private EditText textSend;
     private TextView typingIndicator;
-    private final Handler typingHandler = new Handler(Looper.getMainLooper());
-    private final Runnable hideTypingRunnable = () -> {
-        if (typingIndicator != null) {
-            typingIndicator.setVisibility(View.GONE);
+    // Other participants typing in this chat right now
+    private final Set<String> typingUsers = new HashSet<>();
+    private RecyclerView recyclerView;
+    // One instance, so a burst of messages scrolls once after the coalesced update
+    private final Runnable scrollToBottom = () -> {
+        if (recyclerView != null && messageAdapter != null && messageAdapter.getItemCount() > 0) {
+            recyclerView.smoothScrollToPosition(messageAdapter.getItemCount() - 1);
         }
     };
-    private RecyclerView recyclerView;
 
     private MessageAdapter messageAdapter;
     private SocketManager.OnMessageListener messageListener;
     private SocketManager.OnMessageDeletedListener messageDeletedListener;
+    private SocketManager.OnTypingListener typingListener;
+    private SocketManager.OnMessagesReadListener readListener;
+    private Outbox.OnSendFailedListener sendFailedListener;
     private List<Message> messageList;
 
     private String chatId;
@@ -77,8 +91,17 @@ public class MessageChatFragment extends Fragment {
     private String otherUsername;
     private String otherImageURL;
     private String currentUserId;
-
-    private final OkHttpClient okHttpClient = new OkHttpClient();
+    private boolean messagesLoadedFromServer;
+    private boolean loadingOlder;
+    private boolean loadingNewer;
+    private boolean hasOlder;
+    // true when the window was trimmed from the bottom and no longer ends at the newest message
+    private boolean hasNewer;
+
+    private ProgressBar uploadProgress;
+    private Call uploadCall;
+    // Temp WebP files of the upload in flight
+    private ImageTranscoder.Result pendingImage;
 
     private final ActivityResultLauncher<Intent> pickImageLauncher = registerForActivityResult(
             new ActivityResultContracts.StartActivityForResult(),
@@ -124,6 +147,7 @@ public class MessageChatFragment extends Fragment {
         textSend = view.findViewById(R.id.text_send);
         recyclerView = view.findViewById(R.id.recycler_view);
         typingIndicator = view.findViewById(R.id.typing_indicator);
+        uploadProgress = view.findViewById(R.id.upload_progress);
 
         // RecyclerView
         messageList = new ArrayList<>();
@@ -131,6 +155,17 @@ public class MessageChatFragment extends Fragment {
         layoutManager.setStackFromEnd(true);
         recyclerView.setLayoutManager(layoutManager);
         recyclerView.setHasFixedSize(true);
+        recyclerView.addOnScrollListener(new PagingScrollListener(layoutManager, PREFETCH_DISTANCE) {
+            @Override
+            protected void onLoadOlder() {
+                loadOlderMessages();
+            }
+
+            @Override
+            protected void onLoadNewer() {
+                loadNewerMessages();
+            }
+        });
 
         // Get arguments
         if (getArguments() != null) {
@@ -155,6 +190,7 @@ public class MessageChatFragment extends Fragment {
         btnSend.setOnClickListener(v -> {
             String msg = textSend.getText().toString().trim();
             if (!msg.isEmpty()) {
+                SocketManager.getInstance().stopTyping(chatId);
                 sendMessage(msg, "text");
                 textSend.setText("");
             }
@@ -175,8 +211,11 @@ public class MessageChatFragment extends Fragment {
 
             @Override
             public void onTextChanged(CharSequence s, int start, int before, int count) {
+                // SocketManager throttles this to typing_start/typing_stop transitions
                 if (s.length() > 0) {
                     SocketManager.getInstance().sendTyping(chatId);
+                } else {
+                    SocketManager.getInstance().stopTyping(chatId);
                 }
             }
 
@@ -191,125 +230,220 @@ public class MessageChatFragment extends Fragment {
 
     private void uploadImageToS3(Uri imageUri) {
         Toast.makeText(getContext(), "Загрузка изображения...", Toast.LENGTH_SHORT).show();
+        showUploadProgress(0, -1);
+
+        // Step 1: Shrink to WebP and cut a preview off the main thread
+        ImageTranscoder.transcode(requireContext(), imageUri, ImageTranscoder.Options.chatImage(),
+                new ImageTranscoder.OnTranscodedListener() {
+                    @Override
+                    public void onTranscoded(ImageTranscoder.Result result) {
+                        if (!isAdded()) {
+                            result.delete();
+                            return;
+                        }
+                        pendingImage = result;
+                        requestUploadUrls(result);
+                    }
 
-        // Determine MIME type from URI
-        String mimeType = requireContext().getContentResolver().getType(imageUri);
-        if (mimeType == null || !mimeType.startsWith("image/")) {
-            mimeType = "image/jpeg"; // Fallback
-        }
-
-        final String finalMimeType = mimeType;
+                    @Override
+                    public void onFailed(String error) {
+                        hideUploadProgress();
+                        if (getContext() != null) {
+                            Toast.makeText(getContext(), "Ошибка обработки изображения", Toast.LENGTH_SHORT).show();
+                        }
+                    }
+                });
+    }
 
-        // Step 1: Get presigned URL from backend
-        ApiClient.getApi().getPresignedUrl(mimeType).enqueue(new retrofit2.Callback<ApiService.PresignedUrlResponse>() {
+    private void requestUploadUrls(ImageTranscoder.Result image) {
+        // Step 2: Get presigned URLs (full size and preview) from backend
+        ApiClient.getApi().getPresignedUrl(ImageTranscoder.MIME_TYPE, image.thumbnail != null)
+                .enqueue(new retrofit2.Callback<ApiService.PresignedUrlResponse>() {
             @Override
             public void onResponse(retrofit2.Call<ApiService.PresignedUrlResponse> call, retrofit2.Response<ApiService.PresignedUrlResponse> response) {
                 if (response.isSuccessful() && response.body() != null) {
-                    String presignedUrl = response.body().presignedUrl;
-                    String imageUrl = response.body().imageUrl;
-
-                    // Step 2: Upload image to S3
-                    uploadToS3(imageUri, presignedUrl, imageUrl, finalMimeType);
+                    ApiService.PresignedUrlResponse urls = response.body();
+                    if (image.thumbnail != null && urls.thumbnailPresignedUrl != null) {
+                        uploadThumbnail(image, urls);
+                    } else {
+                        uploadToS3(image, urls.presignedUrl, urls.imageUrl, null);
+                    }
                 } else {
+                    uploadFailed(image, null);
                     Toast.makeText(getContext(), "Ошибка получения URL", Toast.LENGTH_SHORT).show();
                 }
             }
 
             @Override
             public void onFailure(retrofit2.Call<ApiService.PresignedUrlResponse> call, Throwable t) {
+                uploadFailed(image, null);
                 Toast.makeText(getContext(), "Ошибка сети: " + t.getMessage(), Toast.LENGTH_SHORT).show();
             }
         });
     }
 
-    private void uploadToS3(Uri imageUri, String presignedUrl, String finalImageUrl, String mimeType) {
-        try {
-            InputStream inputStream = requireContext().getContentResolver().openInputStream(imageUri);
-            byte[] imageBytes = new byte[inputStream.available()];
-            inputStream.read(imageBytes);
-            inputStream.close();
-
-            RequestBody requestBody = RequestBody.create(MediaType.parse(mimeType), imageBytes);
-
-            Request request = new Request.Builder()
-                    .url(presignedUrl)
-                    .put(requestBody)
-                    .build();
-
-            okHttpClient.newCall(request).enqueue(new Callback() {
-                @Override
-                public void onFailure(@NonNull Call call, @NonNull IOException e) {
-                    if (getActivity() != null) {
-                        getActivity().runOnUiThread(() -> {
-                            Toast.makeText(getContext(), "Ошибка загрузки: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-                        });
+    // Превью маленькое, грузим его первым — без него сообщение не отправляем
+    private void uploadThumbnail(ImageTranscoder.Result image, ApiService.PresignedUrlResponse urls) {
+        if (!isAdded()) return;
+        uploadCall = ImageUploader.getInstance().upload(requireContext().getContentResolver(),
+                Uri.fromFile(image.thumbnail), urls.thumbnailPresignedUrl, ImageTranscoder.MIME_TYPE,
+                new ImageUploader.UploadListener() {
+                    @Override
+                    public void onProgress(long bytesWritten, long totalBytes) {
                     }
-                }
 
-                @Override
-                public void onResponse(@NonNull Call call, @NonNull Response response) throws IOException {
-                    if (getActivity() != null) {
-                        getActivity().runOnUiThread(() -> {
-                            if (response.isSuccessful()) {
-                                // Step 3: Send message with image URL
-                                sendMessage(finalImageUrl, "image");
-                                Toast.makeText(getContext(), "Изображение отправлено!", Toast.LENGTH_SHORT).show();
-                            } else {
-                                Toast.makeText(getContext(), "Ошибка S3: " + response.code(), Toast.LENGTH_SHORT).show();
-                            }
-                        });
+                    @Override
+                    public void onSuccess() {
+                        uploadCall = null;
+                        uploadToS3(image, urls.presignedUrl, urls.imageUrl, urls.thumbnailUrl);
                     }
-                }
-            });
 
-        } catch (IOException e) {
-            Toast.makeText(getContext(), "Ошибка чтения файла", Toast.LENGTH_SHORT).show();
+                    @Override
+                    public void onFailure(String error) {
+                        uploadCall = null;
+                        uploadFailed(image, error);
+                    }
+                });
+    }
+
+    private void uploadToS3(ImageTranscoder.Result image, String presignedUrl, String finalImageUrl, String thumbnailUrl) {
+        if (!isAdded()) return;
+
+        // Файл читается и отправляется на фоне, здесь только прогресс и результат
+        uploadCall = ImageUploader.getInstance().upload(requireContext().getContentResolver(),
+                Uri.fromFile(image.image), presignedUrl, ImageTranscoder.MIME_TYPE,
+                new ImageUploader.UploadListener() {
+                    @Override
+                    public void onProgress(long bytesWritten, long totalBytes) {
+                        showUploadProgress(bytesWritten, totalBytes);
+                    }
+
+                    @Override
+                    public void onSuccess() {
+                        uploadCall = null;
+                        pendingImage = null;
+                        image.delete();
+                        hideUploadProgress();
+                        if (!isAdded()) return;
+                        // Step 3: Send message with image URL
+                        sendMessage(finalImageUrl, "image", thumbnailUrl, image.width, image.height, image.blurHash);
+                        Toast.makeText(getContext(), "Изображение отправлено!", Toast.LENGTH_SHORT).show();
+                    }
+
+                    @Override
+                    public void onFailure(String error) {
+                        uploadCall = null;
+                        uploadFailed(image, error);
+                    }
+                });
+    }
+
+    private void uploadFailed(ImageTranscoder.Result image, String error) {
+        pendingImage = null;
+        image.delete();
+        hideUploadProgress();
+        if (error != null && getContext() != null) {
+            Toast.makeText(getContext(), "Ошибка загрузки: " + error, Toast.LENGTH_SHORT).show();
         }
     }
 
-    private void getCurrentUserAndLoadMessages() {
-        ApiClient.getApi().getMe().enqueue(new retrofit2.Callback<ApiService.UserResponse>() {
-            @Override
-            public void onResponse(retrofit2.Call<ApiService.UserResponse> call, retrofit2.Response<ApiService.UserResponse> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    currentUserId = response.body().user.getId();
+    private void showUploadProgress(long bytesWritten, long totalBytes) {
+        if (uploadProgress == null) return;
+        uploadProgress.setVisibility(View.VISIBLE);
+        btnAttach.setEnabled(false);
+        // Without a known size the bar just spins
+        uploadProgress.setIndeterminate(totalBytes <= 0);
+        if (totalBytes > 0) {
+            uploadProgress.setProgress((int) (bytesWritten * 100 / totalBytes));
+        }
+    }
 
-                    // Initialize adapter
-                    messageAdapter = new MessageAdapter(getContext(), currentUserId, otherImageURL);
-                    recyclerView.setAdapter(messageAdapter);
-                    messageAdapter.setOnMessageLongClickListener((message, position) -> {
-                        showMessageActionsDialog(message);
-                    });
+    private void hideUploadProgress() {
+        if (uploadProgress == null) return;
+        uploadProgress.setVisibility(View.GONE);
+        btnAttach.setEnabled(true);
+    }
 
-                    // Load messages
-                    loadMessages();
+    private void getCurrentUserAndLoadMessages() {
+        // Render the cached conversation first, then reconcile with the server
+        LocalStore store = LocalStore.getInstance();
+        if (store != null) {
+            store.loadCurrentUser(user -> {
+                if (user != null && isAdded()) {
+                    setupAdapter(user.getId());
+                    loadCachedMessages();
                 }
+            });
+        }
+
+        ApiRepository.getInstance().getMe(new ApiRepository.ResultCallback<User>() {
+            @Override
+            public void onSuccess(User user) {
+                if (!isAdded()) return;
+                setupAdapter(user.getId());
+
+                // Load messages
+                loadMessages();
             }
 
             @Override
-            public void onFailure(retrofit2.Call<ApiService.UserResponse> call, Throwable t) {
-                Toast.makeText(getContext(), "Ошибка загрузки", Toast.LENGTH_SHORT).show();
+            public void onError(int httpCode, String message) {
+                if (httpCode == 0 && messageAdapter == null) {
+                    Toast.makeText(getContext(), "Ошибка загрузки", Toast.LENGTH_SHORT).show();
+                }
             }
         });
     }
 
+    private void setupAdapter(String userId) {
+        if (messageAdapter != null) return;
+        currentUserId = userId;
+
+        // Initialize adapter
+        messageAdapter = new MessageAdapter(getContext(), currentUserId, otherImageURL);
+        recyclerView.setAdapter(messageAdapter);
+        recyclerView.addOnScrollListener(new RecyclerViewPreloader<>(Glide.with(this), messageAdapter,
+                messageAdapter.getPreloadSizeProvider(), IMAGE_PRELOAD_ROWS));
+        messageAdapter.setOnMessageLongClickListener((message, position) -> {
+            showMessageActionsDialog(message);
+        });
+        // Unsent messages from an earlier visit (or before the app was killed)
+        messageAdapter.appendMessages(Outbox.getInstance().getPending(chatId), null);
+    }
+
+    private void loadCachedMessages() {
+        LocalStore.getInstance().loadMessages(chatId, PAGE_SIZE, messages -> {
+            // The network may have answered first; never overwrite fresher data
+            if (!isAdded() || messagesLoadedFromServer || messages.isEmpty()) return;
+            messageAdapter.setMessages(messages, () -> recyclerView.scrollToPosition(messages.size() - 1));
+        });
+    }
+
     private void loadMessages() {
         android.util.Log.d("MessageChat", "=== LOADING MESSAGES ===");
         android.util.Log.d("MessageChat", "ChatId: " + chatId);
-        ApiClient.getApi().getChatMessages(chatId, 50, 0).enqueue(new retrofit2.Callback<ApiService.MessagesResponse>() {
+        ApiClient.getApi().getChatMessages(chatId, PAGE_SIZE, 0).enqueue(new retrofit2.Callback<ApiService.MessagesResponse>() {
             @Override
             public void onResponse(retrofit2.Call<ApiService.MessagesResponse> call, retrofit2.Response<ApiService.MessagesResponse> response) {
                 android.util.Log.d("MessageChat", "Response code: " + response.code());
                 if (response.isSuccessful() && response.body() != null) {
-                    android.util.Log.d("MessageChat", "Messages count: " + response.body().messages.size());
-
-                    // Update list through adapter
-                    messageAdapter.setMessages(response.body().messages);
+                    List<Message> messages = response.body().messages;
+                    android.util.Log.d("MessageChat", "Messages count: " + messages.size());
 
-                    // Scroll to bottom
-                    if (!response.body().messages.isEmpty()) {
-                        recyclerView.scrollToPosition(response.body().messages.size() - 1);
+                    if (LocalStore.getInstance() != null) {
+                        LocalStore.getInstance().saveMessages(chatId, messages);
                     }
+                    if (!isAdded()) return;
+                    messagesLoadedFromServer = true;
+                    hasOlder = response.body().hasMore;
+                    hasNewer = false;
+
+                    // Update list through adapter, then scroll to bottom
+                    messageAdapter.setMessages(messages, () -> {
+                        if (!messages.isEmpty()) {
+                            recyclerView.scrollToPosition(messages.size() - 1);
+                        }
+                    });
 
                     // Mark as read
                     SocketManager.getInstance().markAsRead(chatId);
@@ -318,16 +452,98 @@ public class MessageChatFragment extends Fragment {
 
             @Override
             public void onFailure(retrofit2.Call<ApiService.MessagesResponse> call, Throwable t) {
-                Toast.makeText(getContext(), "Ошибка загрузки сообщений", Toast.LENGTH_SHORT).show();
+                // Cached messages (if any) stay on screen
+                if (isAdded() && messageAdapter.getMessageCount() == 0) {
+                    Toast.makeText(getContext(), "Ошибка загрузки сообщений", Toast.LENGTH_SHORT).show();
+                }
+            }
+        });
+    }
+
+    private void loadOlderMessages() {
+        if (loadingOlder || !hasOlder || !messagesLoadedFromServer) return;
+        Message first = messageAdapter.getFirstMessage();
+        if (first == null) return;
+
+        loadingOlder = true;
+        ApiClient.getApi().getChatMessagesBefore(chatId, PAGE_SIZE, first.getId()).enqueue(new retrofit2.Callback<ApiService.MessagesResponse>() {
+            @Override
+            public void onResponse(retrofit2.Call<ApiService.MessagesResponse> call, retrofit2.Response<ApiService.MessagesResponse> response) {
+                loadingOlder = false;
+                if (!isAdded() || !response.isSuccessful() || response.body() == null) return;
+
+                List<Message> older = response.body().messages;
+                hasOlder = response.body().hasMore;
+                if (older.isEmpty()) return;
+
+                if (LocalStore.getInstance() != null) {
+                    LocalStore.getInstance().saveMessages(chatId, older);
+                }
+                messageAdapter.prependMessages(older, () -> {
+                    // The user is near the top, so the newest rows are far off-screen
+                    int overflow = messageAdapter.getMessageCount() - MAX_LOADED_MESSAGES;
+                    if (overflow > 0) {
+                        messageAdapter.trimNewest(overflow);
+                        hasNewer = true;
+                    }
+                });
+            }
+
+            @Override
+            public void onFailure(retrofit2.Call<ApiService.MessagesResponse> call, Throwable t) {
+                loadingOlder = false;
+            }
+        });
+    }
+
+    private void loadNewerMessages() {
+        if (loadingNewer || !hasNewer) return;
+        Message last = messageAdapter.getLastMessage();
+        if (last == null) return;
+
+        loadingNewer = true;
+        ApiClient.getApi().getChatMessagesAfter(chatId, PAGE_SIZE, last.getId()).enqueue(new retrofit2.Callback<ApiService.MessagesResponse>() {
+            @Override
+            public void onResponse(retrofit2.Call<ApiService.MessagesResponse> call, retrofit2.Response<ApiService.MessagesResponse> response) {
+                loadingNewer = false;
+                if (!isAdded() || !response.isSuccessful() || response.body() == null) return;
+
+                List<Message> newer = response.body().messages;
+                hasNewer = response.body().hasMore;
+                if (newer.isEmpty()) return;
+
+                if (LocalStore.getInstance() != null) {
+                    LocalStore.getInstance().saveMessages(chatId, newer);
+                }
+                messageAdapter.appendMessages(newer, () -> {
+                    int overflow = messageAdapter.getMessageCount() - MAX_LOADED_MESSAGES;
+                    if (overflow > 0) {
+                        messageAdapter.trimOldest(overflow);
+                        hasOlder = true;
+                    }
+                });
+            }
+
+            @Override
+            public void onFailure(retrofit2.Call<ApiService.MessagesResponse> call, Throwable t) {
+                loadingNewer = false;
             }
         });
     }
 
     private void sendMessage(String content, String type) {
+        sendMessage(content, type, null, 0, 0, null);
+    }
+
+    private void sendMessage(String content, String type, String thumbnailUrl, int width, int height, String blurHash) {
         android.util.Log.d("MessageChat", "Sending message to chat: " + chatId);
         android.util.Log.d("MessageChat", "Content: " + content + ", Type: " + type);
-        // Send through socket
-        SocketManager.getInstance().sendMessage(chatId, content, type);
+        // Shown at once as pending; the Outbox keeps retrying until the server acks it
+        Message pending = Outbox.getInstance().send(chatId, currentUserId, content, type, thumbnailUrl,
+                width, height, blurHash);
+        if (messageAdapter != null && !hasNewer) {
+            messageAdapter.addMessage(pending, scrollToBottom);
+        }
     }
 
     private void setupSocketListener() {
@@ -335,57 +551,60 @@ public class MessageChatFragment extends Fragment {
 
         messageListener = new SocketManager.OnMessageListener() {
             @Override
-            public void onNewMessage(Message message) {
-                String incomingChatId = message.getChatId();
-
-                if (incomingChatId != null && incomingChatId.equals(chatId)) {
-
-                    if (getActivity() != null) {
-                        getActivity().runOnUiThread(() -> {
-                            messageAdapter.addMessage(message);
-                            recyclerView.smoothScrollToPosition(messageAdapter.getItemCount());
-
-                            // Mark as read if from other user
-                            if (message.getSenderId() != null && !message.getSenderId().equals(currentUserId)) {
-                                SocketManager.getInstance().markAsRead(chatId);
-                            }
-                        });
+            public void onNewMessages(List<Message> messages) {
+                // Scrolled far back: the live tail is not loaded, it will be paged in
+                if (messageAdapter == null || hasNewer) return;
+
+                // Whole burst in one submit, one scroll, one mark_read
+                messageAdapter.appendMessages(messages, scrollToBottom);
+                for (Message message : messages) {
+                    if (message.getSenderId() != null && !message.getSenderId().equals(currentUserId)) {
+                        SocketManager.getInstance().markAsRead(chatId);
+                        break;
                     }
-                } else {
-                    android.util.Log.d("ChatFilter", "Ignoring message for chat: " + incomingChatId + ", we are in: " + chatId);
                 }
             }
         };
-        SocketManager.getInstance().addMessageListener(messageListener);
+        // Only this chat's events arrive here, no filtering by chatId needed
+        SocketManager.getInstance().addMessageListener(chatId, messageListener);
 
         android.util.Log.d("MessageChat", "Listener set!");
 
-        SocketManager.getInstance().setTypingListener(new SocketManager.OnTypingListener() {
+        typingListener = new SocketManager.OnTypingListener() {
             @Override
-            public void onUserTyping(String typingChatId, String userId) {
-                if (typingChatId.equals(chatId) && !userId.equals(currentUserId)) {
-                    if (getActivity() != null) {
-                        getActivity().runOnUiThread(() -> {
-                            typingIndicator.setVisibility(View.VISIBLE);
-
-                            // Hide after 3 seconds of no typing
-                            typingHandler.removeCallbacks(hideTypingRunnable);
-                            typingHandler.postDelayed(hideTypingRunnable, 3000);
-                        });
-                    }
+            public void onTypingChanged(String typingChatId, String userId, boolean typing) {
+                if (userId.equals(currentUserId) || typingIndicator == null) return;
+                if (typing) {
+                    typingUsers.add(userId);
+                } else {
+                    typingUsers.remove(userId);
                 }
+                typingIndicator.setVisibility(typingUsers.isEmpty() ? View.GONE : View.VISIBLE);
             }
-        });
-        messageDeletedListener = (messageId, deletedChatId) -> {
-            if (deletedChatId.equals(chatId)) {
-                if (getActivity() != null) {
-                    getActivity().runOnUiThread(() -> {
-                        messageAdapter.removeMessage(messageId);
-                    });
-                }
+        };
+        SocketManager.getInstance().addTypingListener(chatId, typingListener);
+
+        messageDeletedListener = (deletedChatId, messageIds) -> {
+            if (messageAdapter == null) return;
+            for (String messageId : messageIds) {
+                messageAdapter.removeMessage(messageId);
             }
         };
-        SocketManager.getInstance().addMessageDeletedListener(messageDeletedListener);
+        SocketManager.getInstance().addMessageDeletedListener(chatId, messageDeletedListener);
+
+        // The other side opened the chat: our ticks turn to "seen", one payload bind per row
+        readListener = (readChatId, readerId) -> {
+            if (messageAdapter == null || readerId.equals(currentUserId)) return;
+            messageAdapter.markAllAsRead();
+        };
+        SocketManager.getInstance().addMessagesReadListener(chatId, readListener);
+
+        sendFailedListener = failed -> {
+            if (messageAdapter == null) return;
+            messageAdapter.markFailed(failed);
+            Toast.makeText(getContext(), "Сообщение не отправлено", Toast.LENGTH_SHORT).show();
+        };
+        Outbox.getInstance().addFailureListener(chatId, sendFailedListener);
     }
 
     private void showMessageActionsDialog(Message message) {
@@ -448,7 +667,13 @@ public class MessageChatFragment extends Fragment {
                 .setTitle("Удалить сообщение?")
                 .setMessage("Это действие нельзя отменить")
                 .setPositiveButton("Удалить", (dialog, which) -> {
-                    SocketManager.getInstance().deleteMessage(chatId, message.getId());
+                    if (message.isPending() || message.isFailed()) {
+                        // Never reached the server, just drop it locally
+                        Outbox.getInstance().cancel(message.getClientId());
+                        messageAdapter.removeMessage(message.getId());
+                    } else {
+                        SocketManager.getInstance().deleteMessage(chatId, message.getId());
+                    }
                 })
                 .setNegativeButton("Отмена", null)
                 .show();
@@ -458,18 +683,41 @@ public class MessageChatFragment extends Fragment {
     public void onDestroyView() {
         super.onDestroyView();
         
-        // Remove typing callbacks to prevent updates after view destruction
-        typingHandler.removeCallbacks(hideTypingRunnable);
+        // Leaving the chat ends our typing state for the others
+        SocketManager.getInstance().stopTyping(chatId);
+        typingUsers.clear();
+        typingIndicator = null;
+
+        // The picked image is no longer needed once the chat is closed
+        if (uploadCall != null) {
+            uploadCall.cancel();
+            uploadCall = null;
+        }
+        if (pendingImage != null) {
+            pendingImage.delete();
+            pendingImage = null;
+        }
+        uploadProgress = null;
         
         // Clean up socket listeners to prevent Memory Leaks
         if (messageListener != null) {
-            SocketManager.getInstance().removeMessageListener(messageListener);
+            SocketManager.getInstance().removeMessageListener(chatId, messageListener);
         }
         
         if (messageDeletedListener != null) {
-            SocketManager.getInstance().removeMessageDeletedListener(messageDeletedListener);
+            SocketManager.getInstance().removeMessageDeletedListener(chatId, messageDeletedListener);
         }
         
-        SocketManager.getInstance().removeTypingListener();
+        if (typingListener != null) {
+            SocketManager.getInstance().removeTypingListener(chatId, typingListener);
+        }
+
+        if (readListener != null) {
+            SocketManager.getInstance().removeMessagesReadListener(chatId, readListener);
+        }
+
+        if (sendFailedListener != null) {
+            Outbox.getInstance().removeFailureListener(chatId, sendFailedListener);
+        }
     }
 }
\ No newline at end of file
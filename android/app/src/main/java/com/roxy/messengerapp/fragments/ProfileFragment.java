@@ -18,29 +18,28 @@ import android.view.ViewGroup;
 import android.widget.Button;
 import android.widget.EditText;
 import android.widget.FrameLayout;
+import android.widget.ProgressBar;
 import android.widget.TextView;
 import android.widget.Toast;
 
 import com.bumptech.glide.Glide;
 import com.roxy.messengerapp.R;
 import com.roxy.messengerapp.activities.StartActivity;
+import com.roxy.messengerapp.database.LocalStore;
 import com.roxy.messengerapp.entities.User;
 import com.roxy.messengerapp.entities.UserManager;
 import com.roxy.messengerapp.network.ApiClient;
+import com.roxy.messengerapp.network.ApiRepository;
 import com.roxy.messengerapp.network.ApiService;
+import com.roxy.messengerapp.network.ImageUploader;
+import com.roxy.messengerapp.network.Outbox;
 import com.roxy.messengerapp.network.SocketManager;
-
-import java.io.IOException;
-import java.io.InputStream;
+import com.roxy.messengerapp.network.SyncManager;
+import com.roxy.messengerapp.utils.ImageTranscoder;
+import com.roxy.messengerapp.utils.UserDirectory;
 
 import de.hdodenhof.circleimageview.CircleImageView;
 import okhttp3.Call;
-import okhttp3.Callback;
-import okhttp3.MediaType;
-import okhttp3.OkHttpClient;
-import okhttp3.Request;
-import okhttp3.RequestBody;
-import okhttp3.Response;
 
 
 public class ProfileFragment extends Fragment {
@@ -49,7 +48,9 @@ public class ProfileFragment extends Fragment {
     TextView username;
     Button btn_logout;
     ConstraintLayout avatarFragment;
-    private final OkHttpClient okHttpClient = new OkHttpClient();
+    private ProgressBar uploadProgress;
+    private Call uploadCall;
+    private ImageTranscoder.Result pendingImage;
     private final ActivityResultLauncher<Intent> pickImageLauncher = registerForActivityResult(
             new ActivityResultContracts.StartActivityForResult(),
             result -> {
@@ -76,6 +77,7 @@ public class ProfileFragment extends Fragment {
         username = view.findViewById(R.id.username);
         btn_logout = view.findViewById(R.id.btn_logout);
         avatarFragment = view.findViewById(R.id.avatar_container);
+        uploadProgress = view.findViewById(R.id.upload_progress);
         
         View usernameContainer = view.findViewById(R.id.username_container);
 
@@ -135,26 +137,23 @@ public class ProfileFragment extends Fragment {
     }
 
     private void updateUsernameApi(String newUsername) {
-        ApiService.UpdateUsernameRequest request = new ApiService.UpdateUsernameRequest(newUsername);
-        ApiClient.getApi().updateUsername(request).enqueue(new retrofit2.Callback<ApiService.UserResponse>() {
+        // Репозиторий обновит UserManager и сбросит закэшированные данные профиля
+        ApiRepository.getInstance().updateUsername(newUsername, new ApiRepository.ResultCallback<User>() {
             @Override
-            public void onResponse(retrofit2.Call<ApiService.UserResponse> call, retrofit2.Response<ApiService.UserResponse> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    User updatedUser = response.body().user;
-                    UserManager.getInstance().setCurrentUser(updatedUser);
-                    
-                    if (isAdded()) {
-                        username.setText(updatedUser.getUsername());
-                        Toast.makeText(getContext(), "Имя обновлено!", Toast.LENGTH_SHORT).show();
-                    }
-                } else {
-                    Toast.makeText(getContext(), "Ошибка: " + response.message(), Toast.LENGTH_SHORT).show();
+            public void onSuccess(User updatedUser) {
+                if (isAdded()) {
+                    username.setText(updatedUser.getUsername());
+                    Toast.makeText(getContext(), "Имя обновлено!", Toast.LENGTH_SHORT).show();
                 }
             }
 
             @Override
-            public void onFailure(retrofit2.Call<ApiService.UserResponse> call, Throwable t) {
-                Toast.makeText(getContext(), "Ошибка сети", Toast.LENGTH_SHORT).show();
+            public void onError(int httpCode, String message) {
+                if (httpCode != 0) {
+                    Toast.makeText(getContext(), "Ошибка: " + message, Toast.LENGTH_SHORT).show();
+                } else {
+                    Toast.makeText(getContext(), "Ошибка сети", Toast.LENGTH_SHORT).show();
+                }
             }
         });
     }
@@ -175,21 +174,17 @@ public class ProfileFragment extends Fragment {
     }
 
     private void loadCurrentUser() {
-        ApiClient.getApi().getMe().enqueue(new retrofit2.Callback<ApiService.UserResponse>() {
+        ApiRepository.getInstance().getMe(new ApiRepository.ResultCallback<User>() {
             @Override
-            public void onResponse(retrofit2.Call<ApiService.UserResponse> call, retrofit2.Response<ApiService.UserResponse> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    User currentUser = response.body().user;
-                    UserManager.getInstance().setCurrentUser(currentUser);
-                    if (isAdded()) {
-                        displayUserData(currentUser);
-                    }
+            public void onSuccess(User currentUser) {
+                if (isAdded()) {
+                    displayUserData(currentUser);
                 }
             }
 
             @Override
-            public void onFailure(retrofit2.Call<ApiService.UserResponse> call, Throwable t) {
-                if (getContext() != null) {
+            public void onError(int httpCode, String message) {
+                if (httpCode == 0 && getContext() != null) {
                     Toast.makeText(getContext(), "Не удалось загрузить профиль", Toast.LENGTH_SHORT).show();
                 }
             }
@@ -198,17 +193,34 @@ public class ProfileFragment extends Fragment {
 
     private void uploadAvatarToS3(Uri imageUri) {
         Toast.makeText(getContext(), "Загрузка аватара...", Toast.LENGTH_SHORT).show();
+        showUploadProgress(0, -1);
+
+        // Аватар показывается максимум на 140dp, полноразмерное фото ему не нужно
+        ImageTranscoder.transcode(requireContext(), imageUri, ImageTranscoder.Options.avatar(),
+                new ImageTranscoder.OnTranscodedListener() {
+                    @Override
+                    public void onTranscoded(ImageTranscoder.Result result) {
+                        if (!isAdded()) {
+                            result.delete();
+                            return;
+                        }
+                        pendingImage = result;
+                        requestAvatarUploadUrl(result);
+                    }
 
-        // Determine MIME type from URI
-        String mimeType = requireContext().getContentResolver().getType(imageUri);
-        if (mimeType == null || !mimeType.startsWith("image/")) {
-            mimeType = "image/jpeg"; // Fallback
-        }
-
-        final String finalMimeType = mimeType;
+                    @Override
+                    public void onFailed(String error) {
+                        hideUploadProgress();
+                        if (getContext() != null) {
+                            Toast.makeText(getContext(), "Ошибка обработки изображения", Toast.LENGTH_SHORT).show();
+                        }
+                    }
+                });
+    }
 
+    private void requestAvatarUploadUrl(ImageTranscoder.Result image) {
         // Step 1: Get presigned URL for avatar from backend
-        ApiClient.getApi().getPresignedUrlForAvatar(mimeType).enqueue(new retrofit2.Callback<ApiService.PresignedUrlResponse>() {
+        ApiClient.getApi().getPresignedUrlForAvatar(ImageTranscoder.MIME_TYPE).enqueue(new retrofit2.Callback<ApiService.PresignedUrlResponse>() {
             @Override
             public void onResponse(retrofit2.Call<ApiService.PresignedUrlResponse> call, retrofit2.Response<ApiService.PresignedUrlResponse> response) {
                 if (response.isSuccessful() && response.body() != null) {
@@ -216,93 +228,123 @@ public class ProfileFragment extends Fragment {
                     String avatarUrl = response.body().imageUrl;
 
                     // Step 2: Upload avatar to S3
-                    uploadToS3(imageUri, presignedUrl, avatarUrl, finalMimeType);
+                    uploadToS3(image, presignedUrl, avatarUrl);
                 } else {
+                    uploadFailed(image, null);
                     Toast.makeText(getContext(), "Ошибка получения URL", Toast.LENGTH_SHORT).show();
                 }
             }
 
             @Override
             public void onFailure(retrofit2.Call<ApiService.PresignedUrlResponse> call, Throwable t) {
+                uploadFailed(image, null);
                 Toast.makeText(getContext(), "Ошибка сети: " + t.getMessage(), Toast.LENGTH_SHORT).show();
             }
         });
     }
 
-    private void uploadToS3(Uri imageUri, String presignedUrl, String finalAvatarUrl, String mimeType) {
-        try {
-            InputStream inputStream = requireContext().getContentResolver().openInputStream(imageUri);
-            byte[] imageBytes = new byte[inputStream.available()];
-            inputStream.read(imageBytes);
-            inputStream.close();
-
-            RequestBody requestBody = RequestBody.create(MediaType.parse(mimeType), imageBytes);
-
-            Request request = new Request.Builder()
-                    .url(presignedUrl)
-                    .put(requestBody)
-                    .build();
-
-            okHttpClient.newCall(request).enqueue(new Callback() {
-                @Override
-                public void onFailure(@NonNull Call call, @NonNull IOException e) {
-                    if (getActivity() != null) {
-                        getActivity().runOnUiThread(() -> {
-                            Toast.makeText(getContext(), "Ошибка загрузки: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-                        });
+    private void uploadToS3(ImageTranscoder.Result image, String presignedUrl, String finalAvatarUrl) {
+        if (!isAdded()) return;
+
+        // Файл читается и отправляется на фоне, здесь только прогресс и результат
+        uploadCall = ImageUploader.getInstance().upload(requireContext().getContentResolver(),
+                Uri.fromFile(image.image), presignedUrl, ImageTranscoder.MIME_TYPE,
+                new ImageUploader.UploadListener() {
+                    @Override
+                    public void onProgress(long bytesWritten, long totalBytes) {
+                        showUploadProgress(bytesWritten, totalBytes);
                     }
-                }
 
-                @Override
-                public void onResponse(@NonNull Call call, @NonNull Response response) throws IOException {
-                    if (getActivity() != null) {
-                        getActivity().runOnUiThread(() -> {
-                            if (response.isSuccessful()) {
-                                // Step 3: Update avatar URL on backend
-                                updateAvatarUrl(finalAvatarUrl);
-                            } else {
-                                Toast.makeText(getContext(), "Ошибка S3: " + response.code(), Toast.LENGTH_SHORT).show();
-                            }
-                        });
+                    @Override
+                    public void onSuccess() {
+                        uploadCall = null;
+                        pendingImage = null;
+                        image.delete();
+                        hideUploadProgress();
+                        // Step 3: Update avatar URL on backend
+                        updateAvatarUrl(finalAvatarUrl);
                     }
-                }
-            });
 
-        } catch (IOException e) {
-            Toast.makeText(getContext(), "Ошибка чтения файла", Toast.LENGTH_SHORT).show();
+                    @Override
+                    public void onFailure(String error) {
+                        uploadCall = null;
+                        uploadFailed(image, error);
+                    }
+                });
+    }
+
+    private void uploadFailed(ImageTranscoder.Result image, String error) {
+        pendingImage = null;
+        image.delete();
+        hideUploadProgress();
+        if (error != null && getContext() != null) {
+            Toast.makeText(getContext(), "Ошибка загрузки: " + error, Toast.LENGTH_SHORT).show();
         }
     }
 
+    private void showUploadProgress(long bytesWritten, long totalBytes) {
+        if (uploadProgress == null) return;
+        uploadProgress.setVisibility(View.VISIBLE);
+        avatarFragment.setEnabled(false);
+        uploadProgress.setIndeterminate(totalBytes <= 0);
+        if (totalBytes > 0) {
+            uploadProgress.setProgress((int) (bytesWritten * 100 / totalBytes));
+        }
+    }
+
+    private void hideUploadProgress() {
+        if (uploadProgress == null) return;
+        uploadProgress.setVisibility(View.GONE);
+        avatarFragment.setEnabled(true);
+    }
+
     private void updateAvatarUrl(String avatarUrl) {
-        ApiService.UpdateAvatarRequest request = new ApiService.UpdateAvatarRequest(avatarUrl);
-        ApiClient.getApi().updateAvatar(request).enqueue(new retrofit2.Callback<ApiService.UserResponse>() {
+        ApiRepository.getInstance().updateAvatar(avatarUrl, new ApiRepository.ResultCallback<User>() {
             @Override
-            public void onResponse(retrofit2.Call<ApiService.UserResponse> call, retrofit2.Response<ApiService.UserResponse> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    User updatedUser = response.body().user;
-                    UserManager.getInstance().setCurrentUser(updatedUser);
-
-                    if (getContext() != null) {
-                        Glide.with(getContext())
-                                .load(updatedUser.getImageURL())
-                                .into(profile_image);
-                        Toast.makeText(getContext(), "Аватар обновлен!", Toast.LENGTH_SHORT).show();
-                    }
-                } else {
-                    Toast.makeText(getContext(), "Ошибка обновления профиля", Toast.LENGTH_SHORT).show();
+            public void onSuccess(User updatedUser) {
+                if (getContext() != null) {
+                    Glide.with(getContext())
+                            .load(updatedUser.getImageURL())
+                            .into(profile_image);
+                    Toast.makeText(getContext(), "Аватар обновлен!", Toast.LENGTH_SHORT).show();
                 }
             }
 
             @Override
-            public void onFailure(retrofit2.Call<ApiService.UserResponse> call, Throwable t) {
-                Toast.makeText(getContext(), "Ошибка сети: " + t.getMessage(), Toast.LENGTH_SHORT).show();
+            public void onError(int httpCode, String message) {
+                if (httpCode != 0) {
+                    Toast.makeText(getContext(), "Ошибка обновления профиля", Toast.LENGTH_SHORT).show();
+                } else {
+                    Toast.makeText(getContext(), "Ошибка сети: " + message, Toast.LENGTH_SHORT).show();
+                }
             }
         });
     }
 
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        if (uploadCall != null) {
+            uploadCall.cancel();
+            uploadCall = null;
+        }
+        if (pendingImage != null) {
+            pendingImage.delete();
+            pendingImage = null;
+        }
+        uploadProgress = null;
+    }
+
     private void logout() {
         SocketManager.getInstance().disconnect();
         ApiClient.clearToken(requireContext());
+        if (LocalStore.getInstance() != null) {
+            LocalStore.getInstance().clear();
+        }
+        ApiRepository.getInstance().clear();
+        Outbox.getInstance().clear();
+        SyncManager.getInstance().clear();
+        UserDirectory.getInstance().clear();
         Intent intent = new Intent(getActivity(), StartActivity.class);
         intent.setFlags(Intent.FLAG_ACTIVITY_CLEAR_TOP | Intent.FLAG_ACTIVITY_NEW_TASK);
         startActivity(intent);
@@ -1,6 +1,8 @@
 package com.roxy.messengerapp.fragments;
 
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.text.Editable;
 import android.text.TextWatcher;
 import android.view.LayoutInflater;
@@ -21,8 +23,10 @@ import com.roxy.messengerapp.adapters.UserAdapter;
 import com.roxy.messengerapp.entities.Chat;
 import com.roxy.messengerapp.entities.User;
 import com.roxy.messengerapp.network.ApiClient;
+import com.roxy.messengerapp.network.ApiRepository;
 import com.roxy.messengerapp.network.ApiService;
 import com.roxy.messengerapp.network.SocketManager;
+import com.roxy.messengerapp.utils.UserDirectory;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -40,6 +44,12 @@ public class UsersFragment extends Fragment {
     private ProgressBar progressBar;
     private String currentUserId;
 
+    private static final long SEARCH_DEBOUNCE_MS = 300;
+    private final Handler searchHandler = new Handler(Looper.getMainLooper());
+    private Runnable pendingSearch;
+    private Call<ApiService.UsersResponse> searchCall;
+    private String currentQuery = "";
+
     @Override
     public View onCreateView(LayoutInflater inflater, ViewGroup container,
                              Bundle savedInstanceState) {
@@ -56,6 +66,7 @@ public class UsersFragment extends Fragment {
         
         searchUsers = view.findViewById(R.id.search_users);
         mUsers = new ArrayList<>();
+        setupAdapter();
 
         // Получаем текущего пользователя и загружаем список
         getCurrentUser();
@@ -67,12 +78,7 @@ public class UsersFragment extends Fragment {
 
             @Override
             public void onTextChanged(CharSequence s, int start, int before, int count) {
-                String query = s.toString().trim();
-                if (query.isEmpty()) {
-                    loadAllUsers();
-                } else {
-                    searchUsers(query);
-                }
+                onQueryChanged(s.toString().trim());
             }
 
             @Override
@@ -81,75 +87,107 @@ public class UsersFragment extends Fragment {
     }
 
     private void getCurrentUser() {
-        ApiClient.getApi().getMe().enqueue(new Callback<ApiService.UserResponse>() {
+        ApiRepository.getInstance().getMe(new ApiRepository.ResultCallback<User>() {
             @Override
-            public void onResponse(Call<ApiService.UserResponse> call, Response<ApiService.UserResponse> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    currentUserId = response.body().user.getId();
-                    loadAllUsers();
+            public void onSuccess(User user) {
+                currentUserId = user.getId();
+                List<User> local = UserDirectory.getInstance().lookup(currentQuery);
+                if (local != null) {
+                    showUsers(local);
+                } else {
+                    searchUsers(currentQuery);
                 }
             }
 
             @Override
-            public void onFailure(Call<ApiService.UserResponse> call, Throwable t) {
-                if (getContext() != null) {
+            public void onError(int httpCode, String message) {
+                if (httpCode == 0 && getContext() != null) {
                     Toast.makeText(getContext(), "Ошибка загрузки", Toast.LENGTH_SHORT).show();
                 }
             }
         });
     }
 
-    private void loadAllUsers() {
-        ApiClient.getApi().searchUsers("").enqueue(new Callback<ApiService.UsersResponse>() {
-            @Override
-            public void onResponse(Call<ApiService.UsersResponse> call, Response<ApiService.UsersResponse> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    mUsers.clear();
-                    // Фильтруем себя из списка
-                    for (User user : response.body().users) {
-                        if (!user.getId().equals(currentUserId)) {
-                            mUsers.add(user);
-                        }
-                    }
-                    setupAdapter();
-                }
+    // Уточнение уже известного запроса отвечаем сразу из справочника,
+    // остальное — на сервер, но только когда пользователь перестал печатать
+    private void onQueryChanged(String query) {
+        currentQuery = query;
+        if (pendingSearch != null) {
+            searchHandler.removeCallbacks(pendingSearch);
+            pendingSearch = null;
+        }
+
+        List<User> local = UserDirectory.getInstance().lookup(query);
+        if (local != null) {
+            cancelSearchCall();
+            showUsers(local);
+            return;
+        }
+
+        // Пока ждём сервер, показываем тех, кого уже знаем по префиксу
+        if (!query.isEmpty()) {
+            List<User> suggestions = UserDirectory.getInstance().prefixMatches(query, UserDirectory.SERVER_LIMIT);
+            if (!suggestions.isEmpty()) {
+                showUsers(suggestions);
             }
+        }
 
-            @Override
-            public void onFailure(Call<ApiService.UsersResponse> call, Throwable t) {
-                if (getContext() != null) {
-                    Toast.makeText(getContext(), "Ошибка загрузки пользователей", Toast.LENGTH_SHORT).show();
-                }
-            }
-        });
+        pendingSearch = () -> {
+            pendingSearch = null;
+            searchUsers(query);
+        };
+        searchHandler.postDelayed(pendingSearch, SEARCH_DEBOUNCE_MS);
     }
 
     private void searchUsers(String query) {
-        ApiClient.getApi().searchUsers(query).enqueue(new Callback<ApiService.UsersResponse>() {
+        // Ответ на старый запрос мог бы прийти после нового и перетереть список
+        cancelSearchCall();
+        searchCall = ApiClient.getApi().searchUsers(query);
+        searchCall.enqueue(new Callback<ApiService.UsersResponse>() {
             @Override
             public void onResponse(Call<ApiService.UsersResponse> call, Response<ApiService.UsersResponse> response) {
+                if (call.isCanceled() || !query.equals(currentQuery)) return;
+                searchCall = null;
                 if (response.isSuccessful() && response.body() != null) {
-                    mUsers.clear();
-                    for (User user : response.body().users) {
-                        if (!user.getId().equals(currentUserId)) {
-                            mUsers.add(user);
-                        }
-                    }
-                    setupAdapter();
+                    List<User> users = response.body().users;
+                    UserDirectory.getInstance().addResults(query, users);
+                    showUsers(users);
                 }
             }
 
             @Override
             public void onFailure(Call<ApiService.UsersResponse> call, Throwable t) {
+                if (call.isCanceled()) return;
+                searchCall = null;
                 if (getContext() != null) {
-                    Toast.makeText(getContext(), "Ошибка поиска", Toast.LENGTH_SHORT).show();
+                    Toast.makeText(getContext(), query.isEmpty() ? "Ошибка загрузки пользователей" : "Ошибка поиска",
+                            Toast.LENGTH_SHORT).show();
                 }
             }
         });
     }
 
+    private void cancelSearchCall() {
+        if (searchCall != null) {
+            searchCall.cancel();
+            searchCall = null;
+        }
+    }
+
+    private void showUsers(List<User> users) {
+        if (userAdapter == null) return;
+        mUsers.clear();
+        // Фильтруем себя из списка
+        for (User user : users) {
+            if (!user.getId().equals(currentUserId)) {
+                mUsers.add(user);
+            }
+        }
+        userAdapter.updateUsers(mUsers);
+    }
+
     private void setupAdapter() {
-        userAdapter = new UserAdapter(mUsers, new UserAdapter.OnUserClickListener() {
+        userAdapter = new UserAdapter(new ArrayList<>(), new UserAdapter.OnUserClickListener() {
             @Override
             public void onUserClick(User user) {
                 // Создаём приватный чат и переходим в него
@@ -168,6 +206,8 @@ public class UsersFragment extends Fragment {
                 if (response.isSuccessful() && response.body() != null) {
                     Chat chat = response.body().chat;
                     SocketManager.getInstance().joinChat(chat.getId());
+                    // Новый чат должен появиться в списке, кэш чатов уже неполный
+                    ApiRepository.getInstance().invalidateChats();
 
                     // Prepare bundle
                     Bundle bundle = new Bundle();
@@ -196,4 +236,15 @@ public class UsersFragment extends Fragment {
             }
         });
     }
+
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        if (pendingSearch != null) {
+            searchHandler.removeCallbacks(pendingSearch);
+            pendingSearch = null;
+        }
+        cancelSearchCall();
+        userAdapter = null;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,244 @@
+package com.roxy.messengerapp.network;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+
+import com.roxy.messengerapp.database.LocalStore;
+import com.roxy.messengerapp.entities.Chat;
+import com.roxy.messengerapp.entities.User;
+import com.roxy.messengerapp.entities.UserManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+// Слой над ApiService для запросов, которые дёргают сразу несколько экранов.
+// Одинаковые GET в полёте склеиваются в один, getMe/getMyChats отдаются
+// из памяти, пока не истёк TTL или их не сбросило событие сокета/изменение профиля.
+// Все методы вызываются с главного потока, колбэки приходят туда же.
+public class ApiRepository {
+
+    private static final String KEY_ME = "me";
+    private static final String KEY_CHATS = "chats";
+    private static final long ME_TTL_MS = 5 * 60 * 1000;
+    // Чаты меняются часто, но сокет сбрасывает кэш на каждое событие
+    private static final long CHATS_TTL_MS = 60 * 1000;
+
+    private static ApiRepository instance;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Map<String, CacheEntry> cache = new HashMap<>();
+    private final Map<String, Flight> inFlight = new HashMap<>();
+    // Bumped on every invalidation of a key so a response started before it doesn't refill the cache
+    private final Map<String, Integer> generations = new HashMap<>();
+
+    public interface ResultCallback<T> {
+        void onSuccess(T result);
+
+        // httpCode is 0 when the request never got a response
+        void onError(int httpCode, String message);
+    }
+
+    private static class CacheEntry {
+        final Object value;
+        final long expiresAt;
+
+        CacheEntry(Object value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static class Flight {
+        final int generation;
+        final List<ResultCallback<?>> callbacks = new ArrayList<>();
+
+        Flight(int generation) {
+            this.generation = generation;
+        }
+    }
+
+    private ApiRepository() {
+        SocketManager socketManager = SocketManager.getInstance();
+        // Новое или удалённое сообщение меняет превью и порядок чатов
+        socketManager.addMessageListener(messages -> invalidate(KEY_CHATS));
+        socketManager.addMessageDeletedListener((chatId, messageIds) -> invalidate(KEY_CHATS));
+    }
+
+    public static synchronized ApiRepository getInstance() {
+        if (instance == null) {
+            instance = new ApiRepository();
+        }
+        return instance;
+    }
+
+    public void getMe(ResultCallback<User> callback) {
+        getMe(false, callback);
+    }
+
+    public void getMe(boolean forceRefresh, ResultCallback<User> callback) {
+        load(KEY_ME, ME_TTL_MS, forceRefresh, () -> ApiClient.getApi().getMe(), body -> body.user, user -> {
+            UserManager.getInstance().setCurrentUser(user);
+            if (LocalStore.getInstance() != null) {
+                LocalStore.getInstance().saveCurrentUser(user);
+            }
+        }, callback);
+    }
+
+    public void getMyChats(ResultCallback<List<Chat>> callback) {
+        getMyChats(false, callback);
+    }
+
+    // Callers get their own list, the cached one is never handed out
+    public void getMyChats(boolean forceRefresh, ResultCallback<List<Chat>> callback) {
+        load(KEY_CHATS, CHATS_TTL_MS, forceRefresh, () -> ApiClient.getApi().getMyChats(), body -> body.chats,
+                chats -> SyncManager.getInstance().adoptWatermarks(chats),
+                new ResultCallback<List<Chat>>() {
+                    @Override
+                    public void onSuccess(List<Chat> result) {
+                        callback.onSuccess(new ArrayList<>(result));
+                    }
+
+                    @Override
+                    public void onError(int httpCode, String message) {
+                        callback.onError(httpCode, message);
+                    }
+                });
+    }
+
+    public void updateUsername(String username, ResultCallback<User> callback) {
+        ApiClient.getApi().updateUsername(new ApiService.UpdateUsernameRequest(username))
+                .enqueue(userMutation(callback));
+    }
+
+    public void updateAvatar(String avatarUrl, ResultCallback<User> callback) {
+        ApiClient.getApi().updateAvatar(new ApiService.UpdateAvatarRequest(avatarUrl))
+                .enqueue(userMutation(callback));
+    }
+
+    public void invalidateChats() {
+        invalidate(KEY_CHATS);
+    }
+
+    // Logout: nothing cached belongs to the next user
+    public void clear() {
+        bump(KEY_ME);
+        bump(KEY_CHATS);
+        cache.clear();
+        UserManager.getInstance().clear();
+    }
+
+    // Профиль поменялся: свежий пользователь из ответа сразу становится кэшем,
+    // а чаты сбрасываются, потому что в них лежат наши имя и аватар
+    private Callback<ApiService.UserResponse> userMutation(ResultCallback<User> callback) {
+        return new Callback<ApiService.UserResponse>() {
+            @Override
+            public void onResponse(@NonNull Call<ApiService.UserResponse> call, @NonNull Response<ApiService.UserResponse> response) {
+                if (response.isSuccessful() && response.body() != null) {
+                    User user = response.body().user;
+                    bump(KEY_ME);
+                    bump(KEY_CHATS);
+                    cache.put(KEY_ME, new CacheEntry(user, SystemClock.elapsedRealtime() + ME_TTL_MS));
+                    cache.remove(KEY_CHATS);
+                    UserManager.getInstance().setCurrentUser(user);
+                    if (LocalStore.getInstance() != null) {
+                        LocalStore.getInstance().saveCurrentUser(user);
+                    }
+                    callback.onSuccess(user);
+                } else {
+                    callback.onError(response.code(), response.message());
+                }
+            }
+
+            @Override
+            public void onFailure(@NonNull Call<ApiService.UserResponse> call, @NonNull Throwable t) {
+                callback.onError(0, t.getMessage());
+            }
+        };
+    }
+
+    private void invalidate(String key) {
+        bump(key);
+        cache.remove(key);
+    }
+
+    private void bump(String key) {
+        generations.put(key, generation(key) + 1);
+    }
+
+    private int generation(String key) {
+        Integer value = generations.get(key);
+        return value != null ? value : 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <B, T> void load(String key, long ttlMs, boolean forceRefresh, Supplier<Call<B>> request,
+                             Function<B, T> extract, Consumer<T> onFresh,
+                             ResultCallback<T> callback) {
+        CacheEntry cached = cache.get(key);
+        if (!forceRefresh && cached != null && cached.expiresAt > SystemClock.elapsedRealtime()) {
+            T value = (T) cached.value;
+            // Keep the callback asynchronous, callers are written for enqueue()
+            mainHandler.post(() -> callback.onSuccess(value));
+            return;
+        }
+
+        Flight current = inFlight.get(key);
+        if (current != null && current.generation == generation(key)) {
+            // Тот же запрос уже летит — ждём его ответа вместо второго похода в сеть
+            current.callbacks.add(callback);
+            return;
+        }
+        // A request started before an invalidation may miss the change, so it isn't joined
+        Flight flight = new Flight(generation(key));
+        flight.callbacks.add(callback);
+        inFlight.put(key, flight);
+
+        request.get().enqueue(new Callback<B>() {
+            @Override
+            public void onResponse(@NonNull Call<B> call, @NonNull Response<B> response) {
+                finish();
+                if (response.isSuccessful() && response.body() != null) {
+                    T value = extract.apply(response.body());
+                    if (flight.generation == generation(key)) {
+                        cache.put(key, new CacheEntry(value, SystemClock.elapsedRealtime() + ttlMs));
+                        if (onFresh != null) {
+                            onFresh.accept(value);
+                        }
+                    }
+                    for (ResultCallback<?> cb : flight.callbacks) {
+                        ((ResultCallback<T>) cb).onSuccess(value);
+                    }
+                } else {
+                    for (ResultCallback<?> cb : flight.callbacks) {
+                        cb.onError(response.code(), response.message());
+                    }
+                }
+            }
+
+            @Override
+            public void onFailure(@NonNull Call<B> call, @NonNull Throwable t) {
+                finish();
+                for (ResultCallback<?> cb : flight.callbacks) {
+                    cb.onError(0, t.getMessage());
+                }
+            }
+
+            private void finish() {
+                if (inFlight.get(key) == flight) {
+                    inFlight.remove(key);
+                }
+            }
+        });
+    }
+}
@@ -4,6 +4,7 @@ import com.roxy.messengerapp.entities.Chat;
 import com.roxy.messengerapp.entities.Message;
 import com.roxy.messengerapp.entities.User;
 import java.util.List;
+import java.util.Map;
 import retrofit2.Call;
 import retrofit2.http.Body;
 import retrofit2.http.DELETE;
@@ -31,12 +32,19 @@ public interface ApiService {
     @POST("api/chats/private")
     Call<ChatResponse> createPrivateChat(@Body CreateChatRequest request);
 
+    @POST("api/chats/group")
+    Call<ChatResponse> createGroupChat(@Body CreateGroupChatRequest request);
+
     @DELETE("api/chats/{chatId}")
     Call<Void> deleteChat(@Path("chatId") String chatId);
 
     @PUT("api/users/avatar")
     Call<UserResponse> updateAvatar(@Body UpdateAvatarRequest request);
 
+    // Everything missed since the per-chat watermarks, see SyncManager
+    @POST("api/chats/sync")
+    Call<SyncResponse> syncChats(@Body SyncRequest request);
+
     @GET("api/chats/{chatId}/messages")
     Call<MessagesResponse> getChatMessages(
             @Path("chatId") String chatId,
@@ -44,6 +52,21 @@ public interface ApiService {
             @Query("offset") int offset
     );
 
+    // Cursor pages: stable even when new messages arrive between requests
+    @GET("api/chats/{chatId}/messages")
+    Call<MessagesResponse> getChatMessagesBefore(
+            @Path("chatId") String chatId,
+            @Query("limit") int limit,
+            @Query("before") String beforeMessageId
+    );
+
+    @GET("api/chats/{chatId}/messages")
+    Call<MessagesResponse> getChatMessagesAfter(
+            @Path("chatId") String chatId,
+            @Query("limit") int limit,
+            @Query("after") String afterMessageId
+    );
+
     // ===== USERS =====
     @GET("api/users/search")
     Call<UsersResponse> searchUsers(@Query("q") String query);
@@ -89,6 +112,15 @@ public interface ApiService {
         }
     }
 
+    class CreateGroupChatRequest {
+        public String name;
+        public List<String> userIds;
+        public CreateGroupChatRequest(String name, List<String> userIds) {
+            this.name = name;
+            this.userIds = userIds;
+        }
+    }
+
     class AuthResponse {
         public String message;
         public User user;
@@ -110,15 +142,38 @@ public interface ApiService {
 
     class MessagesResponse {
         public List<Message> messages;
+        public boolean hasMore;
     }
 
     class UsersResponse {
         public List<User> users;
     }
 
+    class SyncRequest {
+        // chatId -> last applied seq
+        public Map<String, Long> since;
+        public SyncRequest(Map<String, Long> since) {
+            this.since = since;
+        }
+    }
+
+    class SyncResponse {
+        public List<ChatChanges> chats;
+    }
+
+    class ChatChanges {
+        public String chatId;
+        public long lastSeq;
+        public List<Message> messages;
+        public List<String> deletedIds;
+        // Unknown chat or too far behind: messages are only the newest ones
+        public boolean reset;
+    }
+
     // ===== UPLOAD =====
     @GET("api/upload/presigned-url")
-    Call<PresignedUrlResponse> getPresignedUrl(@Query("fileType") String fileType);
+    Call<PresignedUrlResponse> getPresignedUrl(@Query("fileType") String fileType,
+                                               @Query("withThumbnail") boolean withThumbnail);
 
     @GET("api/upload/presigned-url-avatar")
     Call<PresignedUrlResponse> getPresignedUrlForAvatar(@Query("fileType") String fileType);
@@ -127,6 +182,9 @@ public interface ApiService {
         public String presignedUrl;
         public String imageUrl;
         public String key;
+        // Only when requested with withThumbnail=true
+        public String thumbnailPresignedUrl;
+        public String thumbnailUrl;
     }
 
     class UpdateAvatarRequest {
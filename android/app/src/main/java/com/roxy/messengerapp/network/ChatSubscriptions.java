@@ -0,0 +1,85 @@
+package com.roxy.messengerapp.network;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+// Реестр подписчиков по chatId плюс отдельный канал "все чаты".
+// Подписки меняются редко (открыли/закрыли экран), а рассылка идёт на каждое событие,
+// поэтому списки copy-on-write: обход без блокировок и без копий.
+class ChatSubscriptions<L> {
+
+    private final ConcurrentHashMap<String, CopyOnWriteArrayList<L>> byChat = new ConcurrentHashMap<>();
+    private final CopyOnWriteArrayList<L> allChats = new CopyOnWriteArrayList<>();
+
+    void subscribe(String chatId, L listener) {
+        byChat.compute(chatId, (key, listeners) -> {
+            if (listeners == null) {
+                listeners = new CopyOnWriteArrayList<>();
+            }
+            listeners.addIfAbsent(listener);
+            return listeners;
+        });
+    }
+
+    void unsubscribe(String chatId, L listener) {
+        // Atomic per key, so a concurrent subscribe can't land in a list that is being dropped
+        byChat.computeIfPresent(chatId, (key, listeners) -> {
+            listeners.remove(listener);
+            return listeners.isEmpty() ? null : listeners;
+        });
+    }
+
+    void subscribeAll(L listener) {
+        allChats.addIfAbsent(listener);
+    }
+
+    void unsubscribeAll(L listener) {
+        allChats.remove(listener);
+    }
+
+    // Snapshot-iterable; a listener may unsubscribe while it is being called
+    List<L> forChat(String chatId) {
+        List<L> listeners = byChat.get(chatId);
+        return listeners != null ? listeners : Collections.emptyList();
+    }
+
+    List<L> all() {
+        return allChats;
+    }
+
+    // The all-chats channel gets the whole batch, each chat's subscribers only their part.
+    // The batch is split only for chats somebody is subscribed to; order is kept within a chat
+    <E> void dispatch(List<E> batch, Function<E, String> chatOf, BiConsumer<L, List<E>> call) {
+        if (batch.isEmpty()) return;
+        List<E> whole = Collections.unmodifiableList(batch);
+        for (L listener : allChats) {
+            call.accept(listener, whole);
+        }
+        if (byChat.isEmpty()) return;
+
+        Map<String, List<E>> parts = new LinkedHashMap<>();
+        for (E event : batch) {
+            String chatId = chatOf.apply(event);
+            if (chatId == null || !byChat.containsKey(chatId)) continue;
+            List<E> part = parts.get(chatId);
+            if (part == null) {
+                part = new ArrayList<>();
+                parts.put(chatId, part);
+            }
+            part.add(event);
+        }
+        for (Map.Entry<String, List<E>> part : parts.entrySet()) {
+            List<E> events = Collections.unmodifiableList(part.getValue());
+            for (L listener : forChat(part.getKey())) {
+                call.accept(listener, events);
+            }
+        }
+    }
+}
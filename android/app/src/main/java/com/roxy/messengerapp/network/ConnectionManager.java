@@ -0,0 +1,84 @@
+package com.roxy.messengerapp.network;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+// Когда сокету жить. На экране — всегда подключены: переподключение без лимита попыток
+// (паузу с джиттером считает Socket.IO, см. SocketManager.connect), а появление сети
+// обрывает текущую паузу и подключает сразу. В фоне соединение держится ещё
+// backgroundIdleTimeout и закрывается, чтобы не тратить батарею и слоты сервера.
+// Все методы вызываются с главного потока.
+public class ConnectionManager {
+    private static final String TAG = "ConnectionManager";
+    private static final long DEFAULT_BACKGROUND_IDLE_MS = 60_000;
+
+    private static ConnectionManager instance;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private long backgroundIdleTimeout = DEFAULT_BACKGROUND_IDLE_MS;
+    private boolean foreground;
+    private boolean networkCallbackRegistered;
+
+    private final Runnable idleDisconnect = () -> {
+        Log.d(TAG, "Idle in background, closing the socket");
+        SocketManager.getInstance().pause();
+    };
+
+    // Called on a ConnectivityManager thread
+    private final ConnectivityManager.NetworkCallback networkCallback = new ConnectivityManager.NetworkCallback() {
+        @Override
+        public void onAvailable(@NonNull Network network) {
+            mainHandler.post(ConnectionManager.this::onNetworkAvailable);
+        }
+    };
+
+    private ConnectionManager() {}
+
+    public static synchronized ConnectionManager getInstance() {
+        if (instance == null) {
+            instance = new ConnectionManager();
+        }
+        return instance;
+    }
+
+    public void init(Context context) {
+        if (networkCallbackRegistered) return;
+        ConnectivityManager connectivityManager =
+                (ConnectivityManager) context.getApplicationContext().getSystemService(Context.CONNECTIVITY_SERVICE);
+        if (connectivityManager != null) {
+            connectivityManager.registerDefaultNetworkCallback(networkCallback);
+            networkCallbackRegistered = true;
+        }
+    }
+
+    public void setBackgroundIdleTimeout(long timeoutMs) {
+        this.backgroundIdleTimeout = timeoutMs;
+    }
+
+    public void onForeground() {
+        foreground = true;
+        mainHandler.removeCallbacks(idleDisconnect);
+        if (ApiClient.isLoggedIn()) {
+            SocketManager.getInstance().connect(ApiClient.getToken());
+        }
+    }
+
+    public void onBackground() {
+        foreground = false;
+        mainHandler.removeCallbacks(idleDisconnect);
+        mainHandler.postDelayed(idleDisconnect, backgroundIdleTimeout);
+    }
+
+    // Also fires right after registration for the network we already have; the socket's
+    // first handshake is not "retrying" then, so reconnectNow() doesn't restart it
+    private void onNetworkAvailable() {
+        // In the background the idle timer decides, a network change is no reason to wake up
+        if (!foreground || !ApiClient.isLoggedIn()) return;
+        SocketManager.getInstance().reconnectNow();
+    }
+}
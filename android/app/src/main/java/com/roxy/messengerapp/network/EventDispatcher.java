@@ -0,0 +1,95 @@
+package com.roxy.messengerapp.network;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+
+import com.roxy.messengerapp.entities.Message;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Очередь событий сокета между потоком Socket.IO и UI. Поток сокета только кладёт
+// уже разобранные события, главный поток забирает всё накопленное раз за кадр,
+// так что пачка из 50 сообщений — это одна задача и одно обновление экрана.
+class EventDispatcher {
+
+    interface Sink {
+        // Main thread; deleted is chatId -> message ids, both keep arrival order
+        void onBatch(List<Message> messages, Map<String, List<String>> deleted);
+    }
+
+    private static final class Deleted {
+        final String messageId;
+        final String chatId;
+
+        Deleted(String messageId, String chatId) {
+            this.messageId = messageId;
+            this.chatId = chatId;
+        }
+    }
+
+    private final ConcurrentLinkedQueue<Object> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Sink sink;
+
+    EventDispatcher(Sink sink) {
+        this.sink = sink;
+    }
+
+    // Any thread
+    void postMessage(Message message) {
+        enqueue(message);
+    }
+
+    // Any thread
+    void postDeleted(String messageId, String chatId) {
+        enqueue(new Deleted(messageId, chatId));
+    }
+
+    // Logout: whatever is still queued belongs to the old session
+    void clear() {
+        queue.clear();
+    }
+
+    private void enqueue(Object event) {
+        queue.offer(event);
+        if (drainScheduled.compareAndSet(false, true)) {
+            // Choreographer is per-looper, the frame callback has to be posted from the main thread
+            mainHandler.post(() -> Choreographer.getInstance().postFrameCallback(drain));
+        }
+    }
+
+    private final Choreographer.FrameCallback drain = this::drain;
+
+    private void drain(long frameTimeNanos) {
+        // Reset before polling: an event offered after this point schedules the next frame,
+        // at worst that frame finds the queue already empty
+        drainScheduled.set(false);
+
+        List<Message> messages = new ArrayList<>();
+        Map<String, List<String>> deleted = new LinkedHashMap<>();
+        Object event;
+        while ((event = queue.poll()) != null) {
+            if (event instanceof Message) {
+                messages.add((Message) event);
+            } else {
+                Deleted d = (Deleted) event;
+                List<String> ids = deleted.get(d.chatId);
+                if (ids == null) {
+                    ids = new ArrayList<>();
+                    deleted.put(d.chatId, ids);
+                }
+                ids.add(d.messageId);
+            }
+        }
+        if (!messages.isEmpty() || !deleted.isEmpty()) {
+            sink.onBatch(messages, deleted);
+        }
+    }
+}
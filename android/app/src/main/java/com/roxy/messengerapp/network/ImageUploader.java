@@ -0,0 +1,168 @@
+package com.roxy.messengerapp.network;
+
+import android.content.ContentResolver;
+import android.content.res.AssetFileDescriptor;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.provider.OpenableColumns;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.BufferedSink;
+
+// Загрузка картинок по presigned URL: файл не читается в память целиком,
+// а стримится из ContentResolver прямо в сокет на потоке OkHttp
+public class ImageUploader {
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+    private static final int UNKNOWN_SIZE_STEP = 64 * 1024;
+
+    private static ImageUploader instance;
+    private final OkHttpClient okHttpClient = ApiClient.getHttpClient();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    public interface UploadListener {
+        // All callbacks arrive on the main thread; totalBytes is -1 when the size is unknown
+        void onProgress(long bytesWritten, long totalBytes);
+
+        void onSuccess();
+
+        void onFailure(String error);
+    }
+
+    private ImageUploader() {
+    }
+
+    public static synchronized ImageUploader getInstance() {
+        if (instance == null) {
+            instance = new ImageUploader();
+        }
+        return instance;
+    }
+
+    // Returns the call so the screen can cancel it when it goes away
+    public Call upload(ContentResolver resolver, Uri uri, String presignedUrl, String mimeType,
+                       UploadListener listener) {
+        Request request = new Request.Builder()
+                .url(presignedUrl)
+                .put(new ContentUriRequestBody(resolver, uri, MediaType.parse(mimeType), listener))
+                .build();
+
+        Call call = okHttpClient.newCall(request);
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(@NonNull Call call, @NonNull IOException e) {
+                if (call.isCanceled()) return;
+                mainHandler.post(() -> listener.onFailure(e.getMessage()));
+            }
+
+            @Override
+            public void onResponse(@NonNull Call call, @NonNull Response response) {
+                int code = response.code();
+                boolean successful = response.isSuccessful();
+                response.close();
+                mainHandler.post(() -> {
+                    if (successful) {
+                        listener.onSuccess();
+                    } else {
+                        listener.onFailure("HTTP " + code);
+                    }
+                });
+            }
+        });
+        return call;
+    }
+
+    private class ContentUriRequestBody extends RequestBody {
+
+        private final ContentResolver resolver;
+        private final Uri uri;
+        private final MediaType contentType;
+        private final UploadListener listener;
+        private long contentLength = -2;
+
+        ContentUriRequestBody(ContentResolver resolver, Uri uri, MediaType contentType, UploadListener listener) {
+            this.resolver = resolver;
+            this.uri = uri;
+            this.contentType = contentType;
+            this.listener = listener;
+        }
+
+        @Nullable
+        @Override
+        public MediaType contentType() {
+            return contentType;
+        }
+
+        // Вызывается OkHttp уже на его фоновом потоке, так что запрос к провайдеру тут безопасен
+        @Override
+        public long contentLength() {
+            if (contentLength == -2) {
+                contentLength = querySize();
+            }
+            return contentLength;
+        }
+
+        @Override
+        public void writeTo(@NonNull BufferedSink sink) throws IOException {
+            long total = contentLength();
+            InputStream in = resolver.openInputStream(uri);
+            if (in == null) {
+                throw new FileNotFoundException(uri.toString());
+            }
+            try {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                long written = 0;
+                int lastStep = -1;
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    sink.write(buffer, 0, read);
+                    written += read;
+
+                    // Не чаще одного поста на процент (или на 64 КБ, если размер неизвестен)
+                    int step = total > 0 ? (int) (written * 100 / total) : (int) (written / UNKNOWN_SIZE_STEP);
+                    if (step != lastStep) {
+                        lastStep = step;
+                        final long progress = written;
+                        mainHandler.post(() -> listener.onProgress(progress, total));
+                    }
+                }
+            } finally {
+                in.close();
+            }
+        }
+
+        // S3 presigned PUT needs a Content-Length, chunked uploads are rejected
+        private long querySize() {
+            try (Cursor cursor = resolver.query(uri, new String[]{OpenableColumns.SIZE}, null, null, null)) {
+                if (cursor != null && cursor.moveToFirst() && !cursor.isNull(0)) {
+                    long size = cursor.getLong(0);
+                    if (size > 0) return size;
+                }
+            } catch (RuntimeException ignored) {
+                // Some providers don't support the query, fall back to the descriptor
+            }
+            try (AssetFileDescriptor fd = resolver.openAssetFileDescriptor(uri, "r")) {
+                if (fd != null && fd.getLength() > 0) {
+                    return fd.getLength();
+                }
+            } catch (IOException | RuntimeException ignored) {
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.roxy.messengerapp.network;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.roxy.messengerapp.entities.Message;
+import com.roxy.messengerapp.utils.TimeFormatter;
+
+import java.io.IOException;
+
+// Gson fills fields by reflection and skips setters, so createdAtMillis is computed here,
+// once per decoded Message (REST bodies, socket payloads and LocalStore rows alike).
+public class MessageTimestampAdapterFactory implements TypeAdapterFactory {
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        if (type.getRawType() != Message.class) {
+            return null;
+        }
+        TypeAdapter<Message> delegate = (TypeAdapter<Message>) gson.getDelegateAdapter(this, type);
+        return (TypeAdapter<T>) new TypeAdapter<Message>() {
+            @Override
+            public void write(JsonWriter out, Message value) throws IOException {
+                delegate.write(out, value);
+            }
+
+            @Override
+            public Message read(JsonReader in) throws IOException {
+                Message message = delegate.read(in);
+                if (message != null) {
+                    message.setCreatedAtMillis(TimeFormatter.parseIsoMillis(message.getCreatedAt()));
+                }
+                return message;
+            }
+        };
+    }
+}
@@ -0,0 +1,55 @@
+package com.roxy.messengerapp.network;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.GlideBuilder;
+import com.bumptech.glide.Registry;
+import com.bumptech.glide.annotation.GlideModule;
+import com.bumptech.glide.integration.okhttp3.OkHttpUrlLoader;
+import com.bumptech.glide.load.engine.cache.InternalCacheDiskCacheFactory;
+import com.bumptech.glide.load.engine.cache.MemorySizeCalculator;
+import com.bumptech.glide.load.model.GlideUrl;
+import com.bumptech.glide.module.AppGlideModule;
+
+import java.io.InputStream;
+
+// Glide качает картинки через общий OkHttp из ApiClient вместо своего HttpURLConnection
+@GlideModule
+public class MessengerGlideModule extends AppGlideModule {
+
+    // Visible rows, the preloaded ones ahead of the scroll and the ones just left behind;
+    // Glide's default is 2 screens. The calculator still scales it down on low-RAM devices.
+    private static final float MEMORY_CACHE_SCREENS = 3;
+    // Bubble-sized decodes are recycled constantly while scrolling a chat
+    private static final float BITMAP_POOL_SCREENS = 3;
+    // Photos are 1600px WebP of ~150-250 KB, this keeps a couple of thousand of them
+    // so chats opened again don't download anything
+    private static final long DISK_CACHE_BYTES = 400L * 1024 * 1024;
+    private static final String DISK_CACHE_DIR = "images";
+
+    @Override
+    public void applyOptions(@NonNull Context context, @NonNull GlideBuilder builder) {
+        builder.setMemorySizeCalculator(new MemorySizeCalculator.Builder(context)
+                .setMemoryCacheScreens(MEMORY_CACHE_SCREENS)
+                .setBitmapPoolScreens(BITMAP_POOL_SCREENS)
+                .build());
+        builder.setDiskCache(new InternalCacheDiskCacheFactory(context, DISK_CACHE_DIR, DISK_CACHE_BYTES));
+        builder.setLogLevel(Log.ERROR);
+    }
+
+    @Override
+    public void registerComponents(@NonNull Context context, @NonNull Glide glide, @NonNull Registry registry) {
+        registry.replace(GlideUrl.class, InputStream.class,
+                new OkHttpUrlLoader.Factory(ApiClient.getHttpClient()));
+    }
+
+    // All configuration lives here, skip scanning the manifest for legacy modules
+    @Override
+    public boolean isManifestParsingEnabled() {
+        return false;
+    }
+}
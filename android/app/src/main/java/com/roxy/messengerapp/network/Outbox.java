@@ -0,0 +1,293 @@
+package com.roxy.messengerapp.network;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.roxy.messengerapp.database.LocalStore;
+import com.roxy.messengerapp.entities.Message;
+import com.roxy.messengerapp.utils.TimeFormatter;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// Исходящие сообщения. Каждое получает clientId, сразу пишется в LocalStore и показывается
+// как "отправляется", потом уходит на сервер с ack. Пока ack нет — повтор с растущей паузой,
+// после реконнекта всё неподтверждённое уходит одной пачкой. Сервер по clientId
+// не создаёт дубликатов, так что повторять безопасно. Отказ с retry: false (чата нет,
+// данные не прошли проверку) окончательный: сообщение убирается и показывается как неотправленное.
+// Все методы вызываются с главного потока.
+public class Outbox {
+    private static final String TAG = "Outbox";
+    private static final long MIN_RETRY_MS = 1000;
+    private static final long MAX_RETRY_MS = 30_000;
+
+    private static Outbox instance;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // clientId -> entry, in send order
+    private Map<String, Entry> pending = new LinkedHashMap<>();
+    private boolean restored;
+    // A restore still reading from disk must not bring back what clear() dropped
+    private int restoreGeneration;
+    private final ChatSubscriptions<OnSendFailedListener> failureListeners = new ChatSubscriptions<>();
+
+    // Main thread. message is the dropped copy, pending=false and failed=true
+    public interface OnSendFailedListener {
+        void onSendFailed(Message message);
+    }
+
+    private static class Entry {
+        final Message message;
+        int attempts;
+        // Doubles as the ack timeout: fires unless the ack cancels it first
+        Runnable retry;
+
+        Entry(Message message) {
+            this.message = message;
+        }
+    }
+
+    private Outbox() {
+        restore();
+    }
+
+    public static synchronized Outbox getInstance() {
+        if (instance == null) {
+            instance = new Outbox();
+        }
+        return instance;
+    }
+
+    // Returns the pending copy to show right away; the server's copy replaces it by clientId
+    public Message send(String chatId, String senderId, String content, String type, String thumbnailUrl) {
+        return send(chatId, senderId, content, type, thumbnailUrl, 0, 0, null);
+    }
+
+    // Image messages: size and BlurHash let every client reserve the bubble before the download
+    public Message send(String chatId, String senderId, String content, String type, String thumbnailUrl,
+                        int width, int height, String blurHash) {
+        String clientId = UUID.randomUUID().toString();
+        Message message = new Message();
+        message.setId(clientId);
+        message.setClientId(clientId);
+        message.setChatId(chatId);
+        message.setSenderId(senderId);
+        message.setContent(content);
+        message.setType(type);
+        message.setThumbnailUrl(thumbnailUrl);
+        message.setWidth(width);
+        message.setHeight(height);
+        message.setBlurHash(blurHash);
+        message.setCreatedAt(TimeFormatter.formatIso(System.currentTimeMillis()));
+        message.setPending(true);
+
+        Entry entry = new Entry(message);
+        pending.put(clientId, entry);
+        if (LocalStore.getInstance() != null) {
+            LocalStore.getInstance().addToOutbox(message);
+        }
+        attempt(entry);
+        return new Message(message);
+    }
+
+    // Unsent messages of a chat, for a screen that was just opened
+    public List<Message> getPending(String chatId) {
+        List<Message> result = new ArrayList<>();
+        for (Entry entry : pending.values()) {
+            if (entry.message.getChatId().equals(chatId)) {
+                result.add(new Message(entry.message));
+            }
+        }
+        return result;
+    }
+
+    // Deleted before the server confirmed it. If it already got through, the echo brings it back
+    public void cancel(String clientId) {
+        Entry entry = pending.remove(clientId);
+        if (entry == null) return;
+        cancelRetry(entry);
+        if (LocalStore.getInstance() != null) {
+            LocalStore.getInstance().removeFromOutbox(clientId);
+        }
+    }
+
+    public void addFailureListener(String chatId, OnSendFailedListener listener) {
+        failureListeners.subscribe(chatId, listener);
+    }
+
+    public void removeFailureListener(String chatId, OnSendFailedListener listener) {
+        failureListeners.unsubscribe(chatId, listener);
+    }
+
+    // Socket (re)connected: everything still unconfirmed goes out as one batch
+    void flush() {
+        if (!restored || pending.isEmpty() || !SocketManager.getInstance().isConnected()) return;
+
+        List<Entry> batch = new ArrayList<>(pending.values());
+        JSONArray messages = new JSONArray();
+        try {
+            for (Entry entry : batch) {
+                messages.put(toJson(entry.message));
+            }
+            JSONObject data = new JSONObject();
+            data.put("messages", messages);
+            SocketManager.getInstance().emitWithAck("send_message_batch", data,
+                    args -> mainHandler.post(() -> onBatchAck(args)));
+        } catch (JSONException e) {
+            Log.e(TAG, "Flush error: " + e.getMessage());
+            return;
+        }
+        for (Entry entry : batch) {
+            entry.attempts++;
+            scheduleRetry(entry);
+        }
+    }
+
+    // Logout: the next account must not send our messages
+    public void clear() {
+        for (Entry entry : pending.values()) {
+            cancelRetry(entry);
+        }
+        pending.clear();
+        restoreGeneration++;
+        restored = true;
+    }
+
+    private void restore() {
+        LocalStore store = LocalStore.getInstance();
+        if (store == null) {
+            restored = true;
+            return;
+        }
+        int generation = restoreGeneration;
+        store.loadOutbox(messages -> {
+            if (generation != restoreGeneration) return;
+            // Stored ones are older than anything sent while they were loading
+            Map<String, Entry> merged = new LinkedHashMap<>();
+            for (Message message : messages) {
+                message.setPending(true);
+                merged.put(message.getClientId(), new Entry(message));
+            }
+            merged.putAll(pending);
+            pending = merged;
+            restored = true;
+            flush();
+        });
+    }
+
+    private void attempt(Entry entry) {
+        // Offline: nothing to time out, flush() picks it up on reconnect
+        if (!SocketManager.getInstance().isConnected()) return;
+        try {
+            String clientId = entry.message.getClientId();
+            SocketManager socketManager = SocketManager.getInstance();
+            Object data = socketManager.usesBinaryCodec() ? WireCodec.encodeSend(entry.message) : toJson(entry.message);
+            socketManager.emitWithAck("send_message", data,
+                    args -> mainHandler.post(() -> onAck(clientId, args.length > 0 ? args[0] : null)));
+        } catch (JSONException e) {
+            Log.e(TAG, "Send error: " + e.getMessage());
+            return;
+        }
+        entry.attempts++;
+        scheduleRetry(entry);
+    }
+
+    private void onAck(String clientId, Object response) {
+        if (!(response instanceof JSONObject)) return;
+        JSONObject result = (JSONObject) response;
+        JSONObject message = result.optJSONObject("message");
+        if (result.optBoolean("ok") && message != null) {
+            confirm(clientId, SocketJson.toMessage(message));
+        } else if (!result.optBoolean("ok") && !result.optBoolean("retry")) {
+            fail(clientId);
+        }
+        // ok=false, retry=true: the retry timer is still armed and sends it again
+    }
+
+    private void onBatchAck(Object[] args) {
+        if (args.length == 0 || !(args[0] instanceof JSONObject)) return;
+        JSONArray results = ((JSONObject) args[0]).optJSONArray("results");
+        if (results == null) return;
+        for (int i = 0; i < results.length(); i++) {
+            JSONObject result = results.optJSONObject(i);
+            if (result != null) {
+                onAck(result.optString("clientId"), result);
+            }
+        }
+    }
+
+    private void confirm(String clientId, Message serverMessage) {
+        Entry entry = pending.remove(clientId);
+        if (entry == null) return;
+        cancelRetry(entry);
+        if (LocalStore.getInstance() != null) {
+            LocalStore.getInstance().removeFromOutbox(clientId);
+        }
+        // The room echo may have been missed (reconnect, duplicate), deliver the server copy ourselves
+        SocketManager.getInstance().deliverConfirmed(serverMessage);
+    }
+
+    // Only a server that says retry=true gets the message again; without the flag (older
+    // server) a refusal is final, so a message it can never accept doesn't loop forever
+    private void fail(String clientId) {
+        Entry entry = pending.remove(clientId);
+        if (entry == null) return;
+        cancelRetry(entry);
+        if (LocalStore.getInstance() != null) {
+            LocalStore.getInstance().removeFromOutbox(clientId);
+        }
+        Log.w(TAG, "Send refused for " + clientId);
+        Message failed = new Message(entry.message);
+        failed.setPending(false);
+        failed.setFailed(true);
+        for (OnSendFailedListener listener : failureListeners.forChat(failed.getChatId())) {
+            listener.onSendFailed(new Message(failed));
+        }
+    }
+
+    private void scheduleRetry(Entry entry) {
+        cancelRetry(entry);
+        long delay = Math.min(MAX_RETRY_MS, MIN_RETRY_MS << Math.min(entry.attempts - 1, 5));
+        String clientId = entry.message.getClientId();
+        entry.retry = () -> {
+            entry.retry = null;
+            if (pending.get(clientId) == entry) {
+                attempt(entry);
+            }
+        };
+        mainHandler.postDelayed(entry.retry, delay);
+    }
+
+    private void cancelRetry(Entry entry) {
+        if (entry.retry != null) {
+            mainHandler.removeCallbacks(entry.retry);
+            entry.retry = null;
+        }
+    }
+
+    private static JSONObject toJson(Message message) throws JSONException {
+        JSONObject data = new JSONObject();
+        data.put("clientId", message.getClientId());
+        data.put("chatId", message.getChatId());
+        data.put("content", message.getContent());
+        data.put("type", message.getType());
+        if (message.getThumbnailUrl() != null) {
+            data.put("thumbnailUrl", message.getThumbnailUrl());
+        }
+        if (message.hasImageSize()) {
+            data.put("width", message.getWidth());
+            data.put("height", message.getHeight());
+        }
+        if (message.getBlurHash() != null) {
+            data.put("blurHash", message.getBlurHash());
+        }
+        return data;
+    }
+}
@@ -0,0 +1,54 @@
+package com.roxy.messengerapp.network;
+
+import com.roxy.messengerapp.entities.Message;
+import com.roxy.messengerapp.entities.User;
+
+import org.json.JSONObject;
+
+// Socket.IO отдаёт JSON-события уже разобранными в JSONObject. Сущности собираются
+// прямо из него, без toString() и повторного разбора через Gson.
+// Поля и значения по умолчанию — те же, что дал бы Gson; createdAtMillis считает setCreatedAt.
+final class SocketJson {
+
+    private SocketJson() {}
+
+    static Message toMessage(JSONObject json) {
+        Message message = new Message();
+        message.setId(string(json, "id"));
+        message.setContent(string(json, "content"));
+        message.setType(string(json, "type"));
+        message.setThumbnailUrl(string(json, "thumbnailUrl"));
+        message.setWidth(json.optInt("width"));
+        message.setHeight(json.optInt("height"));
+        message.setBlurHash(string(json, "blurHash"));
+        message.setSeen(json.optBoolean("isRead"));
+        message.setEdited(json.optBoolean("isEdited"));
+        message.setChatId(string(json, "chatId"));
+        message.setSenderId(string(json, "senderId"));
+        message.setCreatedAt(string(json, "createdAt"));
+        message.setClientId(string(json, "clientId"));
+        message.setSeq(json.optLong("seq"));
+        JSONObject sender = json.optJSONObject("sender");
+        if (sender != null) {
+            message.setSender(toUser(sender));
+        }
+        return message;
+    }
+
+    static User toUser(JSONObject json) {
+        User user = new User();
+        user.setId(string(json, "id"));
+        user.setUsername(string(json, "username"));
+        user.setEmail(string(json, "email"));
+        user.setImageURL(string(json, "avatar"));
+        user.setOnline(json.optBoolean("isOnline"));
+        user.setLastSeen(string(json, "lastSeen"));
+        return user;
+    }
+
+    // optString() turns JSON null into "null" and a missing key into ""
+    private static String string(JSONObject json, String name) {
+        Object value = json.opt(name);
+        return value == null || value == JSONObject.NULL ? null : value.toString();
+    }
+}
@@ -1,41 +1,93 @@
 package com.roxy.messengerapp.network;
 
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.util.Log;
 
 import com.google.gson.Gson;
+import com.roxy.messengerapp.BuildConfig;
+import com.roxy.messengerapp.database.LocalStore;
 import com.roxy.messengerapp.entities.Message;
 
+import java.io.File;
+import java.io.IOException;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+import io.socket.client.Ack;
 import io.socket.client.IO;
 import io.socket.client.Socket;
 import io.socket.emitter.Emitter;
 
 public class SocketManager {
     private static final String TAG = "SocketManager";
-    private static final String SERVER_URL = "https://e1e5-2a0d-b201-5000-ed50-798f-23b3-80ea-24f5.ngrok-free.app";
+    private static final String SERVER_URL = BuildConfig.SERVER_URL;
+    // Everything handleInbound() understands
+    static final String[] INBOUND_EVENTS = {"codec", "new_message", "message_deleted", "user_typing", "messages_read"};
 
     private static SocketManager instance;
     private Socket socket;
-    private Gson gson = new Gson();
-
-    private List<OnMessageListener> messageListeners = new ArrayList<>();
-    private List<OnMessageDeletedListener> messageDeletedListeners = new ArrayList<>();
-    private OnTypingListener typingListener;
+    // Token the current socket authenticated with; another token means another account
+    private String socketToken;
+    // Server answered the handshake with "codec": bin1, our own events may go binary too
+    private volatile boolean binaryCodec;
+    // Lost the connection or failed to make it, Socket.IO is between attempts. A first
+    // connect still in its handshake is not retrying, reconnectNow() leaves it alone
+    private volatile boolean retrying;
+    private final Gson gson = ApiClient.getGson();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Событие чата уходит только подписчикам этого чата и каналу "все чаты"
+    private final ChatSubscriptions<OnMessageListener> messageListeners = new ChatSubscriptions<>();
+    private final ChatSubscriptions<OnMessageDeletedListener> messageDeletedListeners = new ChatSubscriptions<>();
+    private final ChatSubscriptions<OnTypingListener> typingListeners = new ChatSubscriptions<>();
+    private final ChatSubscriptions<OnMessagesReadListener> readListeners = new ChatSubscriptions<>();
+    private final EventDispatcher dispatcher = new EventDispatcher(this::deliver);
+
+    // Capture mode: every event both ways goes to a SocketTrace file
+    private volatile SocketTraceRecorder recorder;
+    private final Emitter.Listener traceIncoming = args -> record(false, args);
+    private final Emitter.Listener traceOutgoing = args -> record(true, args);
+    // Replay: told about each batch right after the listeners have run
+    private volatile DeliveryObserver deliveryObserver;
+
+    // Набор текста: typing_start не чаще раза в интервал, typing_stop при простое или отправке.
+    // Собеседник, от которого давно нет typing_start, считается переставшим (stop мог потеряться).
+    private static final long DEFAULT_TYPING_INTERVAL_MS = 3000;
+    private long typingInterval = DEFAULT_TYPING_INTERVAL_MS;
+    private final Map<String, Long> typingStartSentAt = new HashMap<>();
+    private final Map<String, Runnable> typingIdleStops = new HashMap<>();
+    // chatId -> (userId -> expiry) for everyone else who is typing right now
+    private final Map<String, Map<String, Runnable>> remoteTyping = new HashMap<>();
     private OnConnectionListener connectionListener;
 
+    // Batched listeners: called on the main thread at most once per frame with everything
+    // that arrived since the previous frame, in arrival order
     public interface OnMessageListener {
-        void onNewMessage(Message message);
+        void onNewMessages(List<Message> messages);
     }
 
     public interface OnMessageDeletedListener {
-        void onMessageDeleted(String messageId, String chatId);
+        void onMessagesDeleted(String chatId, List<String> messageIds);
     }
 
+    // Called on the main thread, only when a user's state actually flips
     public interface OnTypingListener {
-        void onUserTyping(String chatId, String userId);
+        void onTypingChanged(String chatId, String userId, boolean typing);
+    }
+
+    // Called on the main thread: readerId has read everything the others sent in the chat
+    public interface OnMessagesReadListener {
+        void onMessagesRead(String chatId, String readerId);
+    }
+
+    interface DeliveryObserver {
+        void onDelivered(List<Message> messages, Map<String, List<String>> deleted);
     }
 
     public interface OnConnectionListener {
@@ -53,15 +105,23 @@ public class SocketManager {
         return instance;
     }
 
-    public void connect(String token) {
-        try {
-            IO.Options options = new IO.Options();
-            options.auth = new java.util.HashMap<>();
-            options.auth.put("token", token);
-            options.reconnection = true;
-            options.reconnectionAttempts = 5;
+    // Один сокет на процесс: повторный connect() с тем же токеном не открывает второе соединение,
+    // а новый токен сначала закрывает старое — иначе события приходили бы дважды
+    public synchronized void connect(String token) {
+        if (socket != null && token != null && token.equals(socketToken)) {
+            if (!socket.connected()) {
+                // No-op while Socket.IO is already retrying on its own
+                socket.connect();
+            }
+            return;
+        }
+        closeSocket();
 
+        try {
+            IO.Options options = SocketOptions.create(token, WireCodec.NAME, ApiClient.getHttpClient());
             socket = IO.socket(SERVER_URL, options);
+            socketToken = token;
+            retrying = false;
             setupListeners();
             socket.connect();
 
@@ -77,12 +137,22 @@ public class SocketManager {
             socket.off(Socket.EVENT_CONNECT);
             socket.off(Socket.EVENT_DISCONNECT);
             socket.off(Socket.EVENT_CONNECT_ERROR);
-            socket.off("new_message");
-            socket.off("user_typing");
+            for (String event : INBOUND_EVENTS) {
+                socket.off(event);
+            }
+            socket.offAnyIncoming(traceIncoming);
+            socket.offAnyOutgoing(traceOutgoing);
         }
 
         socket.on(Socket.EVENT_CONNECT, args -> {
             Log.d(TAG, "Socket connected");
+            retrying = false;
+            // Пока сокета не было, события могли пройти мимо — догружаем только пропущенное
+            mainHandler.post(() -> {
+                ApiRepository.getInstance().invalidateChats();
+                SyncManager.getInstance().requestSync();
+                Outbox.getInstance().flush();
+            });
             if (connectionListener != null) {
                 connectionListener.onConnected();
             }
@@ -90,6 +160,10 @@ public class SocketManager {
 
         socket.on(Socket.EVENT_DISCONNECT, args -> {
             Log.d(TAG, "Socket disconnected");
+            // Our own disconnect() (pause, logout) doesn't reconnect, anything else does
+            retrying = args.length == 0 || !"io client disconnect".equals(String.valueOf(args[0]));
+            binaryCodec = false;
+            mainHandler.post(this::resetTyping);
             if (connectionListener != null) {
                 connectionListener.onDisconnected();
             }
@@ -98,80 +172,334 @@ public class SocketManager {
         socket.on(Socket.EVENT_CONNECT_ERROR, args -> {
             String error = args.length > 0 ? args[0].toString() : "Unknown error";
             Log.e(TAG, "Socket error: " + error);
+            retrying = true;
             if (connectionListener != null) {
                 connectionListener.onError(error);
             }
         });
 
-        socket.on("new_message", args -> {
-            if (args.length > 0) {
+        for (String event : INBOUND_EVENTS) {
+            socket.on(event, args -> {
+                if (args.length > 0) {
+                    handleInbound(event, args[0], true);
+                }
+            });
+        }
+        if (recorder != null) {
+            socket.onAnyIncoming(traceIncoming);
+            socket.onAnyOutgoing(traceOutgoing);
+        }
+    }
+
+    // Socket thread, or the replay thread of SocketTraceReplayer: both go through the same
+    // decode and dispatch. live = false skips the seq check, a replayed trace is never "new".
+    // Room events come as byte[] in bin1 and as JSON otherwise, both are accepted at any time
+    void handleInbound(String event, Object arg, boolean live) {
+        switch (event) {
+            // Sent by the server right after the handshake
+            case "codec":
+                if (arg instanceof org.json.JSONObject) {
+                    binaryCodec = WireCodec.NAME.equals(((org.json.JSONObject) arg).optString("codec"));
+                    Log.d(TAG, "Socket codec: " + (binaryCodec ? WireCodec.NAME : "json"));
+                }
+                break;
+
+            case "new_message":
                 try {
-                    Message message = gson.fromJson(args[0].toString(), Message.class);
-                    for (OnMessageListener listener : messageListeners) {
-                        listener.onNewMessage(message);
+                    Message message;
+                    if (arg instanceof byte[]) {
+                        message = WireCodec.decodeMessage((byte[]) arg);
+                    } else if (arg instanceof org.json.JSONObject) {
+                        message = SocketJson.toMessage((org.json.JSONObject) arg);
+                    } else {
+                        message = gson.fromJson(arg.toString(), Message.class);
+                    }
+                    if (live) {
+                        acceptLiveMessage(message);
+                    } else {
+                        deliverSynced(message);
                     }
                 } catch (Exception e) {
                     Log.e(TAG, "Parse message error: " + e.getMessage());
                 }
-            }
-        });
+                break;
 
-        socket.on("message_deleted", args -> {
-            if (args.length > 0) {
+            case "message_deleted":
                 try {
-                    org.json.JSONObject data = new org.json.JSONObject(args[0].toString());
-                    String messageId = data.getString("messageId");
-                    String chatId = data.getString("chatId");
-                    for (OnMessageDeletedListener listener : messageDeletedListeners) {
-                        listener.onMessageDeleted(messageId, chatId);
+                    String messageId;
+                    String chatId;
+                    long seq;
+                    if (arg instanceof byte[]) {
+                        WireCodec.Deletion deletion = WireCodec.decodeDeletion((byte[]) arg);
+                        messageId = deletion.messageId;
+                        chatId = deletion.chatId;
+                        seq = deletion.seq;
+                    } else {
+                        org.json.JSONObject data = toJsonObject(arg);
+                        messageId = data.getString("messageId");
+                        chatId = data.getString("chatId");
+                        seq = data.optLong("seq", 0);
+                    }
+                    if (live) {
+                        acceptLiveDeletion(messageId, chatId, seq);
+                    } else {
+                        deliverSyncedDeletion(messageId, chatId);
                     }
                 } catch (Exception e) {
                     Log.e(TAG, "Parse delete error: " + e.getMessage());
                 }
-            }
-        });
-
+                break;
 
-        socket.on("user_typing", args -> {
-            if (args.length > 0 && typingListener != null) {
+            case "user_typing":
                 try {
-                    org.json.JSONObject data = new org.json.JSONObject(args[0].toString());
+                    if (arg instanceof byte[]) {
+                        WireCodec.Typing typing = WireCodec.decodeTyping((byte[]) arg);
+                        mainHandler.post(() -> applyRemoteTyping(typing.chatId, typing.userId, typing.typing));
+                        return;
+                    }
+                    org.json.JSONObject data = toJsonObject(arg);
                     String chatId = data.getString("chatId");
                     String userId = data.getString("userId");
-                    typingListener.onUserTyping(chatId, userId);
+                    // Old servers send no flag, every event meant "typing"
+                    boolean typing = data.optBoolean("isTyping", true);
+                    mainHandler.post(() -> applyRemoteTyping(chatId, userId, typing));
                 } catch (Exception e) {
                     Log.e(TAG, "Parse typing error: " + e.getMessage());
                 }
-            }
-        });
+                break;
+
+            case "messages_read":
+                try {
+                    // JSON only, the server doesn't encode read receipts
+                    org.json.JSONObject data = toJsonObject(arg);
+                    String chatId = data.getString("chatId");
+                    String readerId = data.getString("userId");
+                    mainHandler.post(() -> {
+                        for (OnMessagesReadListener listener : readListeners.forChat(chatId)) {
+                            listener.onMessagesRead(chatId, readerId);
+                        }
+                    });
+                } catch (Exception e) {
+                    Log.e(TAG, "Parse read error: " + e.getMessage());
+                }
+                break;
+
+            default:
+                break;
+        }
     }
 
-    public void sendMessage(String chatId, String content) {
-        sendMessage(chatId, content, "text");
+    // Socket.IO already hands JSON events over as a JSONObject, parse only what isn't one
+    private static org.json.JSONObject toJsonObject(Object arg) throws org.json.JSONException {
+        return arg instanceof org.json.JSONObject ? (org.json.JSONObject) arg : new org.json.JSONObject(arg.toString());
     }
 
-    public void sendMessage(String chatId, String content, String type) {
+    // Messages are sent through Outbox, which retries until this ack arrives.
+    // data is a JSONObject, or a byte[] from WireCodec when usesBinaryCodec()
+    void emitWithAck(String event, Object data, Ack ack) {
         if (socket != null && socket.connected()) {
-            try {
-                org.json.JSONObject data = new org.json.JSONObject();
-                data.put("chatId", chatId);
-                data.put("content", content);
-                data.put("type", type);
-                socket.emit("send_message", data);
-            } catch (Exception e) {
-                Log.e(TAG, "Send message error: " + e.getMessage());
+            socket.emit(event, new Object[]{data}, ack);
+        }
+    }
+
+    boolean usesBinaryCodec() {
+        return binaryCodec;
+    }
+
+    // Server copy of our own message from an ack, handled like one from the room
+    void deliverConfirmed(Message message) {
+        acceptLiveMessage(message);
+    }
+
+    // A live event with a gap in seq is dropped: the sync it triggers returns it in order
+    private void acceptLiveMessage(Message message) {
+        SyncManager.LiveResult result = SyncManager.getInstance().onLiveEvent(message.getChatId(), message.getSeq());
+        if (result == SyncManager.LiveResult.GAP) {
+            mainHandler.post(() -> SyncManager.getInstance().requestSync());
+        } else if (result == SyncManager.LiveResult.APPLY) {
+            deliverSynced(message);
+        }
+    }
+
+    private void acceptLiveDeletion(String messageId, String chatId, long seq) {
+        SyncManager.LiveResult result = SyncManager.getInstance().onLiveEvent(chatId, seq);
+        if (result == SyncManager.LiveResult.GAP) {
+            mainHandler.post(() -> SyncManager.getInstance().requestSync());
+        } else if (result == SyncManager.LiveResult.APPLY) {
+            deliverSyncedDeletion(messageId, chatId);
+        }
+    }
+
+    // Already checked against the watermarks: cache it and hand it to the UI
+    void deliverSynced(Message message) {
+        LocalStore store = LocalStore.getInstance();
+        if (store != null) {
+            store.saveMessage(message);
+        }
+        dispatcher.postMessage(message);
+    }
+
+    void deliverSyncedDeletion(String messageId, String chatId) {
+        LocalStore store = LocalStore.getInstance();
+        if (store != null) {
+            store.deleteMessage(messageId);
+        }
+        dispatcher.postDeleted(messageId, chatId);
+    }
+
+    // Main thread, from the dispatcher's frame callback
+    private void deliver(List<Message> messages, Map<String, List<String>> deleted) {
+        messageListeners.dispatch(messages, Message::getChatId, OnMessageListener::onNewMessages);
+        for (Map.Entry<String, List<String>> chat : deleted.entrySet()) {
+            List<String> ids = Collections.unmodifiableList(chat.getValue());
+            for (OnMessageDeletedListener listener : messageDeletedListeners.all()) {
+                listener.onMessagesDeleted(chat.getKey(), ids);
+            }
+            for (OnMessageDeletedListener listener : messageDeletedListeners.forChat(chat.getKey())) {
+                listener.onMessagesDeleted(chat.getKey(), ids);
             }
         }
+        DeliveryObserver observer = deliveryObserver;
+        if (observer != null) {
+            observer.onDelivered(messages, deleted);
+        }
+    }
+
+    void setDeliveryObserver(DeliveryObserver observer) {
+        this.deliveryObserver = observer;
+    }
+
+    // ===== Capture =====
+
+    // Debug builds: from now on every event in and out is written to file, until stopCapture()
+    // or disconnect(). Survives reconnects; replay the file with SocketTraceReplayer
+    public synchronized void startCapture(File file) throws IOException {
+        stopCapture();
+        recorder = new SocketTraceRecorder(file);
+        if (socket != null) {
+            socket.onAnyIncoming(traceIncoming);
+            socket.onAnyOutgoing(traceOutgoing);
+        }
+        Log.d(TAG, "Socket capture to " + file);
+    }
+
+    public synchronized void stopCapture() {
+        if (recorder == null) return;
+        if (socket != null) {
+            socket.offAnyIncoming(traceIncoming);
+            socket.offAnyOutgoing(traceOutgoing);
+        }
+        recorder.close();
+        recorder = null;
+    }
+
+    public boolean isCapturing() {
+        return recorder != null;
+    }
+
+    private void record(boolean outbound, Object[] args) {
+        SocketTraceRecorder current = recorder;
+        if (current != null) {
+            current.record(outbound, args);
+        }
     }
 
+    public void setTypingInterval(long intervalMs) {
+        this.typingInterval = intervalMs;
+    }
+
+    // Call on every keystroke from the main thread; the room only hears about state changes
     public void sendTyping(String chatId) {
-        if (socket != null && socket.connected()) {
-            try {
-                org.json.JSONObject data = new org.json.JSONObject();
-                data.put("chatId", chatId);
-                socket.emit("typing", data);
-            } catch (Exception e) {
-                Log.e(TAG, "Send typing error: " + e.getMessage());
+        if (socket == null || !socket.connected()) return;
+
+        long now = SystemClock.elapsedRealtime();
+        Long lastStart = typingStartSentAt.get(chatId);
+        if (lastStart == null || now - lastStart >= typingInterval) {
+            emitTyping("typing_start", chatId);
+            typingStartSentAt.put(chatId, now);
+        }
+
+        Runnable idleStop = typingIdleStops.remove(chatId);
+        if (idleStop != null) {
+            mainHandler.removeCallbacks(idleStop);
+        }
+        idleStop = () -> stopTyping(chatId);
+        typingIdleStops.put(chatId, idleStop);
+        mainHandler.postDelayed(idleStop, typingInterval);
+    }
+
+    // On send, on an emptied input and when the chat is closed
+    public void stopTyping(String chatId) {
+        Runnable idleStop = typingIdleStops.remove(chatId);
+        if (idleStop != null) {
+            mainHandler.removeCallbacks(idleStop);
+        }
+        if (typingStartSentAt.remove(chatId) != null && socket != null && socket.connected()) {
+            emitTyping("typing_stop", chatId);
+        }
+    }
+
+    public boolean isTyping(String chatId, String userId) {
+        Map<String, Runnable> users = remoteTyping.get(chatId);
+        return users != null && users.containsKey(userId);
+    }
+
+    private void emitTyping(String event, String chatId) {
+        if (binaryCodec) {
+            socket.emit(event, (Object) WireCodec.encodeChatRef(chatId));
+            return;
+        }
+        try {
+            org.json.JSONObject data = new org.json.JSONObject();
+            data.put("chatId", chatId);
+            socket.emit(event, data);
+        } catch (Exception e) {
+            Log.e(TAG, "Send typing error: " + e.getMessage());
+        }
+    }
+
+    private void applyRemoteTyping(String chatId, String userId, boolean typing) {
+        Map<String, Runnable> users = remoteTyping.get(chatId);
+        Runnable expiry = users != null ? users.remove(userId) : null;
+        if (expiry != null) {
+            mainHandler.removeCallbacks(expiry);
+        }
+        boolean wasTyping = expiry != null;
+
+        if (typing) {
+            if (users == null) {
+                users = new HashMap<>();
+                remoteTyping.put(chatId, users);
+            }
+            // Sender refreshes typing_start every interval, two missed refreshes mean it's gone
+            Runnable expire = () -> applyRemoteTyping(chatId, userId, false);
+            users.put(userId, expire);
+            mainHandler.postDelayed(expire, typingInterval * 2);
+        } else if (users != null && users.isEmpty()) {
+            remoteTyping.remove(chatId);
+        }
+
+        if (typing != wasTyping) {
+            for (OnTypingListener listener : typingListeners.all()) {
+                listener.onTypingChanged(chatId, userId, typing);
+            }
+            for (OnTypingListener listener : typingListeners.forChat(chatId)) {
+                listener.onTypingChanged(chatId, userId, typing);
+            }
+        }
+    }
+
+    // После обрыва ни наши, ни чужие состояния набора больше не актуальны
+    private void resetTyping() {
+        for (Runnable idleStop : typingIdleStops.values()) {
+            mainHandler.removeCallbacks(idleStop);
+        }
+        typingIdleStops.clear();
+        typingStartSentAt.clear();
+
+        for (Map.Entry<String, Map<String, Runnable>> chat : new ArrayList<>(remoteTyping.entrySet())) {
+            for (String userId : new ArrayList<>(chat.getValue().keySet())) {
+                applyRemoteTyping(chat.getKey(), userId, false);
             }
         }
     }
@@ -213,10 +541,39 @@ public class SocketManager {
         }
     }
 
-    public void disconnect() {
+    // Logout or app exit: the socket is dropped, the next connect() builds a new one
+    public synchronized void disconnect() {
+        closeSocket();
+        stopCapture();
+        dispatcher.clear();
+    }
+
+    // Idle in the background: close the connection but keep the socket for a later connect()
+    synchronized void pause() {
+        // Also while reconnecting: disconnect() stops the Manager's retry loop too
+        if (socket != null) {
+            socket.disconnect();
+            retrying = false;
+        }
+    }
+
+    // The network is back: skip whatever backoff delay Socket.IO is sitting in and dial now.
+    // Only after a real disconnect or connect_error, never during a handshake in progress
+    synchronized void reconnectNow() {
+        if (socket == null || socket.connected() || !retrying) return;
+        // disconnect() closes the Manager and resets its backoff, connect() opens it again
+        socket.disconnect();
+        socket.connect();
+    }
+
+    private void closeSocket() {
         if (socket != null) {
             socket.disconnect();
             socket.off();
+            socket = null;
+            socketToken = null;
+            retrying = false;
+            mainHandler.post(this::resetTyping);
         }
     }
 
@@ -224,35 +581,65 @@ public class SocketManager {
         return socket != null && socket.connected();
     }
 
-    public void setTypingListener(OnTypingListener listener) {
-        this.typingListener = listener;
-    }
-
     public void setConnectionListener(OnConnectionListener listener) {
         this.connectionListener = listener;
     }
 
+    // Without a chatId: every chat (chat list, caches). Safe to call from any thread
     public void addMessageListener(OnMessageListener listener) {
-        if (!messageListeners.contains(listener)) {
-            messageListeners.add(listener);
-        }
+        messageListeners.subscribeAll(listener);
     }
 
     public void removeMessageListener(OnMessageListener listener) {
-        messageListeners.remove(listener);
+        messageListeners.unsubscribeAll(listener);
+    }
+
+    public void addMessageListener(String chatId, OnMessageListener listener) {
+        messageListeners.subscribe(chatId, listener);
+    }
+
+    public void removeMessageListener(String chatId, OnMessageListener listener) {
+        messageListeners.unsubscribe(chatId, listener);
     }
 
     public void addMessageDeletedListener(OnMessageDeletedListener listener) {
-        if (!messageDeletedListeners.contains(listener)) {
-            messageDeletedListeners.add(listener);
-        }
+        messageDeletedListeners.subscribeAll(listener);
     }
+
     public void removeMessageDeletedListener(OnMessageDeletedListener listener) {
-        messageDeletedListeners.remove(listener);
+        messageDeletedListeners.unsubscribeAll(listener);
+    }
+
+    public void addMessageDeletedListener(String chatId, OnMessageDeletedListener listener) {
+        messageDeletedListeners.subscribe(chatId, listener);
+    }
+
+    public void removeMessageDeletedListener(String chatId, OnMessageDeletedListener listener) {
+        messageDeletedListeners.unsubscribe(chatId, listener);
+    }
+
+    public void addTypingListener(OnTypingListener listener) {
+        typingListeners.subscribeAll(listener);
+    }
+
+    public void removeTypingListener(OnTypingListener listener) {
+        typingListeners.unsubscribeAll(listener);
+    }
+
+    public void addTypingListener(String chatId, OnTypingListener listener) {
+        typingListeners.subscribe(chatId, listener);
+    }
+
+    public void removeTypingListener(String chatId, OnTypingListener listener) {
+        typingListeners.unsubscribe(chatId, listener);
+    }
+
+    public void addMessagesReadListener(String chatId, OnMessagesReadListener listener) {
+        readListeners.subscribe(chatId, listener);
     }
 
-    public void removeTypingListener() {
-        this.typingListener = null;
+    public void removeMessagesReadListener(String chatId, OnMessagesReadListener listener) {
+        readListeners.unsubscribe(chatId, listener);
     }
 
     public void removeConnectionListener() {
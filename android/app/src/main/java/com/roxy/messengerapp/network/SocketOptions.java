@@ -0,0 +1,41 @@
+package com.roxy.messengerapp.network;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+import io.socket.client.IO;
+import okhttp3.OkHttpClient;
+
+// Настройки Socket.IO-клиента приложения. Без Android: тот же набор использует loadgen,
+// чтобы нагрузку давали такие же клиенты, как телефоны.
+public final class SocketOptions {
+
+    private SocketOptions() {}
+
+    // codec: WireCodec.NAME to ask for binary events, null for plain JSON
+    public static IO.Options create(String token, String codec, OkHttpClient httpClient) {
+        IO.Options options = new IO.Options();
+        options.auth = new HashMap<>();
+        options.auth.put("token", token);
+        if (codec != null) {
+            // An older server ignores it and keeps sending JSON
+            options.auth.put("codec", codec);
+        }
+        // Never reuse a cached Manager, it would keep the previous token
+        options.forceNew = true;
+        // Без лимита попыток: пауза 1 с, 2 с, 4 с ... до 30 с, ±50% случайно,
+        // чтобы после падения сервера клиенты не возвращались все в одну секунду
+        options.reconnection = true;
+        options.reconnectionAttempts = Integer.MAX_VALUE;
+        options.reconnectionDelay = 1000;
+        options.reconnectionDelayMax = 30_000;
+        options.randomizationFactor = 0.5;
+        // Same connection pool as the caller's HTTP client; long-polling needs a read timeout above the ping interval
+        OkHttpClient socketClient = httpClient.newBuilder()
+                .readTimeout(1, TimeUnit.MINUTES)
+                .build();
+        options.callFactory = socketClient;
+        options.webSocketFactory = socketClient;
+        return options;
+    }
+}
@@ -0,0 +1,253 @@
+package com.roxy.messengerapp.network;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// Файл записи трафика сокета: все входящие и исходящие события с временем, для повтора
+// через SocketTraceReplayer. Поверх gzip: заголовок, потом записи подряд до конца файла —
+// varint микросекунд от прошлой записи, байт флагов, номер имени события (новое имя
+// пишется один раз, при первой встрече), varint длины и тело: JSON-текст или bin1 как есть.
+// Оборванный хвост (процесс убили посреди записи) при чтении просто отбрасывается.
+// Без зависимостей от Android: гоняется в unit-тестах.
+public final class SocketTrace {
+
+    static final int MAGIC = 0x534b5452; // "SKTR"
+    static final int VERSION = 1;
+
+    private static final int FLAG_OUTBOUND = 1;
+    // Bits 1-2: what the payload is
+    private static final int PAYLOAD_NONE = 0;
+    private static final int PAYLOAD_JSON = 1 << 1;
+    private static final int PAYLOAD_BINARY = 2 << 1;
+    private static final int PAYLOAD_MASK = 3 << 1;
+
+    public static final class Event {
+        // Since the start of the recording; kept to the microsecond
+        public final long atNanos;
+        public final boolean outbound;
+        public final String name;
+        // JSON text, a bin1 byte[] or null for an event without arguments
+        public final Object payload;
+
+        public Event(long atNanos, boolean outbound, String name, Object payload) {
+            this.atNanos = atNanos;
+            this.outbound = outbound;
+            this.name = name;
+            this.payload = payload;
+        }
+    }
+
+    private SocketTrace() {}
+
+    // Not thread-safe, SocketTraceRecorder writes from a single thread
+    public static final class Writer implements Closeable {
+        private final OutputStream out;
+        private final List<String> names = new ArrayList<>();
+        private long lastMicros;
+
+        public Writer(OutputStream target, long startedAtMillis) throws IOException {
+            out = new BufferedOutputStream(new GZIPOutputStream(target, true));
+            writeInt(out, MAGIC);
+            out.write(VERSION);
+            writeVarint(out, startedAtMillis);
+        }
+
+        // payload: a String with JSON, a byte[] or null; atNanos never goes backwards
+        public void write(long atNanos, boolean outbound, String name, Object payload) throws IOException {
+            long micros = Math.max(lastMicros, atNanos / 1000);
+            writeVarint(out, micros - lastMicros);
+            lastMicros = micros;
+
+            byte[] body;
+            int flags = outbound ? FLAG_OUTBOUND : 0;
+            if (payload == null) {
+                body = null;
+            } else if (payload instanceof byte[]) {
+                body = (byte[]) payload;
+                flags |= PAYLOAD_BINARY;
+            } else {
+                body = payload.toString().getBytes(StandardCharsets.UTF_8);
+                flags |= PAYLOAD_JSON;
+            }
+            out.write(flags);
+
+            int index = names.indexOf(name);
+            if (index < 0) {
+                writeVarint(out, names.size());
+                writeBytes(out, name.getBytes(StandardCharsets.UTF_8));
+                names.add(name);
+            } else {
+                writeVarint(out, index);
+            }
+            if (body != null) {
+                writeBytes(out, body);
+            }
+        }
+
+        // Down to the file, a crash after this loses nothing written before it
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    public static final class Reader implements Closeable {
+        private final InputStream in;
+        private final long startedAtMillis;
+        private final List<String> names = new ArrayList<>();
+        private long micros;
+        private boolean finished;
+
+        public Reader(InputStream source) throws IOException {
+            in = new BufferedInputStream(new GZIPInputStream(source));
+            if (readInt(in) != MAGIC) {
+                throw new IOException("Not a socket trace");
+            }
+            int version = in.read();
+            if (version != VERSION) {
+                throw new IOException("Unsupported socket trace version " + version);
+            }
+            startedAtMillis = readVarint(in);
+        }
+
+        // Wall clock of the first record
+        public long startedAtMillis() {
+            return startedAtMillis;
+        }
+
+        // null at the end, a truncated last record included
+        public Event next() throws IOException {
+            if (finished) return null;
+            try {
+                int first = in.read();
+                if (first < 0) {
+                    finished = true;
+                    return null;
+                }
+                micros += readVarint(in, first);
+                int flags = readByte(in);
+                int index = (int) readVarint(in);
+                String name;
+                if (index == names.size()) {
+                    name = new String(readBytes(in), StandardCharsets.UTF_8);
+                    names.add(name);
+                } else if (index < names.size()) {
+                    name = names.get(index);
+                } else {
+                    throw new IOException("Bad event name index " + index);
+                }
+                Object payload;
+                switch (flags & PAYLOAD_MASK) {
+                    case PAYLOAD_NONE:
+                        payload = null;
+                        break;
+                    case PAYLOAD_BINARY:
+                        payload = readBytes(in);
+                        break;
+                    case PAYLOAD_JSON:
+                        payload = new String(readBytes(in), StandardCharsets.UTF_8);
+                        break;
+                    default:
+                        throw new IOException("Bad payload kind " + flags);
+                }
+                return new Event(micros * 1000, (flags & FLAG_OUTBOUND) != 0, name, payload);
+            } catch (EOFException e) {
+                finished = true;
+                return null;
+            }
+        }
+
+        public List<Event> readAll() throws IOException {
+            List<Event> events = new ArrayList<>();
+            Event event;
+            while ((event = next()) != null) {
+                events.add(event);
+            }
+            return events;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    // ===== primitives =====
+
+    private static void writeInt(OutputStream out, int value) throws IOException {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+
+    private static void writeVarint(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static void writeBytes(OutputStream out, byte[] bytes) throws IOException {
+        writeVarint(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static int readByte(InputStream in) throws IOException {
+        int b = in.read();
+        if (b < 0) throw new EOFException();
+        return b;
+    }
+
+    private static int readInt(InputStream in) throws IOException {
+        return readByte(in) << 24 | readByte(in) << 16 | readByte(in) << 8 | readByte(in);
+    }
+
+    private static long readVarint(InputStream in) throws IOException {
+        return readVarint(in, readByte(in));
+    }
+
+    private static long readVarint(InputStream in, int first) throws IOException {
+        long value = first & 0x7F;
+        int shift = 7;
+        int b = first;
+        while ((b & 0x80) != 0) {
+            if (shift > 63) throw new IOException("Varint too long");
+            b = readByte(in);
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        }
+        return value;
+    }
+
+    private static byte[] readBytes(InputStream in) throws IOException {
+        long length = readVarint(in);
+        if (length > Integer.MAX_VALUE) throw new IOException("Record too large");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream((int) Math.min(length, 1 << 16));
+        byte[] buffer = new byte[8192];
+        long left = length;
+        while (left > 0) {
+            int read = in.read(buffer, 0, (int) Math.min(buffer.length, left));
+            if (read < 0) throw new EOFException();
+            bytes.write(buffer, 0, read);
+            left -= read;
+        }
+        return bytes.toByteArray();
+    }
+}
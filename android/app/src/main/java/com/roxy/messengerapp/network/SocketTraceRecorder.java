@@ -0,0 +1,75 @@
+package com.roxy.messengerapp.network;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.socket.client.Ack;
+
+// Запись трафика сокета в SocketTrace. Время и текст события снимаются на потоке сокета,
+// на диск пишет свой поток, так что запись почти не сдвигает то, что мы меряем.
+class SocketTraceRecorder {
+    private static final String TAG = "SocketTraceRecorder";
+
+    private final File file;
+    private final SocketTrace.Writer writer;
+    private final long startNanos = System.nanoTime();
+    private final ExecutorService io = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "socket-trace"));
+    private final AtomicInteger pending = new AtomicInteger();
+    private volatile boolean failed;
+    private int events;
+
+    SocketTraceRecorder(File file) throws IOException {
+        this.file = file;
+        writer = new SocketTrace.Writer(new FileOutputStream(file), System.currentTimeMillis());
+    }
+
+    // Socket thread, args as onAnyIncoming/onAnyOutgoing give them: the event name, then
+    // its data. Our events carry one argument at most. JSONObject is not thread-safe,
+    // so it is turned into text right here.
+    void record(boolean outbound, Object[] args) {
+        if (failed || args.length == 0) return;
+        long atNanos = System.nanoTime() - startNanos;
+        String event = args[0].toString();
+        Object arg = args.length > 1 && !(args[1] instanceof Ack) ? args[1] : null;
+        Object payload = arg == null || arg instanceof byte[] ? arg : arg.toString();
+
+        pending.incrementAndGet();
+        try {
+            io.execute(() -> {
+                try {
+                    writer.write(atNanos, outbound, event, payload);
+                    events++;
+                    // Flush once the queue is drained: a storm is one flush, not one per event
+                    if (pending.decrementAndGet() == 0) {
+                        writer.flush();
+                    }
+                } catch (IOException e) {
+                    failed = true;
+                    Log.e(TAG, "Trace write error: " + e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // An event that raced close(), the file is already finished
+        }
+    }
+
+    // Whatever was recorded before this call ends up in the file
+    void close() {
+        io.execute(() -> {
+            try {
+                writer.close();
+                Log.d(TAG, "Trace " + file + ": " + events + " events");
+            } catch (IOException e) {
+                Log.e(TAG, "Trace close error: " + e.getMessage());
+            }
+        });
+        io.shutdown();
+    }
+}
@@ -0,0 +1,361 @@
+package com.roxy.messengerapp.network;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.roxy.messengerapp.entities.Message;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+// Повтор записи SocketTrace через тот же путь, что у живого сокета: handleInbound() на
+// отдельном потоке вместо потока Socket.IO, дальше EventDispatcher и слушатели экранов.
+// Меряет цену обработки каждого события (разбор, LocalStore, постановка в очередь) и
+// задержку до экрана: от подачи события до вызова слушателей и до конца кадра, в котором
+// они отработали. Входящие события подаются в темпе записи (1x), ускоренно (Nx) или
+// без пауз (MAX_SPEED); исходящие только считаются — повторно на сервер они не уходят.
+// Повторённые сообщения попадают в LocalStore, как живые: гонять на тестовом аккаунте.
+public final class SocketTraceReplayer {
+    private static final String TAG = "SocketTraceReplayer";
+
+    // Each event as soon as the previous one is handled
+    public static final double MAX_SPEED = 0;
+    // After the last event, how long to wait for what is still queued for the screen
+    private static final long DRAIN_TIMEOUT_MS = 2000;
+
+    private static final AtomicBoolean running = new AtomicBoolean();
+
+    public interface Callback {
+        // Main thread
+        void onFinished(Report report);
+    }
+
+    // Durations of one kind, in nanoseconds
+    public static final class Timings {
+        private long[] values = new long[64];
+        private int count;
+        private boolean sorted = true;
+
+        void add(long nanos) {
+            if (count == values.length) {
+                values = Arrays.copyOf(values, count * 2);
+            }
+            values[count++] = nanos;
+            sorted = false;
+        }
+
+        public int count() {
+            return count;
+        }
+
+        // p in 0..100, 0 when nothing was measured
+        public long percentile(double p) {
+            if (count == 0) return 0;
+            if (!sorted) {
+                Arrays.sort(values, 0, count);
+                sorted = true;
+            }
+            int index = (int) Math.ceil(p / 100 * count) - 1;
+            return values[Math.max(0, Math.min(count - 1, index))];
+        }
+
+        public long max() {
+            return percentile(100);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "n=%d p50=%.2fms p95=%.2fms p99=%.2fms max=%.2fms",
+                    count, millis(percentile(50)), millis(percentile(95)), millis(percentile(99)), millis(max()));
+        }
+
+        private static double millis(long nanos) {
+            return nanos / 1e6;
+        }
+    }
+
+    public static final class Report {
+        public final double speed;
+        // From the first fed event to the last one, as recorded
+        public final long traceNanos;
+        public final long wallNanos;
+        public final int fed;
+        // Outbound events and ones handleInbound() doesn't know
+        public final int skipped;
+        // Fed messages and deletions that never reached the listeners in time
+        public final int undelivered;
+        // Worst delay of a feed against the trace's schedule; grows when handling can't keep up
+        public final long maxLagNanos;
+        public final int batches;
+        public final int maxBatch;
+        // event -> cost of handleInbound() on the feeding thread
+        public final Map<String, Timings> processing;
+        // Fed -> listeners done (new_message and message_deleted; typing skips the dispatcher)
+        public final Timings dispatchLatency;
+        // Fed -> end of the frame that ran the listeners, the new state is on screen
+        public final Timings frameLatency;
+
+        Report(SocketTraceReplayer replay, long wallNanos, int undelivered) {
+            this.speed = replay.speed;
+            this.traceNanos = replay.traceNanos;
+            this.wallNanos = wallNanos;
+            this.fed = replay.fed;
+            this.skipped = replay.skipped;
+            this.undelivered = undelivered;
+            this.maxLagNanos = replay.maxLagNanos;
+            this.batches = replay.batches;
+            this.maxBatch = replay.maxBatch;
+            this.processing = replay.processing;
+            this.dispatchLatency = replay.dispatchLatency;
+            this.frameLatency = replay.frameLatency;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder out = new StringBuilder();
+            out.append(String.format(Locale.US,
+                    "Replay at %s: %d events fed, %d skipped, trace %.1fs, wall %.1fs, max lag %.1fms%n",
+                    speed <= 0 ? "max speed" : speed + "x", fed, skipped,
+                    traceNanos / 1e9, wallNanos / 1e9, maxLagNanos / 1e6));
+            for (Map.Entry<String, Timings> event : processing.entrySet()) {
+                out.append("  handle ").append(event.getKey()).append(": ").append(event.getValue()).append('\n');
+            }
+            out.append("  to listeners: ").append(dispatchLatency).append('\n');
+            out.append("  to frame end: ").append(frameLatency).append('\n');
+            out.append(String.format(Locale.US, "  %d batches, largest %d events, %d undelivered",
+                    batches, maxBatch, undelivered));
+            return out.toString();
+        }
+    }
+
+    // An inbound event ready to feed: JSON already parsed, as Socket.IO hands it over
+    private static final class Item {
+        final SocketTrace.Event event;
+        final Object arg;
+        // m:<id> or d:<id> for what goes through the dispatcher, null otherwise
+        final String key;
+
+        Item(SocketTrace.Event event, Object arg, String key) {
+            this.event = event;
+            this.arg = arg;
+            this.key = key;
+        }
+    }
+
+    private final File file;
+    private final double speed;
+    private final Callback callback;
+    private final SocketManager socketManager = SocketManager.getInstance();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // key -> when it was fed, until its batch reaches the listeners
+    private final ConcurrentHashMap<String, Long> inFlight = new ConcurrentHashMap<>();
+    private volatile boolean cancelled;
+
+    // Replay thread
+    private final Map<String, Timings> processing = new LinkedHashMap<>();
+    private long traceNanos;
+    private long maxLagNanos;
+    private int fed;
+    private int skipped;
+
+    // Main thread
+    private final Timings dispatchLatency = new Timings();
+    private final Timings frameLatency = new Timings();
+    private int batches;
+    private int maxBatch;
+
+    private SocketTraceReplayer(File file, double speed, Callback callback) {
+        this.file = file;
+        this.speed = speed;
+        this.callback = callback;
+    }
+
+    // speed: 1 for the recorded pace, 4 for four times faster, MAX_SPEED for no pauses.
+    // One replay at a time; callback is not called if the file can't be read
+    public static SocketTraceReplayer start(File trace, double speed, Callback callback) {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("A replay is already running");
+        }
+        SocketTraceReplayer replay = new SocketTraceReplayer(trace, speed, callback);
+        Thread thread = new Thread(replay::run, "socket-replay");
+        thread.start();
+        return replay;
+    }
+
+    // Stops feeding; the report covers what was fed so far
+    public void cancel() {
+        cancelled = true;
+    }
+
+    private void run() {
+        boolean reported = false;
+        try {
+            List<Item> items;
+            try {
+                items = load();
+            } catch (IOException e) {
+                Log.e(TAG, "Trace read error: " + e.getMessage());
+                return;
+            }
+            Log.d(TAG, "Replaying " + items.size() + " events from " + file);
+            socketManager.setDeliveryObserver(this::onDelivered);
+
+            // The clock starts at the first inbound event, not at the start of the recording
+            long offset = items.isEmpty() ? 0 : items.get(0).event.atNanos;
+            traceNanos = items.isEmpty() ? 0 : items.get(items.size() - 1).event.atNanos - offset;
+            long start = System.nanoTime();
+            for (Item item : items) {
+                if (cancelled) break;
+                if (speed > 0) {
+                    long due = start + (long) ((item.event.atNanos - offset) / speed);
+                    long wait;
+                    while ((wait = due - System.nanoTime()) > 0 && !cancelled) {
+                        LockSupport.parkNanos(wait);
+                    }
+                    maxLagNanos = Math.max(maxLagNanos, System.nanoTime() - due);
+                }
+                feed(item);
+            }
+
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DRAIN_TIMEOUT_MS);
+            while (!inFlight.isEmpty() && System.nanoTime() < deadline) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+            }
+            long wallNanos = System.nanoTime() - start;
+            // Queued after the frame posts of the last delivery, so their numbers are in
+            reported = true;
+            mainHandler.post(() -> {
+                socketManager.setDeliveryObserver(null);
+                running.set(false);
+                Report report = new Report(this, wallNanos, inFlight.size());
+                Log.i(TAG, report.toString());
+                if (callback != null) {
+                    callback.onFinished(report);
+                }
+            });
+        } finally {
+            if (!reported) {
+                socketManager.setDeliveryObserver(null);
+                running.set(false);
+            }
+        }
+    }
+
+    private void feed(Item item) {
+        long fedAt = System.nanoTime();
+        if (item.key != null) {
+            // Before handleInbound(): the next frame may deliver it before the call returns
+            inFlight.put(item.key, fedAt);
+        }
+        socketManager.handleInbound(item.event.name, item.arg, false);
+        long cost = System.nanoTime() - fedAt;
+
+        Timings timings = processing.get(item.event.name);
+        if (timings == null) {
+            timings = new Timings();
+            processing.put(item.event.name, timings);
+        }
+        timings.add(cost);
+        fed++;
+    }
+
+    // Main thread, right after the listeners
+    private void onDelivered(List<Message> messages, Map<String, List<String>> deleted) {
+        long now = System.nanoTime();
+        List<Long> fedTimes = new ArrayList<>();
+        int size = messages.size();
+        for (Message message : messages) {
+            collect("m:" + message.getId(), now, fedTimes);
+        }
+        for (List<String> ids : deleted.values()) {
+            size += ids.size();
+            for (String id : ids) {
+                collect("d:" + id, now, fedTimes);
+            }
+        }
+        if (fedTimes.isEmpty()) return; // live traffic only
+        batches++;
+        maxBatch = Math.max(maxBatch, size);
+
+        // Runs once this frame is done: the RecyclerView traversal the listeners asked for
+        // happens in the same frame, after the dispatcher's callback
+        mainHandler.post(() -> {
+            long drawn = System.nanoTime();
+            for (long fedAt : fedTimes) {
+                frameLatency.add(drawn - fedAt);
+            }
+        });
+    }
+
+    private void collect(String key, long now, List<Long> fedTimes) {
+        Long fedAt = inFlight.remove(key);
+        if (fedAt != null) {
+            dispatchLatency.add(now - fedAt);
+            fedTimes.add(fedAt);
+        }
+    }
+
+    // Everything is decoded up front, outside the timed part; only the ids are kept from it
+    private List<Item> load() throws IOException {
+        List<Item> items = new ArrayList<>();
+        try (SocketTrace.Reader reader = new SocketTrace.Reader(new FileInputStream(file))) {
+            SocketTrace.Event event;
+            while ((event = reader.next()) != null) {
+                // codec would switch the live socket's own events, it is not part of the pipeline
+                if (event.outbound || !isReplayed(event.name)) {
+                    skipped++;
+                    continue;
+                }
+                try {
+                    Object arg = event.payload instanceof String ? new JSONObject((String) event.payload) : event.payload;
+                    if (arg == null) {
+                        skipped++;
+                        continue;
+                    }
+                    items.add(new Item(event, arg, key(event.name, arg)));
+                } catch (JSONException | RuntimeException e) {
+                    Log.w(TAG, "Skipping unreadable " + event.name + ": " + e.getMessage());
+                    skipped++;
+                }
+            }
+        }
+        return items;
+    }
+
+    private static boolean isReplayed(String event) {
+        for (String inbound : SocketManager.INBOUND_EVENTS) {
+            if (inbound.equals(event)) return !event.equals("codec");
+        }
+        return false;
+    }
+
+    private static String key(String event, Object arg) throws JSONException {
+        switch (event) {
+            case "new_message":
+                return "m:" + (arg instanceof byte[]
+                        ? WireCodec.decodeMessage((byte[]) arg).getId()
+                        : ((JSONObject) arg).getString("id"));
+            case "message_deleted":
+                return "d:" + (arg instanceof byte[]
+                        ? WireCodec.decodeDeletion((byte[]) arg).messageId
+                        : ((JSONObject) arg).getString("messageId"));
+            default:
+                return null;
+        }
+    }
+}
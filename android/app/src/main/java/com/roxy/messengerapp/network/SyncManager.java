@@ -0,0 +1,195 @@
+package com.roxy.messengerapp.network;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.roxy.messengerapp.database.LocalStore;
+import com.roxy.messengerapp.entities.Chat;
+import com.roxy.messengerapp.entities.Message;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+// Водяные знаки синхронизации: по каждому чату последний применённый seq события
+// (новое или удалённое сообщение). Живое событие ровно следующее — применяется;
+// старое — дубликат; с пропуском — отбрасывается, и один POST /api/chats/sync
+// догружает всё пропущенное по всем чатам. То же после каждого реконнекта.
+public class SyncManager {
+    private static final String TAG = "SyncManager";
+
+    enum LiveResult { APPLY, DUPLICATE, GAP }
+
+    private static SyncManager instance;
+
+    // Written from the socket thread and the main thread
+    private final Map<String, Long> watermarks = new HashMap<>();
+    private boolean loaded;
+    private int loadGeneration;
+
+    // Main thread only
+    private Call<ApiService.SyncResponse> syncCall;
+    private boolean syncRequested;
+
+    private SyncManager() {
+        load();
+    }
+
+    public static synchronized SyncManager getInstance() {
+        if (instance == null) {
+            instance = new SyncManager();
+        }
+        return instance;
+    }
+
+    // Socket thread, for every live new_message / message_deleted
+    synchronized LiveResult onLiveEvent(String chatId, long seq) {
+        // Old server without seq, or the stored marks are not read yet (the connect sync follows)
+        if (chatId == null || seq <= 0 || !loaded) return LiveResult.APPLY;
+
+        Long mark = watermarks.get(chatId);
+        if (mark == null || seq == mark + 1) {
+            // A chat we never tracked (just created) starts at its first event
+            advance(chatId, seq);
+            return LiveResult.APPLY;
+        }
+        if (seq <= mark) return LiveResult.DUPLICATE;
+        return LiveResult.GAP;
+    }
+
+    // A fresh chat list is a consistent snapshot: chats without a mark start from its lastSeq
+    public synchronized void adoptWatermarks(List<Chat> chats) {
+        if (!loaded || chats == null) return;
+        for (Chat chat : chats) {
+            if (chat.getId() != null && chat.getLastSeq() > 0 && !watermarks.containsKey(chat.getId())) {
+                advance(chat.getId(), chat.getLastSeq());
+            }
+        }
+    }
+
+    // Main thread. Coalesced: while a sync is running, one more follows it
+    public void requestSync() {
+        syncRequested = true;
+        if (syncCall != null || !isLoaded() || !SocketManager.getInstance().isConnected()) return;
+        syncRequested = false;
+
+        Map<String, Long> since = snapshot();
+        boolean firstSync = since.isEmpty();
+        Call<ApiService.SyncResponse> call = ApiClient.getApi().syncChats(new ApiService.SyncRequest(since));
+        syncCall = call;
+        call.enqueue(new Callback<ApiService.SyncResponse>() {
+            @Override
+            public void onResponse(@NonNull Call<ApiService.SyncResponse> call, @NonNull Response<ApiService.SyncResponse> response) {
+                if (syncCall != call) return;
+                syncCall = null;
+                if (response.isSuccessful() && response.body() != null && response.body().chats != null) {
+                    apply(response.body().chats, firstSync);
+                }
+                if (syncRequested) {
+                    requestSync();
+                }
+            }
+
+            @Override
+            public void onFailure(@NonNull Call<ApiService.SyncResponse> call, @NonNull Throwable t) {
+                if (syncCall != call) return;
+                syncCall = null;
+                Log.e(TAG, "Sync failed: " + t.getMessage());
+                // The next reconnect or gap asks again
+            }
+        });
+    }
+
+    // Logout
+    public void clear() {
+        if (syncCall != null) {
+            syncCall.cancel();
+            syncCall = null;
+        }
+        syncRequested = false;
+        synchronized (this) {
+            watermarks.clear();
+            loadGeneration++;
+            loaded = true;
+        }
+    }
+
+    private void apply(List<ApiService.ChatChanges> chats, boolean firstSync) {
+        SocketManager socketManager = SocketManager.getInstance();
+        boolean chatListStale = false;
+        for (ApiService.ChatChanges chat : chats) {
+            Long mark = getWatermark(chat.chatId);
+            // First sync after login: everything is "unknown", the chat list is loaded anyway
+            boolean deliver = mark != null || !firstSync;
+            if (deliver && chat.messages != null) {
+                for (Message message : chat.messages) {
+                    // Some of it may have arrived live while the request was running
+                    if (mark != null && message.getSeq() <= mark) continue;
+                    socketManager.deliverSynced(message);
+                }
+            }
+            if (chat.deletedIds != null) {
+                for (String messageId : chat.deletedIds) {
+                    socketManager.deliverSyncedDeletion(messageId, chat.chatId);
+                }
+            }
+            synchronized (this) {
+                Long current = watermarks.get(chat.chatId);
+                if (current == null || current < chat.lastSeq) {
+                    advance(chat.chatId, chat.lastSeq);
+                }
+            }
+            chatListStale |= chat.reset;
+        }
+        if (chatListStale) {
+            ApiRepository.getInstance().invalidateChats();
+        }
+    }
+
+    private synchronized Long getWatermark(String chatId) {
+        return watermarks.get(chatId);
+    }
+
+    private synchronized Map<String, Long> snapshot() {
+        return new HashMap<>(watermarks);
+    }
+
+    private synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    // Caller holds the lock
+    private void advance(String chatId, long seq) {
+        watermarks.put(chatId, seq);
+        if (LocalStore.getInstance() != null) {
+            LocalStore.getInstance().saveWatermark(chatId, seq);
+        }
+    }
+
+    private void load() {
+        LocalStore store = LocalStore.getInstance();
+        if (store == null) {
+            loaded = true;
+            return;
+        }
+        int generation = loadGeneration;
+        store.loadWatermarks(stored -> {
+            synchronized (this) {
+                if (generation != loadGeneration) return;
+                for (Map.Entry<String, Long> entry : stored.entrySet()) {
+                    Long current = watermarks.get(entry.getKey());
+                    if (current == null || current < entry.getValue()) {
+                        watermarks.put(entry.getKey(), entry.getValue());
+                    }
+                }
+                loaded = true;
+            }
+            requestSync();
+        });
+    }
+}
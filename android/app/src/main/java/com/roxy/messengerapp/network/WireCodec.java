@@ -0,0 +1,379 @@
+package com.roxy.messengerapp.network;
+
+import com.roxy.messengerapp.entities.Message;
+import com.roxy.messengerapp.entities.User;
+import com.roxy.messengerapp.utils.TimeFormatter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Бинарный формат событий сокета "bin1", пара к backend/src/socket/wireCodec.js.
+// Схема фиксированная: байт версии, потом поля в известном порядке. UUID идут 16 байтами
+// вместо 36 символов, числа — varint, время — миллисекунды вместо ISO-строки.
+// Включается при подключении (auth.codec), сервер без поддержки просто шлёт JSON.
+// Без зависимостей от Android: гоняется в benchmark и unit-тестах.
+public final class WireCodec {
+
+    public static final String NAME = "bin1";
+    static final int VERSION = 1;
+
+    // Tag in front of every string field
+    private static final int STR_NULL = 0;
+    private static final int STR_UUID = 1;
+    private static final int STR_TEXT = 2;
+
+    private static final int FLAG_READ = 1;
+    private static final int FLAG_EDITED = 1 << 1;
+    private static final int FLAG_TIME = 1 << 2;
+    private static final int FLAG_SENDER = 1 << 3;
+    private static final int FLAG_SENDER_ONLINE = 1 << 4;
+    // Image size and BlurHash after everything else: a decoder that predates them stops short
+    private static final int FLAG_IMAGE = 1 << 5;
+    private static final int FLAG_TYPING = 1;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    public static final class Deletion {
+        public final String messageId;
+        public final String chatId;
+        public final long seq;
+
+        Deletion(String messageId, String chatId, long seq) {
+            this.messageId = messageId;
+            this.chatId = chatId;
+            this.seq = seq;
+        }
+    }
+
+    public static final class Typing {
+        public final String chatId;
+        public final String userId;
+        public final boolean typing;
+
+        Typing(String chatId, String userId, boolean typing) {
+            this.chatId = chatId;
+            this.userId = userId;
+            this.typing = typing;
+        }
+    }
+
+    private WireCodec() {}
+
+    // new_message: the server's copy, sender included
+    public static byte[] encodeMessage(Message message) {
+        User sender = message.getSender();
+        int flags = (message.isSeen() ? FLAG_READ : 0)
+                | (message.isEdited() ? FLAG_EDITED : 0)
+                | (message.getCreatedAtMillis() != TimeFormatter.INVALID_TIME ? FLAG_TIME : 0)
+                | (sender != null ? FLAG_SENDER : 0)
+                | (sender != null && sender.isOnline() ? FLAG_SENDER_ONLINE : 0)
+                | (hasImageInfo(message) ? FLAG_IMAGE : 0);
+
+        Writer out = new Writer(160);
+        out.varint(VERSION);
+        out.varint(flags);
+        out.string(message.getId());
+        out.string(message.getChatId());
+        out.string(message.getSenderId());
+        out.string(message.getClientId());
+        out.string(message.getType());
+        out.string(message.getContent());
+        out.string(message.getThumbnailUrl());
+        out.varint(message.getSeq());
+        if ((flags & FLAG_TIME) != 0) {
+            out.signed(message.getCreatedAtMillis());
+        }
+        if (sender != null) {
+            out.string(sender.getId());
+            out.string(sender.getUsername());
+            out.string(sender.getImageURL());
+        }
+        if ((flags & FLAG_IMAGE) != 0) {
+            writeImageInfo(out, message);
+        }
+        return out.toByteArray();
+    }
+
+    public static Message decodeMessage(byte[] data) {
+        Reader in = new Reader(data);
+        int flags = in.varintInt();
+
+        Message message = new Message();
+        message.setId(in.string());
+        message.setChatId(in.string());
+        message.setSenderId(in.string());
+        message.setClientId(in.string());
+        message.setType(in.string());
+        message.setContent(in.string());
+        message.setThumbnailUrl(in.string());
+        message.setSeq(in.varint());
+        message.setSeen((flags & FLAG_READ) != 0);
+        message.setEdited((flags & FLAG_EDITED) != 0);
+        if ((flags & FLAG_TIME) != 0) {
+            long millis = in.signed();
+            message.setCreatedAt(TimeFormatter.formatIso(millis));
+        }
+        if ((flags & FLAG_SENDER) != 0) {
+            User sender = new User();
+            sender.setId(in.string());
+            sender.setUsername(in.string());
+            sender.setImageURL(in.string());
+            sender.setOnline((flags & FLAG_SENDER_ONLINE) != 0);
+            message.setSender(sender);
+        }
+        if ((flags & FLAG_IMAGE) != 0) {
+            readImageInfo(in, message);
+        }
+        return message;
+    }
+
+    // send_message: only what the client decides, the rest is the server's
+    public static byte[] encodeSend(Message message) {
+        Writer out = new Writer(96);
+        out.varint(VERSION);
+        out.string(message.getClientId());
+        out.string(message.getChatId());
+        out.string(message.getType());
+        out.string(message.getContent());
+        out.string(message.getThumbnailUrl());
+        // Optional tail, a server that predates it never reads that far
+        if (hasImageInfo(message)) {
+            writeImageInfo(out, message);
+        }
+        return out.toByteArray();
+    }
+
+    // The server's side of encodeSend; the fakeserver module decodes client sends with it
+    public static Message decodeSend(byte[] data) {
+        Reader in = new Reader(data);
+        Message message = new Message();
+        message.setClientId(in.string());
+        message.setChatId(in.string());
+        message.setType(in.string());
+        message.setContent(in.string());
+        message.setThumbnailUrl(in.string());
+        if (in.hasMore()) {
+            readImageInfo(in, message);
+        }
+        return message;
+    }
+
+    // message_deleted
+    public static byte[] encodeDeletion(String messageId, String chatId, long seq) {
+        Writer out = new Writer(48);
+        out.varint(VERSION);
+        out.string(messageId);
+        out.string(chatId);
+        out.varint(seq);
+        return out.toByteArray();
+    }
+
+    public static Deletion decodeDeletion(byte[] data) {
+        Reader in = new Reader(data);
+        String messageId = in.string();
+        String chatId = in.string();
+        return new Deletion(messageId, chatId, in.varint());
+    }
+
+    // user_typing
+    public static byte[] encodeTyping(String chatId, String userId, boolean typing) {
+        Writer out = new Writer(40);
+        out.varint(VERSION);
+        out.varint(typing ? FLAG_TYPING : 0);
+        out.string(chatId);
+        out.string(userId);
+        return out.toByteArray();
+    }
+
+    public static Typing decodeTyping(byte[] data) {
+        Reader in = new Reader(data);
+        boolean typing = (in.varintInt() & FLAG_TYPING) != 0;
+        String chatId = in.string();
+        return new Typing(chatId, in.string(), typing);
+    }
+
+    // typing_start / typing_stop: just the chat
+    public static byte[] encodeChatRef(String chatId) {
+        Writer out = new Writer(20);
+        out.varint(VERSION);
+        out.string(chatId);
+        return out.toByteArray();
+    }
+
+    public static String decodeChatRef(byte[] data) {
+        return new Reader(data).string();
+    }
+
+    private static boolean hasImageInfo(Message message) {
+        return message.hasImageSize() || message.getBlurHash() != null;
+    }
+
+    private static void writeImageInfo(Writer out, Message message) {
+        out.varint(Math.max(0, message.getWidth()));
+        out.varint(Math.max(0, message.getHeight()));
+        out.string(message.getBlurHash());
+    }
+
+    private static void readImageInfo(Reader in, Message message) {
+        message.setWidth(in.varintInt());
+        message.setHeight(in.varintInt());
+        message.setBlurHash(in.string());
+    }
+
+    // Canonical lowercase form only, anything else would not come back byte for byte
+    static boolean isUuid(String s) {
+        if (s.length() != 36) return false;
+        for (int i = 0; i < 36; i++) {
+            char c = s.charAt(i);
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                if (c != '-') return false;
+            } else if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class Writer {
+        private byte[] buf;
+        private int size;
+
+        Writer(int capacity) {
+            buf = new byte[capacity];
+        }
+
+        void varint(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buf[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buf[size++] = (byte) value;
+        }
+
+        // Zigzag, so that small negative values stay short
+        void signed(long value) {
+            varint((value << 1) ^ (value >> 63));
+        }
+
+        void string(String s) {
+            if (s == null) {
+                varint(STR_NULL);
+            } else if (isUuid(s)) {
+                varint(STR_UUID);
+                ensure(16);
+                for (int i = 0; i < 36; ) {
+                    if (s.charAt(i) == '-') {
+                        i++;
+                        continue;
+                    }
+                    buf[size++] = (byte) ((hexValue(s.charAt(i)) << 4) | hexValue(s.charAt(i + 1)));
+                    i += 2;
+                }
+            } else {
+                byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+                varint(STR_TEXT);
+                varint(bytes.length);
+                ensure(bytes.length);
+                System.arraycopy(bytes, 0, buf, size, bytes.length);
+                size += bytes.length;
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buf, size);
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, size + extra));
+            }
+        }
+
+        private static int hexValue(char c) {
+            return c <= '9' ? c - '0' : c - 'a' + 10;
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] buf;
+        private int pos;
+
+        Reader(byte[] buf) {
+            this.buf = buf;
+            int version = varintInt();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported wire version " + version);
+            }
+        }
+
+        long varint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = next();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return value;
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+
+        int varintInt() {
+            long value = varint();
+            if (value < 0 || value > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Value out of range: " + value);
+            }
+            return (int) value;
+        }
+
+        long signed() {
+            long value = varint();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        String string() {
+            int tag = varintInt();
+            switch (tag) {
+                case STR_NULL:
+                    return null;
+                case STR_UUID: {
+                    check(16);
+                    char[] chars = new char[36];
+                    int c = 0;
+                    for (int i = 0; i < 16; i++) {
+                        if (i == 4 || i == 6 || i == 8 || i == 10) {
+                            chars[c++] = '-';
+                        }
+                        int b = buf[pos++] & 0xFF;
+                        chars[c++] = HEX[b >>> 4];
+                        chars[c++] = HEX[b & 0x0F];
+                    }
+                    return new String(chars);
+                }
+                case STR_TEXT: {
+                    int length = varintInt();
+                    check(length);
+                    String s = new String(buf, pos, length, StandardCharsets.UTF_8);
+                    pos += length;
+                    return s;
+                }
+                default:
+                    throw new IllegalArgumentException("Unknown string tag " + tag);
+            }
+        }
+
+        boolean hasMore() {
+            return pos < buf.length;
+        }
+
+        private byte next() {
+            check(1);
+            return buf[pos++];
+        }
+
+        private void check(int count) {
+            if (count > buf.length - pos) {
+                throw new IllegalArgumentException("Truncated payload");
+            }
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.roxy.messengerapp.utils;
+
+// BlurHash (https://blurha.sh): картинка, сжатая до нескольких косинусных компонент и
+// записанная в 20–30 символов base83. Считается при загрузке из уменьшенной копии,
+// едет в сообщении и рисуется в пузыре, пока сама картинка не пришла.
+// Пиксели — ARGB int, как у Bitmap.getPixels. Без зависимостей от Android: гоняется в unit-тестах.
+public final class BlurHash {
+
+    private static final String CHARS =
+            "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz#$%*+,-.:;=?@[]^_{|}~";
+
+    public static final int MAX_COMPONENTS = 9;
+
+    private BlurHash() {}
+
+    // componentsX/Y in 1..9; 4x3 is plenty for a blurred preview
+    public static String encode(int[] pixels, int width, int height, int componentsX, int componentsY) {
+        if (componentsX < 1 || componentsX > MAX_COMPONENTS || componentsY < 1 || componentsY > MAX_COMPONENTS) {
+            throw new IllegalArgumentException("Components must be 1.." + MAX_COMPONENTS);
+        }
+        if (width <= 0 || height <= 0 || pixels.length < width * height) {
+            throw new IllegalArgumentException("Bad image size " + width + "x" + height);
+        }
+
+        // Linear values once, not once per component
+        float[] linear = new float[width * height * 3];
+        for (int i = 0; i < width * height; i++) {
+            int p = pixels[i];
+            linear[i * 3] = SRGB_TO_LINEAR[(p >> 16) & 0xFF];
+            linear[i * 3 + 1] = SRGB_TO_LINEAR[(p >> 8) & 0xFF];
+            linear[i * 3 + 2] = SRGB_TO_LINEAR[p & 0xFF];
+        }
+
+        float[][] factors = new float[componentsX * componentsY][];
+        for (int j = 0; j < componentsY; j++) {
+            for (int i = 0; i < componentsX; i++) {
+                factors[j * componentsX + i] = factor(linear, width, height, i, j);
+            }
+        }
+
+        StringBuilder hash = new StringBuilder(4 + 2 * factors.length);
+        encode83((componentsX - 1) + (componentsY - 1) * 9, 1, hash);
+
+        float maximumValue;
+        if (factors.length > 1) {
+            float actualMaximum = 0;
+            for (int k = 1; k < factors.length; k++) {
+                for (float c : factors[k]) {
+                    actualMaximum = Math.max(actualMaximum, Math.abs(c));
+                }
+            }
+            int quantised = (int) Math.max(0, Math.min(82, Math.floor(actualMaximum * 166 - 0.5)));
+            maximumValue = (quantised + 1) / 166f;
+            encode83(quantised, 1, hash);
+        } else {
+            maximumValue = 1;
+            encode83(0, 1, hash);
+        }
+
+        float[] dc = factors[0];
+        encode83((linearToSrgb(dc[0]) << 16) + (linearToSrgb(dc[1]) << 8) + linearToSrgb(dc[2]), 4, hash);
+        for (int k = 1; k < factors.length; k++) {
+            float[] ac = factors[k];
+            encode83(quantiseAc(ac[0], maximumValue) * 19 * 19
+                    + quantiseAc(ac[1], maximumValue) * 19
+                    + quantiseAc(ac[2], maximumValue), 2, hash);
+        }
+        return hash.toString();
+    }
+
+    // Opaque ARGB pixels; punch > 1 makes the colours more contrasty, 1 is as encoded
+    public static int[] decode(String hash, int width, int height, float punch) {
+        if (!isValid(hash)) {
+            throw new IllegalArgumentException("Invalid BlurHash: " + hash);
+        }
+        int sizeFlag = decode83(hash, 0, 1);
+        int componentsX = sizeFlag % 9 + 1;
+        int componentsY = sizeFlag / 9 + 1;
+        float maximumValue = (decode83(hash, 1, 2) + 1) / 166f * punch;
+
+        float[][] colors = new float[componentsX * componentsY][];
+        colors[0] = decodeDc(decode83(hash, 2, 6));
+        for (int k = 1; k < colors.length; k++) {
+            colors[k] = decodeAc(decode83(hash, 4 + k * 2, 6 + k * 2), maximumValue);
+        }
+
+        float[] cosX = cosines(width, componentsX);
+        float[] cosY = cosines(height, componentsY);
+        int[] pixels = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                float r = 0;
+                float g = 0;
+                float b = 0;
+                for (int j = 0; j < componentsY; j++) {
+                    float basisY = cosY[y * componentsY + j];
+                    for (int i = 0; i < componentsX; i++) {
+                        float basis = cosX[x * componentsX + i] * basisY;
+                        float[] color = colors[j * componentsX + i];
+                        r += color[0] * basis;
+                        g += color[1] * basis;
+                        b += color[2] * basis;
+                    }
+                }
+                pixels[y * width + x] = 0xFF000000 | linearToSrgb(r) << 16 | linearToSrgb(g) << 8 | linearToSrgb(b);
+            }
+        }
+        return pixels;
+    }
+
+    // Length matches the component count and every character is base83
+    public static boolean isValid(String hash) {
+        if (hash == null || hash.length() < 6) return false;
+        for (int i = 0; i < hash.length(); i++) {
+            if (CHARS.indexOf(hash.charAt(i)) < 0) return false;
+        }
+        int sizeFlag = decode83(hash, 0, 1);
+        int components = (sizeFlag % 9 + 1) * (sizeFlag / 9 + 1);
+        return hash.length() == 4 + 2 * components;
+    }
+
+    // ===== helpers =====
+
+    private static final float[] SRGB_TO_LINEAR = new float[256];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            float v = i / 255f;
+            SRGB_TO_LINEAR[i] = v <= 0.04045f ? v / 12.92f : (float) Math.pow((v + 0.055) / 1.055, 2.4);
+        }
+    }
+
+    private static int linearToSrgb(float value) {
+        float v = Math.max(0, Math.min(1, value));
+        return v <= 0.0031308f
+                ? (int) (v * 12.92f * 255 + 0.5f)
+                : (int) ((1.055 * Math.pow(v, 1 / 2.4) - 0.055) * 255 + 0.5);
+    }
+
+    private static float[] factor(float[] linear, int width, int height, int i, int j) {
+        float normalisation = i == 0 && j == 0 ? 1 : 2;
+        float r = 0;
+        float g = 0;
+        float b = 0;
+        for (int y = 0; y < height; y++) {
+            float basisY = (float) Math.cos(Math.PI * j * y / height);
+            for (int x = 0; x < width; x++) {
+                float basis = normalisation * (float) Math.cos(Math.PI * i * x / width) * basisY;
+                int p = (y * width + x) * 3;
+                r += basis * linear[p];
+                g += basis * linear[p + 1];
+                b += basis * linear[p + 2];
+            }
+        }
+        float scale = 1f / (width * height);
+        return new float[]{r * scale, g * scale, b * scale};
+    }
+
+    // cos(pi * position * component / size) for every position, components in a row
+    private static float[] cosines(int size, int components) {
+        float[] table = new float[size * components];
+        for (int position = 0; position < size; position++) {
+            for (int c = 0; c < components; c++) {
+                table[position * components + c] = (float) Math.cos(Math.PI * position * c / size);
+            }
+        }
+        return table;
+    }
+
+    private static int quantiseAc(float value, float maximumValue) {
+        return (int) Math.max(0, Math.min(18, Math.floor(signPow(value / maximumValue, 0.5f) * 9 + 9.5)));
+    }
+
+    private static float[] decodeDc(int value) {
+        return new float[]{
+                SRGB_TO_LINEAR[(value >> 16) & 0xFF],
+                SRGB_TO_LINEAR[(value >> 8) & 0xFF],
+                SRGB_TO_LINEAR[value & 0xFF]
+        };
+    }
+
+    private static float[] decodeAc(int value, float maximumValue) {
+        return new float[]{
+                signPow((value / (19 * 19) - 9) / 9f, 2) * maximumValue,
+                signPow((value / 19 % 19 - 9) / 9f, 2) * maximumValue,
+                signPow((value % 19 - 9) / 9f, 2) * maximumValue
+        };
+    }
+
+    private static float signPow(float value, float exponent) {
+        return Math.copySign((float) Math.pow(Math.abs(value), exponent), value);
+    }
+
+    private static void encode83(int value, int length, StringBuilder out) {
+        int divisor = 1;
+        for (int i = 1; i < length; i++) {
+            divisor *= 83;
+        }
+        for (int i = 0; i < length; i++) {
+            out.append(CHARS.charAt(value / divisor % 83));
+            divisor /= 83;
+        }
+    }
+
+    private static int decode83(String s, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            value = value * 83 + CHARS.indexOf(s.charAt(i));
+        }
+        return value;
+    }
+}
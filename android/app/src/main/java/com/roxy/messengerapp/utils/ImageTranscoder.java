@@ -0,0 +1,244 @@
+package com.roxy.messengerapp.utils;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Matrix;
+import android.media.ExifInterface;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Пережимает выбранную картинку перед загрузкой: уменьшает до maxEdge,
+// поворачивает по EXIF и сохраняет в WebP. Bitmap.compress не пишет EXIF,
+// так что геотеги и данные камеры на сервер не уходят.
+// Вместе с превью считает размеры и BlurHash, чтобы пузырь занял место до загрузки.
+public class ImageTranscoder {
+
+    public static final String MIME_TYPE = "image/webp";
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // BlurHash is computed from a copy this small, a blur needs no more
+    private static final int BLUR_HASH_EDGE = 32;
+
+    public static class Options {
+        public final int maxEdge;
+        public final int quality;
+        // 0 — без превью и без BlurHash
+        public final int thumbnailEdge;
+        public final int thumbnailQuality;
+
+        public Options(int maxEdge, int quality, int thumbnailEdge, int thumbnailQuality) {
+            this.maxEdge = maxEdge;
+            this.quality = quality;
+            this.thumbnailEdge = thumbnailEdge;
+            this.thumbnailQuality = thumbnailQuality;
+        }
+
+        // Full image for the viewer plus a bubble-sized preview
+        public static Options chatImage() {
+            return new Options(1600, 80, 320, 70);
+        }
+
+        public static Options avatar() {
+            return new Options(512, 85, 0, 0);
+        }
+    }
+
+    public static class Result {
+        public final File image;
+        public final File thumbnail;
+        // Of the uploaded image, rotation applied
+        public final int width;
+        public final int height;
+        // null without a thumbnail
+        public final String blurHash;
+
+        Result(File image, File thumbnail, int width, int height, String blurHash) {
+            this.image = image;
+            this.thumbnail = thumbnail;
+            this.width = width;
+            this.height = height;
+            this.blurHash = blurHash;
+        }
+
+        // Temp files live in the cache dir, drop them once the upload is finished
+        public void delete() {
+            image.delete();
+            if (thumbnail != null) {
+                thumbnail.delete();
+            }
+        }
+    }
+
+    public interface OnTranscodedListener {
+        void onTranscoded(Result result);
+
+        void onFailed(String error);
+    }
+
+    // Decoding runs on a background thread, the listener is called on the main thread
+    public static void transcode(Context context, Uri uri, Options options, OnTranscodedListener listener) {
+        Context appContext = context.getApplicationContext();
+        executor.execute(() -> {
+            try {
+                Result result = transcodeBlocking(appContext, uri, options);
+                mainHandler.post(() -> listener.onTranscoded(result));
+            } catch (IOException | OutOfMemoryError e) {
+                mainHandler.post(() -> listener.onFailed(e.getMessage()));
+            }
+        });
+    }
+
+    private static Result transcodeBlocking(Context context, Uri uri, Options options) throws IOException {
+        ContentResolver resolver = context.getContentResolver();
+
+        // Сначала только размеры, чтобы не декодировать 12-мегапиксельный оригинал целиком
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        try (InputStream in = open(resolver, uri)) {
+            BitmapFactory.decodeStream(in, null, bounds);
+        }
+        if (bounds.outWidth <= 0 || bounds.outHeight <= 0) {
+            throw new IOException("Not an image");
+        }
+
+        BitmapFactory.Options decode = new BitmapFactory.Options();
+        decode.inSampleSize = sampleSize(Math.max(bounds.outWidth, bounds.outHeight), options.maxEdge);
+        Bitmap sampled;
+        try (InputStream in = open(resolver, uri)) {
+            sampled = BitmapFactory.decodeStream(in, null, decode);
+        }
+        if (sampled == null) {
+            throw new IOException("Failed to decode image");
+        }
+
+        Bitmap full = scaleAndRotate(sampled, options.maxEdge, readRotation(resolver, uri));
+        if (full != sampled) {
+            sampled.recycle();
+        }
+        File dir = new File(context.getCacheDir(), "uploads");
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("Failed to create " + dir);
+        }
+        String name = UUID.randomUUID().toString();
+
+        try {
+            File image = new File(dir, name + ".webp");
+            write(full, options.quality, image);
+
+            File thumbnail = null;
+            String blurHash = null;
+            if (options.thumbnailEdge > 0) {
+                blurHash = blurHash(full);
+                Bitmap small = scaleAndRotate(full, options.thumbnailEdge, 0);
+                thumbnail = new File(dir, name + "_thumb.webp");
+                try {
+                    write(small, options.thumbnailQuality, thumbnail);
+                } finally {
+                    if (small != full) small.recycle();
+                }
+            }
+            return new Result(image, thumbnail, full.getWidth(), full.getHeight(), blurHash);
+        } finally {
+            full.recycle();
+        }
+    }
+
+    private static InputStream open(ContentResolver resolver, Uri uri) throws IOException {
+        InputStream in = resolver.openInputStream(uri);
+        if (in == null) {
+            throw new FileNotFoundException(uri.toString());
+        }
+        return in;
+    }
+
+    // Largest power of two that still keeps the decoded edge at or above the target
+    static int sampleSize(int longestEdge, int maxEdge) {
+        int sample = 1;
+        while (longestEdge / (sample * 2) >= maxEdge) {
+            sample *= 2;
+        }
+        return sample;
+    }
+
+    private static int readRotation(ContentResolver resolver, Uri uri) {
+        try (InputStream in = open(resolver, uri)) {
+            int orientation = new ExifInterface(in).getAttributeInt(
+                    ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL);
+            switch (orientation) {
+                case ExifInterface.ORIENTATION_ROTATE_90:
+                    return 90;
+                case ExifInterface.ORIENTATION_ROTATE_180:
+                    return 180;
+                case ExifInterface.ORIENTATION_ROTATE_270:
+                    return 270;
+                default:
+                    return 0;
+            }
+        } catch (IOException | RuntimeException e) {
+            // Нет EXIF (PNG, WebP) — ничего не поворачиваем
+            return 0;
+        }
+    }
+
+    // Returns the source itself when nothing has to change
+    private static Bitmap scaleAndRotate(Bitmap source, int maxEdge, int rotation) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        float scale = Math.min(1f, (float) maxEdge / Math.max(width, height));
+        if (scale == 1f && rotation == 0) {
+            return source;
+        }
+
+        Matrix matrix = new Matrix();
+        matrix.postScale(scale, scale);
+        matrix.postRotate(rotation);
+        return Bitmap.createBitmap(source, 0, 0, width, height, matrix, true);
+    }
+
+    // 4x3 components along the longer edge; a few milliseconds on a 32px copy
+    private static String blurHash(Bitmap full) {
+        int width = full.getWidth();
+        int height = full.getHeight();
+        float scale = Math.min(1f, (float) BLUR_HASH_EDGE / Math.max(width, height));
+        int w = Math.max(1, Math.round(width * scale));
+        int h = Math.max(1, Math.round(height * scale));
+        Bitmap tiny = Bitmap.createScaledBitmap(full, w, h, true);
+        try {
+            int[] pixels = new int[w * h];
+            tiny.getPixels(pixels, 0, w, 0, 0, w, h);
+            return width >= height
+                    ? BlurHash.encode(pixels, w, h, 4, 3)
+                    : BlurHash.encode(pixels, w, h, 3, 4);
+        } finally {
+            if (tiny != full) tiny.recycle();
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private static void write(Bitmap bitmap, int quality, File file) throws IOException {
+        Bitmap.CompressFormat format = Build.VERSION.SDK_INT >= Build.VERSION_CODES.R
+                ? Bitmap.CompressFormat.WEBP_LOSSY
+                : Bitmap.CompressFormat.WEBP;
+        try (OutputStream out = new FileOutputStream(file)) {
+            if (!bitmap.compress(format, quality, out)) {
+                throw new IOException("Failed to encode image");
+            }
+        }
+    }
+}
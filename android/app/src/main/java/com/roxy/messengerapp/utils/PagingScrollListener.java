@@ -0,0 +1,34 @@
+package com.roxy.messengerapp.utils;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+public abstract class PagingScrollListener extends RecyclerView.OnScrollListener {
+
+    private final LinearLayoutManager layoutManager;
+    private final int prefetchDistance;
+
+    public PagingScrollListener(LinearLayoutManager layoutManager, int prefetchDistance) {
+        this.layoutManager = layoutManager;
+        this.prefetchDistance = prefetchDistance;
+    }
+
+    @Override
+    public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+        int itemCount = layoutManager.getItemCount();
+        if (itemCount == 0) return;
+
+        // dy < 0 — the user scrolls up towards older messages
+        if (dy < 0 && layoutManager.findFirstVisibleItemPosition() <= prefetchDistance) {
+            onLoadOlder();
+        } else if (dy > 0 && layoutManager.findLastVisibleItemPosition() >= itemCount - 1 - prefetchDistance) {
+            onLoadNewer();
+        }
+    }
+
+    // Implementations must ignore calls while a page is already loading
+    protected abstract void onLoadOlder();
+
+    protected abstract void onLoadNewer();
+}
@@ -1 +1,68 @@
-package com.roxy.messengerapp.utils;import android.graphics.Canvas;import android.graphics.Color;import android.graphics.Paint;import android.graphics.drawable.ColorDrawable;import android.view.View;import androidx.annotation.NonNull;import androidx.recyclerview.widget.ItemTouchHelper;import androidx.recyclerview.widget.RecyclerView;public abstract class SwipeToDeleteCallback extends ItemTouchHelper.SimpleCallback {    private final ColorDrawable background;    private final Paint textPaint;    public SwipeToDeleteCallback() {        super(0, ItemTouchHelper.LEFT);        background = new ColorDrawable(Color.parseColor("#FF4444")); // Red        textPaint = new Paint();        textPaint.setColor(Color.WHITE);        textPaint.setTextSize(48f);        textPaint.setAntiAlias(true);    }    @Override    public boolean onMove(@NonNull RecyclerView recyclerView,                          @NonNull RecyclerView.ViewHolder viewHolder,                          @NonNull RecyclerView.ViewHolder target) {        return false; // No drag & drop    }    @Override    public void onChildDraw(@NonNull Canvas c, @NonNull RecyclerView recyclerView,                            @NonNull RecyclerView.ViewHolder viewHolder,                            float dX, float dY, int actionState, boolean isCurrentlyActive) {        super.onChildDraw(c, recyclerView, viewHolder, dX, dY, actionState, isCurrentlyActive);        View itemView = viewHolder.itemView;        if (dX < 0) { // Swiping left            // Draw red background            background.setBounds(                    itemView.getRight() + (int) dX,                    itemView.getTop(),                    itemView.getRight(),                    itemView.getBottom()            );            background.draw(c);            // Draw "Delete" text            String deleteText = "Удалить";            float textWidth = textPaint.measureText(deleteText);            float textX = itemView.getRight() - textWidth - 40;            float textY = itemView.getTop() + (itemView.getHeight() / 2f) + 15;            if (textX > itemView.getRight() + dX + 20) {                c.drawText(deleteText, textX, textY, textPaint);            }        }    }    @Override    public float getSwipeThreshold(@NonNull RecyclerView.ViewHolder viewHolder) {        return 0.5f; // Swipe 50% to trigger    }}
\ No newline at end of file
+package com.roxy.messengerapp.utils;
+
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.drawable.ColorDrawable;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.ItemTouchHelper;
+import androidx.recyclerview.widget.RecyclerView;
+
+public abstract class SwipeToDeleteCallback extends ItemTouchHelper.SimpleCallback {
+
+    private final ColorDrawable background;
+    private final Paint textPaint;
+
+    public SwipeToDeleteCallback() {
+        super(0, ItemTouchHelper.LEFT);
+        background = new ColorDrawable(Color.parseColor("#FF4444")); // Red
+        textPaint = new Paint();
+        textPaint.setColor(Color.WHITE);
+        textPaint.setTextSize(48f);
+        textPaint.setAntiAlias(true);
+    }
+
+    @Override
+    public boolean onMove(@NonNull RecyclerView recyclerView,
+                          @NonNull RecyclerView.ViewHolder viewHolder,
+                          @NonNull RecyclerView.ViewHolder target) {
+        return false; // No drag & drop
+    }
+
+    @Override
+    public void onChildDraw(@NonNull Canvas c, @NonNull RecyclerView recyclerView,
+                            @NonNull RecyclerView.ViewHolder viewHolder,
+                            float dX, float dY, int actionState, boolean isCurrentlyActive) {
+        super.onChildDraw(c, recyclerView, viewHolder, dX, dY, actionState, isCurrentlyActive);
+
+        View itemView = viewHolder.itemView;
+
+        if (dX < 0) { // Swiping left
+            // Draw red background
+            background.setBounds(
+                    itemView.getRight() + (int) dX,
+                    itemView.getTop(),
+                    itemView.getRight(),
+                    itemView.getBottom()
+            );
+            background.draw(c);
+
+            // Draw "Delete" text
+            String deleteText = "Удалить";
+            float textWidth = textPaint.measureText(deleteText);
+            float textX = itemView.getRight() - textWidth - 40;
+            float textY = itemView.getTop() + (itemView.getHeight() / 2f) + 15;
+
+            if (textX > itemView.getRight() + dX + 20) {
+                c.drawText(deleteText, textX, textY, textPaint);
+            }
+        }
+    }
+
+    @Override
+    public float getSwipeThreshold(@NonNull RecyclerView.ViewHolder viewHolder) {
+        return 0.5f; // Swipe 50% to trigger
+    }
+}
\ No newline at end of file
@@ -0,0 +1,182 @@
+package com.roxy.messengerapp.utils;
+
+import com.roxy.messengerapp.entities.Message;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+// Message timestamps are parsed once when a Message is decoded (see Message.setCreatedAt and the
+// Gson adapters), and the "HH:mm" string is cached on the Message itself. Binding a row therefore
+// does no parsing and no allocation; the formatter is rebuilt only when locale or time zone change.
+public final class TimeFormatter {
+
+    public static final long INVALID_TIME = Long.MIN_VALUE;
+
+    private static volatile DisplayFormat displayFormat = new DisplayFormat(0);
+
+    private TimeFormatter() {}
+
+    // Called when the system locale or time zone changes; cached strings become stale
+    public static void invalidate() {
+        displayFormat = new DisplayFormat(displayFormat.generation + 1);
+    }
+
+    public static String formatTime(Message message) {
+        DisplayFormat format = displayFormat;
+        String cached = message.getDisplayTime();
+        if (cached != null && message.getDisplayTimeGeneration() == format.generation) {
+            return cached;
+        }
+        long millis = message.getCreatedAtMillis();
+        String text;
+        if (millis != INVALID_TIME) {
+            text = format.format(millis);
+        } else {
+            text = message.getCreatedAt() != null ? message.getCreatedAt() : "";
+        }
+        message.setDisplayTime(text, format.generation);
+        return text;
+    }
+
+    // Parses ISO-8601 as sent by the backend: yyyy-MM-dd'T'HH:mm:ss[.SSS][Z|+hh:mm|+hhmm].
+    // A missing zone is treated as UTC. Returns INVALID_TIME for anything else.
+    public static long parseIsoMillis(String s) {
+        if (s == null || s.length() < 19) return INVALID_TIME;
+        if (s.charAt(4) != '-' || s.charAt(7) != '-' || (s.charAt(10) != 'T' && s.charAt(10) != ' ')
+                || s.charAt(13) != ':' || s.charAt(16) != ':') {
+            return INVALID_TIME;
+        }
+        int year = digits(s, 0, 4);
+        int month = digits(s, 5, 2);
+        int day = digits(s, 8, 2);
+        int hour = digits(s, 11, 2);
+        int minute = digits(s, 14, 2);
+        int second = digits(s, 17, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 60) {
+            return INVALID_TIME;
+        }
+
+        int pos = 19;
+        int millis = 0;
+        if (pos < s.length() && s.charAt(pos) == '.') {
+            pos++;
+            int scale = 100;
+            int start = pos;
+            while (pos < s.length() && Character.isDigit(s.charAt(pos))) {
+                if (scale > 0) {
+                    millis += (s.charAt(pos) - '0') * scale;
+                    scale /= 10;
+                }
+                pos++;
+            }
+            if (pos == start) return INVALID_TIME;
+        }
+
+        int offsetSeconds = 0;
+        if (pos < s.length()) {
+            char sign = s.charAt(pos);
+            if (sign == 'Z' || sign == 'z') {
+                pos++;
+            } else if (sign == '+' || sign == '-') {
+                int offHours = digits(s, pos + 1, 2);
+                int minutesAt = pos + 3;
+                if (minutesAt < s.length() && s.charAt(minutesAt) == ':') minutesAt++;
+                int offMinutes = digits(s, minutesAt, 2);
+                if (offHours < 0 || offMinutes < 0) return INVALID_TIME;
+                offsetSeconds = (offHours * 3600 + offMinutes * 60) * (sign == '-' ? -1 : 1);
+                pos = minutesAt + 2;
+            } else {
+                return INVALID_TIME;
+            }
+        }
+        if (pos != s.length()) return INVALID_TIME;
+
+        long days = daysFromCivil(year, month, day);
+        long seconds = days * 86400L + hour * 3600L + minute * 60L + second - offsetSeconds;
+        return seconds * 1000L + millis;
+    }
+
+    // Same shape as the backend's: yyyy-MM-dd'T'HH:mm:ss.SSS'Z'. Used for messages created on the
+    // device and for binary events, which carry millis (see WireCodec), so it has to be cheap
+    public static String formatIso(long millis) {
+        long days = Math.floorDiv(millis, 86_400_000L);
+        int msOfDay = (int) Math.floorMod(millis, 86_400_000L);
+
+        // Inverse of daysFromCivil
+        long z = days + 719468;
+        long era = (z >= 0 ? z : z - 146096) / 146097;
+        int dayOfEra = (int) (z - era * 146097);
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int mp = (5 * dayOfYear + 2) / 153;
+        int day = dayOfYear - (153 * mp + 2) / 5 + 1;
+        int month = mp < 10 ? mp + 3 : mp - 9;
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+
+        char[] c = new char[24];
+        putDigits(c, 0, (int) year, 4);
+        c[4] = '-';
+        putDigits(c, 5, month, 2);
+        c[7] = '-';
+        putDigits(c, 8, day, 2);
+        c[10] = 'T';
+        putDigits(c, 11, msOfDay / 3_600_000, 2);
+        c[13] = ':';
+        putDigits(c, 14, msOfDay / 60_000 % 60, 2);
+        c[16] = ':';
+        putDigits(c, 17, msOfDay / 1000 % 60, 2);
+        c[19] = '.';
+        putDigits(c, 20, msOfDay % 1000, 3);
+        c[23] = 'Z';
+        return new String(c);
+    }
+
+    private static void putDigits(char[] c, int start, int value, int count) {
+        for (int i = start + count - 1; i >= start; i--) {
+            c[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    private static int digits(String s, int start, int count) {
+        if (start + count > s.length()) return -1;
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    // Days since 1970-01-01 in the proleptic Gregorian calendar
+    private static long daysFromCivil(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = (y >= 0 ? y : y - 399) / 400;
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097L + dayOfEra - 719468;
+    }
+
+    private static final class DisplayFormat {
+        final int generation;
+        final SimpleDateFormat format;
+        final Date date = new Date();
+
+        DisplayFormat(int generation) {
+            this.generation = generation;
+            this.format = new SimpleDateFormat("HH:mm", Locale.getDefault());
+            this.format.setTimeZone(TimeZone.getDefault());
+        }
+
+        // SimpleDateFormat is not thread-safe; formatting is rare thanks to the per-message cache
+        synchronized String format(long millis) {
+            date.setTime(millis);
+            return format.format(date);
+        }
+    }
+}
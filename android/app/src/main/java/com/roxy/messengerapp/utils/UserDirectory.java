@@ -0,0 +1,160 @@
+package com.roxy.messengerapp.utils;
+
+import com.roxy.messengerapp.entities.User;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+// Локальный справочник пользователей для поиска, собирается из прошлых ответов сервера.
+// Сервер ищет ILIKE '%q%' с лимитом, поэтому если ответ на q пришёл не обрезанным,
+// любой запрос, содержащий q, отвечается фильтрацией этого ответа без сети.
+// Для остальных запросов есть отсортированный индекс имён для мгновенных подсказок по префиксу.
+public class UserDirectory {
+
+    // Matches the limit in userController.searchUsers
+    public static final int SERVER_LIMIT = 50;
+    // Online flags and new registrations go stale, complete answers expire after this
+    private static final long COMPLETE_TTL_MS = 2 * 60 * 1000;
+
+    private static UserDirectory instance;
+
+    private final LongSupplier clock;
+    private final Map<String, User> usersById = new HashMap<>();
+    // lower-case query -> full server answer, only for answers below the limit
+    private final Map<String, CompleteAnswer> completeAnswers = new HashMap<>();
+
+    // Prefix index, rebuilt lazily after new users arrive
+    private String[] sortedNames = new String[0];
+    private User[] sortedUsers = new User[0];
+    private boolean indexDirty;
+
+    private static class CompleteAnswer {
+        final List<User> users;
+        final long storedAt;
+
+        CompleteAnswer(List<User> users, long storedAt) {
+            this.users = users;
+            this.storedAt = storedAt;
+        }
+    }
+
+    public static synchronized UserDirectory getInstance() {
+        if (instance == null) {
+            instance = new UserDirectory(System::currentTimeMillis);
+        }
+        return instance;
+    }
+
+    UserDirectory(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    public synchronized void addResults(String query, List<User> users) {
+        for (User user : users) {
+            if (user.getId() != null && user.getUsername() != null) {
+                usersById.put(user.getId(), user);
+            }
+        }
+        indexDirty = true;
+
+        long now = clock.getAsLong();
+        completeAnswers.values().removeIf(answer -> now - answer.storedAt > COMPLETE_TTL_MS);
+
+        if (users.size() < SERVER_LIMIT) {
+            List<User> sorted = new ArrayList<>(users);
+            Collections.sort(sorted, (a, b) -> normalize(a.getUsername()).compareTo(normalize(b.getUsername())));
+            completeAnswers.put(normalize(query), new CompleteAnswer(sorted, now));
+        }
+    }
+
+    // Exact answer for the query, or null when only the server knows it
+    public synchronized List<User> lookup(String query) {
+        String q = normalize(query);
+        // _ and % are wildcards in ILIKE, plain contains() would disagree with the server
+        if (q.indexOf('%') >= 0 || q.indexOf('_') >= 0) {
+            return null;
+        }
+
+        long now = clock.getAsLong();
+        CompleteAnswer best = null;
+        for (Map.Entry<String, CompleteAnswer> entry : completeAnswers.entrySet()) {
+            CompleteAnswer answer = entry.getValue();
+            if (now - answer.storedAt > COMPLETE_TTL_MS || !q.contains(entry.getKey())) continue;
+            // The smallest covering answer is the cheapest to filter
+            if (best == null || answer.users.size() < best.users.size()) {
+                best = answer;
+            }
+        }
+        if (best == null) {
+            return null;
+        }
+
+        List<User> result = new ArrayList<>();
+        for (User user : best.users) {
+            if (normalize(user.getUsername()).contains(q)) {
+                result.add(user);
+            }
+        }
+        return result;
+    }
+
+    // Provisional results while the server is asked: known users whose name starts with the prefix
+    public synchronized List<User> prefixMatches(String prefix, int limit) {
+        String p = normalize(prefix);
+        if (indexDirty) {
+            rebuildIndex();
+        }
+
+        List<User> result = new ArrayList<>();
+        int index = lowerBound(p);
+        while (index < sortedNames.length && result.size() < limit && sortedNames[index].startsWith(p)) {
+            result.add(sortedUsers[index]);
+            index++;
+        }
+        return result;
+    }
+
+    public synchronized void clear() {
+        usersById.clear();
+        completeAnswers.clear();
+        sortedNames = new String[0];
+        sortedUsers = new User[0];
+        indexDirty = false;
+    }
+
+    // First position whose name is >= key; names can repeat, so not Arrays.binarySearch
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = sortedNames.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sortedNames[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void rebuildIndex() {
+        List<User> users = new ArrayList<>(usersById.values());
+        Collections.sort(users, (a, b) -> normalize(a.getUsername()).compareTo(normalize(b.getUsername())));
+        sortedNames = new String[users.size()];
+        sortedUsers = new User[users.size()];
+        for (int i = 0; i < users.size(); i++) {
+            sortedNames[i] = normalize(users.get(i).getUsername());
+            sortedUsers[i] = users.get(i);
+        }
+        indexDirty = false;
+    }
+
+    private static String normalize(String s) {
+        return s == null ? "" : s.trim().toLowerCase(Locale.ROOT);
+    }
+}
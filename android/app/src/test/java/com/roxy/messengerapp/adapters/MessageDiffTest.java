@@ -0,0 +1,80 @@
+package com.roxy.messengerapp.adapters;
+
+import com.roxy.messengerapp.entities.Message;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MessageDiffTest {
+
+    private static final String CLIENT_ID = "11111111-2222-4333-8444-555555555555";
+    private static final String SERVER_ID = "0f1e2d3c-4b5a-4978-8695-a4b3c2d1e0f9";
+
+    private static Message message(String id, String content) {
+        Message message = new Message();
+        message.setId(id);
+        message.setContent(content);
+        message.setType("text");
+        message.setCreatedAt("2025-03-01T10:15:30.250Z");
+        return message;
+    }
+
+    @Test
+    public void seenFlipOnlyTouchesTheStatus() {
+        Message unseen = message(SERVER_ID, "hi");
+        Message seen = new Message(unseen);
+        seen.setSeen(true);
+
+        assertTrue(MessageDiff.sameItem(unseen, seen));
+        assertFalse(MessageDiff.sameContents(unseen, seen));
+        assertEquals(Integer.valueOf(MessageDiff.CHANGE_STATUS), MessageDiff.changePayload(unseen, seen));
+    }
+
+    @Test
+    public void confirmationKeepsTheRow() {
+        Message pending = message(CLIENT_ID, "hi");
+        pending.setClientId(CLIENT_ID);
+        pending.setPending(true);
+        Message confirmed = message(SERVER_ID, "hi");
+        confirmed.setClientId(CLIENT_ID);
+        confirmed.setCreatedAt("2025-03-01T10:15:31.000Z");
+
+        assertTrue(MessageDiff.sameItem(pending, confirmed));
+        assertEquals(MessageDiff.stableId(pending), MessageDiff.stableId(confirmed));
+        assertEquals(Integer.valueOf(MessageDiff.CHANGE_STATUS | MessageDiff.CHANGE_TIME),
+                MessageDiff.changePayload(pending, confirmed));
+    }
+
+    @Test
+    public void editedTextIsATextChange() {
+        Message original = message(SERVER_ID, "hi");
+        Message edited = message(SERVER_ID, "hello");
+        edited.setEdited(true);
+
+        assertEquals(Integer.valueOf(MessageDiff.CHANGE_TEXT), MessageDiff.changePayload(original, edited));
+    }
+
+    @Test
+    public void otherImageOrTypeNeedsAFullBind() {
+        Message image = message(SERVER_ID, "https://cdn.example/a.webp");
+        image.setType("image");
+        Message otherImage = new Message(image);
+        otherImage.setContent("https://cdn.example/b.webp");
+        assertNull(MessageDiff.changePayload(image, otherImage));
+
+        Message text = message(SERVER_ID, "https://cdn.example/a.webp");
+        assertNull(MessageDiff.changePayload(image, text));
+    }
+
+    @Test
+    public void stableIdsTellMessagesApart() {
+        long a = MessageDiff.stableId(message(SERVER_ID, "a"));
+        long b = MessageDiff.stableId(message("0f1e2d3c-4b5a-4978-8695-a4b3c2d1e0fa", "b"));
+        assertNotEquals(a, b);
+        assertEquals(a, MessageDiff.stableId(message(SERVER_ID.toUpperCase(), "a")));
+        assertEquals("42".hashCode(), MessageDiff.stableId(message("42", "c")));
+        assertEquals("not-a-uuid-but-still-36-characters!!".hashCode(),
+                MessageDiff.stableId(message("not-a-uuid-but-still-36-characters!!", "d")));
+    }
+}
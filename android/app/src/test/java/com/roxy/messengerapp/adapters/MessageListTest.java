@@ -0,0 +1,137 @@
+package com.roxy.messengerapp.adapters;
+
+import com.roxy.messengerapp.entities.Message;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MessageListTest {
+
+    private static Message message(String id) {
+        Message message = new Message();
+        message.setId(id);
+        message.setContent(id);
+        return message;
+    }
+
+    private static Message pending(String clientId) {
+        Message message = message(clientId);
+        message.setClientId(clientId);
+        message.setPending(true);
+        return message;
+    }
+
+    private static Message confirmed(String id, String clientId) {
+        Message message = message(id);
+        message.setClientId(clientId);
+        return message;
+    }
+
+    @Test
+    public void skipsDuplicates() {
+        MessageList list = new MessageList();
+        assertTrue(list.add(message("a")));
+        assertFalse(list.add(message("a")));
+        list.append(Arrays.asList(message("a"), message("b")));
+
+        assertEquals(2, list.size());
+        assertEquals("b", list.last().getId());
+    }
+
+    @Test
+    public void serverCopyReplacesPendingInPlace() {
+        MessageList list = new MessageList();
+        list.add(pending("c1"));
+        list.add(message("x"));
+
+        assertTrue(list.add(confirmed("m1", "c1")));
+
+        assertEquals(2, list.size());
+        assertEquals("m1", list.first().getId());
+        assertFalse(list.first().isPending());
+        // Indexed under the server id now
+        assertTrue(list.remove("m1"));
+        assertEquals("x", list.first().getId());
+    }
+
+    @Test
+    public void reloadKeepsUnconfirmedPending() {
+        MessageList list = new MessageList();
+        list.add(pending("c1"));
+        list.add(pending("c2"));
+
+        list.setAll(Arrays.asList(message("a"), confirmed("m1", "c1")));
+
+        List<Message> snapshot = list.snapshot();
+        assertEquals(3, snapshot.size());
+        assertEquals("m1", snapshot.get(1).getId());
+        assertEquals("c2", snapshot.get(2).getId());
+    }
+
+    @Test
+    public void markAllAsReadCopiesInsteadOfMutating() {
+        MessageList list = new MessageList();
+        list.setAll(Collections.singletonList(message("a")));
+        List<Message> before = list.snapshot();
+
+        assertTrue(list.markAllAsRead());
+        assertFalse(list.markAllAsRead());
+
+        assertFalse(before.get(0).isSeen());
+        assertTrue(list.first().isSeen());
+    }
+
+    @Test
+    public void prependSkipsRowsAlreadyLoaded() {
+        MessageList list = new MessageList();
+        list.setAll(Arrays.asList(message("c"), message("d")));
+
+        // The older page raced a socket insert and overlaps the loaded rows
+        list.prepend(Arrays.asList(message("a"), message("b"), message("c")));
+
+        assertEquals(4, list.size());
+        assertEquals("a", list.first().getId());
+        assertTrue(list.remove("c"));
+        assertFalse(list.remove("c"));
+        List<String> ids = new ArrayList<>();
+        for (Message message : list.snapshot()) ids.add(message.getId());
+        assertEquals(Arrays.asList("a", "b", "d"), ids);
+    }
+
+    @Test
+    public void failedMessageStaysUntilRemoved() {
+        MessageList list = new MessageList();
+        list.add(pending("c1"));
+        Message failed = new Message(list.last());
+        failed.setPending(false);
+        failed.setFailed(true);
+
+        assertTrue(list.markFailed(failed));
+        assertFalse(list.markFailed(message("unknown")));
+        list.setAll(Collections.singletonList(message("a")));
+
+        assertEquals(2, list.size());
+        assertTrue(list.last().isFailed());
+        assertTrue(list.remove("c1"));
+    }
+
+    @Test
+    public void trimsKeepTheIndexConsistent() {
+        MessageList list = new MessageList();
+        list.setAll(Arrays.asList(message("a"), message("b"), message("c"), message("d")));
+
+        assertTrue(list.trimOldest(1));
+        assertTrue(list.trimNewest(1));
+        assertFalse(list.trimOldest(5));
+
+        assertTrue(list.add(message("a")));
+        assertTrue(list.remove("c"));
+        assertEquals(Arrays.asList("b", "a"), Arrays.asList(list.first().getId(), list.last().getId()));
+    }
+}
@@ -0,0 +1,111 @@
+package com.roxy.messengerapp.network;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ChatSubscriptionsTest {
+
+    private static List<String> names(List<String> listeners) {
+        List<String> result = new ArrayList<>(listeners);
+        Collections.sort(result);
+        return result;
+    }
+
+    @Test
+    public void routesOnlyToTheChatsSubscribers() {
+        ChatSubscriptions<String> subscriptions = new ChatSubscriptions<>();
+        subscriptions.subscribe("chat1", "a");
+        subscriptions.subscribe("chat1", "b");
+        subscriptions.subscribe("chat2", "c");
+        subscriptions.subscribeAll("list");
+
+        assertEquals(Arrays.asList("a", "b"), names(subscriptions.forChat("chat1")));
+        assertEquals(Arrays.asList("c"), names(subscriptions.forChat("chat2")));
+        assertTrue(subscriptions.forChat("chat3").isEmpty());
+        assertEquals(Arrays.asList("list"), names(subscriptions.all()));
+    }
+
+    @Test
+    public void subscribingTwiceDeliversOnce() {
+        ChatSubscriptions<String> subscriptions = new ChatSubscriptions<>();
+        subscriptions.subscribe("chat1", "a");
+        subscriptions.subscribe("chat1", "a");
+        subscriptions.subscribeAll("list");
+        subscriptions.subscribeAll("list");
+
+        assertEquals(1, subscriptions.forChat("chat1").size());
+        assertEquals(1, subscriptions.all().size());
+    }
+
+    @Test
+    public void unsubscribeDropsEmptyChats() {
+        ChatSubscriptions<String> subscriptions = new ChatSubscriptions<>();
+        subscriptions.subscribe("chat1", "a");
+        subscriptions.unsubscribe("chat1", "a");
+        subscriptions.unsubscribe("chat2", "a");
+
+        assertTrue(subscriptions.forChat("chat1").isEmpty());
+
+        subscriptions.subscribe("chat1", "b");
+        assertEquals(Arrays.asList("b"), names(subscriptions.forChat("chat1")));
+    }
+
+    @Test
+    public void listenerCanUnsubscribeWhileBeingCalled() {
+        ChatSubscriptions<String> subscriptions = new ChatSubscriptions<>();
+        subscriptions.subscribe("chat1", "a");
+        subscriptions.subscribe("chat1", "b");
+
+        List<String> called = new ArrayList<>();
+        for (String listener : subscriptions.forChat("chat1")) {
+            called.add(listener);
+            subscriptions.unsubscribe("chat1", listener);
+        }
+
+        assertEquals(Arrays.asList("a", "b"), called);
+        assertTrue(subscriptions.forChat("chat1").isEmpty());
+    }
+
+    @Test
+    public void dispatchSplitsTheBatchPerChat() {
+        ChatSubscriptions<List<String>> subscriptions = new ChatSubscriptions<>();
+        List<String> everything = new ArrayList<>();
+        List<String> chat1 = new ArrayList<>();
+        subscriptions.subscribeAll(everything);
+        subscriptions.subscribe("chat1", chat1);
+
+        // Events are "chatId:n"
+        subscriptions.dispatch(Arrays.asList("chat1:1", "chat2:1", "chat1:2"),
+                event -> event.substring(0, event.indexOf(':')), List::addAll);
+
+        assertEquals(Arrays.asList("chat1:1", "chat2:1", "chat1:2"), everything);
+        assertEquals(Arrays.asList("chat1:1", "chat1:2"), chat1);
+    }
+
+    @Test
+    public void concurrentSubscribeAndUnsubscribeKeepsEveryone() throws InterruptedException {
+        ChatSubscriptions<String> subscriptions = new ChatSubscriptions<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            String stayer = "stay" + t;
+            String churner = "churn" + t;
+            threads.add(new Thread(() -> {
+                subscriptions.subscribe("chat", stayer);
+                for (int i = 0; i < 10_000; i++) {
+                    subscriptions.subscribe("chat", churner);
+                    subscriptions.unsubscribe("chat", churner);
+                }
+            }));
+        }
+        for (Thread thread : threads) thread.start();
+        for (Thread thread : threads) thread.join();
+
+        assertEquals(Arrays.asList("stay0", "stay1", "stay2", "stay3"), names(subscriptions.forChat("chat")));
+    }
+}
@@ -0,0 +1,107 @@
+package com.roxy.messengerapp.network;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.roxy.messengerapp.entities.Chat;
+import com.roxy.messengerapp.entities.Message;
+import com.roxy.messengerapp.entities.User;
+import com.roxy.messengerapp.utils.TimeFormatter;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class MessageTimestampAdapterFactoryTest {
+
+    private final Gson gson = new GsonBuilder()
+            .registerTypeAdapterFactory(new MessageTimestampAdapterFactory())
+            .create();
+
+    @Test
+    public void readsServerMessage() {
+        String json = "{\"id\":\"m1\",\"content\":\"hi\",\"type\":\"text\",\"thumbnailUrl\":null,"
+                + "\"isRead\":true,\"isEdited\":null,\"clientId\":\"c1\",\"seq\":7,\"deletedSeq\":null,"
+                + "\"chatId\":\"chat\",\"senderId\":\"u1\",\"createdAt\":\"2025-03-01T10:15:30.250Z\","
+                + "\"extra\":{\"nested\":[1,2,3]},"
+                + "\"sender\":{\"id\":\"u1\",\"username\":\"roxy\",\"avatar\":\"a.png\",\"isOnline\":true}}";
+
+        Message message = gson.fromJson(json, Message.class);
+
+        assertEquals("m1", message.getId());
+        assertEquals("hi", message.getContent());
+        assertNull(message.getThumbnailUrl());
+        assertTrue(message.isSeen());
+        assertFalse(message.isEdited());
+        assertEquals("c1", message.getClientId());
+        assertEquals(7, message.getSeq());
+        assertEquals(TimeFormatter.parseIsoMillis("2025-03-01T10:15:30.250Z"), message.getCreatedAtMillis());
+        assertEquals("roxy", message.getSender().getUsername());
+        assertEquals("a.png", message.getSender().getImageURL());
+        assertTrue(message.getSender().isOnline());
+    }
+
+    // Messages nested in a chat (LocalStore rows, the last message) get their millis too
+    @Test
+    public void parsesNestedMessages() {
+        Chat chat = new Chat();
+        chat.setId("chat");
+        chat.setName("Group");
+        chat.setLastSeq(42);
+        chat.setUnreadCount(3);
+        chat.setUsers(Arrays.asList(new User("u1", "roxy", "r@x.io", null, false)));
+        Message last = new Message();
+        last.setId("m1");
+        last.setCreatedAt("2025-03-01T10:15:30.250Z");
+        chat.setMessages(Arrays.asList(last));
+
+        Chat read = gson.fromJson(new Gson().toJson(chat), Chat.class);
+
+        assertEquals("Group", read.getName());
+        assertEquals(42, read.getLastSeq());
+        assertEquals(3, read.getUnreadCount());
+        assertEquals("r@x.io", read.getUsers().get(0).getEmail());
+        assertEquals(last.getCreatedAtMillis(), read.getLastMessage().getCreatedAtMillis());
+    }
+
+    @Test
+    public void roundTripsWithoutTransientFields() {
+        Message message = new Message();
+        message.setId("m1");
+        message.setChatId("chat");
+        message.setContent("hi");
+        message.setSeq(9);
+        message.setCreatedAt("2025-03-01T10:15:30.250Z");
+        message.setPending(true);
+
+        String json = gson.toJson(message);
+        Message read = gson.fromJson(json, Message.class);
+
+        assertFalse(json.contains("pending"));
+        assertFalse(json.contains("thumbnailUrl"));
+        assertEquals("hi", read.getContent());
+        assertEquals(9, read.getSeq());
+        assertEquals(message.getCreatedAtMillis(), read.getCreatedAtMillis());
+    }
+
+    @Test
+    public void parsesMessagesInResponseWrappers() {
+        ApiService.MessagesResponse response = gson.fromJson(
+                "{\"messages\":[{\"id\":\"a\"},{\"id\":\"b\",\"createdAt\":\"2025-03-01T10:15:30.250Z\"}],"
+                        + "\"hasMore\":true,\"total\":2}",
+                ApiService.MessagesResponse.class);
+        assertEquals(2, response.messages.size());
+        assertEquals("b", response.messages.get(1).getId());
+        assertEquals(TimeFormatter.INVALID_TIME, response.messages.get(0).getCreatedAtMillis());
+        assertEquals(TimeFormatter.parseIsoMillis("2025-03-01T10:15:30.250Z"),
+                response.messages.get(1).getCreatedAtMillis());
+        assertTrue(response.hasMore);
+
+        ApiService.SyncResponse sync = gson.fromJson(
+                "{\"chats\":[{\"chatId\":\"c\",\"lastSeq\":\"12\",\"messages\":[],\"deletedIds\":[\"x\"],\"reset\":false}]}",
+                ApiService.SyncResponse.class);
+        assertEquals(12, sync.chats.get(0).lastSeq);
+        assertEquals("x", sync.chats.get(0).deletedIds.get(0));
+    }
+}
@@ -0,0 +1,96 @@
+package com.roxy.messengerapp.network;
+
+import com.roxy.messengerapp.entities.Message;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SocketTraceTest {
+
+    private static final String CHAT = "3f2b8c1e-9d4a-4e6b-8f0c-1a2b3c4d5e6f";
+
+    @Test
+    public void eventsRoundTrip() throws IOException {
+        Message message = new Message();
+        message.setId("0f1e2d3c-4b5a-4978-8695-a4b3c2d1e0f9");
+        message.setChatId(CHAT);
+        message.setContent("Привет");
+        byte[] binary = WireCodec.encodeMessage(message);
+        String json = "{\"chatId\":\"" + CHAT + "\",\"content\":\"Привет 👋\"}";
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (SocketTrace.Writer writer = new SocketTrace.Writer(out, 1_700_000_000_000L)) {
+            writer.write(1_500, false, "codec", "{\"codec\":\"bin1\"}");
+            writer.write(2_000_000, false, "new_message", binary);
+            writer.write(2_000_999, true, "send_message", json);
+            writer.write(5_000_000_000L, false, "new_message", binary);
+            writer.write(5_000_000_000L, true, "ping_like", null);
+        }
+
+        try (SocketTrace.Reader reader = new SocketTrace.Reader(new ByteArrayInputStream(out.toByteArray()))) {
+            assertEquals(1_700_000_000_000L, reader.startedAtMillis());
+            List<SocketTrace.Event> events = reader.readAll();
+            assertEquals(5, events.size());
+
+            assertEquals("codec", events.get(0).name);
+            assertEquals(1_000, events.get(0).atNanos);
+            assertEquals("{\"codec\":\"bin1\"}", events.get(0).payload);
+
+            SocketTrace.Event received = events.get(1);
+            assertFalse(received.outbound);
+            assertEquals(2_000_000, received.atNanos);
+            assertTrue(Arrays.equals(binary, (byte[]) received.payload));
+            assertEquals("Привет", WireCodec.decodeMessage((byte[]) received.payload).getContent());
+
+            SocketTrace.Event sent = events.get(2);
+            assertTrue(sent.outbound);
+            assertEquals("send_message", sent.name);
+            assertEquals(2_000_000, sent.atNanos);
+            assertEquals(json, sent.payload);
+
+            assertEquals("new_message", events.get(3).name);
+            assertEquals(5_000_000_000L, events.get(3).atNanos);
+            assertNull(events.get(4).payload);
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    public void timeNeverGoesBackwards() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (SocketTrace.Writer writer = new SocketTrace.Writer(out, 0)) {
+            writer.write(10_000, false, "a", null);
+            writer.write(4_000, false, "b", null);
+        }
+        List<SocketTrace.Event> events = new SocketTrace.Reader(new ByteArrayInputStream(out.toByteArray())).readAll();
+        assertEquals(10_000, events.get(1).atNanos);
+    }
+
+    @Test
+    public void keepsWhatWasFlushedBeforeACrash() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SocketTrace.Writer writer = new SocketTrace.Writer(out, 0);
+        for (int i = 0; i < 100; i++) {
+            writer.write(i * 1_000_000L, false, "new_message", "{\"content\":\"message " + i + "\"}");
+        }
+        writer.flush();
+        // Never closed: no gzip trailer, the last bytes may be cut anywhere
+        byte[] bytes = Arrays.copyOf(out.toByteArray(), out.size() - 3);
+
+        List<SocketTrace.Event> events = new SocketTrace.Reader(new ByteArrayInputStream(bytes)).readAll();
+        assertTrue(events.size() >= 99);
+        assertEquals("{\"content\":\"message 98\"}", events.get(98).payload);
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsOtherFiles() throws IOException {
+        new SocketTrace.Reader(new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5}));
+    }
+}
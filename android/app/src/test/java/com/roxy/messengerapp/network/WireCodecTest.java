@@ -0,0 +1,139 @@
+package com.roxy.messengerapp.network;
+
+import com.roxy.messengerapp.entities.Message;
+import com.roxy.messengerapp.entities.User;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class WireCodecTest {
+
+    private static final String CHAT = "3f2b8c1e-9d4a-4e6b-8f0c-1a2b3c4d5e6f";
+    private static final String USER = "a0b1c2d3-e4f5-4a6b-9c8d-7e6f5a4b3c2d";
+
+    @Test
+    public void messageRoundTrip() {
+        Message message = new Message();
+        message.setId("0f1e2d3c-4b5a-4978-8695-a4b3c2d1e0f9");
+        message.setChatId(CHAT);
+        message.setSenderId(USER);
+        message.setClientId("11111111-2222-4333-8444-555555555555");
+        message.setType("text");
+        message.setContent("Привет 👋");
+        message.setSeq(300);
+        message.setSeen(true);
+        message.setCreatedAt("2025-03-01T10:15:30.250Z");
+        message.setSender(new User(USER, "roxy", null, "https://cdn.example/a.png", true));
+
+        Message decoded = WireCodec.decodeMessage(WireCodec.encodeMessage(message));
+
+        assertEquals(message.getId(), decoded.getId());
+        assertEquals(CHAT, decoded.getChatId());
+        assertEquals(USER, decoded.getSenderId());
+        assertEquals(message.getClientId(), decoded.getClientId());
+        assertEquals("text", decoded.getType());
+        assertEquals("Привет 👋", decoded.getContent());
+        assertNull(decoded.getThumbnailUrl());
+        assertEquals(300, decoded.getSeq());
+        assertTrue(decoded.isSeen());
+        assertFalse(decoded.isEdited());
+        assertEquals("2025-03-01T10:15:30.250Z", decoded.getCreatedAt());
+        assertEquals(message.getCreatedAtMillis(), decoded.getCreatedAtMillis());
+        assertEquals("roxy", decoded.getSender().getUsername());
+        assertEquals("https://cdn.example/a.png", decoded.getSender().getImageURL());
+        assertTrue(decoded.getSender().isOnline());
+    }
+
+    @Test
+    public void keepsNonCanonicalIdsAsText() {
+        Message message = new Message();
+        message.setId("3F2B8C1E-9D4A-4E6B-8F0C-1A2B3C4D5E6F");
+        message.setChatId("42");
+
+        Message decoded = WireCodec.decodeMessage(WireCodec.encodeMessage(message));
+
+        assertEquals("3F2B8C1E-9D4A-4E6B-8F0C-1A2B3C4D5E6F", decoded.getId());
+        assertEquals("42", decoded.getChatId());
+        assertNull(decoded.getSender());
+        assertNull(decoded.getCreatedAt());
+    }
+
+    @Test
+    public void smallEventsRoundTrip() {
+        WireCodec.Deletion deletion = WireCodec.decodeDeletion(WireCodec.encodeDeletion(USER, CHAT, 1L << 40));
+        assertEquals(USER, deletion.messageId);
+        assertEquals(CHAT, deletion.chatId);
+        assertEquals(1L << 40, deletion.seq);
+
+        WireCodec.Typing typing = WireCodec.decodeTyping(WireCodec.encodeTyping(CHAT, USER, true));
+        assertEquals(CHAT, typing.chatId);
+        assertEquals(USER, typing.userId);
+        assertTrue(typing.typing);
+
+        byte[] ref = WireCodec.encodeChatRef(CHAT);
+        assertEquals(1 + 1 + 16, ref.length);
+        assertEquals(CHAT, WireCodec.decodeChatRef(ref));
+    }
+
+    @Test
+    public void sendRoundTrip() {
+        Message message = new Message();
+        message.setClientId("11111111-2222-4333-8444-555555555555");
+        message.setChatId(CHAT);
+        message.setType("image");
+        message.setContent("https://cdn.example/full.jpg");
+        message.setThumbnailUrl("https://cdn.example/thumb.jpg");
+
+        Message decoded = WireCodec.decodeSend(WireCodec.encodeSend(message));
+
+        assertEquals(message.getClientId(), decoded.getClientId());
+        assertEquals(CHAT, decoded.getChatId());
+        assertEquals("image", decoded.getType());
+        assertEquals("https://cdn.example/full.jpg", decoded.getContent());
+        assertEquals("https://cdn.example/thumb.jpg", decoded.getThumbnailUrl());
+        assertNull(decoded.getId());
+        assertFalse(decoded.hasImageSize());
+        assertNull(decoded.getBlurHash());
+    }
+
+    @Test
+    public void imageInfoRoundTrip() {
+        Message message = new Message();
+        message.setId("0f1e2d3c-4b5a-4978-8695-a4b3c2d1e0f9");
+        message.setChatId(CHAT);
+        message.setClientId("11111111-2222-4333-8444-555555555555");
+        message.setType("image");
+        message.setContent("https://cdn.example/full.jpg");
+        message.setWidth(1280);
+        message.setHeight(960);
+        message.setBlurHash("LEHV6nWB2yk8pyo0adR*.7kCMdnj");
+        message.setSender(new User(USER, "roxy", null, null, false));
+
+        Message received = WireCodec.decodeMessage(WireCodec.encodeMessage(message));
+        assertEquals(1280, received.getWidth());
+        assertEquals(960, received.getHeight());
+        assertEquals("LEHV6nWB2yk8pyo0adR*.7kCMdnj", received.getBlurHash());
+        assertEquals("roxy", received.getSender().getUsername());
+
+        Message sent = WireCodec.decodeSend(WireCodec.encodeSend(message));
+        assertEquals(1280, sent.getWidth());
+        assertEquals(960, sent.getHeight());
+        assertEquals("LEHV6nWB2yk8pyo0adR*.7kCMdnj", sent.getBlurHash());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsTruncatedPayload() {
+        byte[] data = WireCodec.encodeDeletion(USER, CHAT, 7);
+        WireCodec.decodeDeletion(Arrays.copyOf(data, data.length - 5));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnknownVersion() {
+        byte[] data = WireCodec.encodeChatRef(CHAT);
+        data[0] = 9;
+        WireCodec.decodeChatRef(data);
+    }
+}
@@ -0,0 +1,76 @@
+package com.roxy.messengerapp.utils;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class BlurHashTest {
+
+    @Test
+    public void solidColourComesBack() {
+        int[] pixels = new int[32 * 24];
+        Arrays.fill(pixels, 0xFFC0392B);
+
+        String hash = BlurHash.encode(pixels, 32, 24, 1, 1);
+
+        assertEquals(6, hash.length());
+        assertTrue(BlurHash.isValid(hash));
+        int[] decoded = BlurHash.decode(hash, 8, 6, 1);
+        for (int p : decoded) {
+            assertColour(0xFFC0392B, p, 2);
+        }
+    }
+
+    @Test
+    public void lengthFollowsComponents() {
+        int[] pixels = new int[16 * 16];
+        String hash = BlurHash.encode(pixels, 16, 16, 4, 3);
+        assertEquals(4 + 2 * 12, hash.length());
+        assertTrue(BlurHash.isValid(hash));
+    }
+
+    @Test
+    public void keepsTheGradientDirection() {
+        int width = 32;
+        int height = 16;
+        int[] pixels = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int v = x * 255 / (width - 1);
+                pixels[y * width + x] = 0xFF000000 | v << 16 | v << 8 | v;
+            }
+        }
+
+        int[] decoded = BlurHash.decode(BlurHash.encode(pixels, width, height, 4, 3), 16, 8, 1);
+
+        int left = decoded[4 * 16] & 0xFF;
+        int right = decoded[4 * 16 + 15] & 0xFF;
+        assertTrue(left + " < " + right, left + 100 < right);
+    }
+
+    @Test
+    public void decodesAReferenceHash() {
+        // From the BlurHash reference implementation's README
+        String hash = "LEHV6nWB2yk8pyo0adR*.7kCMdnj";
+        assertTrue(BlurHash.isValid(hash));
+        assertEquals(20 * 12, BlurHash.decode(hash, 20, 12, 1).length);
+    }
+
+    @Test
+    public void rejectsBrokenHashes() {
+        assertFalse(BlurHash.isValid(null));
+        assertFalse(BlurHash.isValid("LEHV6"));
+        assertFalse(BlurHash.isValid("LEHV6nWB2yk8pyo0adR*.7kCMdn"));
+        assertFalse(BlurHash.isValid("LEHV6nWB2yk8pyo0adR*.7kCMd\"j"));
+    }
+
+    private static void assertColour(int expected, int actual, int tolerance) {
+        for (int shift = 0; shift <= 24; shift += 8) {
+            int e = (expected >> shift) & 0xFF;
+            int a = (actual >> shift) & 0xFF;
+            assertTrue(Integer.toHexString(actual) + " vs " + Integer.toHexString(expected), Math.abs(e - a) <= tolerance);
+        }
+    }
+}
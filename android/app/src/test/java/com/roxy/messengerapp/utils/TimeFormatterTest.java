@@ -0,0 +1,61 @@
+package com.roxy.messengerapp.utils;
+
+import com.roxy.messengerapp.entities.Message;
+
+import org.junit.Test;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+
+import static org.junit.Assert.*;
+
+public class TimeFormatterTest {
+
+    @Test
+    public void parsesBackendTimestamps() {
+        assertEquals(Instant.parse("2024-05-01T12:34:56.789Z").toEpochMilli(),
+                TimeFormatter.parseIsoMillis("2024-05-01T12:34:56.789Z"));
+        assertEquals(Instant.parse("2024-02-29T00:00:00Z").toEpochMilli(),
+                TimeFormatter.parseIsoMillis("2024-02-29T00:00:00"));
+        assertEquals(Instant.parse("1999-12-31T23:59:59.100Z").toEpochMilli(),
+                TimeFormatter.parseIsoMillis("1999-12-31T23:59:59.1Z"));
+    }
+
+    @Test
+    public void appliesZoneOffsets() {
+        assertEquals(OffsetDateTime.parse("2025-01-15T10:00:00+03:00").toInstant().toEpochMilli(),
+                TimeFormatter.parseIsoMillis("2025-01-15T10:00:00+03:00"));
+        assertEquals(OffsetDateTime.parse("2025-01-15T10:00:00.5-05:30").toInstant().toEpochMilli(),
+                TimeFormatter.parseIsoMillis("2025-01-15T10:00:00.500-0530"));
+    }
+
+    @Test
+    public void rejectsGarbage() {
+        assertEquals(TimeFormatter.INVALID_TIME, TimeFormatter.parseIsoMillis(null));
+        assertEquals(TimeFormatter.INVALID_TIME, TimeFormatter.parseIsoMillis("yesterday"));
+        assertEquals(TimeFormatter.INVALID_TIME, TimeFormatter.parseIsoMillis("2024-13-01T00:00:00Z"));
+        assertEquals(TimeFormatter.INVALID_TIME, TimeFormatter.parseIsoMillis("2024-05-01T12:34:56.Z"));
+    }
+
+    @Test
+    public void formatsIsoLikeTheBackend() {
+        for (String iso : new String[]{"2024-05-01T12:34:56.789Z", "2024-02-29T00:00:00.000Z",
+                "1970-01-01T00:00:00.000Z", "1969-12-31T23:59:59.999Z", "2100-03-01T08:05:09.010Z"}) {
+            assertEquals(iso, TimeFormatter.formatIso(Instant.parse(iso).toEpochMilli()));
+        }
+    }
+
+    @Test
+    public void cachesDisplayStringUntilInvalidated() {
+        Message message = new Message();
+        message.setCreatedAt("2024-05-01T12:34:56.789Z");
+
+        String first = TimeFormatter.formatTime(message);
+        assertSame(first, TimeFormatter.formatTime(message));
+
+        TimeFormatter.invalidate();
+        String second = TimeFormatter.formatTime(message);
+        assertEquals(first, second);
+        assertNotSame(first, second);
+    }
+}
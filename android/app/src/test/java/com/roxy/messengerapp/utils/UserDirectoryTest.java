@@ -0,0 +1,79 @@
+package com.roxy.messengerapp.utils;
+
+import com.roxy.messengerapp.entities.User;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class UserDirectoryTest {
+
+    private long now = 1_000_000L;
+
+    private static User user(String id, String name) {
+        return new User(id, name, null, null, false);
+    }
+
+    private static List<String> names(List<User> users) {
+        List<String> result = new ArrayList<>();
+        for (User user : users) {
+            result.add(user.getUsername());
+        }
+        return result;
+    }
+
+    @Test
+    public void refinesCompleteAnswersLocally() {
+        UserDirectory directory = new UserDirectory(() -> now);
+        assertNull(directory.lookup("an"));
+
+        directory.addResults("an", Arrays.asList(user("1", "Anna"), user("2", "Ivan"), user("3", "Dana")));
+
+        assertEquals(Arrays.asList("Anna", "Dana", "Ivan"), names(directory.lookup("an")));
+        assertEquals(Arrays.asList("Anna"), names(directory.lookup("ANN")));
+        assertEquals(Arrays.asList("Ivan"), names(directory.lookup("van")));
+        assertTrue(directory.lookup("vanya").isEmpty());
+        // "a" is wider than "an", the server has to answer it
+        assertNull(directory.lookup("a"));
+    }
+
+    @Test
+    public void truncatedAnswerIsNotTrusted() {
+        UserDirectory directory = new UserDirectory(() -> now);
+        List<User> full = new ArrayList<>();
+        for (int i = 0; i < UserDirectory.SERVER_LIMIT; i++) {
+            full.add(user(String.valueOf(i), "user" + i));
+        }
+        directory.addResults("user", full);
+
+        assertNull(directory.lookup("user1"));
+        // The users are still indexed for suggestions
+        assertEquals(Arrays.asList("user1", "user10", "user11"), names(directory.prefixMatches("user1", 3)));
+    }
+
+    @Test
+    public void wildcardsAndExpiryGoToServer() {
+        UserDirectory directory = new UserDirectory(() -> now);
+        directory.addResults("", Arrays.asList(user("1", "max_power"), user("2", "maxim")));
+
+        assertNull(directory.lookup("max_"));
+        assertEquals(Arrays.asList("maxim"), names(directory.lookup("maxi")));
+
+        now += 3 * 60 * 1000;
+        assertNull(directory.lookup("maxi"));
+    }
+
+    @Test
+    public void prefixMatchesKeepDuplicateNames() {
+        UserDirectory directory = new UserDirectory(() -> now);
+        directory.addResults("zz", Arrays.asList(user("1", "Bob"), user("2", "bob"), user("3", "Bobby"), user("4", "Alice")));
+
+        assertEquals(3, directory.prefixMatches("bob", 10).size());
+        assertEquals(Arrays.asList("Alice"), names(directory.prefixMatches("a", 10)));
+        assertTrue(directory.prefixMatches("c", 10).isEmpty());
+    }
+}
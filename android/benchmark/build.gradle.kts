@@ -0,0 +1,46 @@
+// JVM-only JMH benchmarks for the client's hot paths.
+// Run: ./gradlew :benchmark:jmh   (results in benchmark/build/results/jmh)
+plugins {
+    `java-library`
+    alias(libs.plugins.jmh)
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+// The app is an Android module, so the Android-free classes under test are compiled
+// straight from its source tree instead of depending on it.
+sourceSets {
+    main {
+        java {
+            srcDir("../app/src/main/java")
+            include("com/roxy/messengerapp/entities/Message.java")
+            include("com/roxy/messengerapp/entities/User.java")
+            include("com/roxy/messengerapp/entities/Chat.java")
+            include("com/roxy/messengerapp/utils/TimeFormatter.java")
+            include("com/roxy/messengerapp/network/WireCodec.java")
+            include("com/roxy/messengerapp/network/MessageTimestampAdapterFactory.java")
+            include("com/roxy/messengerapp/network/ChatSubscriptions.java")
+            include("com/roxy/messengerapp/adapters/MessageList.java")
+            include("com/roxy/messengerapp/adapters/MessageDiff.java")
+        }
+    }
+}
+
+dependencies {
+    implementation(libs.gson)
+}
+
+jmh {
+    warmupIterations.set(3)
+    iterations.set(5)
+    fork.set(1)
+    // Allocation per operation (gc.alloc.rate.norm) is part of every report
+    profilers.set(listOf("gc"))
+    // Machine-readable, for comparing against the baseline in README.md
+    resultFormat.set("JSON")
+    // ./gradlew :benchmark:jmh -Pjmh.includes=MessageListBenchmark
+    project.findProperty("jmh.includes")?.let { includes.set(listOf(it.toString())) }
+}
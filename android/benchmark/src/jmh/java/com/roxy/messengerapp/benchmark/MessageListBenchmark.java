@@ -0,0 +1,109 @@
+package com.roxy.messengerapp.benchmark;
+
+import com.roxy.messengerapp.adapters.MessageDiff;
+import com.roxy.messengerapp.adapters.MessageList;
+import com.roxy.messengerapp.entities.Message;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// MessageAdapter's main-thread work per incoming message: the backing list update,
+// the snapshot handed to submitList, and the diff callbacks DiffUtil runs over it.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MessageListBenchmark {
+
+    @Param({"500", "5000"})
+    public int size;
+
+    private MessageList list;
+    private List<Message> oldSnapshot;
+    private List<Message> newSnapshot;
+    private List<Message> readSnapshot;
+    private Message duplicate;
+    private Message fresh;
+    private int counter;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        List<Message> messages = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            messages.add(message("m" + i, "Сообщение " + i));
+        }
+        list = new MessageList();
+        list.setAll(messages);
+        oldSnapshot = list.snapshot();
+        list.add(message("extra", "one more"));
+        newSnapshot = list.snapshot();
+        MessageList read = new MessageList();
+        read.setAll(messages);
+        read.markAllAsRead();
+        readSnapshot = read.snapshot();
+        duplicate = message("m" + (size / 2), "dup");
+        fresh = message("fresh", "new");
+    }
+
+    // A live message for a chat with `size` rows: dedupe, append, copy for submitList
+    @Benchmark
+    public List<Message> addAndSnapshot() {
+        fresh.setId("fresh" + counter++);
+        list.add(fresh);
+        List<Message> snapshot = list.snapshot();
+        list.trimNewest(1);
+        return snapshot;
+    }
+
+    // Echo of a message we already have: should stop at the index lookup
+    @Benchmark
+    public boolean addDuplicate() {
+        return list.add(duplicate);
+    }
+
+    // What DiffUtil does for an append: one item and one contents check per unchanged row
+    @Benchmark
+    public int diffAppend() {
+        int same = 0;
+        for (int i = 0; i < oldSnapshot.size(); i++) {
+            Message oldItem = oldSnapshot.get(i);
+            Message newItem = newSnapshot.get(i);
+            if (MessageDiff.sameItem(oldItem, newItem) && MessageDiff.sameContents(oldItem, newItem)) {
+                same++;
+            }
+        }
+        return same;
+    }
+
+    // A read receipt for the whole chat: every row changed, each one a status-only payload
+    @Benchmark
+    public int diffReadReceipts() {
+        int bits = 0;
+        for (int i = 0; i < oldSnapshot.size(); i++) {
+            Message oldItem = oldSnapshot.get(i);
+            Message newItem = readSnapshot.get(i);
+            if (MessageDiff.sameItem(oldItem, newItem) && !MessageDiff.sameContents(oldItem, newItem)) {
+                bits |= MessageDiff.changePayload(oldItem, newItem);
+            }
+        }
+        return bits;
+    }
+
+    private static Message message(String id, String content) {
+        Message message = new Message();
+        message.setId(id);
+        message.setContent(content);
+        message.setType("text");
+        return message;
+    }
+}
@@ -0,0 +1,76 @@
+package com.roxy.messengerapp.benchmark;
+
+import com.roxy.messengerapp.entities.Message;
+import com.roxy.messengerapp.utils.TimeFormatter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+// Cost of producing the "HH:mm" label in MessageAdapter.onBindViewHolder.
+// Compare gc.alloc.rate.norm: legacyFormat allocates on every bind, cachedFormat should be ~0 B/op.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TimeFormatBenchmark {
+
+    private static final int ROWS = 1024;
+
+    private Message[] messages;
+    private String[] timestamps;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        messages = new Message[ROWS];
+        timestamps = new String[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            String iso = String.format(Locale.US, "2025-03-%02dT%02d:%02d:%02d.%03dZ",
+                    1 + i % 28, i % 24, i % 60, (i * 7) % 60, i % 1000);
+            timestamps[i] = iso;
+            messages[i] = new Message();
+            messages[i].setCreatedAt(iso);
+        }
+    }
+
+    // The bind path before timestamps were pre-parsed: two SimpleDateFormat and a parse per row
+    @Benchmark
+    public String legacyFormat() {
+        String isoTime = timestamps[next()];
+        try {
+            SimpleDateFormat isoFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.getDefault());
+            SimpleDateFormat displayFormat = new SimpleDateFormat("HH:mm", Locale.getDefault());
+            Date date = isoFormat.parse(isoTime);
+            return displayFormat.format(date);
+        } catch (ParseException e) {
+            return isoTime;
+        }
+    }
+
+    // Current bind path: the label is cached on the Message after the first bind
+    @Benchmark
+    public String cachedFormat() {
+        return TimeFormatter.formatTime(messages[next()]);
+    }
+
+    // One-time cost paid at deserialization
+    @Benchmark
+    public long parseOnce() {
+        return TimeFormatter.parseIsoMillis(timestamps[next()]);
+    }
+
+    private int next() {
+        cursor = (cursor + 1) & (ROWS - 1);
+        return cursor;
+    }
+}
@@ -0,0 +1,102 @@
+package com.roxy.messengerapp.benchmark;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.roxy.messengerapp.entities.Message;
+import com.roxy.messengerapp.network.MessageTimestampAdapterFactory;
+import com.roxy.messengerapp.network.WireCodec;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// One new_message event as it reaches SocketManager: JSON text through the app's Gson versus bin1.
+// The JSON side is a lower bound, on a device Socket.IO also builds an org.json.JSONObject and
+// we call toString() on it first. Bytes per event are printed once per trial.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class WireCodecBenchmark {
+
+    private static final int EVENTS = 256;
+
+    // Same shape as Sequelize's toJSON() of a Message with its sender
+    private static final String JSON_TEMPLATE = "{\"id\":\"%s\",\"content\":\"%s\",\"type\":\"text\","
+            + "\"thumbnailUrl\":null,\"isRead\":false,\"isEdited\":false,\"clientId\":\"%s\",\"seq\":%d,"
+            + "\"deletedSeq\":null,\"chatId\":\"%s\",\"senderId\":\"%s\","
+            + "\"createdAt\":\"2025-03-01T10:%02d:%02d.%03dZ\",\"updatedAt\":\"2025-03-01T10:%02d:%02d.%03dZ\","
+            + "\"deletedAt\":null,\"sender\":{\"id\":\"%s\",\"username\":\"user%d\",\"email\":\"user%d@example.com\","
+            + "\"avatar\":null,\"isOnline\":true,\"lastSeen\":\"2025-03-01T09:00:00.000Z\","
+            + "\"createdAt\":\"2025-01-01T00:00:00.000Z\",\"updatedAt\":\"2025-03-01T09:00:00.000Z\"}}";
+
+    private static final String[] TEXTS = {"ok", "Привет, как дела?", "see you at 7 then",
+            "Отправил файлы, посмотри когда будет время 🙂"};
+
+    private final Gson gson = new GsonBuilder()
+            .registerTypeAdapterFactory(new MessageTimestampAdapterFactory())
+            .create();
+
+    private String[] json;
+    private byte[][] binary;
+    private Message[] messages;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        json = new String[EVENTS];
+        binary = new byte[EVENTS][];
+        messages = new Message[EVENTS];
+        String chatId = UUID.randomUUID().toString();
+        long jsonBytes = 0;
+        long binaryBytes = 0;
+        for (int i = 0; i < EVENTS; i++) {
+            String senderId = UUID.randomUUID().toString();
+            int minute = i % 60;
+            int second = (i * 7) % 60;
+            int millis = (i * 37) % 1000;
+            json[i] = String.format(Locale.US, JSON_TEMPLATE, UUID.randomUUID(), TEXTS[i % TEXTS.length],
+                    UUID.randomUUID(), 1000 + i, chatId, senderId, minute, second, millis,
+                    minute, second, millis, senderId, i, i);
+            messages[i] = gson.fromJson(json[i], Message.class);
+            binary[i] = WireCodec.encodeMessage(messages[i]);
+            jsonBytes += json[i].getBytes(StandardCharsets.UTF_8).length;
+            binaryBytes += binary[i].length;
+        }
+        System.out.printf(Locale.US, "%nnew_message bytes/event: json=%d bin1=%d%n",
+                jsonBytes / EVENTS, binaryBytes / EVENTS);
+        System.out.printf(Locale.US, "message_deleted bytes/event: json=%d bin1=%d%n",
+                String.format(Locale.US, "{\"messageId\":\"%s\",\"chatId\":\"%s\",\"seq\":1234}",
+                        messages[0].getId(), chatId).length(),
+                WireCodec.encodeDeletion(messages[0].getId(), chatId, 1234).length);
+    }
+
+    @Benchmark
+    public Message decodeJson() {
+        return gson.fromJson(json[next()], Message.class);
+    }
+
+    @Benchmark
+    public Message decodeBinary() {
+        return WireCodec.decodeMessage(binary[next()]);
+    }
+
+    // Server side cost, mirrored in wireCodec.js
+    @Benchmark
+    public byte[] encodeBinary() {
+        return WireCodec.encodeMessage(messages[next()]);
+    }
+
+    private int next() {
+        cursor = (cursor + 1) & (EVENTS - 1);
+        return cursor;
+    }
+}
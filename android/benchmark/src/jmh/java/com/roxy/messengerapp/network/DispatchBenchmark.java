@@ -0,0 +1,58 @@
+package com.roxy.messengerapp.network;
+
+import com.roxy.messengerapp.entities.Message;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// SocketManager's per-frame fan-out of a batch of new messages (ChatSubscriptions.dispatch):
+// the chat list and caches listen to every chat, one open chat screen listens to its own.
+// In this package because ChatSubscriptions is package-private.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DispatchBenchmark {
+
+    private static final int CHATS = 20;
+
+    @Param({"1", "50"})
+    public int batchSize;
+
+    private ChatSubscriptions<Consumer<List<Message>>> subscriptions;
+    private List<Message> batch;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        subscriptions = new ChatSubscriptions<>();
+        // ApiRepository and ChatsFragment
+        subscriptions.subscribeAll(blackhole::consume);
+        subscriptions.subscribeAll(blackhole::consume);
+        // MessageChatFragment for chat0
+        subscriptions.subscribe("chat0", blackhole::consume);
+
+        batch = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            Message message = new Message();
+            message.setId("m" + i);
+            message.setChatId("chat" + (i % CHATS));
+            batch.add(message);
+        }
+    }
+
+    @Benchmark
+    public void dispatch() {
+        subscriptions.dispatch(batch, Message::getChatId, Consumer::accept);
+    }
+}
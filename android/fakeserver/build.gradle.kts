@@ -0,0 +1,57 @@
+// In-process fake backend for offline client tests: REST from ApiService, Socket.IO events
+// from SocketManager, scriptable latency, bursts and disconnects.
+// Tests: ./gradlew :fakeserver:test   Standalone: ./gradlew :fakeserver:run --args="8080"
+plugins {
+    `java-library`
+    application
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+// Same trick as :benchmark — the client's Android-free classes are compiled from the app's
+// source tree, so the fake serves exactly the contract the app parses.
+val appSources = listOf(
+    "com/roxy/messengerapp/entities/Message.java",
+    "com/roxy/messengerapp/entities/User.java",
+    "com/roxy/messengerapp/entities/Chat.java",
+    "com/roxy/messengerapp/utils/TimeFormatter.java",
+    "com/roxy/messengerapp/network/ApiService.java",
+    "com/roxy/messengerapp/network/MessageTimestampAdapterFactory.java",
+    "com/roxy/messengerapp/network/WireCodec.java"
+)
+
+sourceSets {
+    main {
+        java {
+            srcDir("../app/src/main/java")
+            include("com/roxy/messengerapp/fakeserver/**")
+            appSources.forEach { include(it) }
+        }
+    }
+    test {
+        java {
+            // The app's socket options, to connect the way the app does
+            srcDir("../app/src/main/java")
+            include("com/roxy/messengerapp/fakeserver/**")
+            include("com/roxy/messengerapp/network/SocketOptions.java")
+        }
+    }
+}
+
+dependencies {
+    api("com.squareup.okhttp3:mockwebserver:4.12.0")
+    implementation(libs.gson)
+    // ApiService's annotations; its request/response classes are the wire format
+    implementation("com.squareup.retrofit2:retrofit:2.9.0")
+
+    testImplementation(libs.junit)
+    testImplementation("com.squareup.retrofit2:converter-gson:2.9.0")
+    testImplementation("io.socket:socket.io-client:2.1.0")
+}
+
+application {
+    mainClass.set("com.roxy.messengerapp.fakeserver.FakeBackend")
+}
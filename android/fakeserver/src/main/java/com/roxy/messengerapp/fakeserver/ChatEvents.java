@@ -0,0 +1,208 @@
+package com.roxy.messengerapp.fakeserver;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.roxy.messengerapp.entities.Message;
+import com.roxy.messengerapp.network.WireCodec;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// События сокета — повтор backend/src/socket/socketHandler.js поверх FakeStore.
+// bin1-клиенты получают new_message, message_deleted и user_typing в WireCodec,
+// остальные — JSON; в обратную сторону сервер принимает оба вида.
+final class ChatEvents implements SocketIoServer.ConnectionHandler, SocketIoServer.EventHandler {
+
+    private final FakeStore store;
+    private final Gson gson;
+    private SocketIoServer server;
+    // sid -> chats the socket is typing in, to send the stops when it goes away
+    private final ConcurrentHashMap<String, Set<String>> typingBySession = new ConcurrentHashMap<>();
+
+    final AtomicLong connects = new AtomicLong();
+    final AtomicLong disconnects = new AtomicLong();
+    final AtomicLong messagesReceived = new AtomicLong();
+
+    ChatEvents(FakeStore store, Gson gson) {
+        this.store = store;
+        this.gson = gson;
+    }
+
+    void attach(SocketIoServer server) {
+        this.server = server;
+    }
+
+    @Override
+    public String authenticate(JsonObject auth) {
+        JsonElement token = auth.get("token");
+        return token != null && token.isJsonPrimitive() ? store.userIdForToken(token.getAsString()) : null;
+    }
+
+    @Override
+    public void onConnect(SocketIoServer.Session session) {
+        connects.incrementAndGet();
+        store.setOnline(session.userId, true);
+        JsonObject codec = new JsonObject();
+        codec.addProperty("codec", isBinary(session) ? WireCodec.NAME : "json");
+        session.emit("codec", codec);
+        for (String chatId : store.chatIdsOf(session.userId)) {
+            session.join(chatId);
+        }
+    }
+
+    @Override
+    public void onDisconnect(SocketIoServer.Session session) {
+        disconnects.incrementAndGet();
+        Set<String> typing = typingChats(session);
+        for (String chatId : typing) {
+            emitTyping(session, chatId, false);
+        }
+        typingBySession.remove(session.sid);
+        store.setOnline(session.userId, false);
+        JsonObject offline = new JsonObject();
+        offline.addProperty("userId", session.userId);
+        for (SocketIoServer.Session other : server.sessions()) {
+            if (other != session && other.isConnected()) {
+                other.emit("user_offline", offline);
+            }
+        }
+    }
+
+    @Override
+    public void onEvent(SocketIoServer.Session session, String event, Object data, SocketIoServer.Ack ack) {
+        switch (event) {
+            case "send_message": {
+                Message draft = data instanceof byte[]
+                        ? WireCodec.decodeSend((byte[]) data)
+                        : gson.fromJson((JsonElement) data, Message.class);
+                JsonObject result = publish(session.userId, draft);
+                if (ack != null) ack.send(result);
+                break;
+            }
+            case "send_message_batch": {
+                JsonArray results = new JsonArray();
+                JsonElement messages = object(data).get("messages");
+                if (messages != null && messages.isJsonArray()) {
+                    for (JsonElement item : messages.getAsJsonArray()) {
+                        results.add(publish(session.userId, gson.fromJson(item, Message.class)));
+                    }
+                }
+                JsonObject response = new JsonObject();
+                response.add("results", results);
+                if (ack != null) ack.send(response);
+                break;
+            }
+            case "delete_message": {
+                String chatId = string(object(data), "chatId");
+                String messageId = string(object(data), "messageId");
+                long seq = chatId == null || messageId == null ? -1 : store.deleteMessage(session.userId, chatId, messageId);
+                if (seq < 0) return;
+                JsonObject deletion = new JsonObject();
+                deletion.addProperty("messageId", messageId);
+                deletion.addProperty("chatId", chatId);
+                deletion.addProperty("seq", seq);
+                emitToChat(null, chatId, "message_deleted", deletion, WireCodec.encodeDeletion(messageId, chatId, seq));
+                break;
+            }
+            case "join_chat": {
+                String chatId = string(object(data), "chatId");
+                if (chatId != null && store.isMember(chatId, session.userId)) {
+                    session.join(chatId);
+                }
+                break;
+            }
+            case "mark_read": {
+                String chatId = string(object(data), "chatId");
+                if (chatId == null) return;
+                store.markRead(chatId, session.userId);
+                JsonObject read = new JsonObject();
+                read.addProperty("chatId", chatId);
+                read.addProperty("userId", session.userId);
+                server.emitToRoom(chatId, null, "messages_read", read);
+                break;
+            }
+            case "typing_start":
+            case "typing_stop":
+            case "typing": {
+                String chatId = data instanceof byte[]
+                        ? WireCodec.decodeChatRef((byte[]) data)
+                        : string(object(data), "chatId");
+                emitTyping(session, chatId, !event.equals("typing_stop"));
+                break;
+            }
+            default:
+                break;
+        }
+    }
+
+    // Stores and fans out one message; a retried clientId only gets its ack again
+    JsonObject publish(String senderId, Message draft) {
+        JsonObject result = new JsonObject();
+        FakeStore.Stored stored = draft == null ? null : store.storeMessage(senderId, draft);
+        if (stored == null) {
+            result.addProperty("ok", false);
+            // Unknown chat or not a member: sending it again can't help
+            result.addProperty("retry", false);
+            result.addProperty("clientId", draft != null ? draft.getClientId() : null);
+            result.addProperty("error", "Ошибка отправки сообщения");
+            return result;
+        }
+        messagesReceived.incrementAndGet();
+        JsonElement json = gson.toJsonTree(stored.message);
+        if (stored.created) {
+            emitToChat(null, stored.message.getChatId(), "new_message", json, WireCodec.encodeMessage(stored.message));
+        }
+        result.addProperty("ok", true);
+        result.addProperty("clientId", stored.message.getClientId());
+        result.add("message", json);
+        return result;
+    }
+
+    // ===== helpers =====
+
+    private Set<String> typingChats(SocketIoServer.Session session) {
+        return typingBySession.computeIfAbsent(session.sid, sid -> ConcurrentHashMap.newKeySet());
+    }
+
+    // One event per transition, like emitTyping in socketHandler.js
+    private void emitTyping(SocketIoServer.Session session, String chatId, boolean typing) {
+        if (chatId == null) return;
+        Set<String> chats = typingChats(session);
+        if (typing) {
+            chats.add(chatId);
+        } else if (!chats.remove(chatId)) {
+            return;
+        }
+        JsonObject payload = new JsonObject();
+        payload.addProperty("chatId", chatId);
+        payload.addProperty("userId", session.userId);
+        payload.addProperty("isTyping", typing);
+        emitToChat(session, chatId, "user_typing", payload, WireCodec.encodeTyping(chatId, session.userId, typing));
+    }
+
+    // except: the sender for socket.to(), null for io.to()
+    private void emitToChat(SocketIoServer.Session except, String chatId, String event, JsonElement json, byte[] binary) {
+        for (SocketIoServer.Session session : server.sessions()) {
+            if (session == except || !session.isConnected() || !session.rooms.contains(chatId)) continue;
+            session.emit(event, isBinary(session) ? binary : json);
+        }
+    }
+
+    private static boolean isBinary(SocketIoServer.Session session) {
+        return WireCodec.NAME.equals(session.codec);
+    }
+
+    private static JsonObject object(Object data) {
+        return data instanceof JsonElement && ((JsonElement) data).isJsonObject()
+                ? ((JsonElement) data).getAsJsonObject()
+                : new JsonObject();
+    }
+
+    private static String string(JsonObject object, String name) {
+        JsonElement value = object.get(name);
+        return value != null && value.isJsonPrimitive() ? value.getAsString() : null;
+    }
+}
@@ -0,0 +1,282 @@
+package com.roxy.messengerapp.fakeserver;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import com.roxy.messengerapp.entities.Message;
+import com.roxy.messengerapp.entities.User;
+import com.roxy.messengerapp.network.MessageTimestampAdapterFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+// Фейковый бэкенд в процессе теста: REST из ApiService и события сокета из SocketManager,
+// данные в памяти. Нужен, чтобы мерить клиент без Node, Postgres и сети — одинаково
+// на любой CI-машине. Задержки, пачки сообщений и обрывы задаются из теста:
+//
+//   try (FakeBackend backend = FakeBackend.start()) {
+//       FakeBackend.Account alice = backend.createUser("alice");
+//       backend.setSocketLatency(150, 50);
+//       backend.dropSockets();  // клиент должен переподключиться сам
+//   }
+public final class FakeBackend implements Closeable {
+
+    // Keep a reference, or the level is lost when the logger is collected
+    private static final Logger MOCK_WEB_SERVER_LOG = Logger.getLogger(MockWebServer.class.getName());
+
+    public static final String PASSWORD = "password";
+
+    public static final class Account {
+        public final User user;
+        public final String token;
+
+        Account(User user, String token) {
+            this.user = user;
+            this.token = token;
+        }
+
+        public String getId() {
+            return user.getId();
+        }
+    }
+
+    // Everything a test can turn on the fly; read by the HTTP and socket threads
+    static final class Faults {
+        private volatile long restDelayMs;
+        private volatile long restJitterMs;
+        private volatile long socketDelayMs;
+        private volatile long socketJitterMs;
+        private volatile boolean socketsAvailable = true;
+        private final AtomicInteger failures = new AtomicInteger();
+
+        long restDelayMs() {
+            return restDelayMs + jitter(restJitterMs);
+        }
+
+        long socketDelayMs() {
+            return socketDelayMs + jitter(socketJitterMs);
+        }
+
+        boolean socketsAvailable() {
+            return socketsAvailable;
+        }
+
+        boolean takeFailure() {
+            return failures.getAndUpdate(n -> Math.max(0, n - 1)) > 0;
+        }
+
+        private static long jitter(long maxMs) {
+            return maxMs <= 0 ? 0 : ThreadLocalRandom.current().nextLong(maxMs + 1);
+        }
+    }
+
+    private final MockWebServer server = new MockWebServer();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "fakeserver-socket");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Faults faults = new Faults();
+    private final FakeStore store = new FakeStore();
+    private final Gson gson = new GsonBuilder()
+            .registerTypeAdapterFactory(new MessageTimestampAdapterFactory())
+            .create();
+    private final ChatEvents events = new ChatEvents(store, gson);
+    private final SocketIoServer sockets = new SocketIoServer(scheduler, faults, events, events);
+    private RestApi rest;
+
+    private FakeBackend() {
+        events.attach(sockets);
+    }
+
+    // Random free port on localhost
+    public static FakeBackend start() throws IOException {
+        return start(InetAddress.getLoopbackAddress(), 0);
+    }
+
+    public static FakeBackend start(InetAddress address, int port) throws IOException {
+        MOCK_WEB_SERVER_LOG.setLevel(Level.WARNING);
+        FakeBackend backend = new FakeBackend();
+        backend.server.start(address, port);
+        backend.rest = new RestApi(backend.store, backend.gson, backend.url());
+        backend.server.setDispatcher(backend.new Routes());
+        return backend;
+    }
+
+    // With a trailing slash, as Retrofit wants it; IO.socket() takes it as is
+    public String url() {
+        return server.url("/").toString();
+    }
+
+    public int port() {
+        return server.getPort();
+    }
+
+    // ===== Faults =====
+
+    // Before every REST response: base plus a uniform random 0..jitter
+    public void setRestLatency(long baseMs, long jitterMs) {
+        faults.restDelayMs = baseMs;
+        faults.restJitterMs = jitterMs;
+    }
+
+    // Before every packet to a socket, order is kept per socket
+    public void setSocketLatency(long baseMs, long jitterMs) {
+        faults.socketDelayMs = baseMs;
+        faults.socketJitterMs = jitterMs;
+    }
+
+    // The next count REST calls answer 503
+    public void failNextRequests(int count) {
+        faults.failures.set(count);
+    }
+
+    // false: new socket handshakes get 503, like a backend that is down; live sockets stay
+    public void setSocketsAvailable(boolean available) {
+        faults.socketsAvailable = available;
+    }
+
+    // Transport closed under the sockets, as when the network goes away. Clients reconnect.
+    public int dropSockets() {
+        int count = 0;
+        for (SocketIoServer.Session session : new ArrayList<>(sockets.sessions())) {
+            session.drop();
+            count++;
+        }
+        return count;
+    }
+
+    // Server-side disconnect; socket.io clients don't reconnect after it on their own
+    public int disconnectSockets() {
+        int count = 0;
+        for (SocketIoServer.Session session : new ArrayList<>(sockets.sessions())) {
+            if (session.isConnected()) {
+                session.disconnect();
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // ===== Data =====
+
+    // Email username@fake.local, password PASSWORD
+    public Account createUser(String username) {
+        FakeStore.Account account = store.register(username, username + "@fake.local", PASSWORD);
+        if (account == null) {
+            throw new IllegalArgumentException("User exists: " + username);
+        }
+        return new Account(account.user, account.token);
+    }
+
+    // Private chat for two, group chat for more. As with the real backend, sockets that
+    // are already connected only get its events after join_chat.
+    public String createChat(Account owner, Account... others) {
+        String chatId;
+        if (others.length == 1) {
+            chatId = store.createPrivateChat(owner.getId(), others[0].getId()).chat.getId();
+        } else {
+            List<String> ids = new ArrayList<>();
+            for (Account other : others) {
+                ids.add(other.getId());
+            }
+            chatId = store.createGroupChat(owner.getId(), "group", ids).getId();
+        }
+        return chatId;
+    }
+
+    // count messages from sender, published back to back as if they all arrived at once
+    public List<String> burst(String chatId, Account sender, int count) {
+        List<String> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Message draft = new Message();
+            draft.setChatId(chatId);
+            draft.setType("text");
+            draft.setContent("burst " + i);
+            JsonObject result = events.publish(sender.getId(), draft);
+            if (!result.get("ok").getAsBoolean()) {
+                throw new IllegalArgumentException(sender.user.getUsername() + " is not in chat " + chatId);
+            }
+            ids.add(result.getAsJsonObject("message").get("id").getAsString());
+        }
+        return ids;
+    }
+
+    // ===== Observation =====
+
+    public int connectedSockets() {
+        int count = 0;
+        for (SocketIoServer.Session session : sockets.sessions()) {
+            if (session.isConnected()) count++;
+        }
+        return count;
+    }
+
+    // Socket.IO connects accepted since start, reconnects included
+    public long socketConnects() {
+        return events.connects.get();
+    }
+
+    public long socketDisconnects() {
+        return events.disconnects.get();
+    }
+
+    // Messages stored from send_message, batches and bursts
+    public long messagesReceived() {
+        return events.messagesReceived.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        dropSockets();
+        scheduler.shutdownNow();
+        server.shutdown();
+    }
+
+    private final class Routes extends Dispatcher {
+        @Override
+        public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+            String path = request.getPath();
+            if (path != null && path.startsWith(SocketIoServer.PATH)) {
+                return sockets.handle(request);
+            }
+            if (faults.takeFailure()) {
+                return new MockResponse().setResponseCode(503).setBody("{\"message\":\"Service Unavailable\"}");
+            }
+            MockResponse response = rest.handle(request);
+            long delay = faults.restDelayMs();
+            if (delay > 0) {
+                response.setHeadersDelay(delay, TimeUnit.MILLISECONDS);
+            }
+            return response;
+        }
+    }
+
+    // Standalone, for the app on an emulator (http://10.0.2.2:<port>):
+    // ./gradlew :fakeserver:run --args="8080"
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        FakeBackend backend = start(InetAddress.getByName("0.0.0.0"), port);
+        Account demo = backend.createUser("demo");
+        Account echo = backend.createUser("echo");
+        backend.createChat(demo, echo);
+        System.out.println("Fake backend on port " + backend.port()
+                + ", users demo@fake.local and echo@fake.local, password " + PASSWORD);
+        Thread.currentThread().join();
+    }
+}
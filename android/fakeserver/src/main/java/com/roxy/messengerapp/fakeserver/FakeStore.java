@@ -0,0 +1,385 @@
+package com.roxy.messengerapp.fakeserver;
+
+import com.roxy.messengerapp.entities.Chat;
+import com.roxy.messengerapp.entities.Message;
+import com.roxy.messengerapp.entities.User;
+import com.roxy.messengerapp.network.ApiService;
+import com.roxy.messengerapp.utils.TimeFormatter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+// Данные фейкового бэкенда в памяти: те же правила, что у контроллеров backend/src
+// (seq на каждое событие чата, дедупликация по clientId, мягкое удаление для sync).
+// Все методы synchronized, наружу уходят только копии сущностей.
+final class FakeStore {
+
+    // Same cap as SYNC_LIMIT in chatController.js
+    static final int SYNC_LIMIT = 200;
+
+    static final class Account {
+        final User user;
+        final String password;
+        final String token;
+
+        Account(User user, String password, String token) {
+            this.user = user;
+            this.password = password;
+            this.token = token;
+        }
+    }
+
+    static final class Stored {
+        final Message message;
+        final boolean created;
+
+        Stored(Message message, boolean created) {
+            this.message = message;
+            this.created = created;
+        }
+    }
+
+    private static final class ChatRecord {
+        final Chat chat;
+        final Set<String> members = new LinkedHashSet<>();
+        final List<Message> messages = new ArrayList<>();
+        // messageId -> seq of the deletion, what sync reports as deletedIds
+        final Map<String, Long> deleted = new LinkedHashMap<>();
+        long lastSeq;
+
+        ChatRecord(Chat chat) {
+            this.chat = chat;
+        }
+    }
+
+    private final Map<String, Account> accounts = new HashMap<>();
+    private final Map<String, String> idsByEmail = new HashMap<>();
+    private final Map<String, String> idsByToken = new HashMap<>();
+    private final Map<String, ChatRecord> chats = new LinkedHashMap<>();
+    // senderId + clientId -> message id, the retry of a lost ack gets the original back
+    private final Map<String, String> sentByClientId = new HashMap<>();
+
+    // ===== USERS =====
+
+    synchronized Account register(String username, String email, String password) {
+        if (email == null || idsByEmail.containsKey(email)) return null;
+        for (Account account : accounts.values()) {
+            if (account.user.getUsername().equals(username)) return null;
+        }
+        User user = new User(UUID.randomUUID().toString(), username, email, null, false);
+        user.setLastSeen(now());
+        Account account = new Account(user, password, "fake." + UUID.randomUUID());
+        accounts.put(user.getId(), account);
+        idsByEmail.put(email, user.getId());
+        idsByToken.put(account.token, user.getId());
+        return copy(account);
+    }
+
+    synchronized Account login(String email, String password) {
+        Account account = accounts.get(idsByEmail.get(email));
+        if (account == null || !account.password.equals(password)) return null;
+        return copy(account);
+    }
+
+    synchronized String userIdForToken(String token) {
+        return token == null ? null : idsByToken.get(token);
+    }
+
+    synchronized User user(String userId) {
+        Account account = accounts.get(userId);
+        return account == null ? null : copy(account.user);
+    }
+
+    synchronized List<User> searchUsers(String query, String exceptUserId) {
+        String needle = query == null ? "" : query.toLowerCase();
+        List<User> found = new ArrayList<>();
+        for (Account account : accounts.values()) {
+            User user = account.user;
+            if (user.getId().equals(exceptUserId)) continue;
+            if (user.getUsername().toLowerCase().contains(needle)) {
+                found.add(copy(user));
+            }
+        }
+        return found;
+    }
+
+    synchronized User updateUser(String userId, String username, String avatar) {
+        Account account = accounts.get(userId);
+        if (account == null) return null;
+        if (username != null) account.user.setUsername(username);
+        if (avatar != null) account.user.setImageURL(avatar);
+        return copy(account.user);
+    }
+
+    synchronized void setOnline(String userId, boolean online) {
+        Account account = accounts.get(userId);
+        if (account == null) return;
+        account.user.setOnline(online);
+        if (!online) {
+            account.user.setLastSeen(now());
+        }
+    }
+
+    // ===== CHATS =====
+
+    // Existing private chat of the two comes back with isNew = false
+    synchronized ApiService.ChatResponse createPrivateChat(String userId, String otherId) {
+        ApiService.ChatResponse response = new ApiService.ChatResponse();
+        for (ChatRecord record : chats.values()) {
+            if ("private".equals(record.chat.getType())
+                    && record.members.contains(userId) && record.members.contains(otherId)) {
+                response.chat = toChat(record, false);
+                return response;
+            }
+        }
+        ChatRecord record = newChat("private", null);
+        record.members.add(userId);
+        record.members.add(otherId);
+        response.chat = toChat(record, false);
+        response.isNew = true;
+        return response;
+    }
+
+    synchronized Chat createGroupChat(String ownerId, String name, List<String> userIds) {
+        ChatRecord record = newChat("group", name);
+        record.members.add(ownerId);
+        for (String userId : userIds) {
+            if (accounts.containsKey(userId)) record.members.add(userId);
+        }
+        return toChat(record, false);
+    }
+
+    // Newest activity first, each with its last message, like getMyChats
+    synchronized List<Chat> chatsOf(String userId) {
+        List<ChatRecord> mine = new ArrayList<>();
+        for (ChatRecord record : chats.values()) {
+            if (record.members.contains(userId)) mine.add(record);
+        }
+        mine.sort((a, b) -> String.valueOf(b.chat.getUpdatedAt()).compareTo(String.valueOf(a.chat.getUpdatedAt())));
+        List<Chat> result = new ArrayList<>();
+        for (ChatRecord record : mine) {
+            result.add(toChat(record, true));
+        }
+        return result;
+    }
+
+    synchronized List<String> chatIdsOf(String userId) {
+        List<String> ids = new ArrayList<>();
+        for (ChatRecord record : chats.values()) {
+            if (record.members.contains(userId)) ids.add(record.chat.getId());
+        }
+        return ids;
+    }
+
+    synchronized boolean isMember(String chatId, String userId) {
+        ChatRecord record = chats.get(chatId);
+        return record != null && record.members.contains(userId);
+    }
+
+    synchronized boolean deleteChat(String chatId, String userId) {
+        if (!isMember(chatId, userId)) return false;
+        chats.remove(chatId);
+        return true;
+    }
+
+    // ===== MESSAGES =====
+
+    // Oldest first. before/after are message ids; without a cursor offset counts from the newest.
+    // Returns null when the cursor is not in the chat.
+    synchronized ApiService.MessagesResponse messages(String chatId, int limit, int offset, String before, String after) {
+        ChatRecord record = chats.get(chatId);
+        List<Message> all = record.messages;
+        int pageSize = Math.min(limit > 0 ? limit : 50, 200);
+        int from;
+        int to;
+        String cursorId = before != null ? before : after;
+        if (cursorId != null) {
+            int cursor = indexOf(all, cursorId);
+            if (cursor < 0) return null;
+            if (before != null) {
+                to = cursor;
+                from = Math.max(0, to - pageSize);
+            } else {
+                from = cursor + 1;
+                to = Math.min(all.size(), from + pageSize);
+            }
+        } else {
+            to = Math.max(0, all.size() - Math.max(0, offset));
+            from = Math.max(0, to - pageSize);
+        }
+        ApiService.MessagesResponse response = new ApiService.MessagesResponse();
+        response.messages = copies(all.subList(from, to));
+        response.hasMore = after != null ? to < all.size() : from > 0;
+        return response;
+    }
+
+    synchronized Stored storeMessage(String senderId, Message draft) {
+        ChatRecord record = chats.get(draft.getChatId());
+        if (record == null || !record.members.contains(senderId)) return null;
+        String dedupKey = senderId + "/" + draft.getClientId();
+        if (draft.getClientId() != null && sentByClientId.containsKey(dedupKey)) {
+            Message existing = find(sentByClientId.get(dedupKey));
+            if (existing != null) return new Stored(new Message(existing), false);
+        }
+        Message message = new Message();
+        message.setId(UUID.randomUUID().toString());
+        message.setChatId(record.chat.getId());
+        message.setSenderId(senderId);
+        message.setClientId(draft.getClientId());
+        message.setType(draft.getType() != null ? draft.getType() : "text");
+        message.setContent(draft.getContent());
+        message.setThumbnailUrl(draft.getThumbnailUrl());
+        message.setWidth(draft.getWidth());
+        message.setHeight(draft.getHeight());
+        message.setBlurHash(draft.getBlurHash());
+        message.setSeq(++record.lastSeq);
+        message.setCreatedAt(now());
+        User sender = accounts.get(senderId).user;
+        message.setSender(new User(sender.getId(), sender.getUsername(), null, sender.getImageURL(), sender.isOnline()));
+        record.messages.add(message);
+        record.chat.setUpdatedAt(message.getCreatedAt());
+        if (draft.getClientId() != null) {
+            sentByClientId.put(dedupKey, message.getId());
+        }
+        return new Stored(new Message(message), true);
+    }
+
+    // Seq of the deletion, or -1 when it's not the sender's message in that chat
+    synchronized long deleteMessage(String userId, String chatId, String messageId) {
+        ChatRecord record = chats.get(chatId);
+        if (record == null) return -1;
+        int index = indexOf(record.messages, messageId);
+        if (index < 0 || !userId.equals(record.messages.get(index).getSenderId())) return -1;
+        record.messages.remove(index);
+        long seq = ++record.lastSeq;
+        record.deleted.put(messageId, seq);
+        return seq;
+    }
+
+    // Marks the others' messages as read; they are replaced, never mutated, since copies are out
+    synchronized void markRead(String chatId, String readerId) {
+        ChatRecord record = chats.get(chatId);
+        if (record == null) return;
+        for (int i = 0; i < record.messages.size(); i++) {
+            Message message = record.messages.get(i);
+            if (!message.isSeen() && !readerId.equals(message.getSenderId())) {
+                Message read = new Message(message);
+                read.setSeen(true);
+                record.messages.set(i, read);
+            }
+        }
+    }
+
+    // Same contract as syncChats: only chats that changed since the client's watermark
+    synchronized List<ApiService.ChatChanges> sync(String userId, Map<String, Long> since) {
+        Map<String, Long> known = since != null ? since : Collections.emptyMap();
+        List<ApiService.ChatChanges> result = new ArrayList<>();
+        for (ChatRecord record : chats.values()) {
+            if (!record.members.contains(userId)) continue;
+            String chatId = record.chat.getId();
+            boolean isKnown = known.containsKey(chatId);
+            long from = isKnown && known.get(chatId) != null ? known.get(chatId) : 0;
+            if (isKnown && from >= record.lastSeq) continue;
+
+            List<Message> newer = new ArrayList<>();
+            for (int i = record.messages.size() - 1; i >= 0; i--) {
+                Message message = record.messages.get(i);
+                if (message.getSeq() <= from) break;
+                newer.add(0, message);
+            }
+            List<String> deletedIds = new ArrayList<>();
+            for (Map.Entry<String, Long> entry : record.deleted.entrySet()) {
+                if (entry.getValue() > from) deletedIds.add(entry.getKey());
+            }
+
+            ApiService.ChatChanges changes = new ApiService.ChatChanges();
+            changes.chatId = chatId;
+            changes.lastSeq = record.lastSeq;
+            changes.reset = !isKnown || newer.size() > SYNC_LIMIT || deletedIds.size() > SYNC_LIMIT;
+            int keep = isKnown ? SYNC_LIMIT : 1;
+            changes.messages = copies(newer.subList(Math.max(0, newer.size() - keep), newer.size()));
+            changes.deletedIds = changes.reset ? new ArrayList<>() : deletedIds;
+            result.add(changes);
+        }
+        return result;
+    }
+
+    synchronized List<String> membersOf(String chatId) {
+        ChatRecord record = chats.get(chatId);
+        return record == null ? Collections.emptyList() : new ArrayList<>(record.members);
+    }
+
+    // ===== helpers =====
+
+    private ChatRecord newChat(String type, String name) {
+        Chat chat = new Chat();
+        chat.setId(UUID.randomUUID().toString());
+        chat.setType(type);
+        chat.setName(name);
+        chat.setCreatedAt(now());
+        chat.setUpdatedAt(chat.getCreatedAt());
+        ChatRecord record = new ChatRecord(chat);
+        chats.put(chat.getId(), record);
+        return record;
+    }
+
+    private Chat toChat(ChatRecord record, boolean withLastMessage) {
+        Chat chat = new Chat(record.chat);
+        chat.setLastSeq(record.lastSeq);
+        List<User> users = new ArrayList<>();
+        for (String memberId : record.members) {
+            users.add(copy(accounts.get(memberId).user));
+        }
+        chat.setUsers(users);
+        List<Message> last = new ArrayList<>();
+        if (withLastMessage && !record.messages.isEmpty()) {
+            last.add(new Message(record.messages.get(record.messages.size() - 1)));
+        }
+        chat.setMessages(last);
+        return chat;
+    }
+
+    private Message find(String messageId) {
+        for (ChatRecord record : chats.values()) {
+            int index = indexOf(record.messages, messageId);
+            if (index >= 0) return record.messages.get(index);
+        }
+        return null;
+    }
+
+    private static int indexOf(List<Message> messages, String messageId) {
+        for (int i = messages.size() - 1; i >= 0; i--) {
+            if (messages.get(i).getId().equals(messageId)) return i;
+        }
+        return -1;
+    }
+
+    private static List<Message> copies(List<Message> messages) {
+        List<Message> result = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            result.add(new Message(message));
+        }
+        return result;
+    }
+
+    private static Account copy(Account account) {
+        return new Account(copy(account.user), account.password, account.token);
+    }
+
+    private static User copy(User user) {
+        User copy = new User(user.getId(), user.getUsername(), user.getEmail(), user.getImageURL(), user.isOnline());
+        copy.setLastSeen(user.getLastSeen());
+        return copy;
+    }
+
+    private static String now() {
+        return TimeFormatter.formatIso(System.currentTimeMillis());
+    }
+}
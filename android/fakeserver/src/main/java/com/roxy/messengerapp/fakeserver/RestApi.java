@@ -0,0 +1,236 @@
+package com.roxy.messengerapp.fakeserver;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.roxy.messengerapp.entities.User;
+import com.roxy.messengerapp.network.ApiService;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+
+// REST-маршруты ApiService поверх FakeStore. Коды и тексты ошибок как у контроллеров
+// backend/src, тела ответов — те же классы ApiService, что разбирает приложение.
+final class RestApi {
+
+    private final FakeStore store;
+    private final Gson gson;
+    private final String baseUrl;
+    private final Map<String, StoredObject> objects = new ConcurrentHashMap<>();
+
+    private static final class StoredObject {
+        final byte[] data;
+        final String contentType;
+
+        StoredObject(byte[] data, String contentType) {
+            this.data = data;
+            this.contentType = contentType;
+        }
+    }
+
+    RestApi(FakeStore store, Gson gson, String baseUrl) {
+        this.store = store;
+        this.gson = gson;
+        this.baseUrl = baseUrl;
+    }
+
+    MockResponse handle(RecordedRequest request) {
+        HttpUrl url = request.getRequestUrl();
+        List<String> path = url.pathSegments();
+        String method = request.getMethod();
+        String route = method + " " + String.join("/", path);
+
+        // Stand-in for S3: presigned URLs point here, uploads and image loads need no token
+        if (!path.isEmpty() && path.get(0).equals("s3")) {
+            return objectStorage(method, String.join("/", path), request);
+        }
+
+        switch (route) {
+            case "POST api/auth/register": {
+                ApiService.RegisterRequest body = body(request, ApiService.RegisterRequest.class);
+                if (body == null || body.username == null || body.email == null || body.password == null) {
+                    return message(400, "Заполните все поля");
+                }
+                FakeStore.Account account = store.register(body.username, body.email, body.password);
+                if (account == null) return message(400, "Email уже используется");
+                return json(201, auth("Пользователь зарегистрирован", account));
+            }
+            case "POST api/auth/login": {
+                ApiService.LoginRequest body = body(request, ApiService.LoginRequest.class);
+                FakeStore.Account account = body == null ? null : store.login(body.email, body.password);
+                if (account == null) return message(400, "Неверные данные");
+                return json(200, auth("Вход выполнен", account));
+            }
+            default:
+                break;
+        }
+
+        String userId = store.userIdForToken(bearer(request));
+        if (userId == null) return message(401, "Неверный токен");
+
+        switch (route) {
+            case "GET api/auth/me": {
+                ApiService.UserResponse response = new ApiService.UserResponse();
+                response.user = store.user(userId);
+                return json(200, response);
+            }
+            case "GET api/chats": {
+                ApiService.ChatsResponse response = new ApiService.ChatsResponse();
+                response.chats = store.chatsOf(userId);
+                return json(200, response);
+            }
+            case "POST api/chats/private": {
+                ApiService.CreateChatRequest body = body(request, ApiService.CreateChatRequest.class);
+                if (body == null || userId.equals(body.userId)) {
+                    return message(400, "Нельзя создать чат с самим собой");
+                }
+                if (store.user(body.userId) == null) return message(404, "Пользователь не найден");
+                ApiService.ChatResponse response = store.createPrivateChat(userId, body.userId);
+                return json(response.isNew ? 201 : 200, response);
+            }
+            case "POST api/chats/group": {
+                ApiService.CreateGroupChatRequest body = body(request, ApiService.CreateGroupChatRequest.class);
+                if (body == null || body.name == null || body.name.trim().isEmpty()) {
+                    return message(400, "Название группы обязательно");
+                }
+                if (body.userIds == null || body.userIds.isEmpty()) return message(400, "Добавьте участников");
+                ApiService.ChatResponse response = new ApiService.ChatResponse();
+                response.chat = store.createGroupChat(userId, body.name.trim(), body.userIds);
+                return json(201, response);
+            }
+            case "POST api/chats/sync": {
+                ApiService.SyncRequest body = body(request, ApiService.SyncRequest.class);
+                ApiService.SyncResponse response = new ApiService.SyncResponse();
+                response.chats = store.sync(userId, body != null ? body.since : null);
+                return json(200, response);
+            }
+            case "GET api/users/search": {
+                ApiService.UsersResponse response = new ApiService.UsersResponse();
+                response.users = store.searchUsers(url.queryParameter("q"), userId);
+                return json(200, response);
+            }
+            case "POST api/users/fcm-token":
+                return message(200, "FCM токен обновлен");
+            case "PUT api/users/username": {
+                ApiService.UpdateUsernameRequest body = body(request, ApiService.UpdateUsernameRequest.class);
+                if (body == null || body.username == null || body.username.trim().length() < 3) {
+                    return message(400, "Имя должно быть не короче 3 символов");
+                }
+                return userResponse(store.updateUser(userId, body.username.trim(), null));
+            }
+            case "PUT api/users/avatar": {
+                ApiService.UpdateAvatarRequest body = body(request, ApiService.UpdateAvatarRequest.class);
+                if (body == null || body.avatarUrl == null) return message(400, "Avatar URL is required");
+                return userResponse(store.updateUser(userId, null, body.avatarUrl));
+            }
+            case "GET api/upload/presigned-url":
+            case "GET api/upload/presigned-url-avatar":
+                return presignedUrl(url);
+            default:
+                break;
+        }
+
+        // api/chats/{chatId} and api/chats/{chatId}/messages
+        if (path.size() >= 3 && path.get(0).equals("api") && path.get(1).equals("chats")) {
+            String chatId = path.get(2);
+            if (!store.isMember(chatId, userId)) return message(403, "Нет доступа к чату");
+            if (path.size() == 3 && method.equals("DELETE")) {
+                store.deleteChat(chatId, userId);
+                return message(200, "Чат удалён");
+            }
+            if (path.size() == 4 && path.get(3).equals("messages") && method.equals("GET")) {
+                ApiService.MessagesResponse response = store.messages(chatId,
+                        intParam(url, "limit", 50), intParam(url, "offset", 0),
+                        url.queryParameter("before"), url.queryParameter("after"));
+                if (response == null) return message(404, "Сообщение-курсор не найдено");
+                return json(200, response);
+            }
+        }
+        return message(404, "Not found: " + route);
+    }
+
+    private MockResponse objectStorage(String method, String key, RecordedRequest request) {
+        if (method.equals("PUT")) {
+            String contentType = request.getHeader("Content-Type");
+            objects.put(key, new StoredObject(request.getBody().readByteArray(),
+                    contentType != null ? contentType : "application/octet-stream"));
+            return new MockResponse().setResponseCode(200);
+        }
+        StoredObject object = objects.get(key);
+        if (object == null) return new MockResponse().setResponseCode(404);
+        return new MockResponse()
+                .setHeader("Content-Type", object.contentType)
+                .setBody(new Buffer().write(object.data));
+    }
+
+    private MockResponse presignedUrl(HttpUrl url) {
+        String key = "uploads/" + UUID.randomUUID();
+        ApiService.PresignedUrlResponse response = new ApiService.PresignedUrlResponse();
+        response.key = key;
+        response.presignedUrl = baseUrl + "s3/" + key;
+        response.imageUrl = baseUrl + "s3/" + key;
+        if ("true".equals(url.queryParameter("withThumbnail"))) {
+            response.thumbnailPresignedUrl = baseUrl + "s3/" + key + "_thumb";
+            response.thumbnailUrl = baseUrl + "s3/" + key + "_thumb";
+        }
+        return json(200, response);
+    }
+
+    private MockResponse userResponse(User user) {
+        if (user == null) return message(404, "Пользователь не найден");
+        ApiService.UserResponse response = new ApiService.UserResponse();
+        response.user = user;
+        return json(200, response);
+    }
+
+    private static ApiService.AuthResponse auth(String message, FakeStore.Account account) {
+        ApiService.AuthResponse response = new ApiService.AuthResponse();
+        response.message = message;
+        response.user = account.user;
+        response.token = account.token;
+        return response;
+    }
+
+    private <T> T body(RecordedRequest request, Class<T> type) {
+        String body = request.getBody().readUtf8();
+        if (body.isEmpty()) return null;
+        try {
+            return gson.fromJson(body, type);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static String bearer(RecordedRequest request) {
+        String header = request.getHeader("Authorization");
+        return header != null && header.startsWith("Bearer ") ? header.substring(7) : null;
+    }
+
+    private static int intParam(HttpUrl url, String name, int fallback) {
+        try {
+            String value = url.queryParameter(name);
+            return value == null ? fallback : Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+
+    private MockResponse json(int code, Object body) {
+        return new MockResponse()
+                .setResponseCode(code)
+                .setHeader("Content-Type", "application/json; charset=utf-8")
+                .setBody(gson.toJson(body));
+    }
+
+    private MockResponse message(int code, String message) {
+        JsonObject body = new JsonObject();
+        body.addProperty("message", message);
+        return json(code, body);
+    }
+}
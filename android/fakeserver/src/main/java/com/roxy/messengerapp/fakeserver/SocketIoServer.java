@@ -0,0 +1,450 @@
+package com.roxy.messengerapp.fakeserver;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.HttpUrl;
+import okhttp3.Response;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.ByteString;
+
+// Минимальный сервер Engine.IO v4 / Socket.IO v5 — ровно то, что нужно socket.io-client 2.x:
+// handshake, ping/pong, события с ack и бинарные вложения. Транспорты websocket и
+// long-polling, без апгрейда (в handshake upgrades пустой). Только неймспейс "/".
+// Всё исходящее идёт через scheduler, там же вносится задержка FakeBackend.
+final class SocketIoServer {
+
+    interface Ack {
+        void send(JsonElement response);
+    }
+
+    // data is the event's first argument: a JsonElement, a byte[] attachment or null
+    interface EventHandler {
+        void onEvent(Session session, String event, Object data, Ack ack);
+    }
+
+    interface ConnectionHandler {
+        // Returns the user id for the auth payload, null to refuse with connect_error
+        String authenticate(JsonObject auth);
+
+        void onConnect(Session session);
+
+        void onDisconnect(Session session);
+    }
+
+    static final String PATH = "/socket.io/";
+    private static final long PING_INTERVAL_MS = 25_000;
+    private static final long PING_TIMEOUT_MS = 20_000;
+
+    // Engine.IO packet types
+    private static final char OPEN = '0';
+    private static final char CLOSE = '1';
+    private static final char PING = '2';
+    private static final char PONG = '3';
+    private static final char MESSAGE = '4';
+    private static final char NOOP = '6';
+    // Not a packet type at all
+    private static final char BROKEN = '9';
+    // Socket.IO packet types
+    private static final char CONNECT = '0';
+    private static final char DISCONNECT = '1';
+    private static final char EVENT = '2';
+    private static final char ACK = '3';
+    private static final char CONNECT_ERROR = '4';
+    private static final char BINARY_EVENT = '5';
+    private static final char BINARY_ACK = '6';
+    // Separates packets in a long-polling payload
+    private static final char RECORD_SEPARATOR = '\u001e';
+
+    private final ScheduledExecutorService scheduler;
+    private final FakeBackend.Faults faults;
+    private final ConnectionHandler connections;
+    private final EventHandler events;
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+
+    SocketIoServer(ScheduledExecutorService scheduler, FakeBackend.Faults faults,
+                   ConnectionHandler connections, EventHandler events) {
+        this.scheduler = scheduler;
+        this.faults = faults;
+        this.connections = connections;
+        this.events = events;
+    }
+
+    // ===== Session: one Engine.IO connection, at most one Socket.IO socket on it =====
+
+    final class Session {
+        final String sid = UUID.randomUUID().toString();
+        final Set<String> rooms = ConcurrentHashMap.newKeySet();
+        volatile String userId;
+        volatile String codec;
+
+        private volatile WebSocket webSocket;
+        private final BlockingQueue<String> pollQueue = new LinkedBlockingQueue<>();
+        private volatile boolean closed;
+        private volatile long lastPong = System.currentTimeMillis();
+        private ScheduledFuture<?> pinger;
+        // Outgoing packets leave in order even when latency changes in between
+        private long nextSendAt;
+        // A binary packet waiting for its attachments
+        private String pendingPacket;
+        private final List<byte[]> pendingAttachments = new ArrayList<>();
+        private int pendingCount;
+
+        boolean isConnected() {
+            return userId != null && !closed;
+        }
+
+        void join(String room) {
+            rooms.add(room);
+        }
+
+        void emit(String event, Object data) {
+            JsonArray args = new JsonArray();
+            args.add(event);
+            if (data instanceof byte[]) {
+                JsonObject placeholder = new JsonObject();
+                placeholder.addProperty("_placeholder", true);
+                placeholder.addProperty("num", 0);
+                args.add(placeholder);
+                sendEngine(List.of(MESSAGE + "" + BINARY_EVENT + "1-" + args), (byte[]) data);
+            } else {
+                if (data != null) args.add((JsonElement) data);
+                sendEngine(List.of(MESSAGE + "" + EVENT + args), null);
+            }
+        }
+
+        // Server-side io disconnect: the client does not reconnect by itself
+        void disconnect() {
+            sendEngine(List.of(MESSAGE + "" + DISCONNECT), null, true);
+        }
+
+        // The transport goes away without a Socket.IO goodbye, the client reconnects
+        void drop() {
+            close(true);
+        }
+
+        private void sendEngine(List<String> packets, byte[] attachment) {
+            sendEngine(packets, attachment, false);
+        }
+
+        private void sendEngine(List<String> packets, byte[] attachment, boolean closeAfter) {
+            long delay;
+            synchronized (this) {
+                long now = System.nanoTime();
+                long at = Math.max(nextSendAt, now + TimeUnit.MILLISECONDS.toNanos(faults.socketDelayMs()));
+                nextSendAt = at;
+                delay = at - now;
+            }
+            scheduler.schedule(() -> {
+                if (closed) return;
+                for (String packet : packets) {
+                    write(packet);
+                }
+                if (attachment != null) {
+                    write(attachment);
+                }
+                if (closeAfter) {
+                    close(false);
+                }
+            }, delay, TimeUnit.NANOSECONDS);
+        }
+
+        private void write(Object packet) {
+            WebSocket ws = webSocket;
+            if (ws != null) {
+                if (packet instanceof byte[]) {
+                    ws.send(ByteString.of((byte[]) packet));
+                } else {
+                    ws.send((String) packet);
+                }
+            } else {
+                pollQueue.add(packet instanceof byte[]
+                        ? "b" + Base64.getEncoder().encodeToString((byte[]) packet)
+                        : (String) packet);
+            }
+        }
+
+        private void close(boolean abrupt) {
+            if (closed) return;
+            closed = true;
+            sessions.remove(sid);
+            if (pinger != null) pinger.cancel(false);
+            WebSocket ws = webSocket;
+            if (ws != null) {
+                if (abrupt) {
+                    // MockWebServer can't reset the TCP connection from here. A frame the client
+                    // can't parse sends it down the same "transport error" path as a dead network.
+                    ws.send(String.valueOf(BROKEN));
+                } else {
+                    ws.close(1000, null);
+                }
+            } else if (!abrupt) {
+                pollQueue.add(String.valueOf(CLOSE));
+            } else {
+                // Wake the hanging GET so it fails and the client notices
+                pollQueue.add("");
+            }
+            if (userId != null) {
+                connections.onDisconnect(this);
+            }
+        }
+
+        // ===== inbound =====
+
+        private void onEnginePacket(String packet) {
+            if (packet.isEmpty()) return;
+            switch (packet.charAt(0)) {
+                case PONG:
+                    lastPong = System.currentTimeMillis();
+                    break;
+                case CLOSE:
+                    close(false);
+                    break;
+                case MESSAGE:
+                    onSocketPacket(packet.substring(1));
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private void onAttachment(byte[] data) {
+            if (pendingPacket == null) return;
+            pendingAttachments.add(data);
+            if (pendingAttachments.size() == pendingCount) {
+                String packet = pendingPacket;
+                pendingPacket = null;
+                dispatch(packet, new ArrayList<>(pendingAttachments));
+                pendingAttachments.clear();
+            }
+        }
+
+        private void onSocketPacket(String packet) {
+            if (packet.isEmpty()) return;
+            char type = packet.charAt(0);
+            if (type == BINARY_EVENT || type == BINARY_ACK) {
+                int dash = packet.indexOf('-');
+                pendingCount = Integer.parseInt(packet.substring(1, dash));
+                pendingPacket = type + packet.substring(dash + 1);
+                pendingAttachments.clear();
+                return;
+            }
+            dispatch(packet, List.of());
+        }
+
+        private void dispatch(String packet, List<byte[]> attachments) {
+            char type = packet.charAt(0);
+            int pos = 1;
+            // Only "/" is served; a namespace prefix would come before the ack id
+            if (pos < packet.length() && packet.charAt(pos) == '/') {
+                int comma = packet.indexOf(',', pos);
+                pos = comma < 0 ? packet.length() : comma + 1;
+            }
+            int idStart = pos;
+            while (pos < packet.length() && Character.isDigit(packet.charAt(pos))) pos++;
+            Long ackId = pos > idStart ? Long.parseLong(packet.substring(idStart, pos)) : null;
+            String json = packet.substring(pos);
+
+            switch (type) {
+                case CONNECT:
+                    onConnectPacket(json);
+                    break;
+                case DISCONNECT:
+                    close(false);
+                    break;
+                case EVENT:
+                case BINARY_EVENT:
+                    if (userId == null || json.isEmpty()) return;
+                    JsonArray args = JsonParser.parseString(json).getAsJsonArray();
+                    String event = args.get(0).getAsString();
+                    Object data = args.size() > 1 ? attachment(args.get(1), attachments) : null;
+                    Ack ack = ackId == null ? null : response -> {
+                        JsonArray payload = new JsonArray();
+                        payload.add(response);
+                        sendEngine(List.of(MESSAGE + "" + ACK + ackId + payload), null);
+                    };
+                    events.onEvent(this, event, data, ack);
+                    break;
+                default:
+                    // Acks for server emits: this server never asks for them
+                    break;
+            }
+        }
+
+        private void onConnectPacket(String json) {
+            JsonObject auth = json.isEmpty() ? new JsonObject() : JsonParser.parseString(json).getAsJsonObject();
+            String id = connections.authenticate(auth);
+            if (id == null) {
+                JsonObject error = new JsonObject();
+                error.addProperty("message", "Неверный токен");
+                sendEngine(List.of(MESSAGE + "" + CONNECT_ERROR + error), null);
+                return;
+            }
+            JsonElement codecValue = auth.get("codec");
+            codec = codecValue != null && codecValue.isJsonPrimitive() ? codecValue.getAsString() : null;
+            userId = id;
+            JsonObject ok = new JsonObject();
+            ok.addProperty("sid", UUID.randomUUID().toString());
+            sendEngine(List.of(MESSAGE + "" + CONNECT + ok), null);
+            connections.onConnect(this);
+        }
+
+        private void open() {
+            sessions.put(sid, this);
+            JsonObject handshake = new JsonObject();
+            handshake.addProperty("sid", sid);
+            handshake.add("upgrades", new JsonArray());
+            handshake.addProperty("pingInterval", PING_INTERVAL_MS);
+            handshake.addProperty("pingTimeout", PING_TIMEOUT_MS);
+            handshake.addProperty("maxPayload", 1_000_000);
+            write(OPEN + handshake.toString());
+            pinger = scheduler.scheduleAtFixedRate(() -> {
+                if (System.currentTimeMillis() - lastPong > PING_INTERVAL_MS + PING_TIMEOUT_MS) {
+                    close(true);
+                } else {
+                    write(String.valueOf(PING));
+                }
+            }, PING_INTERVAL_MS, PING_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // ===== HTTP side, called by the MockWebServer dispatcher =====
+
+    MockResponse handle(RecordedRequest request) throws InterruptedException {
+        if (!faults.socketsAvailable()) {
+            return new MockResponse().setResponseCode(503);
+        }
+        HttpUrl url = request.getRequestUrl();
+        String sid = url.queryParameter("sid");
+        if ("websocket".equals(url.queryParameter("transport"))) {
+            // Upgrading an existing polling session is not supported, see upgrades: []
+            if (sid != null) return new MockResponse().setResponseCode(400);
+            return new MockResponse().withWebSocketUpgrade(new WebSocketTransport(new Session()));
+        }
+        if (sid == null) {
+            Session session = new Session();
+            session.open();
+            return poll(session);
+        }
+        Session session = sessions.get(sid);
+        if (session == null || session.closed) {
+            return new MockResponse().setResponseCode(400).setBody("{\"code\":1,\"message\":\"Session ID unknown\"}");
+        }
+        if ("POST".equals(request.getMethod())) {
+            String body = request.getBody().readUtf8();
+            for (String packet : body.split(String.valueOf(RECORD_SEPARATOR))) {
+                if (packet.startsWith("b")) {
+                    // The Java client wraps base64 in lines, the MIME decoder skips the breaks
+                    session.onAttachment(Base64.getMimeDecoder().decode(packet.substring(1)));
+                } else {
+                    session.onEnginePacket(packet);
+                }
+            }
+            return new MockResponse().setBody("ok");
+        }
+        return poll(session);
+    }
+
+    // Long-polling GET: everything queued, or wait for the next packet (a ping at the latest)
+    private MockResponse poll(Session session) throws InterruptedException {
+        String first = session.pollQueue.poll(PING_INTERVAL_MS + PING_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            first = String.valueOf(NOOP);
+        }
+        if (first.isEmpty()) {
+            // Dropped while the request was hanging
+            return new MockResponse().setResponseCode(400);
+        }
+        StringBuilder payload = new StringBuilder(first);
+        String next;
+        while ((next = session.pollQueue.poll()) != null && !next.isEmpty()) {
+            payload.append(RECORD_SEPARATOR).append(next);
+        }
+        return new MockResponse()
+                .setHeader("Content-Type", "text/plain; charset=UTF-8")
+                .setBody(payload.toString());
+    }
+
+    private final class WebSocketTransport extends WebSocketListener {
+        private final Session session;
+
+        WebSocketTransport(Session session) {
+            this.session = session;
+        }
+
+        @Override
+        public void onOpen(WebSocket webSocket, Response response) {
+            session.webSocket = webSocket;
+            session.open();
+        }
+
+        @Override
+        public void onMessage(WebSocket webSocket, String text) {
+            session.onEnginePacket(text);
+        }
+
+        @Override
+        public void onMessage(WebSocket webSocket, ByteString bytes) {
+            session.onAttachment(bytes.toByteArray());
+        }
+
+        @Override
+        public void onClosing(WebSocket webSocket, int code, String reason) {
+            // Answer the close frame, or MockWebServer keeps the connection thread waiting
+            webSocket.close(1000, null);
+            session.close(false);
+        }
+
+        @Override
+        public void onFailure(WebSocket webSocket, Throwable t, Response response) {
+            session.close(true);
+        }
+    }
+
+    // ===== rooms =====
+
+    Collection<Session> sessions() {
+        return sessions.values();
+    }
+
+    void emitToRoom(String room, Session except, String event, Object data) {
+        for (Session session : sessions.values()) {
+            if (session != except && session.isConnected() && session.rooms.contains(room)) {
+                session.emit(event, data);
+            }
+        }
+    }
+
+    // A placeholder object is the n-th binary attachment
+    private static Object attachment(JsonElement arg, List<byte[]> attachments) {
+        if (arg.isJsonObject()) {
+            JsonObject object = arg.getAsJsonObject();
+            JsonElement placeholder = object.get("_placeholder");
+            if (placeholder instanceof JsonPrimitive && placeholder.getAsBoolean()) {
+                int num = object.get("num").getAsInt();
+                return num < attachments.size() ? attachments.get(num) : null;
+            }
+        }
+        return arg;
+    }
+}
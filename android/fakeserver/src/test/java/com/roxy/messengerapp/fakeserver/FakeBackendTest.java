@@ -0,0 +1,289 @@
+package com.roxy.messengerapp.fakeserver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import com.google.gson.GsonBuilder;
+import com.roxy.messengerapp.entities.Chat;
+import com.roxy.messengerapp.entities.Message;
+import com.roxy.messengerapp.network.ApiService;
+import com.roxy.messengerapp.network.MessageTimestampAdapterFactory;
+import com.roxy.messengerapp.network.SocketOptions;
+import com.roxy.messengerapp.network.WireCodec;
+
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import io.socket.client.IO;
+import io.socket.client.Socket;
+import io.socket.engineio.client.transports.WebSocket;
+import okhttp3.OkHttpClient;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+// Клиентские ApiService, MessageTimestampAdapterFactory, SocketOptions и WireCodec против FakeBackend
+public class FakeBackendTest {
+
+    private static final long TIMEOUT_S = 10;
+
+    private FakeBackend backend;
+    private OkHttpClient httpClient;
+    private final List<Socket> sockets = new ArrayList<>();
+
+    @Before
+    public void setUp() throws Exception {
+        backend = FakeBackend.start();
+        httpClient = new OkHttpClient();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        for (Socket socket : sockets) {
+            socket.off();
+            socket.disconnect();
+        }
+        backend.close();
+    }
+
+    @Test
+    public void servesTheRestApi() throws Exception {
+        ApiService anonymous = api(null);
+        Response<ApiService.AuthResponse> registered =
+                anonymous.register(new ApiService.RegisterRequest("alice", "alice@x.io", "secret")).execute();
+        assertEquals(201, registered.code());
+        assertFalse(anonymous.register(new ApiService.RegisterRequest("alice", "alice@x.io", "secret")).execute().isSuccessful());
+
+        ApiService.AuthResponse login = anonymous.login(new ApiService.LoginRequest("alice@x.io", "secret")).execute().body();
+        assertNotNull(login);
+        assertEquals(registered.body().user.getId(), login.user.getId());
+
+        FakeBackend.Account bob = backend.createUser("bob");
+        ApiService alice = api(login.token);
+        ApiService.ChatResponse created = alice.createPrivateChat(new ApiService.CreateChatRequest(bob.getId())).execute().body();
+        assertTrue(created.isNew);
+        assertFalse(alice.createPrivateChat(new ApiService.CreateChatRequest(bob.getId())).execute().body().isNew);
+
+        String chatId = created.chat.getId();
+        backend.burst(chatId, bob, 5);
+        List<Chat> chats = alice.getMyChats().execute().body().chats;
+        assertEquals(1, chats.size());
+        assertEquals("burst 4", chats.get(0).getLastMessage().getContent());
+
+        ApiService.MessagesResponse page = alice.getChatMessages(chatId, 3, 0).execute().body();
+        assertEquals(3, page.messages.size());
+        assertTrue(page.hasMore);
+        assertEquals("burst 2", page.messages.get(0).getContent());
+        ApiService.MessagesResponse older = alice.getChatMessagesBefore(chatId, 3, page.messages.get(0).getId()).execute().body();
+        assertEquals(2, older.messages.size());
+        assertFalse(older.hasMore);
+
+        assertEquals(401, api(null).getMyChats().execute().code());
+    }
+
+    @Test
+    public void syncReturnsWhatWasMissed() throws Exception {
+        FakeBackend.Account alice = backend.createUser("alice");
+        FakeBackend.Account bob = backend.createUser("bob");
+        String chatId = backend.createChat(alice, bob);
+        List<String> ids = backend.burst(chatId, bob, 4);
+
+        ApiService.SyncResponse sync = api(alice.token)
+                .syncChats(new ApiService.SyncRequest(Map.of(chatId, 2L))).execute().body();
+        assertEquals(1, sync.chats.size());
+        ApiService.ChatChanges changes = sync.chats.get(0);
+        assertEquals(4, changes.lastSeq);
+        assertFalse(changes.reset);
+        assertEquals(2, changes.messages.size());
+        assertEquals(ids.get(2), changes.messages.get(0).getId());
+
+        ApiService.SyncResponse upToDate = api(alice.token)
+                .syncChats(new ApiService.SyncRequest(Map.of(chatId, 4L))).execute().body();
+        assertTrue(upToDate.chats.isEmpty());
+    }
+
+    @Test
+    public void injectsRestFailuresAndLatency() throws Exception {
+        FakeBackend.Account alice = backend.createUser("alice");
+        ApiService api = api(alice.token);
+
+        backend.failNextRequests(2);
+        assertEquals(503, api.getMe().execute().code());
+        assertEquals(503, api.getMe().execute().code());
+        assertEquals(200, api.getMe().execute().code());
+
+        backend.setRestLatency(300, 0);
+        long start = System.nanoTime();
+        assertEquals(200, api.getMe().execute().code());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 300);
+    }
+
+    @Test
+    public void deliversMessagesBetweenJsonAndBinaryClients() throws Exception {
+        FakeBackend.Account alice = backend.createUser("alice");
+        FakeBackend.Account bob = backend.createUser("bob");
+        String chatId = backend.createChat(alice, bob);
+
+        // alice: long-polling and JSON, bob: websocket and bin1
+        Socket aliceSocket = connect(alice, null, false);
+        BlockingQueue<Object> bobInbox = new LinkedBlockingQueue<>();
+        Socket bobSocket = connect(bob, WireCodec.NAME, true);
+        bobSocket.on("new_message", args -> bobInbox.add(args[0]));
+
+        JSONObject data = new JSONObject();
+        data.put("clientId", "c-1");
+        data.put("chatId", chatId);
+        data.put("content", "hi bob");
+        BlockingQueue<Object> acks = new LinkedBlockingQueue<>();
+        aliceSocket.emit("send_message", new Object[]{data}, args -> acks.add(args[0]));
+
+        JSONObject ack = (JSONObject) acks.poll(TIMEOUT_S, TimeUnit.SECONDS);
+        assertNotNull(ack);
+        assertTrue(ack.getBoolean("ok"));
+        assertEquals("c-1", ack.getString("clientId"));
+
+        Object received = bobInbox.poll(TIMEOUT_S, TimeUnit.SECONDS);
+        assertTrue(received instanceof byte[]);
+        Message message = WireCodec.decodeMessage((byte[]) received);
+        assertEquals("hi bob", message.getContent());
+        assertEquals(alice.getId(), message.getSenderId());
+        assertEquals(1, message.getSeq());
+
+        // And back: a bin1 send arrives at the JSON client as JSON
+        BlockingQueue<Object> aliceInbox = new LinkedBlockingQueue<>();
+        aliceSocket.on("new_message", args -> aliceInbox.add(args[0]));
+        Message reply = new Message();
+        reply.setClientId("c-2");
+        reply.setChatId(chatId);
+        reply.setContent("hi alice");
+        bobSocket.emit("send_message", (Object) WireCodec.encodeSend(reply));
+
+        Object json = aliceInbox.poll(TIMEOUT_S, TimeUnit.SECONDS);
+        assertTrue(json instanceof JSONObject);
+        assertEquals("hi alice", ((JSONObject) json).getString("content"));
+        assertEquals(2, backend.messagesReceived());
+    }
+
+    @Test
+    public void socketLatencyDelaysEveryPacket() throws Exception {
+        FakeBackend.Account alice = backend.createUser("alice");
+        FakeBackend.Account bob = backend.createUser("bob");
+        String chatId = backend.createChat(alice, bob);
+        Socket bobSocket = connect(bob, null, true);
+        BlockingQueue<Long> arrivals = new LinkedBlockingQueue<>();
+        bobSocket.on("new_message", args -> arrivals.add(System.nanoTime()));
+
+        backend.setSocketLatency(250, 0);
+        long start = System.nanoTime();
+        backend.burst(chatId, alice, 20);
+
+        List<Long> times = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Long at = arrivals.poll(TIMEOUT_S, TimeUnit.SECONDS);
+            assertNotNull(at);
+            times.add(at);
+        }
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(Collections.min(times) - start) >= 250);
+    }
+
+    @Test
+    public void clientsReconnectAfterADrop() throws Exception {
+        FakeBackend.Account alice = backend.createUser("alice");
+        Socket socket = connect(alice, null, true);
+
+        // Outage first: handshakes fail until the backend is back
+        backend.setSocketsAvailable(false);
+        assertEquals(1, backend.dropSockets());
+        Thread.sleep(1500);
+        assertFalse(socket.connected());
+        backend.setSocketsAvailable(true);
+
+        assertTrue(waitFor(socket::connected));
+        assertEquals(2, backend.socketConnects());
+        assertEquals(1, backend.connectedSockets());
+    }
+
+    @Test
+    public void serverDisconnectIsFinal() throws Exception {
+        FakeBackend.Account alice = backend.createUser("alice");
+        Socket socket = connect(alice, null, true);
+        CountDownLatch disconnected = new CountDownLatch(1);
+        socket.on(Socket.EVENT_DISCONNECT, args -> disconnected.countDown());
+
+        assertEquals(1, backend.disconnectSockets());
+        assertTrue(disconnected.await(TIMEOUT_S, TimeUnit.SECONDS));
+        Thread.sleep(1500);
+        assertFalse(socket.connected());
+        assertEquals(1, backend.socketConnects());
+    }
+
+    @Test
+    public void rejectsAnUnknownToken() throws Exception {
+        CountDownLatch failed = new CountDownLatch(1);
+        IO.Options options = SocketOptions.create("nope", null, httpClient);
+        options.reconnection = false;
+        Socket socket = IO.socket(backend.url(), options);
+        sockets.add(socket);
+        socket.on(Socket.EVENT_CONNECT_ERROR, args -> failed.countDown());
+        socket.connect();
+        assertTrue(failed.await(TIMEOUT_S, TimeUnit.SECONDS));
+    }
+
+    // ===== helpers =====
+
+    private ApiService api(String token) {
+        OkHttpClient client = token == null ? httpClient : httpClient.newBuilder()
+                .addInterceptor(chain -> chain.proceed(chain.request().newBuilder()
+                        .addHeader("Authorization", "Bearer " + token)
+                        .build()))
+                .build();
+        return new Retrofit.Builder()
+                .baseUrl(backend.url())
+                .client(client)
+                .addConverterFactory(GsonConverterFactory.create(new GsonBuilder()
+                        .registerTypeAdapterFactory(new MessageTimestampAdapterFactory())
+                        .create()))
+                .build()
+                .create(ApiService.class);
+    }
+
+    // The app's socket options; the codec answer is in before this returns
+    private Socket connect(FakeBackend.Account account, String codec, boolean websocket) throws Exception {
+        IO.Options options = SocketOptions.create(account.token, codec, httpClient);
+        if (websocket) {
+            options.transports = new String[]{WebSocket.NAME};
+        }
+        options.reconnectionDelay = 200;
+        options.reconnectionDelayMax = 500;
+        Socket socket = IO.socket(backend.url(), options);
+        sockets.add(socket);
+        CountDownLatch codecSeen = new CountDownLatch(1);
+        socket.once("codec", args -> codecSeen.countDown());
+        socket.connect();
+        assertTrue(codecSeen.await(TIMEOUT_S, TimeUnit.SECONDS));
+        return socket;
+    }
+
+    private static boolean waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_S);
+        while (System.nanoTime() < deadline) {
+            if (condition.getAsBoolean()) return true;
+            Thread.sleep(20);
+        }
+        return false;
+    }
+}
@@ -0,0 +1,46 @@
+// Headless load generator: N simulated clients against a running backend.
+// Run: ./gradlew :loadgen:run --args="--users 500 --room-size 2 --rate 0.5 --duration 60"
+plugins {
+    application
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+// Same trick as :benchmark — the client's Android-free network code is compiled from the
+// app's source tree, so the load comes from the same API contract and socket settings.
+sourceSets {
+    main {
+        java {
+            srcDir("../app/src/main/java")
+            include("com/roxy/messengerapp/loadgen/**")
+            include("com/roxy/messengerapp/entities/Message.java")
+            include("com/roxy/messengerapp/entities/User.java")
+            include("com/roxy/messengerapp/entities/Chat.java")
+            include("com/roxy/messengerapp/utils/TimeFormatter.java")
+            include("com/roxy/messengerapp/network/ApiService.java")
+            include("com/roxy/messengerapp/network/MessageTimestampAdapterFactory.java")
+            include("com/roxy/messengerapp/network/SocketOptions.java")
+            include("com/roxy/messengerapp/network/WireCodec.java")
+        }
+    }
+}
+
+dependencies {
+    implementation(libs.gson)
+    implementation("com.squareup.retrofit2:retrofit:2.9.0")
+    implementation("com.squareup.retrofit2:converter-gson:2.9.0")
+    implementation("com.squareup.okhttp3:okhttp:4.12.0")
+    implementation("io.socket:socket.io-client:2.1.0")
+}
+
+application {
+    mainClass.set("com.roxy.messengerapp.loadgen.LoadGenerator")
+}
+
+tasks.named<JavaExec>("run") {
+    // Thousands of sockets: keep the JVM from becoming the bottleneck
+    jvmArgs("-Xmx2g")
+}
@@ -0,0 +1,46 @@
+package com.roxy.messengerapp.loadgen;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Fixed 0.1 ms buckets up to a minute, anything slower lands in the last one.
+// Lock-free: recorded from the Socket.IO event thread and the scheduler at once.
+final class LatencyHistogram {
+
+    private static final long BUCKET_NANOS = 100_000;
+    private static final int BUCKETS = 600_000;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS + 1);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    void record(long nanos) {
+        int bucket = (int) Math.min(BUCKETS, Math.max(0, nanos) / BUCKET_NANOS);
+        counts.incrementAndGet(bucket);
+        total.incrementAndGet();
+        maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    long count() {
+        return total.get();
+    }
+
+    // Upper bound of the bucket holding the p-th percentile, 0 when empty
+    double percentileMillis(double percentile) {
+        long count = total.get();
+        if (count == 0) return 0;
+        long target = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i <= BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return (i + 1) * BUCKET_NANOS / 1_000_000.0;
+            }
+        }
+        return maxMillis();
+    }
+
+    double maxMillis() {
+        return maxNanos.get() / 1_000_000.0;
+    }
+}
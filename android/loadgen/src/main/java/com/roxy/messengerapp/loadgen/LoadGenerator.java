@@ -0,0 +1,369 @@
+package com.roxy.messengerapp.loadgen;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.roxy.messengerapp.network.ApiService;
+import com.roxy.messengerapp.network.MessageTimestampAdapterFactory;
+import com.roxy.messengerapp.network.WireCodec;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+// Нагрузочный клиент для бэкенда: N пользователей с тем же ApiService и теми же настройками
+// Socket.IO (SocketOptions), что у приложения. Регистрирует или логинит пользователей,
+// раскладывает их по чатам заданного размера, подключает сокеты и шлёт сообщения
+// с заданной частотой. Итог — задержка send -> new_message у каждого получателя и доля ошибок.
+public final class LoadGenerator {
+
+    private static final String USAGE = String.join("\n",
+            "Usage: loadgen [options]",
+            "  --url <url>          backend base URL (default http://localhost:3000)",
+            "  --users <n>          simulated users (default 100)",
+            "  --room-size <n>      members per chat, 2 = private chats (default 2)",
+            "  --rate <msg/s>       messages per second per user, Poisson (default 0.2)",
+            "  --duration <s>       sending phase length (default 60)",
+            "  --ramp-up <s>        spread socket connects over this time (default 10)",
+            "  --codec json|bin1    socket codec to ask for (default json)",
+            "  --prefix <name>      account name prefix; reruns with the same prefix reuse accounts (default lg)",
+            "  --password <pw>      password for all accounts (default loadgen123)",
+            "  --http-concurrency <n>  parallel REST calls during setup (default 16)",
+            "  --ack-timeout <ms>   send without an ack after this counts as an error (default 10000)",
+            "  --drain <s>          wait for late deliveries after sending stops (default 5)");
+
+    static final class Config {
+        String url = "http://localhost:3000";
+        int users = 100;
+        int roomSize = 2;
+        double rate = 0.2;
+        int durationSeconds = 60;
+        int rampUpSeconds = 10;
+        String codec = "json";
+        String prefix = "lg";
+        String password = "loadgen123";
+        int httpConcurrency = 16;
+        long ackTimeoutMs = 10_000;
+        int drainSeconds = 5;
+
+        static Config parse(String[] args) {
+            Config config = new Config();
+            for (int i = 0; i < args.length; i++) {
+                String name = args[i];
+                if (name.equals("--help") || name.equals("-h")) {
+                    throw new IllegalArgumentException("");
+                }
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Missing value for " + name);
+                }
+                String value = args[++i];
+                try {
+                    switch (name) {
+                        case "--url": config.url = value.endsWith("/") ? value.substring(0, value.length() - 1) : value; break;
+                        case "--users": config.users = Integer.parseInt(value); break;
+                        case "--room-size": config.roomSize = Integer.parseInt(value); break;
+                        case "--rate": config.rate = Double.parseDouble(value); break;
+                        case "--duration": config.durationSeconds = Integer.parseInt(value); break;
+                        case "--ramp-up": config.rampUpSeconds = Integer.parseInt(value); break;
+                        case "--codec": config.codec = value; break;
+                        case "--prefix": config.prefix = value; break;
+                        case "--password": config.password = value; break;
+                        case "--http-concurrency": config.httpConcurrency = Integer.parseInt(value); break;
+                        case "--ack-timeout": config.ackTimeoutMs = Long.parseLong(value); break;
+                        case "--drain": config.drainSeconds = Integer.parseInt(value); break;
+                        default: throw new IllegalArgumentException("Unknown option " + name);
+                    }
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Not a number for " + name + ": " + value);
+                }
+            }
+            if (config.users < 2 || config.roomSize < 2 || config.roomSize > config.users) {
+                throw new IllegalArgumentException("Need --users >= --room-size >= 2");
+            }
+            if (config.rate <= 0 || config.durationSeconds <= 0) {
+                throw new IllegalArgumentException("--rate and --duration must be positive");
+            }
+            if (!config.codec.equals("json") && !config.codec.equals(WireCodec.NAME)) {
+                throw new IllegalArgumentException("--codec must be json or " + WireCodec.NAME);
+            }
+            return config;
+        }
+    }
+
+    // Shared counters; written from the Socket.IO event thread, the scheduler and the setup pool
+    static final class Stats {
+        final AtomicLong httpErrors = new AtomicLong();
+        final AtomicLong connectErrors = new AtomicLong();
+        final AtomicLong disconnects = new AtomicLong();
+        final AtomicLong reconnects = new AtomicLong();
+        final AtomicLong sent = new AtomicLong();
+        final AtomicLong sendSkipped = new AtomicLong();
+        final AtomicLong ackOk = new AtomicLong();
+        final AtomicLong ackFailed = new AtomicLong();
+        final AtomicLong ackTimeouts = new AtomicLong();
+        final AtomicLong expectedDeliveries = new AtomicLong();
+        final AtomicLong deliveries = new AtomicLong();
+        final LatencyHistogram deliveryLatency = new LatencyHistogram();
+        final LatencyHistogram ackLatency = new LatencyHistogram();
+        // clientId -> System.nanoTime() of the send; one JVM, so the clocks agree
+        private final Map<String, Long> sentAt = new ConcurrentHashMap<>();
+        volatile boolean running;
+
+        void onSent(String clientId, long nanos, int recipients) {
+            sentAt.put(clientId, nanos);
+            sent.incrementAndGet();
+            expectedDeliveries.addAndGet(recipients);
+        }
+
+        void onDelivered(String clientId, long nanos) {
+            Long sentNanos = clientId != null ? sentAt.get(clientId) : null;
+            // Someone else's traffic, or a message from an earlier run
+            if (sentNanos == null) return;
+            deliveries.incrementAndGet();
+            deliveryLatency.record(nanos - sentNanos);
+        }
+    }
+
+    private final Config config;
+    private final Stats stats = new Stats();
+    private final OkHttpClient httpClient;
+    private final Retrofit.Builder retrofit;
+    private final ApiService publicApi;
+
+    private LoadGenerator(Config config) {
+        this.config = config;
+        // Default limits (5 per host) would serialize the setup calls and polling handshakes
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(Math.max(64, config.httpConcurrency * 2));
+        dispatcher.setMaxRequestsPerHost(Math.max(64, config.httpConcurrency * 2));
+        this.httpClient = new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .connectTimeout(15, TimeUnit.SECONDS)
+                .readTimeout(30, TimeUnit.SECONDS)
+                .build();
+        Gson gson = new GsonBuilder()
+                .registerTypeAdapterFactory(new MessageTimestampAdapterFactory())
+                .create();
+        this.retrofit = new Retrofit.Builder()
+                .baseUrl(config.url + "/")
+                .addConverterFactory(GsonConverterFactory.create(gson));
+        this.publicApi = retrofit.client(httpClient).build().create(ApiService.class);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Config config;
+        try {
+            config = Config.parse(args);
+        } catch (IllegalArgumentException e) {
+            if (!e.getMessage().isEmpty()) {
+                System.err.println(e.getMessage());
+            }
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+        int exitCode = new LoadGenerator(config).run();
+        System.exit(exitCode);
+    }
+
+    private int run() throws Exception {
+        System.out.printf(Locale.US, "Target %s: %d users, rooms of %d, %.2f msg/s per user for %d s, codec %s%n",
+                config.url, config.users, config.roomSize, config.rate, config.durationSeconds, config.codec);
+
+        List<SimulatedUser> users = authenticate();
+        System.out.printf(Locale.US, "Accounts ready: %d/%d%n", users.size(), config.users);
+
+        List<List<SimulatedUser>> rooms = createRooms(users);
+        System.out.printf(Locale.US, "Chats ready: %d%n", rooms.size());
+        if (rooms.isEmpty()) {
+            System.err.println("No chats, nothing to send");
+            return 1;
+        }
+
+        List<SimulatedUser> members = new ArrayList<>();
+        for (List<SimulatedUser> room : rooms) {
+            members.addAll(room);
+        }
+        int connected = connect(members);
+        System.out.printf(Locale.US, "Sockets connected: %d/%d%n", connected, members.size());
+
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(
+                Math.max(2, Runtime.getRuntime().availableProcessors()));
+        stats.running = true;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(config.durationSeconds);
+        for (SimulatedUser user : members) {
+            scheduleNextSend(scheduler, user, deadline);
+        }
+        ScheduledProgress progress = new ScheduledProgress();
+        scheduler.scheduleAtFixedRate(progress, 5, 5, TimeUnit.SECONDS);
+
+        Thread.sleep(TimeUnit.SECONDS.toMillis(config.durationSeconds + config.drainSeconds));
+        stats.running = false;
+        scheduler.shutdownNow();
+        for (SimulatedUser user : members) {
+            user.close();
+        }
+        report(connected, members.size());
+        return 0;
+    }
+
+    private List<SimulatedUser> authenticate() throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(config.httpConcurrency);
+        List<Future<SimulatedUser>> futures = new ArrayList<>();
+        for (int i = 0; i < config.users; i++) {
+            SimulatedUser user = new SimulatedUser(config.prefix, i, stats);
+            futures.add(pool.submit(() -> user.authenticate(publicApi, config.password) ? user : null));
+        }
+        List<SimulatedUser> users = new ArrayList<>();
+        for (Future<SimulatedUser> future : futures) {
+            SimulatedUser user = await(future);
+            if (user != null) {
+                users.add(user);
+            }
+        }
+        pool.shutdown();
+        return users;
+    }
+
+    // Consecutive groups of room-size; a leftover smaller than two stays out
+    private List<List<SimulatedUser>> createRooms(List<SimulatedUser> users) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(config.httpConcurrency);
+        List<List<SimulatedUser>> groups = new ArrayList<>();
+        List<Future<String>> futures = new ArrayList<>();
+        for (int start = 0; start + 1 < users.size(); start += config.roomSize) {
+            List<SimulatedUser> group = new ArrayList<>(users.subList(start, Math.min(users.size(), start + config.roomSize)));
+            SimulatedUser owner = group.get(0);
+            ApiService api = authorizedApi(owner.getToken());
+            groups.add(group);
+            futures.add(pool.submit(() -> owner.createChat(api, group.subList(1, group.size()))));
+        }
+        List<List<SimulatedUser>> rooms = new ArrayList<>();
+        for (int i = 0; i < groups.size(); i++) {
+            String chatId = await(futures.get(i));
+            if (chatId == null) continue;
+            List<SimulatedUser> group = groups.get(i);
+            for (SimulatedUser member : group) {
+                member.joinRoom(chatId, group.size());
+            }
+            rooms.add(group);
+        }
+        pool.shutdown();
+        return rooms;
+    }
+
+    // Connects are spread over the ramp-up so the server sees a climb, not a wall
+    private int connect(List<SimulatedUser> members) throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(members.size());
+        long stepNanos = TimeUnit.SECONDS.toNanos(config.rampUpSeconds) / members.size();
+        long start = System.nanoTime();
+        String codec = config.codec.equals(WireCodec.NAME) ? WireCodec.NAME : null;
+        for (int i = 0; i < members.size(); i++) {
+            long wait = start + i * stepNanos - System.nanoTime();
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+            try {
+                members.get(i).connect(config.url, codec, httpClient, latch::countDown);
+            } catch (java.net.URISyntaxException e) {
+                throw new IllegalArgumentException("Bad --url: " + config.url, e);
+            }
+        }
+        latch.await(30, TimeUnit.SECONDS);
+        int connected = 0;
+        for (SimulatedUser user : members) {
+            if (user.isConnected()) connected++;
+        }
+        return connected;
+    }
+
+    // Exponential gaps: independent users sending at random moments, not in lockstep
+    private void scheduleNextSend(ScheduledExecutorService scheduler, SimulatedUser user, long deadline) {
+        double gapSeconds = -Math.log(1 - ThreadLocalRandom.current().nextDouble()) / config.rate;
+        long gapNanos = (long) (gapSeconds * 1_000_000_000L);
+        if (System.nanoTime() + gapNanos >= deadline) return;
+        scheduler.schedule(() -> {
+            user.sendOne(scheduler, config.ackTimeoutMs);
+            scheduleNextSend(scheduler, user, deadline);
+        }, gapNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private ApiService authorizedApi(String token) {
+        OkHttpClient client = httpClient.newBuilder()
+                .addInterceptor(chain -> chain.proceed(chain.request().newBuilder()
+                        .addHeader("Authorization", "Bearer " + token)
+                        .build()))
+                .build();
+        return retrofit.client(client).build().create(ApiService.class);
+    }
+
+    private static <T> T await(Future<T> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (java.util.concurrent.ExecutionException e) {
+            return null;
+        }
+    }
+
+    private final class ScheduledProgress implements Runnable {
+        private final long start = System.nanoTime();
+
+        @Override
+        public void run() {
+            long elapsed = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start);
+            System.out.printf(Locale.US, "[%3ds] sent %d, delivered %d/%d, p99 %.1f ms, errors %d%n",
+                    elapsed, stats.sent.get(), stats.deliveries.get(), stats.expectedDeliveries.get(),
+                    stats.deliveryLatency.percentileMillis(99), errorCount());
+        }
+    }
+
+    private long errorCount() {
+        return stats.ackFailed.get() + stats.ackTimeouts.get() + stats.sendSkipped.get()
+                + stats.connectErrors.get() + stats.disconnects.get();
+    }
+
+    private void report(int connected, int members) {
+        long sent = stats.sent.get();
+        long expected = stats.expectedDeliveries.get();
+        long delivered = stats.deliveries.get();
+        long lost = Math.max(0, expected - delivered);
+        long ackErrors = stats.ackFailed.get() + stats.ackTimeouts.get();
+
+        System.out.println();
+        System.out.println("=== Result ===");
+        System.out.printf(Locale.US, "Sockets:     %d/%d connected, %d connect errors, %d disconnects, %d reconnects%n",
+                connected, members, stats.connectErrors.get(), stats.disconnects.get(), stats.reconnects.get());
+        System.out.printf(Locale.US, "HTTP setup:  %d errors%n", stats.httpErrors.get());
+        System.out.printf(Locale.US, "Sent:        %d (%.1f msg/s), %d skipped while disconnected%n",
+                sent, sent / (double) config.durationSeconds, stats.sendSkipped.get());
+        System.out.printf(Locale.US, "Acks:        %d ok, %d failed, %d timed out (%.2f%% errors)%n",
+                stats.ackOk.get(), stats.ackFailed.get(), stats.ackTimeouts.get(), percent(ackErrors, sent));
+        System.out.printf(Locale.US, "Deliveries:  %d/%d, %d lost (%.2f%%)%n",
+                delivered, expected, lost, percent(lost, expected));
+        printLatency("send -> new_message", stats.deliveryLatency);
+        printLatency("send -> ack", stats.ackLatency);
+    }
+
+    private static void printLatency(String label, LatencyHistogram histogram) {
+        System.out.printf(Locale.US, "%-20s p50 %.1f ms  p95 %.1f ms  p99 %.1f ms  max %.1f ms  (n=%d)%n",
+                label + ":", histogram.percentileMillis(50), histogram.percentileMillis(95),
+                histogram.percentileMillis(99), histogram.maxMillis(), histogram.count());
+    }
+
+    private static double percent(long part, long whole) {
+        return whole == 0 ? 0 : part * 100.0 / whole;
+    }
+}
@@ -0,0 +1,215 @@
+package com.roxy.messengerapp.loadgen;
+
+import com.roxy.messengerapp.entities.Message;
+import com.roxy.messengerapp.network.ApiService;
+import com.roxy.messengerapp.network.SocketOptions;
+import com.roxy.messengerapp.network.WireCodec;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import io.socket.client.IO;
+import io.socket.client.Socket;
+import okhttp3.OkHttpClient;
+import retrofit2.Response;
+
+// Один виртуальный пользователь: REST-аккаунт, свой сокет и исходящий поток сообщений.
+final class SimulatedUser {
+
+    private final String username;
+    private final String email;
+    private final LoadGenerator.Stats stats;
+
+    private String userId;
+    private String token;
+    private String chatId;
+    private int roomSize;
+    private Socket socket;
+    private volatile boolean binaryCodec;
+    private final AtomicBoolean everConnected = new AtomicBoolean();
+
+    SimulatedUser(String prefix, int index, LoadGenerator.Stats stats) {
+        this.username = prefix + "_" + index;
+        this.email = prefix + "_" + index + "@loadgen.local";
+        this.stats = stats;
+    }
+
+    String getUserId() {
+        return userId;
+    }
+
+    String getToken() {
+        return token;
+    }
+
+    void joinRoom(String chatId, int roomSize) {
+        this.chatId = chatId;
+        this.roomSize = roomSize;
+    }
+
+    boolean hasRoom() {
+        return chatId != null;
+    }
+
+    // A rerun with the same prefix reuses the accounts: register fails, login works
+    boolean authenticate(ApiService api, String password) {
+        try {
+            Response<ApiService.AuthResponse> response =
+                    api.register(new ApiService.RegisterRequest(username, email, password)).execute();
+            if (!response.isSuccessful()) {
+                response = api.login(new ApiService.LoginRequest(email, password)).execute();
+            }
+            ApiService.AuthResponse body = response.body();
+            if (!response.isSuccessful() || body == null || body.user == null) {
+                stats.httpErrors.incrementAndGet();
+                return false;
+            }
+            token = body.token;
+            userId = body.user.getId();
+            return true;
+        } catch (IOException e) {
+            stats.httpErrors.incrementAndGet();
+            return false;
+        }
+    }
+
+    // Called on the room's first member; private chat for two, group for more
+    String createChat(ApiService api, List<SimulatedUser> others) {
+        try {
+            Response<ApiService.ChatResponse> response;
+            if (others.size() == 1) {
+                response = api.createPrivateChat(new ApiService.CreateChatRequest(others.get(0).userId)).execute();
+            } else {
+                List<String> userIds = new ArrayList<>();
+                for (SimulatedUser other : others) {
+                    userIds.add(other.userId);
+                }
+                response = api.createGroupChat(new ApiService.CreateGroupChatRequest(username + " room", userIds)).execute();
+            }
+            ApiService.ChatResponse body = response.body();
+            if (!response.isSuccessful() || body == null || body.chat == null) {
+                stats.httpErrors.incrementAndGet();
+                return null;
+            }
+            return body.chat.getId();
+        } catch (IOException e) {
+            stats.httpErrors.incrementAndGet();
+            return null;
+        }
+    }
+
+    void connect(String url, String codec, OkHttpClient httpClient, Runnable onFirstConnect) throws URISyntaxException {
+        IO.Options options = SocketOptions.create(token, codec, httpClient);
+        socket = IO.socket(url, options);
+
+        socket.on(Socket.EVENT_CONNECT, args -> {
+            if (everConnected.compareAndSet(false, true)) {
+                onFirstConnect.run();
+            } else {
+                stats.reconnects.incrementAndGet();
+            }
+        });
+        socket.on(Socket.EVENT_CONNECT_ERROR, args -> stats.connectErrors.incrementAndGet());
+        socket.on(Socket.EVENT_DISCONNECT, args -> {
+            binaryCodec = false;
+            if (stats.running) {
+                stats.disconnects.incrementAndGet();
+            }
+        });
+        socket.on("codec", args -> {
+            if (args.length > 0 && args[0] instanceof JSONObject) {
+                binaryCodec = WireCodec.NAME.equals(((JSONObject) args[0]).optString("codec"));
+            }
+        });
+        socket.on("new_message", args -> {
+            long now = System.nanoTime();
+            if (args.length == 0) return;
+            String senderId;
+            String clientId;
+            if (args[0] instanceof byte[]) {
+                Message message = WireCodec.decodeMessage((byte[]) args[0]);
+                senderId = message.getSenderId();
+                clientId = message.getClientId();
+            } else if (args[0] instanceof JSONObject) {
+                JSONObject message = (JSONObject) args[0];
+                senderId = message.optString("senderId");
+                clientId = message.optString("clientId");
+            } else {
+                return;
+            }
+            // The room echo of our own message is not a delivery
+            if (userId.equals(senderId)) return;
+            stats.onDelivered(clientId, now);
+        });
+        socket.connect();
+    }
+
+    boolean isConnected() {
+        return socket != null && socket.connected();
+    }
+
+    // One message out; the ack (or its absence) is accounted in stats
+    void sendOne(ScheduledExecutorService scheduler, long ackTimeoutMs) {
+        if (!isConnected()) {
+            stats.sendSkipped.incrementAndGet();
+            return;
+        }
+        String clientId = UUID.randomUUID().toString();
+        Object payload;
+        try {
+            if (binaryCodec) {
+                Message message = new Message();
+                message.setClientId(clientId);
+                message.setChatId(chatId);
+                message.setType("text");
+                message.setContent("load " + clientId);
+                payload = WireCodec.encodeSend(message);
+            } else {
+                JSONObject data = new JSONObject();
+                data.put("clientId", clientId);
+                data.put("chatId", chatId);
+                data.put("type", "text");
+                data.put("content", "load " + clientId);
+                payload = data;
+            }
+        } catch (JSONException e) {
+            stats.sendSkipped.incrementAndGet();
+            return;
+        }
+
+        AtomicBoolean settled = new AtomicBoolean();
+        long sentAt = System.nanoTime();
+        stats.onSent(clientId, sentAt, roomSize - 1);
+        socket.emit("send_message", new Object[]{payload}, args -> {
+            if (!settled.compareAndSet(false, true)) return;
+            boolean ok = args.length > 0 && args[0] instanceof JSONObject && ((JSONObject) args[0]).optBoolean("ok");
+            if (ok) {
+                stats.ackOk.incrementAndGet();
+                stats.ackLatency.record(System.nanoTime() - sentAt);
+            } else {
+                stats.ackFailed.incrementAndGet();
+            }
+        });
+        scheduler.schedule(() -> {
+            if (settled.compareAndSet(false, true)) {
+                stats.ackTimeouts.incrementAndGet();
+            }
+        }, ackTimeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    void close() {
+        if (socket != null) {
+            socket.disconnect();
+            socket.off();
+        }
+    }
+}
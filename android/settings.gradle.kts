@@ -21,4 +21,7 @@ dependencyResolutionManagement {
 
 rootProject.name = "MessengerApp"
 include(":app")
+include(":benchmark")
+include(":loadgen")
+include(":fakeserver")
  
\ No newline at end of file
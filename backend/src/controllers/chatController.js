@@ -184,10 +184,13 @@ const getMyChats = async (req, res) => {
 };
 
 // Получить сообщения чата
+// Курсоры: ?before=<messageId> — страница старше сообщения, ?after=<messageId> — новее.
+// Без курсора работает старый offset для совместимости.
 const getChatMessages = async (req, res) => {
     try {
         const { chatId } = req.params;
-        const { limit = 50, offset = 0 } = req.query;
+        const { limit = 50, offset = 0, before, after } = req.query;
+        const pageSize = Math.min(parseInt(limit) || 50, 200);
 
         // Проверяем что пользователь в чате
         const participant = await ChatParticipant.findOne({
@@ -198,19 +201,50 @@ const getChatMessages = async (req, res) => {
             return res.status(403).json({ message: 'Нет доступа к чату' });
         }
 
+        const cursorId = before || after;
+        const where = { chatId };
+        let order = [['createdAt', 'DESC'], ['id', 'DESC']];
+
+        if (cursorId) {
+            const cursor = await Message.findOne({
+                where: { id: cursorId, chatId },
+                attributes: ['id', 'createdAt']
+            });
+            if (!cursor) {
+                return res.status(404).json({ message: 'Сообщение-курсор не найдено' });
+            }
+
+            // (createdAt, id) строго меньше/больше курсора — стабильно при новых сообщениях
+            const cmp = before ? Op.lt : Op.gt;
+            where[Op.or] = [
+                { createdAt: { [cmp]: cursor.createdAt } },
+                { createdAt: cursor.createdAt, id: { [cmp]: cursor.id } }
+            ];
+            if (after) {
+                order = [['createdAt', 'ASC'], ['id', 'ASC']];
+            }
+        }
+
+        // Берём на одно больше, чтобы знать есть ли ещё страница
         const messages = await Message.findAll({
-            where: { chatId },
+            where,
             include: [{
                 model: User,
                 as: 'sender',
                 attributes: ['id', 'username', 'avatar']
             }],
-            order: [['createdAt', 'DESC']],
-            limit: parseInt(limit),
-            offset: parseInt(offset)
+            order,
+            limit: pageSize + 1,
+            offset: cursorId ? 0 : parseInt(offset)
         });
 
-        res.json({ messages: messages.reverse() });
+        const hasMore = messages.length > pageSize;
+        const page = messages.slice(0, pageSize);
+
+        res.json({
+            messages: after ? page : page.reverse(),
+            hasMore
+        });
 
     } catch (error) {
         console.error('Get messages error:', error);
@@ -218,6 +252,69 @@ const getChatMessages = async (req, res) => {
     }
 };
 
+// Догоняющая синхронизация после реконнекта или пропуска в seq.
+// Тело: { since: { chatId: seq } } — последний применённый клиентом номер события по каждому чату.
+// Ответ только по изменившимся чатам: новые сообщения и id удалённых после since.
+// reset: true — клиент не знал чат или отстал больше чем на SYNC_LIMIT, тогда приходят
+// только самые свежие сообщения, а водяной знак просто переносится на lastSeq.
+const SYNC_LIMIT = 200;
+
+const syncChats = async (req, res) => {
+    try {
+        const since = (req.body && req.body.since) || {};
+
+        const participations = await ChatParticipant.findAll({
+            where: { userId: req.user.id },
+            include: [{ model: Chat, attributes: ['id', 'lastSeq'] }]
+        });
+
+        const changes = await Promise.all(participations.map(async (p) => {
+            if (!p.Chat) return null;
+            const chatId = p.chatId;
+            const lastSeq = p.Chat.lastSeq;
+            const known = Object.prototype.hasOwnProperty.call(since, chatId);
+            const from = known ? (parseInt(since[chatId]) || 0) : 0;
+
+            if (known && from >= lastSeq) return null; // ничего не пропущено
+
+            const [messages, deleted] = await Promise.all([
+                Message.findAll({
+                    where: { chatId, seq: { [Op.gt]: from } },
+                    include: [{
+                        model: User,
+                        as: 'sender',
+                        attributes: ['id', 'username', 'avatar']
+                    }],
+                    // Свежие первыми: при переполнении важнее конец, а не начало
+                    order: [['seq', 'DESC']],
+                    limit: known ? SYNC_LIMIT + 1 : 1
+                }),
+                known ? Message.findAll({
+                    where: { chatId, deletedSeq: { [Op.gt]: from } },
+                    attributes: ['id'],
+                    paranoid: false,
+                    limit: SYNC_LIMIT + 1
+                }) : []
+            ]);
+
+            const reset = !known || messages.length > SYNC_LIMIT || deleted.length > SYNC_LIMIT;
+            return {
+                chatId,
+                lastSeq,
+                messages: messages.slice(0, SYNC_LIMIT).reverse(),
+                deletedIds: reset ? [] : deleted.map(m => m.id),
+                reset
+            };
+        }));
+
+        res.json({ chats: changes.filter(Boolean) });
+
+    } catch (error) {
+        console.error('Sync error:', error);
+        res.status(500).json({ message: 'Ошибка сервера' });
+    }
+};
+
 const deleteChat = async (req, res) => {
     try {
         const { chatId } = req.params;
@@ -229,8 +326,8 @@ const deleteChat = async (req, res) => {
         if (!participant) {
             return res.status(403).json({ message: 'Нет доступа к чату' });
         }
-        // Delete messages first, then participants, then chat
-        await Message.destroy({ where: { chatId } });
+        // Delete messages first, then participants, then chat (no tombstones, the chat is gone)
+        await Message.destroy({ where: { chatId }, force: true });
         await ChatParticipant.destroy({ where: { chatId } });
         await Chat.destroy({ where: { id: chatId } });
         res.json({ message: 'Чат удалён' });
@@ -245,5 +342,6 @@ module.exports = {
     createGroupChat,
     getMyChats,
     getChatMessages,
+    syncChats,
     deleteChat
 };
\ No newline at end of file
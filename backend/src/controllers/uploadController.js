@@ -3,26 +3,41 @@ const { getSignedUrl } = require('@aws-sdk/s3-request-presigner');
 const { s3Client } = require('../config/s3Config');
 const { v4: uuidv4 } = require('uuid');
 
+const presignPut = (key, fileType) => {
+    const command = new PutObjectCommand({
+        Bucket: process.env.S3_BUCKET_NAME,
+        Key: key,
+        ContentType: fileType,
+    });
+    return getSignedUrl(s3Client, command, { expiresIn: 300 });
+};
+
+const publicUrl = (key) =>
+    `https://${process.env.S3_BUCKET_NAME}.s3.${process.env.AWS_REGION}.amazonaws.com/${key}`;
+
 const getPresignedUrl = async (req, res) => {
     try {
 
-        const { fileType } = req.query; // e.g., "image/jpeg"
+        const { fileType, withThumbnail } = req.query; // e.g., "image/jpeg"
 
         if (!fileType || !fileType.startsWith('image/')) {
             return res.status(400).json({ error: 'Invalid file type' });
         }
 
         const extension = fileType.split('/')[1];
-        const key = `chat-images/${uuidv4()}.${extension}`;
+        const id = uuidv4();
+        const key = `chat-images/${id}.${extension}`;
 
-        const command = new PutObjectCommand({
-            Bucket: process.env.S3_BUCKET_NAME,
-            Key: key,
-            ContentType: fileType,
-        });
+        const presignedUrl = await presignPut(key, fileType);
+        const imageUrl = publicUrl(key);
 
-        const presignedUrl = await getSignedUrl(s3Client, command, { expiresIn: 300 });
-        const imageUrl = `https://${process.env.S3_BUCKET_NAME}.s3.${process.env.AWS_REGION}.amazonaws.com/${key}`;
+        // Клиент сам делает превью и кладёт его рядом с оригиналом
+        if (withThumbnail === 'true') {
+            const thumbnailKey = `chat-images/${id}_thumb.${extension}`;
+            const thumbnailPresignedUrl = await presignPut(thumbnailKey, fileType);
+            const thumbnailUrl = publicUrl(thumbnailKey);
+            return res.json({ presignedUrl, imageUrl, key, thumbnailPresignedUrl, thumbnailUrl });
+        }
 
         res.json({ presignedUrl, imageUrl, key });
     } catch (error) {
@@ -43,14 +58,8 @@ const getPresignedUrlForAvatar = async (req, res) => {
         const userId = req.user.id; // Используем ID пользователя в имени файла
         const key = `avatars/user-${userId}-${Date.now()}.${extension}`;
 
-        const command = new PutObjectCommand({
-            Bucket: process.env.S3_BUCKET_NAME,
-            Key: key,
-            ContentType: fileType,
-        });
-
-        const presignedUrl = await getSignedUrl(s3Client, command, { expiresIn: 300 });
-        const imageUrl = `https://${process.env.S3_BUCKET_NAME}.s3.${process.env.AWS_REGION}.amazonaws.com/${key}`;
+        const presignedUrl = await presignPut(key, fileType);
+        const imageUrl = publicUrl(key);
 
         res.json({ presignedUrl, imageUrl, key });
     } catch (error) {
@@ -18,9 +18,30 @@ const Chat = sequelize.define('Chat', {
     avatar: {
         type: DataTypes.STRING,
         allowNull: true
+    },
+    // Номер последнего события в чате (новое или удалённое сообщение), см. nextSeq
+    lastSeq: {
+        type: DataTypes.INTEGER,
+        allowNull: false,
+        defaultValue: 0
     }
 }, {
     timestamps: true
 });
 
+// Следующий номер события в чате. UPDATE блокирует строку чата до конца транзакции,
+// поэтому номера идут без пропусков в порядке коммита: клиент, увидевший seq N,
+// может быть уверен, что все события до N уже в базе.
+Chat.nextSeq = async (chatId, transaction) => {
+    const [rows] = await sequelize.query(
+        'UPDATE "Chats" SET "lastSeq" = "lastSeq" + 1 WHERE "id" = :chatId RETURNING "lastSeq"',
+        { replacements: { chatId }, transaction }
+    );
+    if (rows.length === 0) {
+        // permanent: повтор той же отправки не поможет, см. socketHandler isPermanent
+        throw Object.assign(new Error('Chat not found: ' + chatId), { permanent: true });
+    }
+    return rows[0].lastSeq;
+};
+
 module.exports = Chat;
\ No newline at end of file
@@ -15,6 +15,40 @@ const Message = sequelize.define('Message', {
         type: DataTypes.ENUM('text', 'image', 'file'),
         defaultValue: 'text'
     },
+    // Превью для картинок, content хранит полный размер
+    thumbnailUrl: {
+        type: DataTypes.STRING,
+        allowNull: true
+    },
+    // Размер полной картинки и BlurHash-заглушка: клиент считает их при загрузке,
+    // чтобы пузырь занимал место до скачивания. У старых сообщений пусто
+    width: {
+        type: DataTypes.INTEGER,
+        allowNull: true
+    },
+    height: {
+        type: DataTypes.INTEGER,
+        allowNull: true
+    },
+    blurHash: {
+        type: DataTypes.STRING,
+        allowNull: true
+    },
+    // Генерирует клиент; повтор той же отправки находит уже созданное сообщение
+    clientId: {
+        type: DataTypes.UUID,
+        allowNull: true
+    },
+    // Номер события создания в чате; старые сообщения без него
+    seq: {
+        type: DataTypes.INTEGER,
+        allowNull: true
+    },
+    // Номер события удаления: удалённое остаётся надгробием, чтобы sync мог о нём сообщить
+    deletedSeq: {
+        type: DataTypes.INTEGER,
+        allowNull: true
+    },
     isRead: {
         type: DataTypes.BOOLEAN,
         defaultValue: false
@@ -24,7 +58,14 @@ const Message = sequelize.define('Message', {
         defaultValue: false
     }
 }, {
-    timestamps: true
+    timestamps: true,
+    // destroy() только проставляет deletedAt, обычные запросы удалённых не видят
+    paranoid: true,
+    indexes: [
+        { unique: true, fields: ['senderId', 'clientId'] },
+        { fields: ['chatId', 'seq'] },
+        { fields: ['chatId', 'deletedSeq'] }
+    ]
 });
 
 module.exports = Message;
\ No newline at end of file
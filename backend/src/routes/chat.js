@@ -5,6 +5,7 @@ const {
     createGroupChat,
     getMyChats,
     getChatMessages,
+    syncChats,
     deleteChat
 } = require('../controllers/chatController');
 const authMiddleware = require('../middleware/auth');
@@ -15,6 +16,7 @@ router.post('/private', createPrivateChat);
 router.post('/group', createGroupChat);
 router.get('/', getMyChats);
 router.get('/:chatId/messages', getChatMessages);
+router.post('/sync', syncChats); // пропущенное с момента since
 router.delete('/:chatId', deleteChat); // удалить чат!
 
 module.exports = router;
\ No newline at end of file
@@ -1,6 +1,60 @@
 const jwt = require('jsonwebtoken');
 const { User, Chat, Message, ChatParticipant } = require('../models');
+const { sequelize } = require('../config/database');
 const admin = require('../config/firebase');
+const wire = require('./wireCodec');
+
+// bin1-клиенты чата сидят ещё и в этой комнате: им уходит Buffer, всем остальным — JSON
+const binRoom = (chatId) => `${chatId}#${wire.NAME}`;
+
+// from — io (всем в чате) или socket (всем, кроме отправителя)
+const emitToChat = (from, chatId, event, payload, encode) => {
+    from.to(chatId).except(binRoom(chatId)).emit(event, payload);
+    from.to(binRoom(chatId)).emit(event, encode(payload));
+};
+
+// Бинарное событие от клиента приводится к тому же объекту, что и JSON
+const decodeIncoming = (data, decode) => {
+    if (!Buffer.isBuffer(data)) return data;
+    try {
+        return decode(data);
+    } catch (error) {
+        console.error('Wire decode error:', error.message);
+        return null;
+    }
+};
+
+// Размер и BlurHash картинки от клиента; что не похоже на правду — не сохраняем
+const BLUR_HASH_RE = /^[0-9A-Za-z#$%*+,\-.:;=?@[\]^_{|}~]{6,166}$/;
+const MAX_IMAGE_EDGE = 20000;
+
+const imageInfo = (type, { width, height, blurHash }) => {
+    if (type !== 'image') return { width: null, height: null, blurHash: null };
+    const edge = (value) => (Number.isInteger(value) && value > 0 && value <= MAX_IMAGE_EDGE ? value : null);
+    const w = edge(width);
+    const h = edge(height);
+    return {
+        width: w && h ? w : null,
+        height: w && h ? h : null,
+        blurHash: typeof blurHash === 'string' && BLUR_HASH_RE.test(blurHash) ? blurHash : null
+    };
+};
+
+// Ошибка, которую повтор той же отправки не исправит: чата нет, данные не проходят проверку.
+// Клиент получает retry: false и перестаёт слать это сообщение; остальное (база недоступна,
+// таймаут) — retry: true, outbox повторит позже
+const isPermanent = (error) => error.permanent === true
+    || error.name === 'SequelizeValidationError'
+    || error.name === 'SequelizeForeignKeyConstraintError'
+    // 22P02 — не UUID в uuid-колонке, 22001 — строка длиннее колонки
+    || (error.name === 'SequelizeDatabaseError' && ['22P02', '22001'].includes(error.parent && error.parent.code));
+
+const sendFailure = (clientId, error) => ({
+    ok: false,
+    retry: !isPermanent(error),
+    clientId: clientId || null,
+    error: 'Ошибка отправки сообщения'
+});
 
 const setupSocket = (io) => {
     // Проверка токена при подключении
@@ -15,6 +69,7 @@ const setupSocket = (io) => {
         try {
             const decoded = jwt.verify(token, process.env.JWT_SECRET);
             socket.userId = decoded.id;
+            socket.codec = socket.handshake.auth.codec === wire.NAME ? wire.NAME : 'json';
             console.log('Socket auth success:', socket.userId);
             next();
         } catch (error) {
@@ -27,6 +82,16 @@ const setupSocket = (io) => {
         console.log('=== USER CONNECTED ===');
         console.log('User ID:', socket.userId);
 
+        // Ответ на auth.codec: до этого клиент шлёт JSON
+        socket.emit('codec', { codec: socket.codec });
+
+        const joinChat = (chatId) => {
+            socket.join(chatId);
+            if (socket.codec === wire.NAME) {
+                socket.join(binRoom(chatId));
+            }
+        };
+
         try {
             // Обновляем статус онлайн
             await User.update(
@@ -42,7 +107,7 @@ const setupSocket = (io) => {
 
             // Присоединяемся к комнатам
             participants.forEach(p => {
-                socket.join(p.chatId);
+                joinChat(p.chatId);
                 console.log(`User ${socket.userId} joined room ${p.chatId}`);
             });
 
@@ -52,88 +117,165 @@ const setupSocket = (io) => {
             console.error('Connection setup error:', error);
         }
 
-        // Отправка сообщения
-        socket.on('send_message', async (data) => {
-            console.log('=== SEND MESSAGE ===');
-            console.log('From:', socket.userId);
-            console.log('Data:', JSON.stringify(data));
+        // Сохраняет одно сообщение клиента. Повтор с тем же clientId (ack потерялся,
+        // outbox отправил ещё раз) возвращает уже созданное, а не дубликат
+        const storeMessage = async (data) => {
+            const { chatId, content, type = 'text', thumbnailUrl = null, clientId = null } = data || {};
+            const { width, height, blurHash } = imageInfo(type, data || {});
+            if (!chatId || typeof content !== 'string' || content.length === 0) {
+                throw Object.assign(new Error('Invalid message'), { permanent: true });
+            }
+            const withSender = { include: [{ model: User, as: 'sender' }] };
 
+            // paranoid: false — повтор уже удалённого сообщения не должен его воскресить
+            const findExisting = () => Message.findOne({
+                where: { clientId, senderId: socket.userId },
+                paranoid: false,
+                ...withSender
+            });
+
+            if (clientId) {
+                const existing = await findExisting();
+                if (existing) {
+                    return { message: existing, created: false };
+                }
+            }
+
+            let message;
             try {
-                const { chatId, content, type = 'text' } = data;
-
-                // Создаём сообщение
-                const message = await Message.create({
-                    content,
-                    type,
-                    chatId,
-                    senderId: socket.userId
+                // seq и вставка в одной транзакции: номер не виден другим, пока сообщения нет в базе
+                message = await sequelize.transaction(async (transaction) => {
+                    const seq = await Chat.nextSeq(chatId, transaction);
+                    return Message.create({
+                        content,
+                        type,
+                        thumbnailUrl,
+                        width,
+                        height,
+                        blurHash,
+                        clientId,
+                        seq,
+                        chatId,
+                        senderId: socket.userId
+                    }, { transaction });
                 });
+            } catch (error) {
+                // Два повтора пришли одновременно — второй упёрся в уникальный индекс
+                if (clientId && error.name === 'SequelizeUniqueConstraintError') {
+                    return { message: await findExisting(), created: false };
+                }
+                throw error;
+            }
 
-                console.log('Message created:', message.id);
+            console.log('Message created:', message.id);
 
-                // Достаём с данными отправителя
-                const fullMessage = await Message.findByPk(message.id, {
-                    include: [{ model: User, as: 'sender' }]
-                });
+            // Достаём с данными отправителя
+            const fullMessage = await Message.findByPk(message.id, withSender);
+            return { message: fullMessage, created: true };
+        };
 
-                // Отправляем всем в чате
-                io.to(chatId).emit('new_message', fullMessage);
-                console.log('Emitted to room:', chatId);
-
-                // === ОТПРАВКА PUSH УВЕДОМЛЕНИЯ ===
-                if (admin.apps.length > 0) {
-                    try {
-                        const participants = await ChatParticipant.findAll({
-                            where: { chatId },
-                            include: [{
-                                model: User,
-                                attributes: ['id', 'fcmToken']
-                            }]
-                        });
+        // === ОТПРАВКА PUSH УВЕДОМЛЕНИЯ ===
+        const sendPush = async (fullMessage) => {
+            const { chatId } = fullMessage;
+            if (admin.apps.length === 0) return;
+            try {
+                const participants = await ChatParticipant.findAll({
+                    where: { chatId },
+                    include: [{
+                        model: User,
+                        attributes: ['id', 'fcmToken']
+                    }]
+                });
 
-                        const tokens = [];
-                        participants.forEach(p => {
-                            if (p.userId !== socket.userId && p.User && p.User.fcmToken) {
-                                tokens.push(p.User.fcmToken);
-                            }
-                        });
+                const tokens = [];
+                participants.forEach(p => {
+                    if (p.userId !== socket.userId && p.User && p.User.fcmToken) {
+                        tokens.push(p.User.fcmToken);
+                    }
+                });
 
 
-                        if (tokens.length > 0) {
-                            const messagePayload = {
-                                notification: {
-                                    title: fullMessage.sender.username,
-                                    body: content
-                                },
-                                tokens: tokens,
-                                data: {
-                                    chatId: chatId.toString(),
-                                    messageId: message.id.toString(),
-                                    click_action: "FLUTTER_NOTIFICATION_CLICK" // Generic action, or customize
-                                }
-                            };
-
-                            const response = await admin.messaging().sendEachForMulticast(messagePayload);
-                            console.log('FCM sent:', response.successCount + ' messages');
-                            if (response.failureCount > 0) {
-                                const failedTokens = [];
-                                response.responses.forEach((resp, idx) => {
-                                    if (!resp.success) {
-                                        failedTokens.push(tokens[idx]);
-                                    }
-                                });
-                                console.log('List of tokens that caused failures: ' + failedTokens);
-                            }
+                if (tokens.length > 0) {
+                    const messagePayload = {
+                        notification: {
+                            title: fullMessage.sender.username,
+                            body: fullMessage.content
+                        },
+                        tokens: tokens,
+                        data: {
+                            chatId: chatId.toString(),
+                            messageId: fullMessage.id.toString(),
+                            click_action: "FLUTTER_NOTIFICATION_CLICK" // Generic action, or customize
                         }
-                    } catch (e) {
-                        console.error("FCM send error", e);
+                    };
+
+                    const response = await admin.messaging().sendEachForMulticast(messagePayload);
+                    console.log('FCM sent:', response.successCount + ' messages');
+                    if (response.failureCount > 0) {
+                        const failedTokens = [];
+                        response.responses.forEach((resp, idx) => {
+                            if (!resp.success) {
+                                failedTokens.push(tokens[idx]);
+                            }
+                        });
+                        console.log('List of tokens that caused failures: ' + failedTokens);
                     }
                 }
-                // =================================
+            } catch (e) {
+                console.error("FCM send error", e);
+            }
+        };
+
+        // Новое сообщение — в комнату и пуш; повтор уже разослан, отвечаем только ack
+        const publishMessage = async (data) => {
+            const { message, created } = await storeMessage(data);
+            if (created) {
+                emitToChat(io, message.chatId, 'new_message', message, wire.encodeMessage);
+                console.log('Emitted to room:', message.chatId);
+                await sendPush(message);
+            }
+            return message;
+        };
 
+        // Отправка сообщения. ack — необязательный колбэк Socket.IO, старые клиенты его не передают
+        socket.on('send_message', async (payload, ack) => {
+            const data = decodeIncoming(payload, wire.decodeSend);
+            if (!data) return;
+            console.log('=== SEND MESSAGE ===');
+            console.log('From:', socket.userId);
+            console.log('Data:', JSON.stringify(data));
+
+            try {
+                const message = await publishMessage(data);
+                if (typeof ack === 'function') {
+                    ack({ ok: true, clientId: data.clientId || null, message });
+                }
             } catch (error) {
                 console.error('Send message error:', error);
                 socket.emit('error', { message: 'Ошибка отправки сообщения' });
+                if (typeof ack === 'function') {
+                    ack(sendFailure(data.clientId, error));
+                }
+            }
+        });
+
+        // Outbox после реконнекта: всё неотправленное одной пачкой, по порядку
+        socket.on('send_message_batch', async (data, ack) => {
+            const messages = (data && Array.isArray(data.messages)) ? data.messages : [];
+            console.log(`=== SEND MESSAGE BATCH (${messages.length}) ===`);
+
+            const results = [];
+            for (const item of messages) {
+                try {
+                    const message = await publishMessage(item);
+                    results.push({ ok: true, clientId: item.clientId || null, message });
+                } catch (error) {
+                    console.error('Batch message error:', error);
+                    results.push(sendFailure(item && item.clientId, error));
+                }
+            }
+            if (typeof ack === 'function') {
+                ack({ results });
             }
         });
 
@@ -141,17 +283,26 @@ const setupSocket = (io) => {
             const { messageId, chatId } = data;
             const userId = socket.userId;
 
-            // Find and verify ownership
-            const message = await Message.findByPk(messageId);
-            if (!message || message.senderId !== userId) {
-                return; // Not authorized
-            }
+            try {
+                // Find and verify ownership
+                const message = await Message.findByPk(messageId);
+                if (!message || message.senderId !== userId || message.chatId !== chatId) {
+                    return; // Not authorized
+                }
 
-            // Delete from database
-            await message.destroy();
+                // Мягкое удаление с номером события, sync отдаст его тем, кто был офлайн
+                const seq = await sequelize.transaction(async (transaction) => {
+                    const deletedSeq = await Chat.nextSeq(chatId, transaction);
+                    await message.update({ deletedSeq }, { transaction });
+                    await message.destroy({ transaction });
+                    return deletedSeq;
+                });
 
-            // Broadcast to all users in chat
-            io.to(chatId).emit('message_deleted', { messageId, chatId });
+                // Broadcast to all users in chat
+                emitToChat(io, chatId, 'message_deleted', { messageId, chatId, seq }, wire.encodeDeletion);
+            } catch (error) {
+                console.error('Delete message error:', error);
+            }
         });
 
         // Присоединиться к новому чату
@@ -163,7 +314,7 @@ const setupSocket = (io) => {
             });
 
             if (participant) {
-                socket.join(chatId);
+                joinChat(chatId);
                 console.log(`User ${socket.userId} joined new room ${chatId}`);
             } else {
                 socket.emit('error', { message: 'Нет доступа к этому чату' });
@@ -193,13 +344,40 @@ const setupSocket = (io) => {
             }
         });
 
-        // Печатает...
-        socket.on('typing', (data) => {
-            const { chatId } = data;
-            socket.to(chatId).emit('user_typing', {
+        // Печатает... Клиент шлёт только смену состояния (start/stop),
+        // а не каждое нажатие, поэтому в комнату уходит по событию на переход
+        socket.typingChats = new Set();
+
+        const emitTyping = (chatId, isTyping) => {
+            if (!chatId) return;
+            if (isTyping) {
+                socket.typingChats.add(chatId);
+            } else if (!socket.typingChats.delete(chatId)) {
+                return;
+            }
+            emitToChat(socket, chatId, 'user_typing', {
                 chatId,
-                userId: socket.userId
-            });
+                userId: socket.userId,
+                isTyping
+            }, wire.encodeTyping);
+        };
+
+        const typingChatId = (payload) => {
+            const data = decodeIncoming(payload, wire.decodeChatRef);
+            return data && data.chatId;
+        };
+
+        socket.on('typing_start', (payload) => emitTyping(typingChatId(payload), true));
+        socket.on('typing_stop', (payload) => emitTyping(typingChatId(payload), false));
+
+        // Старые клиенты шлют 'typing' на каждый символ
+        socket.on('typing', (data) => emitTyping(data && data.chatId, true));
+
+        // Ушёл посреди набора — собеседники не должны ждать таймаута
+        socket.on('disconnecting', () => {
+            for (const chatId of socket.typingChats) {
+                emitTyping(chatId, false);
+            }
         });
 
         // Отключение
@@ -0,0 +1,230 @@
+// Бинарный формат событий сокета "bin1", пара к WireCodec.java в приложении.
+// Схема фиксированная: байт версии, потом поля в известном порядке. UUID идут 16 байтами
+// вместо 36 символов, числа — varint, время — миллисекунды вместо ISO-строки.
+// Клиент просит его в handshake (auth.codec), остальные получают JSON как раньше.
+
+const NAME = 'bin1';
+const VERSION = 1;
+
+const STR_NULL = 0;
+const STR_UUID = 1;
+const STR_TEXT = 2;
+
+const FLAG_READ = 1;
+const FLAG_EDITED = 1 << 1;
+const FLAG_TIME = 1 << 2;
+const FLAG_SENDER = 1 << 3;
+const FLAG_SENDER_ONLINE = 1 << 4;
+// Размеры и BlurHash картинки — после всего остального: старый декодер до них не дочитывает
+const FLAG_IMAGE = 1 << 5;
+const FLAG_TYPING = 1;
+
+// Только каноничный вид в нижнем регистре — иначе строка не вернулась бы байт в байт
+const UUID_RE = /^[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}$/;
+
+class Writer {
+    constructor() {
+        this.parts = [];
+        this.bytes = [];
+    }
+
+    varint(value) {
+        // Numbers above 2^31 (seq, millis) can't go through bitwise operators
+        let v = Number(value);
+        while (v >= 0x80) {
+            this.bytes.push((v % 0x80) | 0x80);
+            v = Math.floor(v / 0x80);
+        }
+        this.bytes.push(v);
+    }
+
+    // Zigzag, как в Java
+    signed(value) {
+        this.varint(value >= 0 ? value * 2 : -value * 2 - 1);
+    }
+
+    string(s) {
+        if (s === null || s === undefined) {
+            this.varint(STR_NULL);
+            return;
+        }
+        s = String(s);
+        if (UUID_RE.test(s)) {
+            this.varint(STR_UUID);
+            const hex = s.replace(/-/g, '');
+            for (let i = 0; i < 32; i += 2) {
+                this.bytes.push(parseInt(hex.substr(i, 2), 16));
+            }
+            return;
+        }
+        const utf8 = Buffer.from(s, 'utf8');
+        this.varint(STR_TEXT);
+        this.varint(utf8.length);
+        this.flush();
+        this.parts.push(utf8);
+    }
+
+    flush() {
+        if (this.bytes.length > 0) {
+            this.parts.push(Buffer.from(this.bytes));
+            this.bytes = [];
+        }
+    }
+
+    toBuffer() {
+        this.flush();
+        return Buffer.concat(this.parts);
+    }
+}
+
+class Reader {
+    constructor(buffer) {
+        this.buf = buffer;
+        this.pos = 0;
+        const version = this.varint();
+        if (version !== VERSION) {
+            throw new Error(`Unsupported wire version ${version}`);
+        }
+    }
+
+    varint() {
+        let value = 0;
+        let scale = 1;
+        for (let i = 0; i < 10; i++) {
+            const b = this.next();
+            value += (b & 0x7f) * scale;
+            if ((b & 0x80) === 0) return value;
+            scale *= 0x80;
+        }
+        throw new Error('Malformed varint');
+    }
+
+    signed() {
+        const v = this.varint();
+        return v % 2 === 0 ? v / 2 : -(v + 1) / 2;
+    }
+
+    string() {
+        const tag = this.varint();
+        if (tag === STR_NULL) return null;
+        if (tag === STR_UUID) {
+            this.check(16);
+            const hex = this.buf.toString('hex', this.pos, this.pos + 16);
+            this.pos += 16;
+            return `${hex.slice(0, 8)}-${hex.slice(8, 12)}-${hex.slice(12, 16)}-${hex.slice(16, 20)}-${hex.slice(20)}`;
+        }
+        if (tag === STR_TEXT) {
+            const length = this.varint();
+            this.check(length);
+            const s = this.buf.toString('utf8', this.pos, this.pos + length);
+            this.pos += length;
+            return s;
+        }
+        throw new Error(`Unknown string tag ${tag}`);
+    }
+
+    hasMore() {
+        return this.pos < this.buf.length;
+    }
+
+    next() {
+        this.check(1);
+        return this.buf[this.pos++];
+    }
+
+    check(count) {
+        if (count > this.buf.length - this.pos) {
+            throw new Error('Truncated payload');
+        }
+    }
+}
+
+const hasImageInfo = (m) => (m.width > 0 && m.height > 0) || m.blurHash != null;
+
+// new_message: экземпляр Message с sender или уже готовый объект
+const encodeMessage = (message) => {
+    const m = typeof message.toJSON === 'function' ? message.toJSON() : message;
+    const sender = m.sender || null;
+    const createdAt = m.createdAt ? new Date(m.createdAt).getTime() : NaN;
+    const hasTime = !Number.isNaN(createdAt);
+    const flags = (m.isRead ? FLAG_READ : 0)
+        | (m.isEdited ? FLAG_EDITED : 0)
+        | (hasTime ? FLAG_TIME : 0)
+        | (sender ? FLAG_SENDER : 0)
+        | (sender && sender.isOnline ? FLAG_SENDER_ONLINE : 0)
+        | (hasImageInfo(m) ? FLAG_IMAGE : 0);
+
+    const out = new Writer();
+    out.varint(VERSION);
+    out.varint(flags);
+    out.string(m.id);
+    out.string(m.chatId);
+    out.string(m.senderId);
+    out.string(m.clientId);
+    out.string(m.type);
+    out.string(m.content);
+    out.string(m.thumbnailUrl);
+    out.varint(m.seq || 0);
+    if (hasTime) {
+        out.signed(createdAt);
+    }
+    if (sender) {
+        out.string(sender.id);
+        out.string(sender.username);
+        out.string(sender.avatar);
+    }
+    if (flags & FLAG_IMAGE) {
+        out.varint(m.width || 0);
+        out.varint(m.height || 0);
+        out.string(m.blurHash);
+    }
+    return out.toBuffer();
+};
+
+// send_message от клиента — в тот же вид, что и JSON-вариант
+const decodeSend = (buffer) => {
+    const input = new Reader(buffer);
+    const clientId = input.string();
+    const chatId = input.string();
+    const type = input.string();
+    const content = input.string();
+    const thumbnailUrl = input.string();
+    const send = { clientId, chatId, type: type || undefined, content, thumbnailUrl };
+    // Необязательный хвост, клиенты до него его не пишут
+    if (input.hasMore()) {
+        send.width = input.varint();
+        send.height = input.varint();
+        send.blurHash = input.string();
+    }
+    return send;
+};
+
+const encodeDeletion = ({ messageId, chatId, seq }) => {
+    const out = new Writer();
+    out.varint(VERSION);
+    out.string(messageId);
+    out.string(chatId);
+    out.varint(seq || 0);
+    return out.toBuffer();
+};
+
+const encodeTyping = ({ chatId, userId, isTyping }) => {
+    const out = new Writer();
+    out.varint(VERSION);
+    out.varint(isTyping ? FLAG_TYPING : 0);
+    out.string(chatId);
+    out.string(userId);
+    return out.toBuffer();
+};
+
+// typing_start / typing_stop: { chatId }
+const decodeChatRef = (buffer) => ({ chatId: new Reader(buffer).string() });
+
+module.exports = {
+    NAME,
+    encodeMessage,
+    decodeSend,
+    encodeDeletion,
+    encodeTyping,
+    decodeChatRef
+};